@@ -0,0 +1,135 @@
+package com.videoflix.users_microservice.config;
+
+import com.videoflix.users_microservice.config.RateLimitConfig.Profile;
+import com.videoflix.users_microservice.entities.RateLimitBucket;
+import com.videoflix.users_microservice.repositories.RateLimitBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buckets partagés par toutes les instances, stockés dans la table
+ * {@code rate_limit_buckets}. La limite est donc globale au cluster et non
+ * multipliée par le nombre de réplicas.
+ * <p>
+ * Chaque consommation lit la ligne sous verrou ({@code SELECT ... FOR UPDATE}),
+ * la remplit selon le temps écoulé puis l'enregistre, dans une transaction
+ * courte. Seul du JPA standard est utilisé : le stockage fonctionne sur la base
+ * MySQL configurée comme sur PostgreSQL. Deux instances qui créent la même clé
+ * en même temps se départagent sur la clé primaire ; la perdante recommence une
+ * fois, la ligne existant alors.
+ * <p>
+ * Si la base est indisponible, la requête est laissée passer : une panne du
+ * stockage ne doit pas bloquer l'authentification.
+ */
+@Component
+@ConditionalOnProperty(name = "application.rate-limit.backend", havingValue = "jdbc")
+public class JdbcRateLimitBucketStore implements RateLimitBucketStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcRateLimitBucketStore.class);
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final RateLimitBucketRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleMillis;
+    private final AtomicLong nextPurge = new AtomicLong(System.currentTimeMillis() + PURGE_INTERVAL_MILLIS);
+
+    /**
+     * Constructeur pour JdbcRateLimitBucketStore.
+     *
+     * @param repository         Le repository des buckets partagés.
+     * @param config             La configuration de la limitation de débit.
+     * @param transactionManager Le gestionnaire de transactions de la base.
+     */
+    public JdbcRateLimitBucketStore(RateLimitBucketRepository repository, RateLimitConfig config,
+            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Un bucket inactif depuis la plus longue période est plein : il peut être
+        // supprimé.
+        Duration longest = config.getDefaultProfile().getPeriod();
+        for (Profile profile : config.getProfiles()) {
+            if (profile.getPeriod().compareTo(longest) > 0) {
+                longest = profile.getPeriod();
+            }
+        }
+        this.idleMillis = longest.toMillis();
+    }
+
+    @Override
+    public Consumption tryConsume(Profile profile, String key) {
+        long now = System.currentTimeMillis();
+        double refillPerMilli = (double) profile.getCapacity() / profile.getPeriod().toMillis();
+        String bucketKey = profile.getName() + ':' + key;
+        try {
+            purgeIfDue(now);
+            RateLimitBucket bucket;
+            try {
+                bucket = consume(bucketKey, profile.getCapacity(), refillPerMilli, now);
+            } catch (DataIntegrityViolationException e) {
+                // Bucket créé au même instant par une autre instance : il existe désormais.
+                bucket = consume(bucketKey, profile.getCapacity(), refillPerMilli, now);
+            }
+            if (bucket.isConsumed()) {
+                return new Consumption(true, 0);
+            }
+            double waitMillis = (1 - bucket.getTokens()) / refillPerMilli;
+            return new Consumption(false, Math.max(1, (long) Math.ceil(waitMillis / 1000)));
+        } catch (DataAccessException e) {
+            logger.warn("Limitation de débit indisponible pour le profil {} : {}", profile.getName(), e.getMessage());
+            return new Consumption(true, 0);
+        }
+    }
+
+    @Override
+    public long bucketCount() {
+        try {
+            return repository.count();
+        } catch (DataAccessException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Remplit le bucket selon le temps écoulé (plafonné à la capacité) puis
+     * consomme un jeton s'il y en a un, sous le verrou de la ligne.
+     */
+    private RateLimitBucket consume(String bucketKey, long capacity, double refillPerMilli, long now) {
+        return transactionTemplate.execute(status -> {
+            RateLimitBucket bucket = repository.findForUpdate(bucketKey).orElseGet(() -> {
+                RateLimitBucket created = new RateLimitBucket();
+                created.setBucketKey(bucketKey);
+                created.setTokens(capacity);
+                created.setRefilledAt(now);
+                return created;
+            });
+            double tokens = Math.min(capacity,
+                    bucket.getTokens() + Math.max(0, now - bucket.getRefilledAt()) * refillPerMilli);
+            boolean consumed = tokens >= 1;
+            bucket.setTokens(consumed ? tokens - 1 : tokens);
+            bucket.setRefilledAt(Math.max(bucket.getRefilledAt(), now));
+            RateLimitBucket saved = repository.saveAndFlush(bucket);
+            // Champ non persisté : la copie renvoyée par merge ne le porte pas.
+            saved.setConsumed(consumed);
+            return saved;
+        });
+    }
+
+    private void purgeIfDue(long now) {
+        long due = nextPurge.get();
+        if (now >= due && nextPurge.compareAndSet(due, now + PURGE_INTERVAL_MILLIS)) {
+            int purged = repository.deleteIdleBefore(now - idleMillis);
+            logger.debug("{} bucket(s) de limitation de débit inactif(s) supprimé(s).", purged);
+        }
+    }
+}
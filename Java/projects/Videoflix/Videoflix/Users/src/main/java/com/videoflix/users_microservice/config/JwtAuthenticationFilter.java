@@ -1,7 +1,7 @@
 package com.videoflix.users_microservice.config;
 
+import com.videoflix.users_microservice.config.JwtTokenVerifier.VerifiedToken;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -14,16 +14,15 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtConfig jwtConfig;
+    private final JwtTokenVerifier jwtTokenVerifier;
 
-    public JwtAuthenticationFilter(JwtConfig jwtConfig) {
-        this.jwtConfig = jwtConfig;
+    public JwtAuthenticationFilter(JwtTokenVerifier jwtTokenVerifier) {
+        this.jwtTokenVerifier = jwtTokenVerifier;
     }
 
     /**
@@ -70,21 +69,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      */
     private void validateToken(String token, HttpServletResponse response) throws IOException {
         try {
-            // Parse le token JWT et récupère les claims (informations contenues dans le
-            // token).
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            // Vérifie le token (parseur et clés partagés, cache des tokens déjà
+            // vérifiés).
+            VerifiedToken verifiedToken = jwtTokenVerifier.verify(token);
 
             // Récupère l'ID de l'utilisateur (subject) du token.
-            String userId = claims.getSubject();
+            String userId = verifiedToken.subject();
             // Si l'ID de l'utilisateur est présent, crée un token d'authentification et le
             // définit dans le contexte de sécurité.
             if (userId != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userId, null, new ArrayList<>());
+                        userId, null, List.of());
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
         } catch (ExpiredJwtException e) {
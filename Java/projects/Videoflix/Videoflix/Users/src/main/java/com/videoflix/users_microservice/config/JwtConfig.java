@@ -4,12 +4,19 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "application.jwt")
 @Validated
 public class JwtConfig {
     private String secret;
     private long expiration;
+    private String keyId = "primary";
+    private Map<String, String> previousSecrets = new LinkedHashMap<>();
+    private int verifiedCacheSize = 10_000;
+    private long verifiedCacheTtl = 300_000;
 
     /**
      * Obtient la clé secrète utilisée pour signer les tokens JWT.
@@ -46,4 +53,78 @@ public class JwtConfig {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtient l'identifiant (kid) de la clé de signature courante.
+     *
+     * @return L'identifiant de la clé courante.
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * Définit l'identifiant (kid) de la clé de signature courante.
+     *
+     * @param keyId L'identifiant de la clé courante.
+     */
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    /**
+     * Obtient les clés précédentes, encore acceptées en vérification pendant une
+     * rotation, indexées par identifiant (kid).
+     *
+     * @return Les clés précédentes par identifiant.
+     */
+    public Map<String, String> getPreviousSecrets() {
+        return previousSecrets;
+    }
+
+    /**
+     * Définit les clés précédentes encore acceptées en vérification.
+     *
+     * @param previousSecrets Les clés précédentes par identifiant.
+     */
+    public void setPreviousSecrets(Map<String, String> previousSecrets) {
+        this.previousSecrets = previousSecrets;
+    }
+
+    /**
+     * Obtient le nombre maximal de tokens vérifiés conservés en cache.
+     *
+     * @return La taille maximale du cache.
+     */
+    public int getVerifiedCacheSize() {
+        return verifiedCacheSize;
+    }
+
+    /**
+     * Définit le nombre maximal de tokens vérifiés conservés en cache.
+     *
+     * @param verifiedCacheSize La taille maximale du cache.
+     */
+    public void setVerifiedCacheSize(int verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+    }
+
+    /**
+     * Obtient la durée maximale de conservation d'un token vérifié en cache, en
+     * millisecondes. Un token n'est jamais conservé au-delà de son expiration.
+     *
+     * @return La durée maximale en millisecondes.
+     */
+    public long getVerifiedCacheTtl() {
+        return verifiedCacheTtl;
+    }
+
+    /**
+     * Définit la durée maximale de conservation d'un token vérifié en cache.
+     *
+     * @param verifiedCacheTtl La durée maximale en millisecondes.
+     */
+    public void setVerifiedCacheTtl(long verifiedCacheTtl) {
+        this.verifiedCacheTtl = verifiedCacheTtl;
+    }
+}
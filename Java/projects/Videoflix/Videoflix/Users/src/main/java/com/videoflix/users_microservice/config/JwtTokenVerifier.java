@@ -0,0 +1,223 @@
+package com.videoflix.users_microservice.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Vérifie les tokens JWT avec des parseurs et des clés construits une seule
+ * fois.
+ * <p>
+ * La clé est choisie d'après l'en-tête {@code kid} : la clé courante et les
+ * clés précédentes ({@code application.jwt.previous-secrets}) restent
+ * acceptées pendant une rotation. Un token sans {@code kid}, émis avant la
+ * rotation, est essayé avec chacune des clés.
+ * <p>
+ * Un token déjà vérifié est conservé dans un cache borné, indexé par son
+ * empreinte SHA-256 (le token lui-même n'est pas gardé en mémoire), jusqu'à
+ * son expiration au plus tard. Les requêtes suivantes portant le même token
+ * évitent le décodage et la vérification de signature.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    });
+
+    /**
+     * Résultat d'une vérification réussie.
+     *
+     * @param subject         Le sujet du token (ID de l'utilisateur).
+     * @param expiresAtMillis L'expiration du token (epoch en millisecondes), ou
+     *                        {@link Long#MAX_VALUE} s'il n'expire pas.
+     */
+    public record VerifiedToken(String subject, long expiresAtMillis) {
+    }
+
+    private record TokenHash(long a, long b, long c, long d) {
+    }
+
+    private record CachedToken(VerifiedToken token, long cachedUntilMillis) {
+    }
+
+    private final Clock clock;
+    private final JwtParser parser;
+    private final List<JwtParser> fallbackParsers;
+    private final int cacheSize;
+    private final long cacheTtlMillis;
+    private final ConcurrentHashMap<TokenHash, CachedToken> verified = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Constructeur pour JwtTokenVerifier.
+     *
+     * @param jwtConfig La configuration JWT (clés et cache).
+     */
+    @Autowired
+    public JwtTokenVerifier(JwtConfig jwtConfig) {
+        this(jwtConfig, Clock.systemUTC());
+    }
+
+    public JwtTokenVerifier(JwtConfig jwtConfig, Clock clock) {
+        this.clock = clock;
+        this.cacheSize = jwtConfig.getVerifiedCacheSize();
+        this.cacheTtlMillis = jwtConfig.getVerifiedCacheTtl();
+
+        SecretKey currentKey = hmacKey(jwtConfig.getSecret());
+        Map<String, Key> keysById = new HashMap<>();
+        keysById.put(jwtConfig.getKeyId(), currentKey);
+        this.fallbackParsers = new ArrayList<>();
+        for (Map.Entry<String, String> previous : jwtConfig.getPreviousSecrets().entrySet()) {
+            SecretKey key = hmacKey(previous.getValue());
+            keysById.put(previous.getKey(), key);
+            fallbackParsers.add(Jwts.parserBuilder()
+                    .setClock(() -> new Date(clock.millis()))
+                    .setSigningKey(key)
+                    .build());
+        }
+
+        this.parser = Jwts.parserBuilder()
+                .setClock(() -> new Date(clock.millis()))
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        String keyId = header.getKeyId();
+                        if (keyId == null) {
+                            return currentKey;
+                        }
+                        Key key = keysById.get(keyId);
+                        if (key == null) {
+                            throw new SignatureException("Clé de signature JWT inconnue : " + keyId);
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Vérifie un token et en extrait le sujet.
+     *
+     * @param token Le token JWT compact.
+     * @return Le token vérifié.
+     * @throws io.jsonwebtoken.JwtException Si le token est expiré, malformé, mal
+     *                                      signé ou non supporté.
+     * @throws IllegalArgumentException     Si le token est vide.
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Token JWT vide ou nul.");
+        }
+        long now = clock.millis();
+        TokenHash hash = hash(token);
+        CachedToken cached = verified.get(hash);
+        if (cached != null) {
+            if (now < cached.cachedUntilMillis()) {
+                return cached.token();
+            }
+            // Expiré : la vérification complète produit l'erreur adaptée.
+            verified.remove(hash, cached);
+        }
+
+        VerifiedToken result = parse(token);
+        long cachedUntil = Math.min(result.expiresAtMillis(), now + cacheTtlMillis);
+        if (cachedUntil > now && reserveCacheSlot()) {
+            verified.put(hash, new CachedToken(result, cachedUntil));
+        }
+        return result;
+    }
+
+    /**
+     * Obtient le nombre de tokens vérifiés conservés en cache.
+     *
+     * @return La taille du cache.
+     */
+    public int getCachedTokens() {
+        return verified.size();
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (SignatureException e) {
+            // Token sans kid émis avec une clé précédente.
+            claims = parseWithPreviousKeys(token, e);
+        }
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(claims.getSubject(), expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    private Claims parseWithPreviousKeys(String token, SignatureException original) {
+        for (JwtParser fallback : fallbackParsers) {
+            try {
+                return fallback.parseClaimsJws(token).getBody();
+            } catch (SignatureException e) {
+                // Clé suivante.
+            }
+        }
+        throw original;
+    }
+
+    /**
+     * Indique si une entrée peut être ajoutée : au-delà de la taille maximale,
+     * les entrées expirées sont d'abord supprimées (au plus une fois par
+     * seconde) ; si le cache reste plein, le token n'est pas conservé.
+     */
+    private boolean reserveCacheSlot() {
+        if (verified.size() < cacheSize) {
+            return true;
+        }
+        long nowNanos = System.nanoTime();
+        if (nowNanos - lastSweep >= SWEEP_INTERVAL_NANOS && sweepLock.tryLock()) {
+            try {
+                long now = clock.millis();
+                verified.values().removeIf(entry -> entry.cachedUntilMillis() <= now);
+                lastSweep = nowNanos;
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+        return verified.size() < cacheSize;
+    }
+
+    private static TokenHash hash(String token) {
+        MessageDigest digest = SHA_256.get();
+        ByteBuffer buffer = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new TokenHash(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,117 @@
+package com.videoflix.users_microservice.config;
+
+import com.videoflix.users_microservice.config.RateLimitConfig.Profile;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buckets conservés dans la mémoire de l'instance.
+ * <p>
+ * La table est bornée à {@code application.rate-limit.max-keys} entrées. Un
+ * bucket inactif depuis plus d'une période est de nouveau plein : il est
+ * supprimé sans changer le comportement de la limite. Quand la table est
+ * pleine malgré le nettoyage, les nouveaux clients partagent un bucket de
+ * débordement par profil plutôt que de faire croître la mémoire.
+ */
+@Component
+@ConditionalOnProperty(name = "application.rate-limit.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitBucketStore implements RateLimitBucketStore {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long FORCED_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Entry> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Bucket> overflow = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Constructeur pour LocalRateLimitBucketStore.
+     *
+     * @param config La configuration de la limitation de débit.
+     */
+    public LocalRateLimitBucketStore(RateLimitConfig config) {
+        this.maxKeys = config.getMaxKeys();
+    }
+
+    @Override
+    public Consumption tryConsume(Profile profile, String key) {
+        long now = System.nanoTime();
+        String bucketKey = profile.getName() + ':' + key;
+        Entry entry = buckets.get(bucketKey);
+        Bucket bucket;
+        if (entry != null) {
+            entry.lastAccess = now;
+            bucket = entry.bucket;
+            if (now - lastSweep >= SWEEP_INTERVAL_NANOS) {
+                sweep(now, SWEEP_INTERVAL_NANOS);
+            }
+        } else {
+            if (buckets.size() >= maxKeys) {
+                sweep(now, FORCED_SWEEP_INTERVAL_NANOS);
+            }
+            if (buckets.size() < maxKeys) {
+                entry = buckets.computeIfAbsent(bucketKey, k -> new Entry(newBucket(profile),
+                        profile.getPeriod().toNanos(), now));
+                bucket = entry.bucket;
+            } else {
+                bucket = overflow.computeIfAbsent(profile.getName(), k -> newBucket(profile));
+            }
+        }
+
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            return new Consumption(true, 0);
+        }
+        return new Consumption(false, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill())));
+    }
+
+    @Override
+    public long bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Supprime les buckets inactifs depuis plus d'une période. Un seul thread
+     * nettoie à la fois, au plus une fois par intervalle.
+     */
+    private void sweep(long now, long minInterval) {
+        if (now - lastSweep < minInterval || !sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(entry -> now - entry.lastAccess > entry.idleNanos);
+            lastSweep = now;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static Bucket newBucket(Profile profile) {
+        Bandwidth limit = Bandwidth.builder()
+                .capacity(profile.getCapacity())
+                .refillGreedy(profile.getCapacity(), profile.getPeriod())
+                .build();
+        return Bucket.builder().addLimit(limit).build();
+    }
+
+    private static final class Entry {
+        private final Bucket bucket;
+        private final long idleNanos;
+        private volatile long lastAccess;
+
+        private Entry(Bucket bucket, long idleNanos, long lastAccess) {
+            this.bucket = bucket;
+            this.idleNanos = idleNanos;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
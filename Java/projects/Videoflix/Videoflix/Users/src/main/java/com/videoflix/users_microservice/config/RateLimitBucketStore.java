@@ -0,0 +1,36 @@
+package com.videoflix.users_microservice.config;
+
+import com.videoflix.users_microservice.config.RateLimitConfig.Profile;
+
+/**
+ * Stockage des buckets de limitation de débit, indexés par profil et par
+ * client.
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Résultat d'une tentative de consommation.
+     *
+     * @param consumed          true si un jeton a été consommé.
+     * @param retryAfterSeconds Délai avant le prochain jeton lorsque la requête
+     *                          est refusée, 0 sinon.
+     */
+    record Consumption(boolean consumed, long retryAfterSeconds) {
+    }
+
+    /**
+     * Tente de consommer un jeton du bucket du client pour le profil donné.
+     *
+     * @param profile Le profil de limitation.
+     * @param key     La clé du client (utilisateur ou adresse IP).
+     * @return Le résultat de la consommation.
+     */
+    Consumption tryConsume(Profile profile, String key);
+
+    /**
+     * Obtient le nombre de buckets actuellement conservés.
+     *
+     * @return Le nombre de buckets.
+     */
+    long bucketCount();
+}
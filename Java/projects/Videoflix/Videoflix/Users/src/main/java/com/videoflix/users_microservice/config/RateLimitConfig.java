@@ -0,0 +1,156 @@
+package com.videoflix.users_microservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration de la limitation de débit appliquée par {@link RateLimitFilter}.
+ * Chaque client (utilisateur authentifié, sinon adresse IP) dispose de son
+ * propre bucket par profil. Un profil associe un motif de chemin à une limite ;
+ * les requêtes qui ne correspondent à aucun profil utilisent la limite par
+ * défaut.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "application.rate-limit")
+@Validated
+public class RateLimitConfig {
+
+    /**
+     * Stockage des buckets : {@code local} (mémoire de l'instance) ou {@code jdbc}
+     * (table partagée par toutes les instances).
+     */
+    private String backend = "local";
+    private int maxKeys = 100_000;
+    private Profile defaultProfile = new Profile("default", "/**", 10, Duration.ofMinutes(1));
+    private List<Profile> profiles = new ArrayList<>();
+
+    /**
+     * Obtient le type de stockage des buckets.
+     *
+     * @return {@code local} ou {@code jdbc}.
+     */
+    public String getBackend() {
+        return backend;
+    }
+
+    /**
+     * Définit le type de stockage des buckets.
+     *
+     * @param backend {@code local} ou {@code jdbc}.
+     */
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Obtient le nombre maximal de buckets conservés en mémoire.
+     *
+     * @return Le nombre maximal de clés.
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Définit le nombre maximal de buckets conservés en mémoire.
+     *
+     * @param maxKeys Le nombre maximal de clés.
+     */
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Obtient le profil appliqué aux requêtes sans profil spécifique.
+     *
+     * @return Le profil par défaut.
+     */
+    public Profile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * Définit le profil appliqué aux requêtes sans profil spécifique.
+     *
+     * @param defaultProfile Le profil par défaut.
+     */
+    public void setDefaultProfile(Profile defaultProfile) {
+        this.defaultProfile = defaultProfile;
+    }
+
+    /**
+     * Obtient les profils par route, évalués dans l'ordre.
+     *
+     * @return La liste des profils.
+     */
+    public List<Profile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Définit les profils par route, évalués dans l'ordre.
+     *
+     * @param profiles La liste des profils.
+     */
+    public void setProfiles(List<Profile> profiles) {
+        this.profiles = profiles;
+    }
+
+    /**
+     * Limite appliquée aux requêtes dont le chemin correspond au motif : au plus
+     * {@code capacity} requêtes par {@code period}, avec un remplissage continu.
+     */
+    public static class Profile {
+        private String name;
+        private String path;
+        private long capacity;
+        private Duration period;
+
+        public Profile() {
+        }
+
+        public Profile(String name, String path, long capacity, Duration period) {
+            this.name = name;
+            this.path = path;
+            this.capacity = capacity;
+            this.period = period;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+    }
+}
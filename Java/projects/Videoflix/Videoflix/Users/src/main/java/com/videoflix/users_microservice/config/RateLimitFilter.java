@@ -1,42 +1,71 @@
 package com.videoflix.users_microservice.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import com.videoflix.users_microservice.config.RateLimitBucketStore.Consumption;
+import com.videoflix.users_microservice.config.RateLimitConfig.Profile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import java.io.IOException;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class RateLimitFilter implements Filter {
 
-    private final Bucket bucket;
+    private final RateLimitBucketStore bucketStore;
+    private final List<Profile> profiles;
+    private final Profile defaultProfile;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Counter> allowedCounters = new HashMap<>();
+    private final Map<String, Counter> rejectedCounters = new HashMap<>();
 
     /**
      * Constructeur pour RateLimitFilter.
-     * Initialise un Bucket Bucket4j avec une limite de 10 requêtes par minute.
+     * Chaque client dispose de son propre bucket par profil de route : un client
+     * trop actif n'est limité que lui-même.
+     *
+     * @param config        La configuration des profils de limitation.
+     * @param bucketStore   Le stockage des buckets (local ou partagé).
+     * @param meterRegistry Le registre des métriques.
      */
-    public RateLimitFilter() {
-        // Définit la limite de bande passante : 10 requêtes par minute.
-        Bandwidth limit = Bandwidth.builder()
-                .capacity(10) // Capacité totale du bucket : 10 jetons.
-                .refillGreedy(10, Duration.ofMinutes(1)) // Remplissage : 10 jetons toutes les minutes.
-                .build();
+    public RateLimitFilter(RateLimitConfig config, RateLimitBucketStore bucketStore, MeterRegistry meterRegistry) {
+        this.bucketStore = bucketStore;
+        this.profiles = new ArrayList<>(config.getProfiles());
+        this.defaultProfile = config.getDefaultProfile();
 
-        // Crée un Bucket avec la limite définie.
-        this.bucket = Bucket.builder().addLimit(limit).build();
+        List<Profile> allProfiles = new ArrayList<>(profiles);
+        allProfiles.add(defaultProfile);
+        for (Profile profile : allProfiles) {
+            allowedCounters.put(profile.getName(), requestCounter(meterRegistry, profile, "allowed"));
+            rejectedCounters.put(profile.getName(), requestCounter(meterRegistry, profile, "rejected"));
+        }
+        Gauge.builder("rate.limit.buckets", bucketStore, RateLimitBucketStore::bucketCount)
+                .description("Nombre de buckets de limitation de débit conservés")
+                .register(meterRegistry);
     }
 
     /**
      * Filtre les requêtes entrantes pour appliquer une limitation de débit.
-     * Si le bucket a suffisamment de jetons, la requête est autorisée à passer.
-     * Sinon, une réponse HTTP 429 (Trop de requêtes) est envoyée.
+     * La requête consomme un jeton du bucket de son client (utilisateur
+     * authentifié, sinon adresse IP) pour le profil correspondant à son chemin.
+     * Si le bucket est vide, une réponse HTTP 429 (Trop de requêtes) est envoyée
+     * avec l'en-tête Retry-After.
      *
      * @param servletRequest  La requête servlet.
      * @param servletResponse La réponse servlet.
@@ -47,19 +76,63 @@ public class RateLimitFilter implements Filter {
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
-        // Tente de consommer un jeton du bucket.
-        if (bucket.tryConsume(1)) {
-            // Si la consommation réussit (il y a un jeton disponible), la requête est
-            // autorisée à passer.
+        Profile profile = resolveProfile(servletRequest);
+        Consumption consumption = bucketStore.tryConsume(profile, resolveClientKey(servletRequest));
+        if (consumption.consumed()) {
+            allowedCounters.get(profile.getName()).increment();
             filterChain.doFilter(servletRequest, servletResponse);
         } else {
-            // Si la consommation échoue (il n'y a pas de jeton disponible), la requête est
-            // rejetée.
+            rejectedCounters.get(profile.getName()).increment();
             HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
             // Définit le code de statut de la réponse à 429 (Trop de requêtes).
             httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(consumption.retryAfterSeconds()));
             // Écrit le message d'erreur dans le corps de la réponse.
             httpResponse.getWriter().write("Too many requests");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtient le premier profil dont le motif correspond au chemin de la requête,
+     * sinon le profil par défaut.
+     */
+    private Profile resolveProfile(ServletRequest servletRequest) {
+        if (profiles.isEmpty() || !(servletRequest instanceof HttpServletRequest request)) {
+            return defaultProfile;
+        }
+        String path = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (path != null && contextPath != null && !contextPath.isEmpty() && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        for (Profile profile : profiles) {
+            if (path != null && pathMatcher.match(profile.getPath(), path)) {
+                return profile;
+            }
+        }
+        return defaultProfile;
+    }
+
+    /**
+     * Identifie le client : l'utilisateur authentifié s'il existe, sinon
+     * l'adresse IP. L'adresse provient de la connexion, déjà résolue par Tomcat
+     * à partir de X-Forwarded-For (server.tomcat.remote-ip-header) : l'en-tête
+     * n'est pas relu ici pour ne pas dépendre d'une valeur fournie par le client.
+     */
+    private static String resolveClientKey(ServletRequest servletRequest) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + servletRequest.getRemoteAddr();
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, Profile profile, String outcome) {
+        return Counter.builder("rate.limit.requests")
+                .description("Requêtes soumises à la limitation de débit, par profil et par issue")
+                .tag("profile", profile.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -120,9 +120,9 @@ public class SecurityConfig {
                         })
                         .failureHandler((request, response, exception) -> { // Configure le gestionnaire d'échec de
                                                                             // connexion.
-                            loginAttemptService.recordFailedLogin(request.getParameter("username")); // Enregistre
-                                                                                                     // l'échec de
-                                                                                                     // connexion.
+                            // Enregistre l'échec de connexion pour l'utilisateur et l'adresse IP.
+                            loginAttemptService.recordFailedLogin(request.getParameter("username"),
+                                    request.getRemoteAddr());
                             response.sendRedirect("/login?error"); // Redirige vers la page de connexion avec une
                                                                    // erreur.
                         }));
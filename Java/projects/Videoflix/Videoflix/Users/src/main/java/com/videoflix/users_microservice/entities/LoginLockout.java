@@ -0,0 +1,24 @@
+package com.videoflix.users_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Blocage de connexion en cours pour un nom d'utilisateur ({@code user:...})
+ * ou une adresse IP ({@code ip:...}). Les échecs eux-mêmes ne sont suivis
+ * qu'en mémoire.
+ */
+@Entity
+@Table(name = "login_lockouts", indexes = @Index(name = "idx_login_lockouts_locked_until", columnList = "locked_until"))
+@Data
+public class LoginLockout {
+
+    @Id
+    @Column(name = "lock_key", length = 320)
+    private String lockKey;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
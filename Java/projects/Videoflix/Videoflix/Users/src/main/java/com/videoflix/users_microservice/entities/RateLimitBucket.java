@@ -0,0 +1,30 @@
+package com.videoflix.users_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Bucket de limitation de débit partagé entre les instances (stockage
+ * {@code jdbc}). Les jetons sont recalculés à chaque consommation à partir du
+ * temps écoulé depuis {@code refilledAt}.
+ */
+@Entity
+@Table(name = "rate_limit_buckets", indexes = @Index(name = "idx_rate_limit_buckets_refilled_at", columnList = "refilled_at"))
+@Data
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "bucket_key", length = 255)
+    private String bucketKey;
+
+    @Column(name = "tokens", nullable = false)
+    private double tokens;
+
+    // Horodatage epoch en millisecondes du dernier remplissage.
+    @Column(name = "refilled_at", nullable = false)
+    private long refilledAt;
+
+    // Résultat de la dernière consommation, non persisté.
+    @Transient
+    private boolean consumed;
+}
@@ -0,0 +1,42 @@
+package com.videoflix.users_microservice.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.videoflix.users_microservice.entities.LoginLockout;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface LoginLockoutRepository extends JpaRepository<LoginLockout, String> {
+
+    List<LoginLockout> findByLockedUntilAfter(LocalDateTime time);
+
+    /**
+     * Lit le blocage en prenant un verrou de ligne ({@code SELECT ... FOR UPDATE})
+     * jusqu'à la fin de la transaction : deux instances qui écrivent la même clé
+     * sont sérialisées.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoginLockout l WHERE l.lockKey = :lockKey")
+    Optional<LoginLockout> findForUpdate(@Param("lockKey") String lockKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LoginLockout l WHERE l.lockKey = :lockKey")
+    int deleteByLockKey(@Param("lockKey") String lockKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LoginLockout l WHERE l.lockedUntil < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,33 @@
+package com.videoflix.users_microservice.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.videoflix.users_microservice.entities.RateLimitBucket;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    /**
+     * Lit le bucket en prenant un verrou de ligne ({@code SELECT ... FOR UPDATE})
+     * jusqu'à la fin de la transaction : les consommations concurrentes d'une
+     * même clé sont sérialisées, quelle que soit l'instance.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM RateLimitBucket b WHERE b.bucketKey = :key")
+    Optional<RateLimitBucket> findForUpdate(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RateLimitBucket b WHERE b.refilledAt < :before")
+    int deleteIdleBefore(@Param("before") long before);
+}
@@ -8,6 +8,7 @@ import com.videoflix.users_microservice.entities.User;
 import com.videoflix.users_microservice.exceptions.AuthenticationException;
 import com.videoflix.users_microservice.repositories.UserRepository;
 
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import javax.crypto.SecretKey;
@@ -84,6 +85,7 @@ public class AuthenticationService {
                 .setSubject(user.getId().toString()) // Définit l'ID de l'utilisateur comme sujet du token.
                 .setIssuedAt(now) // Définit la date d'émission du token.
                 .setExpiration(expiryDate) // Définit la date d'expiration du token.
+                .setHeaderParam(JwsHeader.KEY_ID, jwtConfig.getKeyId()) // Identifie la clé pour la rotation.
                 .signWith(key) // Signe le token avec la clé secrète.
                 .compact(); // Compacte le token en une chaîne JWT.
     }
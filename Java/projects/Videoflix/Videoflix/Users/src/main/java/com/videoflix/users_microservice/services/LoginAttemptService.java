@@ -1,28 +1,112 @@
 package com.videoflix.users_microservice.services;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import com.videoflix.users_microservice.entities.LoginAttempt;
-import com.videoflix.users_microservice.repositories.LoginAttemptRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.videoflix.users_microservice.entities.LoginLockout;
+import com.videoflix.users_microservice.repositories.LoginLockoutRepository;
 
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Suivi des tentatives de connexion échouées, en mémoire.
+ * <p>
+ * Chaque clé (nom d'utilisateur, ou adresse IP avec un seuil plus élevé)
+ * conserve les horodatages de ses derniers échecs dans une fenêtre glissante
+ * de taille fixe : une vérification est en O(1), sans requête. Les clés sont
+ * réparties sur des segments verrouillés indépendamment, chacun borné en LRU,
+ * ce qui borne la mémoire quel que soit le nombre de noms d'utilisateur
+ * essayés. Seuls les blocages sont persistés, par lots et en différé, dans
+ * {@code login_lockouts} : ils survivent à un redémarrage sans écrire en base
+ * à chaque échec. L'écriture lit la ligne sous verrou puis l'enregistre, en JPA
+ * standard : elle fonctionne sur la base MySQL configurée comme sur PostgreSQL.
+ */
 @Service
 public class LoginAttemptService {
 
-    private static final int MAX_ATTEMPTS = 5; // Nombre maximal de tentatives de connexion autorisées.
-    private static final int BLOCKING_TIME = 5; // Durée de blocage en minutes.
-    private final LoginAttemptRepository loginAttemptRepository;
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
+
+    private static final int STRIPES = 64;
+    private static final String USER_PREFIX = "user:";
+    private static final String IP_PREFIX = "ip:";
+    // Valeur en attente signifiant « supprimer le blocage persisté ».
+    private static final long UNLOCKED = 0L;
+
+    private final LoginLockoutRepository loginLockoutRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int maxAttempts; // Nombre maximal de tentatives de connexion autorisées.
+    private final int ipMaxAttempts; // Nombre maximal d'échecs depuis une même adresse IP.
+    private final long windowMillis; // Durée de blocage.
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, Long> pendingLockouts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
 
     /**
      * Constructeur pour LoginAttemptService.
-     * Injecte le LoginAttemptRepository pour accéder à la base de données des
-     * tentatives de connexion.
      *
-     * @param loginAttemptRepository Le repository pour les tentatives de connexion.
+     * @param loginLockoutRepository Le repository des blocages persistés.
+     * @param transactionManager     Le gestionnaire de transactions de la base.
+     * @param maxAttempts            Le nombre d'échecs provoquant le blocage d'un
+     *                               utilisateur.
+     * @param blockingTime           La durée de la fenêtre et du blocage, en
+     *                               minutes.
+     * @param ipMaxAttempts          Le nombre d'échecs provoquant le blocage
+     *                               d'une adresse IP.
+     * @param maxTrackedKeys         Le nombre maximal de clés suivies en mémoire.
+     * @param flushIntervalMs        L'intervalle d'écriture des blocages en base.
      */
-    public LoginAttemptService(LoginAttemptRepository loginAttemptRepository) {
-        this.loginAttemptRepository = loginAttemptRepository;
+    @Autowired
+    public LoginAttemptService(LoginLockoutRepository loginLockoutRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${security.maxAttempts:5}") int maxAttempts,
+            @Value("${security.blockingTime:5}") int blockingTime,
+            @Value("${security.ipMaxAttempts:20}") int ipMaxAttempts,
+            @Value("${security.maxTrackedKeys:200000}") int maxTrackedKeys,
+            @Value("${security.lockoutFlushIntervalMs:5000}") long flushIntervalMs) {
+        this(loginLockoutRepository, transactionManager, Clock.systemUTC(), maxAttempts, blockingTime, ipMaxAttempts,
+                maxTrackedKeys, flushIntervalMs);
+    }
+
+    public LoginAttemptService(LoginLockoutRepository loginLockoutRepository,
+            PlatformTransactionManager transactionManager, Clock clock, int maxAttempts, int blockingTime,
+            int ipMaxAttempts, int maxTrackedKeys, long flushIntervalMs) {
+        this.loginLockoutRepository = loginLockoutRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.maxAttempts = maxAttempts;
+        this.ipMaxAttempts = ipMaxAttempts;
+        this.windowMillis = Duration.ofMinutes(blockingTime).toMillis();
+        int perStripe = Math.max(1, maxTrackedKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("login-lockout-flush").factory());
+        flusher.scheduleWithFixedDelay(this::flushLockouts, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -31,27 +115,42 @@ public class LoginAttemptService {
      * @param username Le nom d'utilisateur pour lequel enregistrer la tentative de
      *                 connexion échouée.
      */
-    @Transactional
     public void recordFailedLogin(String username) {
-        LoginAttempt attempt = new LoginAttempt();
-        attempt.setUsername(username);
-        attempt.setAttemptTime(LocalDateTime.now());
-        loginAttemptRepository.save(attempt);
+        recordFailure(USER_PREFIX + username, maxAttempts);
+    }
+
+    /**
+     * Enregistre une tentative de connexion échouée pour un utilisateur et
+     * l'adresse IP d'origine.
+     *
+     * @param username  Le nom d'utilisateur.
+     * @param ipAddress L'adresse IP de la requête, ou null.
+     */
+    public void recordFailedLogin(String username, String ipAddress) {
+        recordFailedLogin(username);
+        if (ipAddress != null) {
+            recordFailure(IP_PREFIX + ipAddress, ipMaxAttempts);
+        }
     }
 
     /**
      * Réinitialise les tentatives de connexion pour un utilisateur donné.
-     * Supprime toutes les tentatives de connexion survenues après le temps de
-     * blocage.
+     * Supprime les échecs suivis et le blocage éventuel.
      *
      * @param username Le nom d'utilisateur pour lequel réinitialiser les tentatives
      *                 de connexion.
      */
-    @Transactional
     public void resetLoginAttempts(String username) {
-        LocalDateTime blockingTime = LocalDateTime.now().minusMinutes(BLOCKING_TIME);
-        List<LoginAttempt> attempts = loginAttemptRepository.findByUsernameAndAttemptTimeAfter(username, blockingTime);
-        loginAttemptRepository.deleteAll(attempts);
+        String key = USER_PREFIX + username;
+        Stripe stripe = stripeFor(key);
+        boolean wasLocked;
+        synchronized (stripe) {
+            stripe.windows.remove(key);
+            wasLocked = stripe.lockouts.remove(key) != null;
+        }
+        if (wasLocked) {
+            pendingLockouts.put(key, UNLOCKED);
+        }
     }
 
     /**
@@ -61,26 +160,38 @@ public class LoginAttemptService {
      * @param username Le nom d'utilisateur à vérifier.
      * @return true si l'utilisateur est bloqué, false sinon.
      */
-    @Transactional(readOnly = true)
     public boolean isBlocked(String username) {
-        LocalDateTime blockingTime = LocalDateTime.now().minusMinutes(BLOCKING_TIME);
-        List<LoginAttempt> attempts = loginAttemptRepository.findByUsernameAndAttemptTimeAfter(username, blockingTime);
-        return attempts.size() >= MAX_ATTEMPTS;
+        return isLocked(USER_PREFIX + username);
+    }
+
+    /**
+     * Vérifie si un utilisateur ou l'adresse IP d'origine est bloqué.
+     *
+     * @param username  Le nom d'utilisateur à vérifier.
+     * @param ipAddress L'adresse IP de la requête, ou null.
+     * @return true si l'un des deux est bloqué, false sinon.
+     */
+    public boolean isBlocked(String username, String ipAddress) {
+        return isBlocked(username) || (ipAddress != null && isLocked(IP_PREFIX + ipAddress));
     }
 
     /**
      * Obtient le nombre de tentatives de connexion échouées pour un utilisateur
-     * donné.
+     * donné dans la fenêtre de blocage. Le décompte est plafonné au seuil de
+     * blocage.
      *
      * @param username Le nom d'utilisateur pour lequel obtenir le nombre de
      *                 tentatives de connexion échouées.
      * @return Le nombre de tentatives de connexion échouées.
      */
-    @Transactional(readOnly = true)
     public int getFailedAttempts(String username) {
-        LocalDateTime blockingTime = LocalDateTime.now().minusMinutes(BLOCKING_TIME);
-        List<LoginAttempt> attempts = loginAttemptRepository.findByUsernameAndAttemptTimeAfter(username, blockingTime);
-        return attempts.size();
+        String key = USER_PREFIX + username;
+        long now = clock.millis();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.get(key);
+            return window == null ? 0 : window.countSince(now - windowMillis);
+        }
     }
 
     /**
@@ -90,9 +201,203 @@ public class LoginAttemptService {
      *
      * @param username Le nom d'utilisateur à bloquer.
      */
-    @Transactional
     public void blockUser(String username) {
         // Le blocage est géré implicitement par isBlocked()
         // Cette méthode est gardée pour la compatibilité avec le code existant
     }
-}
\ No newline at end of file
+
+    /**
+     * Recharge en mémoire les blocages encore actifs au démarrage.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveLockouts() {
+        List<LoginLockout> lockouts = loginLockoutRepository.findByLockedUntilAfter(toLocalDateTime(clock.millis()));
+        for (LoginLockout lockout : lockouts) {
+            long lockedUntil = lockout.getLockedUntil().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            Stripe stripe = stripeFor(lockout.getLockKey());
+            synchronized (stripe) {
+                stripe.lockouts.put(lockout.getLockKey(), lockedUntil);
+            }
+        }
+        logger.info("{} blocage(s) de connexion actif(s) rechargé(s).", lockouts.size());
+    }
+
+    /**
+     * Écrit en base les blocages modifiés depuis le dernier passage, puis
+     * supprime les blocages expirés.
+     */
+    public void flushLockouts() {
+        if (pendingLockouts.isEmpty()) {
+            return;
+        }
+        int written = 0;
+        try {
+            for (Iterator<Map.Entry<String, Long>> it = pendingLockouts.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, Long> pending = it.next();
+                String key = pending.getKey();
+                long lockedUntil = pending.getValue();
+                if (lockedUntil == UNLOCKED) {
+                    loginLockoutRepository.deleteByLockKey(key);
+                } else {
+                    try {
+                        saveLockout(key, toLocalDateTime(lockedUntil));
+                    } catch (DataIntegrityViolationException e) {
+                        // Blocage créé au même instant par une autre instance : il existe désormais.
+                        saveLockout(key, toLocalDateTime(lockedUntil));
+                    }
+                }
+                // Une valeur plus récente, arrivée entre-temps, reste en attente.
+                pendingLockouts.remove(key, lockedUntil);
+                written++;
+            }
+            loginLockoutRepository.deleteExpiredBefore(toLocalDateTime(clock.millis()));
+        } catch (DataAccessException e) {
+            logger.warn("Écriture des blocages de connexion reportée ({} écrit(s)) : {}", written, e.getMessage());
+        }
+    }
+
+    /**
+     * Crée ou prolonge le blocage sous le verrou de la ligne. Un blocage plus
+     * long, écrit par une autre instance, est conservé.
+     */
+    private void saveLockout(String key, LocalDateTime lockedUntil) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LoginLockout lockout = loginLockoutRepository.findForUpdate(key).orElseGet(() -> {
+                LoginLockout created = new LoginLockout();
+                created.setLockKey(key);
+                return created;
+            });
+            if (lockout.getLockedUntil() == null || lockout.getLockedUntil().isBefore(lockedUntil)) {
+                lockout.setLockedUntil(lockedUntil);
+                loginLockoutRepository.saveAndFlush(lockout);
+            }
+        });
+    }
+
+    /**
+     * Obtient le nombre de clés suivies en mémoire.
+     *
+     * @return Le nombre de clés.
+     */
+    public int getTrackedKeys() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.windows.size();
+            }
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushLockouts();
+    }
+
+    private void recordFailure(String key, int threshold) {
+        long now = clock.millis();
+        long lockedUntil = 0;
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.computeIfAbsent(key, k -> new Window(threshold));
+            window.add(now);
+            // Bloqué tant que les « threshold » derniers échecs tiennent dans la fenêtre.
+            if (window.isFull() && window.oldest() > now - windowMillis) {
+                lockedUntil = window.oldest() + windowMillis;
+                stripe.lockouts.put(key, lockedUntil);
+            }
+        }
+        if (lockedUntil > 0) {
+            pendingLockouts.put(key, lockedUntil);
+        }
+    }
+
+    private boolean isLocked(String key) {
+        long now = clock.millis();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Long lockedUntil = stripe.lockouts.get(key);
+            if (lockedUntil == null) {
+                return false;
+            }
+            if (lockedUntil > now) {
+                return true;
+            }
+            stripe.lockouts.remove(key);
+            return false;
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Segment de clés protégé par son propre verrou. Les deux tables sont des
+     * LRU bornées : la clé la moins récemment utilisée est évincée.
+     */
+    private static final class Stripe {
+        private final Map<String, Window> windows;
+        private final Map<String, Long> lockouts;
+
+        private Stripe(int capacity) {
+            this.windows = boundedLru(capacity);
+            this.lockouts = boundedLru(capacity);
+        }
+
+        private static <V> Map<String, V> boundedLru(int capacity) {
+            return new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    /**
+     * Tampon circulaire des horodatages des derniers échecs, de la taille du
+     * seuil de blocage.
+     */
+    private static final class Window {
+        private final long[] timestamps;
+        private int next;
+        private int size;
+
+        private Window(int capacity) {
+            this.timestamps = new long[capacity];
+        }
+
+        private void add(long timestamp) {
+            timestamps[next] = timestamp;
+            next = (next + 1) % timestamps.length;
+            if (size < timestamps.length) {
+                size++;
+            }
+        }
+
+        private boolean isFull() {
+            return size == timestamps.length;
+        }
+
+        // Plus ancien des échecs conservés (le prochain à être écrasé une fois plein).
+        private long oldest() {
+            return timestamps[isFull() ? next : 0];
+        }
+
+        private int countSince(long since) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -232,7 +232,8 @@ public class UserService {
     // Retour de l'utilisateur authentifié
     @Transactional
     public User authenticate(String username, String password) {
-        if (loginAttemptService.isBlocked(username)) {
+        String ipAddress = request.getRemoteAddr();
+        if (loginAttemptService.isBlocked(username, ipAddress)) {
             throw new AuthorizationException("Compte bloqué. Veuillez réessayer dans 5 minutes.");
         }
 
@@ -240,12 +241,12 @@ public class UserService {
                 .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
 
         if (!passwordEncoder.matches(password, user.getPassword())) {
-            loginAttemptService.recordFailedLogin(username);
+            loginAttemptService.recordFailedLogin(username, ipAddress);
             throw new AuthorizationException("Mot de passe incorrect");
         }
 
         // Enregistre l'adresse IP de la dernière connexion
-        user.setLastLoginIp(request.getRemoteAddr());
+        user.setLastLoginIp(ipAddress);
         userRepository.save(user);
 
         loginAttemptService.resetLoginAttempts(username);
@@ -0,0 +1,122 @@
+package com.videoflix.Users.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.videoflix.users_microservice.config.JdbcRateLimitBucketStore;
+import com.videoflix.users_microservice.config.RateLimitBucketStore.Consumption;
+import com.videoflix.users_microservice.config.RateLimitConfig;
+import com.videoflix.users_microservice.config.RateLimitConfig.Profile;
+import com.videoflix.users_microservice.entities.RateLimitBucket;
+import com.videoflix.users_microservice.repositories.RateLimitBucketRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class) // Active les annotations Mockito
+class JdbcRateLimitBucketStoreTest {
+
+    @Mock
+    private RateLimitBucketRepository repository; // Mock du repository des buckets partagés
+
+    @Mock
+    private PlatformTransactionManager transactionManager; // Mock du gestionnaire de transactions
+
+    private final Profile profile = new Profile("login", "/users/auth/**", 5, Duration.ofMinutes(1));
+
+    private JdbcRateLimitBucketStore store; // Instance du stockage à tester
+
+    @BeforeEach
+    void setUp() {
+        store = new JdbcRateLimitBucketStore(repository, new RateLimitConfig(), transactionManager);
+        lenient().when(repository.saveAndFlush(any(RateLimitBucket.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void tryConsume_ShouldCreateFullBucketAndConsumeOneToken_WhenKeyIsNew() {
+        when(repository.findForUpdate("login:10.0.0.1")).thenReturn(Optional.empty());
+
+        Consumption consumption = store.tryConsume(profile, "10.0.0.1");
+
+        // La première requête passe et laisse capacité - 1 jetons
+        assertTrue(consumption.consumed());
+        verify(repository).saveAndFlush(argThat(bucket -> "login:10.0.0.1".equals(bucket.getBucketKey())
+                && bucket.getTokens() == 4 && bucket.isConsumed()));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void tryConsume_ShouldRejectWithRetryAfter_WhenBucketIsEmpty() {
+        // Bucket vide, remis à jour à l'instant : aucun jeton n'a eu le temps de revenir
+        RateLimitBucket empty = bucket(0, System.currentTimeMillis() + 1_000);
+        when(repository.findForUpdate("login:10.0.0.1")).thenReturn(Optional.of(empty));
+
+        Consumption consumption = store.tryConsume(profile, "10.0.0.1");
+
+        // Un jeton revient toutes les 12 s (5 par minute)
+        assertFalse(consumption.consumed());
+        assertEquals(12, consumption.retryAfterSeconds());
+        assertFalse(empty.isConsumed());
+    }
+
+    @Test
+    void tryConsume_ShouldRefillTokensFromElapsedTime_CappedAtCapacity() {
+        // Bucket vide depuis une heure : il est de nouveau plein, sans dépasser la capacité
+        RateLimitBucket idle = bucket(0, System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+        when(repository.findForUpdate("login:10.0.0.1")).thenReturn(Optional.of(idle));
+
+        Consumption consumption = store.tryConsume(profile, "10.0.0.1");
+
+        assertTrue(consumption.consumed());
+        assertEquals(4, idle.getTokens(), 0.001);
+    }
+
+    @Test
+    void tryConsume_ShouldRetryOnce_WhenAnotherInstanceCreatedTheBucket() {
+        // Deux instances créent la même clé : la seconde insertion viole la clé primaire
+        RateLimitBucket existing = bucket(4, System.currentTimeMillis());
+        when(repository.findForUpdate("login:10.0.0.1")).thenReturn(Optional.empty(), Optional.of(existing));
+        when(repository.saveAndFlush(any(RateLimitBucket.class)))
+                .thenThrow(new DataIntegrityViolationException("Clé dupliquée"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Consumption consumption = store.tryConsume(profile, "10.0.0.1");
+
+        // La nouvelle tentative consomme un jeton du bucket créé par l'autre instance
+        assertTrue(consumption.consumed());
+        assertEquals(3, existing.getTokens(), 0.01);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void tryConsume_ShouldFailOpen_WhenDatabaseIsUnavailable() {
+        when(repository.findForUpdate(anyString())).thenThrow(new QueryTimeoutException("Base indisponible"));
+
+        Consumption consumption = store.tryConsume(profile, "10.0.0.1");
+
+        // Une panne du stockage ne bloque pas l'authentification
+        assertTrue(consumption.consumed());
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    private static RateLimitBucket bucket(double tokens, long refilledAt) {
+        RateLimitBucket bucket = new RateLimitBucket();
+        bucket.setBucketKey("login:10.0.0.1");
+        bucket.setTokens(tokens);
+        bucket.setRefilledAt(refilledAt);
+        return bucket;
+    }
+}
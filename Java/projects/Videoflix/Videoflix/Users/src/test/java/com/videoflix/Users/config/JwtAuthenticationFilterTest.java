@@ -2,11 +2,11 @@ package com.videoflix.Users.config;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SecurityException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,18 +18,26 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.videoflix.users_microservice.config.JwtAuthenticationFilter;
 import com.videoflix.users_microservice.config.JwtConfig;
+import com.videoflix.users_microservice.config.JwtTokenVerifier;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class) // Active les annotations Mockito
 class JwtAuthenticationFilterTest {
 
-    @Mock
-    private JwtConfig jwtConfig; // Mock pour JwtConfig
+    private static final String SECRET = "secretsecretsecretsecretsecretsecretsecretsecret";
+    private static final String PREVIOUS_SECRET = "previouspreviouspreviouspreviouspreviousprevious";
 
     @Mock
     private HttpServletRequest request; // Mock pour HttpServletRequest
@@ -40,61 +48,99 @@ class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain; // Mock pour FilterChain
 
-    @Mock
-    private Claims claims; // Mock pour Claims
-
-    @Mock
-    private Jws<Claims> jwsClaims; // Mock pour Jws<Claims>
-
     @Mock
     private PrintWriter writer; // Mock pour PrintWriter
 
+    private MutableClock clock; // Horloge contrôlée par les tests
+    private JwtTokenVerifier verifier;
     private JwtAuthenticationFilter filter; // Instance du filtre à tester
 
-    private String secretKey;
-    private String validToken;
-    private String invalidToken;
-
     @BeforeEach
     void setUp() throws IOException {
-        secretKey = "secretsecretsecretsecretsecretsecretsecretsecret";
-        validToken = Jwts.builder()
-                .setSubject("123")
-                .signWith(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
-                .compact();
-        invalidToken = "invalid.token";
+        SecurityContextHolder.clearContext();
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(SECRET);
+        jwtConfig.setKeyId("k2");
+        jwtConfig.setPreviousSecrets(Map.of("k1", PREVIOUS_SECRET));
+        verifier = new JwtTokenVerifier(jwtConfig, clock);
+        filter = new JwtAuthenticationFilter(verifier);
 
-        when(jwtConfig.getSecret()).thenReturn(secretKey);
-        when(response.getWriter()).thenReturn(writer);
+        lenient().when(response.getWriter()).thenReturn(writer);
+    }
 
-        filter = new JwtAuthenticationFilter(jwtConfig);
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
     void doFilterInternal_ShouldSetAuthentication_WhenValidToken() throws ServletException, IOException {
-        // Configuration du mock pour simuler un token valide
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenReturn(jwsClaims);
-        when(jwsClaims.getBody()).thenReturn(claims);
-        when(claims.getSubject()).thenReturn("123");
+        // Token signé avec la clé courante
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token(SECRET, "k2", Duration.ofHours(1)));
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
 
         // Vérification que l'authentification est définie dans le SecurityContextHolder
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("123", SecurityContextHolder.getContext().getAuthentication().getName());
 
         // Vérification que le filtre suivant est appelé
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    void doFilterInternal_ShouldReuseVerifiedToken() throws ServletException, IOException {
+        // Le même token est présenté deux fois
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token(SECRET, "k2", Duration.ofHours(1)));
+
+        filter.doFilter(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, filterChain);
+
+        // Vérification qu'une seule entrée est en cache et que la requête est authentifiée
+        assertEquals(1, verifier.getCachedTokens());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_ShouldRejectCachedTokenOnceExpired() throws ServletException, IOException {
+        // Token vérifié puis mis en cache, valable une minute
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token(SECRET, "k2", Duration.ofMinutes(1)));
+        filter.doFilter(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+
+        // Après son expiration, le cache ne le sert plus
+        clock.advance(Duration.ofMinutes(2));
+        filter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(response).setStatus(HttpStatus.UNAUTHORIZED.value());
+        verify(writer).write("Token JWT expiré.");
+    }
+
+    @Test
+    void doFilterInternal_ShouldAcceptTokenSignedWithPreviousKey() throws ServletException, IOException {
+        // Token émis avant la rotation, avec ou sans kid
+        when(request.getHeader("Authorization"))
+                .thenReturn("Bearer " + token(PREVIOUS_SECRET, "k1", Duration.ofHours(1)))
+                .thenReturn("Bearer " + token(PREVIOUS_SECRET, null, Duration.ofHours(1)));
+
+        filter.doFilter(request, response, filterChain);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, filterChain);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+
+        verify(response, never()).setStatus(anyInt());
+    }
+
     @Test
     void doFilterInternal_ShouldNotSetAuthentication_WhenInvalidToken() throws ServletException, IOException {
         // Configuration du mock pour simuler un token invalide
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new MalformedJwtException("Invalid token"));
+        when(request.getHeader("Authorization")).thenReturn("Bearer invalid.token");
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -109,10 +155,8 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void doFilterInternal_ShouldSendErrorResponse_WhenExpiredToken() throws ServletException, IOException {
-        // Configuration du mock pour simuler un token expiré
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new ExpiredJwtException(null, null, "Expired token"));
+        // Token déjà expiré
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token(SECRET, "k2", Duration.ofMinutes(-1)));
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -120,14 +164,13 @@ class JwtAuthenticationFilterTest {
         // Vérification que la réponse d'erreur est envoyée
         verify(response).setStatus(HttpStatus.UNAUTHORIZED.value());
         verify(writer).write("Token JWT expiré.");
+        assertEquals(0, verifier.getCachedTokens());
     }
 
     @Test
     void doFilterInternal_ShouldSendErrorResponse_WhenMalformedToken() throws ServletException, IOException {
         // Configuration du mock pour simuler un token malformé
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new MalformedJwtException("Malformed token"));
+        when(request.getHeader("Authorization")).thenReturn("Bearer invalid.token");
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -139,10 +182,9 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void doFilterInternal_ShouldSendErrorResponse_WhenInvalidSignature() throws ServletException, IOException {
-        // Configuration du mock pour simuler une signature invalide
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new SecurityException("Invalid signature"));
+        // Token signé avec une clé inconnue
+        String otherSecret = "otherotherotherotherotherotherotherotherotherother";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token(otherSecret, "k2", Duration.ofHours(1)));
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -154,10 +196,9 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void doFilterInternal_ShouldSendErrorResponse_WhenUnsupportedToken() throws ServletException, IOException {
-        // Configuration du mock pour simuler un token non supporté
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new UnsupportedJwtException("Unsupported token"));
+        // Token non signé
+        String unsigned = Jwts.builder().setSubject("123").compact();
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + unsigned);
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -169,10 +210,8 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void doFilterInternal_ShouldSendErrorResponse_WhenIllegalArgument() throws ServletException, IOException {
-        // Configuration du mock pour simuler un token vide ou nul
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new IllegalArgumentException("Empty or null token"));
+        // Token vide
+        when(request.getHeader("Authorization")).thenReturn("Bearer ");
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -185,9 +224,10 @@ class JwtAuthenticationFilterTest {
     @Test
     void doFilterInternal_ShouldSendErrorResponse_WhenGenericException() throws ServletException, IOException {
         // Configuration du mock pour simuler une exception générique
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + invalidToken);
-        when(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))).build()
-                .parseClaimsJws(anyString())).thenThrow(new RuntimeException("Generic exception"));
+        JwtTokenVerifier failingVerifier = mock(JwtTokenVerifier.class);
+        when(failingVerifier.verify(anyString())).thenThrow(new RuntimeException("Generic exception"));
+        filter = new JwtAuthenticationFilter(failingVerifier);
+        when(request.getHeader("Authorization")).thenReturn("Bearer some.token.value");
 
         // Appel de la méthode à tester
         filter.doFilter(request, response, filterChain);
@@ -196,4 +236,45 @@ class JwtAuthenticationFilterTest {
         verify(response).setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
         verify(writer).write("Erreur lors de la validation du token JWT.");
     }
-}
\ No newline at end of file
+
+    private String token(String secret, String keyId, Duration validity) {
+        JwtBuilder builder = Jwts.builder()
+                .setSubject("123")
+                .setIssuedAt(Date.from(clock.instant()))
+                .setExpiration(Date.from(clock.instant().plus(validity)));
+        if (keyId != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyId);
+        }
+        return builder.signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))).compact();
+    }
+
+    /**
+     * Horloge dont l'instant est avancé manuellement.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.videoflix.Users.config;
+
+import com.videoflix.Users.Benchmarks;
+import com.videoflix.users_microservice.config.JwtConfig;
+import com.videoflix.users_microservice.config.JwtTokenVerifier;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compare le coût par requête de la vérification JWT : parseur et clé
+ * reconstruits à chaque requête (comportement précédent du filtre) contre
+ * JwtTokenVerifier.
+ */
+@Benchmarks.OptIn
+class JwtTokenVerifierBenchmarkTest {
+
+    private static final String SECRET = "secretsecretsecretsecretsecretsecretsecretsecret";
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 50_000;
+    private static final int USERS = 1_000;
+
+    @Test
+    void benchmark_verifierShouldBeCheaperThanPerRequestParser() throws Exception {
+        String[] tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, "primary")
+                    .setSubject(String.valueOf(i))
+                    .setIssuedAt(new Date())
+                    .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                    .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .compact();
+        }
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(SECRET);
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtConfig);
+
+        Consumer<String> perRequestParser = token -> Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+        Consumer<String> cachedVerifier = token -> verifier.verify(token).subject();
+
+        // Échauffement du JIT.
+        run(perRequestParser, tokens, REQUESTS_PER_THREAD / 10);
+        run(cachedVerifier, tokens, REQUESTS_PER_THREAD / 10);
+
+        double before = run(perRequestParser, tokens, REQUESTS_PER_THREAD);
+        double after = run(cachedVerifier, tokens, REQUESTS_PER_THREAD);
+
+        Benchmarks.report(getClass(),
+                "Vérification JWT (%d threads) : avant %.0f ns par requête, après %.0f ns par requête",
+                THREADS, before, after);
+        assertTrue(after * 5 < before, "La vérification mise en cache doit être nettement moins coûteuse");
+    }
+
+    /**
+     * @return Le coût moyen par requête, en nanosecondes de temps de thread.
+     */
+    private static double run(Consumer<String> verification, String[] tokens, int requestsPerThread)
+            throws Exception {
+        long elapsedNanos = Benchmarks.timeConcurrently(THREADS, thread -> {
+            for (int i = 0; i < requestsPerThread; i++) {
+                verification.accept(tokens[(i * 7 + thread) % tokens.length]);
+            }
+        });
+        return (double) elapsedNanos * THREADS / ((long) THREADS * requestsPerThread);
+    }
+}
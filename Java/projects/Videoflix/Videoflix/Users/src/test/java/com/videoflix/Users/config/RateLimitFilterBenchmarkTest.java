@@ -0,0 +1,74 @@
+package com.videoflix.Users.config;
+
+import com.videoflix.Users.Benchmarks;
+import com.videoflix.users_microservice.config.LocalRateLimitBucketStore;
+import com.videoflix.users_microservice.config.RateLimitConfig;
+import com.videoflix.users_microservice.config.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Mesure le surcoût de RateLimitFilter sous contention : plusieurs threads
+ * filtrent des requêtes réparties sur un grand nombre de clients.
+ */
+@Benchmarks.OptIn
+class RateLimitFilterBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 200_000;
+    private static final int CLIENTS = 10_000;
+
+    @Test
+    void benchmark_filterOverheadUnderContention() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setDefaultProfile(new RateLimitConfig.Profile("default", "/**", 1_000, Duration.ofSeconds(1)));
+        RateLimitFilter filter = new RateLimitFilter(config, new LocalRateLimitBucketStore(config),
+                new SimpleMeterRegistry());
+
+        // Requêtes préparées à l'avance : seul le filtre est mesuré.
+        HttpServletRequest[] requests = new HttpServletRequest[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            // Mocks sans enregistrement des appels, pour ne pas fausser la mesure.
+            requests[i] = mock(HttpServletRequest.class, withSettings().stubOnly());
+            when(requests[i].getRemoteAddr()).thenReturn("10.0." + (i / 256) + "." + (i % 256));
+        }
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        LongAdder passed = new LongAdder();
+        FilterChain chain = (request, servletResponse) -> passed.increment();
+
+        // Échauffement du JIT.
+        run(filter, requests, response, chain, REQUESTS_PER_THREAD / 10);
+        passed.reset();
+
+        long elapsedNanos = run(filter, requests, response, chain, REQUESTS_PER_THREAD);
+
+        long total = (long) THREADS * REQUESTS_PER_THREAD;
+        Benchmarks.report(getClass(),
+                "RateLimitFilter : %d threads, %d clients, %.0f ns par requête, %.0f requêtes/s",
+                THREADS, CLIENTS, (double) elapsedNanos * THREADS / total, Benchmarks.perSecond(total, elapsedNanos));
+        assertEquals(total, passed.sum(), "Aucun client ne dépasse sa limite dans ce scénario");
+    }
+
+    private static long run(RateLimitFilter filter, HttpServletRequest[] requests, HttpServletResponse response,
+            FilterChain chain, int requestsPerThread) throws Exception {
+        return Benchmarks.timeConcurrently(THREADS, thread -> {
+            for (int i = 0; i < requestsPerThread; i++) {
+                filter.doFilter(requests[(i * 31 + thread) % requests.length], response, chain);
+            }
+        });
+    }
+}
@@ -3,7 +3,9 @@ package com.videoflix.Users.config;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,11 +13,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 
+import com.videoflix.users_microservice.config.LocalRateLimitBucketStore;
+import com.videoflix.users_microservice.config.RateLimitConfig;
 import com.videoflix.users_microservice.config.RateLimitFilter;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class) // Active les annotations Mockito
@@ -35,9 +42,12 @@ class RateLimitFilterTest {
 
     private RateLimitFilter rateLimitFilter; // Instance du filtre à tester
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() throws IOException {
-        rateLimitFilter = new RateLimitFilter(); // Initialisation du filtre
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter = filter(new RateLimitConfig()); // Initialisation du filtre (10 requêtes par minute)
         when(servletResponse.getWriter()).thenReturn(writer); // Configuration du mock pour simuler l'obtention du
                                                               // PrintWriter
     }
@@ -93,4 +103,75 @@ class RateLimitFilterTest {
         // avant)
         verify(writer, never()).write(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void doFilter_ShouldKeepSeparateBucketsPerClient() throws ServletException, IOException {
+        // Un client épuise sa limite
+        HttpServletRequest noisyClient = httpRequest("10.0.0.1", "/users/profile");
+        for (int i = 0; i < 11; i++) {
+            rateLimitFilter.doFilter(noisyClient, servletResponse, filterChain);
+        }
+
+        // Un autre client n'est pas affecté
+        HttpServletRequest otherClient = httpRequest("10.0.0.2", "/users/profile");
+        rateLimitFilter.doFilter(otherClient, servletResponse, filterChain);
+
+        verify(filterChain, times(10)).doFilter(noisyClient, servletResponse);
+        verify(filterChain).doFilter(otherClient, servletResponse);
+        verify(servletResponse).setHeader(eq("Retry-After"), anyString());
+        assertEquals(1.0, meterRegistry.get("rate.limit.requests").tag("profile", "default")
+                .tag("outcome", "rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("rate.limit.buckets").gauge().value());
+    }
+
+    @Test
+    void doFilter_ShouldApplyRouteProfile() throws ServletException, IOException {
+        // Profil plus strict pour la connexion
+        RateLimitConfig config = new RateLimitConfig();
+        config.setProfiles(List.of(new RateLimitConfig.Profile("login", "/users/auth/**", 2, Duration.ofMinutes(1))));
+        rateLimitFilter = filter(config);
+
+        HttpServletRequest login = httpRequest("10.0.0.1", "/users/auth/login");
+        for (int i = 0; i < 3; i++) {
+            rateLimitFilter.doFilter(login, servletResponse, filterChain);
+        }
+        // Le même client garde son quota sur les autres routes
+        HttpServletRequest profile = httpRequest("10.0.0.1", "/users/profile");
+        rateLimitFilter.doFilter(profile, servletResponse, filterChain);
+
+        verify(filterChain, times(2)).doFilter(login, servletResponse);
+        verify(filterChain).doFilter(profile, servletResponse);
+        assertEquals(1.0, meterRegistry.get("rate.limit.requests").tag("profile", "login")
+                .tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_ShouldShareOverflowBucketWhenKeyLimitReached() throws ServletException, IOException {
+        // Une seule clé conservée : les clients suivants partagent un bucket
+        RateLimitConfig config = new RateLimitConfig();
+        config.setMaxKeys(1);
+        config.setDefaultProfile(new RateLimitConfig.Profile("default", "/**", 1, Duration.ofMinutes(1)));
+        // Registre neuf : la jauge des buckets est déjà enregistrée pour le filtre de setUp
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter = filter(config);
+
+        rateLimitFilter.doFilter(httpRequest("10.0.0.1", "/users"), servletResponse, filterChain);
+        rateLimitFilter.doFilter(httpRequest("10.0.0.2", "/users"), servletResponse, filterChain);
+        rateLimitFilter.doFilter(httpRequest("10.0.0.3", "/users"), servletResponse, filterChain);
+
+        verify(filterChain, times(2)).doFilter(any(), eq(servletResponse));
+        assertEquals(1.0, meterRegistry.get("rate.limit.buckets").gauge().value());
+    }
+
+    private RateLimitFilter filter(RateLimitConfig config) {
+        return new RateLimitFilter(config, new LocalRateLimitBucketStore(config), meterRegistry);
+    }
+
+    private static HttpServletRequest httpRequest(String remoteAddr, String uri) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        lenient().when(request.getRemoteAddr()).thenReturn(remoteAddr);
+        lenient().when(request.getRequestURI()).thenReturn(uri);
+        lenient().when(request.getContextPath()).thenReturn("");
+        return request;
+    }
+}
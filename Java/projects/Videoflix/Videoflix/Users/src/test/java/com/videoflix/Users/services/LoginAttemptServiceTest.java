@@ -1,156 +1,312 @@
 package com.videoflix.Users.services;
 
-import com.videoflix.users_microservice.entities.LoginAttempt;
-import com.videoflix.users_microservice.repositories.LoginAttemptRepository;
+import com.videoflix.users_microservice.entities.LoginLockout;
+import com.videoflix.users_microservice.repositories.LoginLockoutRepository;
 import com.videoflix.users_microservice.services.LoginAttemptService;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
  * Classe de test pour le service de gestion des tentatives de connexion.
  * Utilise Mockito pour mocker les dépendances et JUnit 5 pour les tests.
- * 
- * Cette classe teste les mécanismes de suivi et de blocage des tentatives de
- * connexion
- * pour améliorer la sécurité de l'application.
+ *
+ * Cette classe teste le suivi en mémoire des échecs de connexion, le blocage
+ * dans la fenêtre glissante et la persistance différée des blocages.
  */
 @ExtendWith(MockitoExtension.class)
 class LoginAttemptServiceTest {
 
-    // Mock du repository pour éviter les interactions réelles avec la base de
-    // données
+    // Mock du repository des blocages persistés
     @Mock
-    private LoginAttemptRepository loginAttemptRepository;
+    private LoginLockoutRepository loginLockoutRepository;
+
+    // Mock du gestionnaire de transactions
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-    // Injection du repository mocké dans le service testé
-    @InjectMocks
     private LoginAttemptService loginAttemptService;
 
+    // Horloge contrôlée par les tests
+    private MutableClock clock;
+
     // Nom d'utilisateur constant utilisé pour les tests
     private static final String TEST_USERNAME = "testuser";
 
     // Nombre maximum de tentatives de connexion avant blocage
     private static final int MAX_LOGIN_ATTEMPTS = 5;
 
-    // Stocke le moment actuel pour les scénarios de test basés sur le temps
-    private LocalDateTime now;
+    // Nombre maximum d'échecs depuis une même adresse IP
+    private static final int MAX_IP_ATTEMPTS = 8;
+
+    // Durée de la fenêtre et du blocage, en minutes
+    private static final int BLOCKING_TIME = 5;
 
     /**
      * Méthode de configuration exécutée avant chaque test.
-     * Initialise le temps courant pour assurer la cohérence des tests.
+     * Crée le service avec une horloge contrôlée ; l'écriture différée est
+     * déclenchée explicitement par les tests.
      */
     @BeforeEach
     void setUp() {
-        now = LocalDateTime.now();
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        loginAttemptService = service(1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loginAttemptService.shutdown();
     }
 
     /**
-     * Test vérifiant l'enregistrement d'une tentative de connexion échouée.
-     * 
-     * Objectifs du test :
-     * 1. Vérifier que la méthode save du repository est appelée exactement une fois
-     * 2. Confirmer que la tentative de connexion enregistrée a le bon nom
-     * d'utilisateur
-     * 3. Garantir que le moment de la tentative n'est pas null
+     * Un échec est suivi en mémoire, sans écriture en base.
      */
     @Test
-    void recordFailedLogin_ShouldSaveLoginAttempt() {
-        // Préparation et exécution
+    void recordFailedLogin_ShouldTrackAttemptWithoutDatabaseWrite() {
         loginAttemptService.recordFailedLogin(TEST_USERNAME);
 
-        // Vérification : S'assurer que la méthode save est appelée avec les bons
-        // paramètres
-        verify(loginAttemptRepository, times(1)).save(argThat(attempt -> attempt.getUsername().equals(TEST_USERNAME) &&
-                attempt.getAttemptTime() != null));
+        assertEquals(1, loginAttemptService.getFailedAttempts(TEST_USERNAME));
+        assertFalse(loginAttemptService.isBlocked(TEST_USERNAME));
+        loginAttemptService.flushLockouts();
+        verifyNoInteractions(loginLockoutRepository);
     }
 
     /**
-     * Test vérifiant la réinitialisation des tentatives de connexion.
-     * 
-     * Objectifs du test :
-     * 1. Récupérer les tentatives de connexion récentes
-     * 2. Confirmer que toutes les tentatives sont supprimées
+     * Atteindre le seuil bloque l'utilisateur et persiste un seul blocage.
      */
     @Test
-    void resetLoginAttempts_ShouldDeleteRecentAttempts() {
-        // Préparation : Création d'une liste de tentatives de connexion
-        List<LoginAttempt> attempts = createMultipleLoginAttempts(2);
+    void isBlocked_ShouldReturnTrueWhenReachingMaxAttempts() {
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS; i++) {
+            loginAttemptService.recordFailedLogin(TEST_USERNAME);
+            clock.advance(Duration.ofSeconds(10));
+        }
 
-        // Simulation du repository pour retourner ces tentatives
-        when(loginAttemptRepository.findByUsernameAndAttemptTimeAfter(
-                eq(TEST_USERNAME),
-                any(LocalDateTime.class))).thenReturn(attempts);
+        assertTrue(loginAttemptService.isBlocked(TEST_USERNAME));
+        loginAttemptService.flushLockouts();
+        verify(loginLockoutRepository).saveAndFlush(argThat(lockout -> ("user:" + TEST_USERNAME).equals(lockout.getLockKey())
+                && lockout.getLockedUntil() != null));
+        verify(loginLockoutRepository).deleteExpiredBefore(any(LocalDateTime.class));
+        verify(transactionManager).commit(any());
+    }
 
-        // Exécution : Réinitialisation des tentatives de connexion
-        loginAttemptService.resetLoginAttempts(TEST_USERNAME);
+    /**
+     * L'écriture périodique persiste le blocage sans appel explicite.
+     */
+    @Test
+    void flushLockouts_ShouldRunOnSchedule() {
+        loginAttemptService.shutdown();
+        loginAttemptService = new LoginAttemptService(loginLockoutRepository, transactionManager, clock,
+                MAX_LOGIN_ATTEMPTS, BLOCKING_TIME, MAX_IP_ATTEMPTS, 1_000, 50);
+
+        lockUser();
 
-        // Vérification : Confirmer que toutes les tentatives sont supprimées
-        verify(loginAttemptRepository, times(1)).deleteAll(attempts);
+        verify(loginLockoutRepository, timeout(2_000)).saveAndFlush(any(LoginLockout.class));
+        verify(loginLockoutRepository, timeout(2_000)).deleteExpiredBefore(any(LocalDateTime.class));
     }
 
     /**
-     * Test vérifiant le blocage d'un utilisateur après avoir dépassé
-     * le nombre maximum de tentatives de connexion.
+     * Un blocage déjà persisté est prolongé sous le verrou de la ligne, sans
+     * créer de doublon.
      */
     @Test
-    void isBlocked_ShouldReturnTrueWhenExceedingMaxAttempts() {
-        // Préparation : Création du nombre maximal de tentatives de connexion
-        List<LoginAttempt> attempts = createMultipleLoginAttempts(MAX_LOGIN_ATTEMPTS);
+    void flushLockouts_ShouldExtendExistingLockout() {
+        LoginLockout existing = new LoginLockout();
+        existing.setLockKey("user:" + TEST_USERNAME);
+        existing.setLockedUntil(LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault()));
+        when(loginLockoutRepository.findForUpdate("user:" + TEST_USERNAME)).thenReturn(Optional.of(existing));
 
-        // Simulation du repository pour retourner ces tentatives
-        when(loginAttemptRepository.findByUsernameAndAttemptTimeAfter(
-                eq(TEST_USERNAME),
-                any(LocalDateTime.class))).thenReturn(attempts);
+        lockUser();
+        loginAttemptService.flushLockouts();
 
-        // Vérification : Confirmer que l'utilisateur est bloqué
-        assertTrue(loginAttemptService.isBlocked(TEST_USERNAME));
+        verify(loginLockoutRepository).saveAndFlush(existing);
+        assertEquals(LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault()).plusMinutes(BLOCKING_TIME),
+                existing.getLockedUntil());
+    }
+
+    /**
+     * Un blocage plus long écrit par une autre instance n'est pas raccourci.
+     */
+    @Test
+    void flushLockouts_ShouldKeepLongerLockoutFromAnotherInstance() {
+        LoginLockout existing = new LoginLockout();
+        existing.setLockKey("user:" + TEST_USERNAME);
+        LocalDateTime longer = LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault()).plusHours(1);
+        existing.setLockedUntil(longer);
+        when(loginLockoutRepository.findForUpdate("user:" + TEST_USERNAME)).thenReturn(Optional.of(existing));
+
+        lockUser();
+        loginAttemptService.flushLockouts();
+
+        assertEquals(longer, existing.getLockedUntil());
+        verify(loginLockoutRepository, never()).saveAndFlush(any());
     }
 
     /**
-     * Test vérifiant qu'un utilisateur n'est pas bloqué
-     * lorsqu'il est en dessous du nombre maximum de tentatives.
+     * Deux instances créant le même blocage se départagent sur la clé primaire :
+     * la perdante relit la ligne créée et la met à jour.
+     */
+    @Test
+    void flushLockouts_ShouldRetryOnceWhenLockoutCreatedConcurrently() {
+        when(loginLockoutRepository.saveAndFlush(any(LoginLockout.class)))
+                .thenThrow(new DataIntegrityViolationException("lock_key"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        lockUser();
+        loginAttemptService.flushLockouts();
+
+        verify(loginLockoutRepository, times(2)).findForUpdate("user:" + TEST_USERNAME);
+        verify(loginLockoutRepository, times(2)).saveAndFlush(any(LoginLockout.class));
+        verify(loginLockoutRepository).deleteExpiredBefore(any(LocalDateTime.class));
+    }
+
+    /**
+     * Si la base est indisponible, le blocage reste en attente et est écrit au
+     * passage suivant.
+     */
+    @Test
+    void flushLockouts_ShouldKeepLockoutPendingWhenDatabaseFails() {
+        when(loginLockoutRepository.saveAndFlush(any(LoginLockout.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        lockUser();
+        loginAttemptService.flushLockouts();
+        verify(loginLockoutRepository, never()).deleteExpiredBefore(any());
+
+        loginAttemptService.flushLockouts();
+        verify(loginLockoutRepository, times(2)).saveAndFlush(any(LoginLockout.class));
+        verify(loginLockoutRepository).deleteExpiredBefore(any(LocalDateTime.class));
+
+        // Plus rien en attente : le passage suivant n'écrit rien.
+        loginAttemptService.flushLockouts();
+        verify(loginLockoutRepository, times(2)).saveAndFlush(any(LoginLockout.class));
+    }
+
+    /**
+     * En dessous du seuil, l'utilisateur n'est pas bloqué.
      */
     @Test
     void isBlocked_ShouldReturnFalseWhenBelowMaxAttempts() {
-        // Préparation : Création de moins de tentatives que le maximum
-        List<LoginAttempt> attempts = createMultipleLoginAttempts(MAX_LOGIN_ATTEMPTS - 1);
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS - 1; i++) {
+            loginAttemptService.recordFailedLogin(TEST_USERNAME);
+        }
+
+        assertFalse(loginAttemptService.isBlocked(TEST_USERNAME));
+        assertEquals(MAX_LOGIN_ATTEMPTS - 1, loginAttemptService.getFailedAttempts(TEST_USERNAME));
+    }
+
+    /**
+     * Les échecs sortis de la fenêtre ne comptent plus et le blocage expire.
+     */
+    @Test
+    void isBlocked_ShouldExpireWhenWindowSlides() {
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS; i++) {
+            loginAttemptService.recordFailedLogin(TEST_USERNAME);
+        }
+        assertTrue(loginAttemptService.isBlocked(TEST_USERNAME));
 
-        // Simulation du repository pour retourner ces tentatives
-        when(loginAttemptRepository.findByUsernameAndAttemptTimeAfter(
-                eq(TEST_USERNAME),
-                any(LocalDateTime.class))).thenReturn(attempts);
+        clock.advance(Duration.ofMinutes(BLOCKING_TIME).plusSeconds(1));
 
-        // Vérification : Confirmer que l'utilisateur n'est pas bloqué
         assertFalse(loginAttemptService.isBlocked(TEST_USERNAME));
+        assertEquals(0, loginAttemptService.getFailedAttempts(TEST_USERNAME));
     }
 
     /**
-     * Test vérifiant le décompte correct des tentatives de connexion échouées.
+     * Des échecs espacés de plus que la fenêtre ne provoquent pas de blocage.
      */
     @Test
-    void getFailedAttempts_ShouldReturnCorrectCount() {
-        // Préparation : Création de 3 tentatives de connexion
-        List<LoginAttempt> attempts = createMultipleLoginAttempts(3);
+    void isBlocked_ShouldNotBlockAttemptsSpreadBeyondWindow() {
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS * 2; i++) {
+            loginAttemptService.recordFailedLogin(TEST_USERNAME);
+            clock.advance(Duration.ofMinutes(2));
+        }
 
-        // Simulation du repository pour retourner ces tentatives
-        when(loginAttemptRepository.findByUsernameAndAttemptTimeAfter(
-                eq(TEST_USERNAME),
-                any(LocalDateTime.class))).thenReturn(attempts);
+        assertFalse(loginAttemptService.isBlocked(TEST_USERNAME));
+    }
+
+    /**
+     * La réinitialisation efface les échecs et supprime le blocage persisté.
+     */
+    @Test
+    void resetLoginAttempts_ShouldClearAttemptsAndLockout() {
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS; i++) {
+            loginAttemptService.recordFailedLogin(TEST_USERNAME);
+        }
+
+        loginAttemptService.resetLoginAttempts(TEST_USERNAME);
+        loginAttemptService.flushLockouts();
+
+        assertFalse(loginAttemptService.isBlocked(TEST_USERNAME));
+        assertEquals(0, loginAttemptService.getFailedAttempts(TEST_USERNAME));
+        verify(loginLockoutRepository).deleteByLockKey("user:" + TEST_USERNAME);
+        verify(loginLockoutRepository, never()).saveAndFlush(any());
+    }
+
+    /**
+     * Une adresse IP qui essaie de nombreux comptes est bloquée à son propre
+     * seuil.
+     */
+    @Test
+    void isBlocked_ShouldBlockIpAcrossUsernames() {
+        for (int i = 0; i < MAX_IP_ATTEMPTS; i++) {
+            loginAttemptService.recordFailedLogin("user" + i, "203.0.113.7");
+        }
+
+        assertTrue(loginAttemptService.isBlocked("another", "203.0.113.7"));
+        assertFalse(loginAttemptService.isBlocked("another", "198.51.100.1"));
+        assertFalse(loginAttemptService.isBlocked("another"));
+    }
+
+    /**
+     * La mémoire reste bornée face à de très nombreux noms d'utilisateur.
+     */
+    @Test
+    void recordFailedLogin_ShouldBoundTrackedKeys() {
+        loginAttemptService.shutdown();
+        loginAttemptService = service(640);
+
+        for (int i = 0; i < 100_000; i++) {
+            loginAttemptService.recordFailedLogin("user" + i);
+        }
+
+        assertTrue(loginAttemptService.getTrackedKeys() <= 640);
+        // Les clés les plus récentes restent suivies.
+        assertEquals(1, loginAttemptService.getFailedAttempts("user99999"));
+    }
+
+    /**
+     * Les blocages persistés sont rechargés au démarrage.
+     */
+    @Test
+    void loadActiveLockouts_ShouldRestorePersistedLockouts() {
+        LoginLockout lockout = new LoginLockout();
+        lockout.setLockKey("user:" + TEST_USERNAME);
+        lockout.setLockedUntil(LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault()).plusMinutes(3));
+        when(loginLockoutRepository.findByLockedUntilAfter(any(LocalDateTime.class))).thenReturn(List.of(lockout));
+
+        loginAttemptService.loadActiveLockouts();
 
-        // Vérification : Confirmer le nombre correct de tentatives
-        assertEquals(3, loginAttemptService.getFailedAttempts(TEST_USERNAME));
+        assertTrue(loginAttemptService.isBlocked(TEST_USERNAME));
     }
 
     /**
@@ -163,39 +319,49 @@ class LoginAttemptServiceTest {
         loginAttemptService.blockUser(TEST_USERNAME);
 
         // Vérification : S'assurer qu'aucune méthode du repository n'est appelée
-        verify(loginAttemptRepository, never()).save(any(LoginAttempt.class));
-        verify(loginAttemptRepository, never()).deleteAll(anyList());
-        verify(loginAttemptRepository, never()).findByUsernameAndAttemptTimeAfter(
-                anyString(),
-                any(LocalDateTime.class));
+        verifyNoInteractions(loginLockoutRepository);
     }
 
-    /**
-     * Méthode utilitaire pour créer plusieurs tentatives de connexion pour les
-     * tests.
-     * 
-     * @param count Nombre de tentatives de connexion à créer
-     * @return Liste de tentatives de connexion
-     */
-    private List<LoginAttempt> createMultipleLoginAttempts(int count) {
-        List<LoginAttempt> attempts = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            attempts.add(createLoginAttempt(TEST_USERNAME, now.minusMinutes(i)));
+    private LoginAttemptService service(int maxTrackedKeys) {
+        return new LoginAttemptService(loginLockoutRepository, transactionManager, clock, MAX_LOGIN_ATTEMPTS,
+                BLOCKING_TIME, MAX_IP_ATTEMPTS, maxTrackedKeys, Duration.ofHours(1).toMillis());
+    }
+
+    // Échecs consécutifs jusqu'au seuil : l'utilisateur est bloqué pour la durée de la fenêtre.
+    private void lockUser() {
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS; i++) {
+            loginAttemptService.recordFailedLogin(TEST_USERNAME);
         }
-        return attempts;
+        assertTrue(loginAttemptService.isBlocked(TEST_USERNAME));
     }
 
     /**
-     * Méthode utilitaire pour créer une unique tentative de connexion.
-     * 
-     * @param username    Nom d'utilisateur pour la tentative de connexion
-     * @param attemptTime Moment de la tentative de connexion
-     * @return Objet LoginAttempt
+     * Horloge dont l'instant est avancé manuellement.
      */
-    private LoginAttempt createLoginAttempt(String username, LocalDateTime attemptTime) {
-        LoginAttempt attempt = new LoginAttempt();
-        attempt.setUsername(username);
-        attempt.setAttemptTime(attemptTime);
-        return attempt;
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
     }
-}
\ No newline at end of file
+}
@@ -167,7 +167,7 @@ class UserServiceTest {
     @Test
     void testAuthenticate_Success() {
         // Vérifie l'authentification réussie d'un utilisateur
-        when(loginAttemptService.isBlocked(anyString())).thenReturn(false);
+        when(loginAttemptService.isBlocked(anyString(), any())).thenReturn(false);
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
         when(request.getRemoteAddr()).thenReturn("127.0.0.1");
@@ -181,7 +181,7 @@ class UserServiceTest {
     @Test
     void testAuthenticate_Blocked() {
         // Vérifie le rejet de l'authentification pour un compte bloqué
-        when(loginAttemptService.isBlocked(anyString())).thenReturn(true);
+        when(loginAttemptService.isBlocked(anyString(), any())).thenReturn(true);
 
         assertThrows(AuthorizationException.class, () -> {
             userService.authenticate("testuser", "password");
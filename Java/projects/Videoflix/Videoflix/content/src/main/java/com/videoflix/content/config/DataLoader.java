@@ -1,12 +1,16 @@
 package com.videoflix.content.config;
 
+import com.videoflix.content.entities.ContentStatus;
 import com.videoflix.content.entities.ContentType;
 import com.videoflix.content.entities.Rating;
 import com.videoflix.content.entities.SubscriptionLevelRequired;
+import com.videoflix.content.events.ReferenceDataChangedEvent;
+import com.videoflix.content.repositories.ContentStatusRepository;
 import com.videoflix.content.repositories.ContentTypeRepository;
 import com.videoflix.content.repositories.RatingRepository;
 import com.videoflix.content.repositories.SubscriptionLevelRequiredRepository;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,12 +20,17 @@ public class DataLoader {
     @Bean
     CommandLineRunner initDatabase(ContentTypeRepository contentTypeRepository,
             RatingRepository ratingRepository,
-            SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository) {
+            SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository,
+            ContentStatusRepository contentStatusRepository,
+            ApplicationEventPublisher eventPublisher) {
         return _ -> {
+            boolean changed = false;
+
             // Content Types
             for (ContentType.Type typeEnum : ContentType.Type.values()) {
                 if (contentTypeRepository.findByName(typeEnum.name()).isEmpty()) {
                     contentTypeRepository.save(new ContentType(typeEnum)); // Utilise le constructeur de l'entité
+                    changed = true;
                 }
             }
 
@@ -29,6 +38,7 @@ public class DataLoader {
             for (Rating.Level ratingEnum : Rating.Level.values()) {
                 if (ratingRepository.findByName(ratingEnum.name()).isEmpty()) {
                     ratingRepository.save(new Rating(ratingEnum)); // Utilise le constructeur de l'entité
+                    changed = true;
                 }
             }
 
@@ -38,8 +48,22 @@ public class DataLoader {
                     subscriptionLevelRequiredRepository.save(new SubscriptionLevelRequired(levelEnum)); // Utilise le
                                                                                                         // constructeur
                                                                                                         // de l'entité
+                    changed = true;
+                }
+            }
+
+            // Content Statuses
+            for (ContentStatus.Status statusEnum : ContentStatus.Status.values()) {
+                if (contentStatusRepository.findByName(statusEnum.name()).isEmpty()) {
+                    contentStatusRepository.save(new ContentStatus(statusEnum)); // Utilise le constructeur de l'entité
+                    changed = true;
                 }
             }
+
+            // Le cache des tables de référence recharge les valeurs ajoutées.
+            if (changed) {
+                eventPublisher.publishEvent(new ReferenceDataChangedEvent(this));
+            }
         };
     }
-}
\ No newline at end of file
+}
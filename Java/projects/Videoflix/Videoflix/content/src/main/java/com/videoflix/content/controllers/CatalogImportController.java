@@ -0,0 +1,44 @@
+package com.videoflix.content.controllers;
+
+import com.videoflix.content.dtos.CatalogImportReport;
+import com.videoflix.content.imports.CatalogFormat;
+import com.videoflix.content.services.CatalogImportService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/v1/content/import")
+public class CatalogImportController {
+
+    private final CatalogImportService catalogImportService;
+
+    public CatalogImportController(CatalogImportService catalogImportService) {
+        this.catalogImportService = catalogImportService;
+    }
+
+    /**
+     * Importe un fichier de catalogue NDJSON ou CSV. Le format est déduit de
+     * l'extension du fichier si {@code format} est absent. Le fichier reçu est
+     * stocké sur disque et lu en flux ; la réponse est le bilan de l'import.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CatalogImportReport> importCatalog(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) throws IOException {
+        CatalogFormat catalogFormat = CatalogFormat.resolve(format, file.getOriginalFilename());
+        return ResponseEntity.ok(catalogImportService.importCatalog(file.getInputStream(), catalogFormat));
+    }
+
+    /**
+     * Avancement de l'import en cours, ou bilan du dernier import.
+     */
+    @GetMapping("/status")
+    public ResponseEntity<CatalogImportReport> getImportStatus() {
+        return catalogImportService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+}
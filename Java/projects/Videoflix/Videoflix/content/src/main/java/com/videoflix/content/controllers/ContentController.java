@@ -3,16 +3,23 @@ package com.videoflix.content.controllers;
 import com.videoflix.content.dtos.ContentRequest;
 import com.videoflix.content.dtos.ContentResponse;
 import com.videoflix.content.dtos.CategoryResponse;
+import com.videoflix.content.dtos.PublishedContentPage;
 import com.videoflix.content.entities.Content;
 import com.videoflix.content.entities.Category;
+import com.videoflix.content.search.SearchQuery;
+import com.videoflix.content.search.SearchResult;
 import com.videoflix.content.services.ContentService;
 import com.videoflix.content.services.CategoryService;
+import com.videoflix.content.services.ContentSearchService;
+import com.videoflix.content.services.PublishedCatalogCache;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,10 +29,15 @@ public class ContentController {
 
     private final ContentService contentService;
     private final CategoryService categoryService;
+    private final PublishedCatalogCache publishedCatalogCache;
+    private final ContentSearchService contentSearchService;
 
-    public ContentController(ContentService contentService, CategoryService categoryService) {
+    public ContentController(ContentService contentService, CategoryService categoryService,
+            PublishedCatalogCache publishedCatalogCache, ContentSearchService contentSearchService) {
         this.contentService = contentService;
         this.categoryService = categoryService;
+        this.publishedCatalogCache = publishedCatalogCache;
+        this.contentSearchService = contentSearchService;
     }
 
     // Méthode utilitaire pour convertir Entité -> DTO
@@ -74,9 +86,7 @@ public class ContentController {
         Content content = toContentEntity(request);
         // Associer les catégories
         if (request.getCategoryId() != null && !request.getCategoryId().isEmpty()) {
-            Set<Category> categories = request.getCategoryId().stream()
-                    .map(categoryService::getCategoryById)
-                    .collect(Collectors.toSet());
+            Set<Category> categories = categoryService.getCategoriesByIds(request.getCategoryId());
             content.setCategories(categories);
         }
         Content createdContent = contentService.createContent(content, null, null, null, null, null);
@@ -89,13 +99,51 @@ public class ContentController {
         return ResponseEntity.ok(toContentResponse(content));
     }
 
+    /**
+     * Parcourt le catalogue publié page par page. Le client passe le
+     * {@code nextCursor} de la page précédente en paramètre {@code after}, et
+     * peut revalider une page avec {@code If-None-Match} : la réponse est alors
+     * un 304 sans corps si la page n'a pas changé.
+     */
     @GetMapping("/published")
-    public ResponseEntity<List<ContentResponse>> getAllPublishedContent() {
-        List<Content> contents = contentService.getAllPublishedContent();
-        List<ContentResponse> responses = contents.stream()
-                .map(this::toContentResponse)
-                .toList();
-        return ResponseEntity.ok(responses);
+    public ResponseEntity<PublishedContentPage> getPublishedContent(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest webRequest) {
+        PublishedCatalogCache.CatalogPage catalogPage = publishedCatalogCache.getPage(after, size);
+        if (webRequest.checkNotModified(catalogPage.etag())) {
+            return null; // 304 Not Modified, en-têtes déjà positionnés
+        }
+        return ResponseEntity.ok()
+                .eTag(catalogPage.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(catalogPage.page());
+    }
+
+    /**
+     * Recherche plein texte et par facettes dans le catalogue publié. Le
+     * dernier mot de {@code q} est traité comme un préfixe et les fautes de
+     * frappe sont tolérées ; les filtres portent sur les valeurs exactes.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<SearchResult> searchContent(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String rating,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "20") int limit) {
+        SearchQuery query = new SearchQuery(q, type, rating, level, category, limit);
+        return ResponseEntity.ok(contentSearchService.search(query));
+    }
+
+    /**
+     * Reconstruit l'index de recherche ; 409 si une reconstruction est déjà en
+     * cours.
+     */
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildSearchIndex() {
+        return ResponseEntity.ok(Map.of("indexed", contentSearchService.rebuild()));
     }
 
     @PutMapping("/{id}")
@@ -103,9 +151,7 @@ public class ContentController {
             @Valid @RequestBody ContentRequest request) {
         Content updatedContent = toContentEntity(request);
         if (request.getCategoryId() != null && !request.getCategoryId().isEmpty()) {
-            Set<Category> categories = request.getCategoryId().stream()
-                    .map(categoryService::getCategoryById)
-                    .collect(Collectors.toSet());
+            Set<Category> categories = categoryService.getCategoriesByIds(request.getCategoryId());
             updatedContent.setCategories(categories);
         }
         Content content = contentService.updateContent(id, updatedContent, null, null, null, null, null);
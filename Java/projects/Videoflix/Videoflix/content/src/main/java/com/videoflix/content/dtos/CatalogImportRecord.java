@@ -0,0 +1,26 @@
+package com.videoflix.content.dtos;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Contenu lu dans un fichier de catalogue (une ligne NDJSON ou CSV). Les
+ * valeurs de référence sont les noms des enums (MOVIE, PG_13, PREMIUM,
+ * PUBLISHED...) et les catégories sont désignées par leur nom.
+ */
+@Data
+public class CatalogImportRecord {
+    private String title;
+    private String description;
+    private LocalDate releaseDate;
+    private Integer durationMinutes;
+    private String posterUrl;
+    private String trailerUrl;
+    private String type; // Obligatoire
+    private String status; // DRAFT si absent
+    private String rating;
+    private String minSubscriptionLevel;
+    private List<String> categories;
+}
@@ -0,0 +1,26 @@
+package com.videoflix.content.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Avancement d'un import de catalogue, mis à jour après chaque lot puis à la
+ * fin de l'import. {@code errors} ne conserve que les premières erreurs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportReport {
+    private String status; // RUNNING, COMPLETED, FAILED
+    private long read;
+    private long imported;
+    private long rejected;
+    private List<String> errors;
+    private LocalDateTime startedAt;
+    private long elapsedMs;
+    private double recordsPerSecond;
+}
@@ -0,0 +1,20 @@
+package com.videoflix.content.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page du catalogue publié, triée par ID. {@code nextCursor} est à passer en
+ * paramètre {@code after} pour obtenir la page suivante ; il vaut null sur la
+ * dernière page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishedContentPage {
+    private List<PublishedContentSummary> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,30 @@
+package com.videoflix.content.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Vue allégée d'un contenu publié, utilisée pour le parcours du catalogue.
+ * La description et la bande-annonce restent disponibles via
+ * {@code GET /api/v1/content/{id}}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishedContentSummary {
+    private Long id;
+    private String title;
+    private LocalDate releaseDate;
+    private Integer durationMinutes;
+    private String posterUrl;
+    private String type; // MOVIE, TV_SERIES, DOCUMENTARY
+    private String rating; // G, PG, R, etc.
+    private String minSubscriptionLevel; // BASIC, STANDARD, PREMIUM
+    private List<CategoryResponse> categories; // Triées par ID
+    private LocalDateTime updatedAt;
+}
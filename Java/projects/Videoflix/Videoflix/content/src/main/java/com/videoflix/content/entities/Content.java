@@ -17,8 +17,12 @@ import java.util.Set;
 @AllArgsConstructor
 public class Content {
 
+    // Séquence allouée par blocs : contrairement à IDENTITY, Hibernate connaît
+    // l'ID avant l'insertion et peut regrouper les INSERT en lots JDBC. Sur une
+    // base créée avec IDENTITY, exécuter d'abord db/content_seq_cutover.sql.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "content_seq")
+    @SequenceGenerator(name = "content_seq", sequenceName = "content_seq", allocationSize = 500)
     private Long id;
 
     @Column(nullable = false)
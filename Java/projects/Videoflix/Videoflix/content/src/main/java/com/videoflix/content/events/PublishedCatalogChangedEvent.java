@@ -0,0 +1,14 @@
+package com.videoflix.content.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class PublishedCatalogChangedEvent extends ApplicationEvent {
+    private final Long contentId; // Contenu créé, modifié ou supprimé ; null après un import en masse
+
+    public PublishedCatalogChangedEvent(Object source, Long contentId) {
+        super(source);
+        this.contentId = contentId;
+    }
+}
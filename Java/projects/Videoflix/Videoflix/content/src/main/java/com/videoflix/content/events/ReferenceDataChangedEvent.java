@@ -0,0 +1,10 @@
+package com.videoflix.content.events;
+
+import org.springframework.context.ApplicationEvent;
+
+public class ReferenceDataChangedEvent extends ApplicationEvent {
+
+    public ReferenceDataChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,11 @@
+package com.videoflix.content.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CatalogImportInProgressException extends RuntimeException {
+    public CatalogImportInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.videoflix.content.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SearchRebuildInProgressException extends RuntimeException {
+    public SearchRebuildInProgressException(String message) {
+        super(message);
+    }
+}
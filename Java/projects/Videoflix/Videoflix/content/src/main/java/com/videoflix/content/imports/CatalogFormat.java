@@ -0,0 +1,43 @@
+package com.videoflix.content.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Formats de fichier de catalogue acceptés à l'import.
+ */
+public enum CatalogFormat {
+    NDJSON,
+    CSV;
+
+    /**
+     * Détermine le format depuis le paramètre explicite, sinon depuis
+     * l'extension du fichier.
+     *
+     * @throws IllegalArgumentException si le format est inconnu ou ne peut
+     *                                  être déduit.
+     */
+    public static CatalogFormat resolve(String format, String filename) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Format de catalogue inconnu : " + format);
+            }
+        }
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        throw new IllegalArgumentException("Format de catalogue non précisé (ndjson ou csv)");
+    }
+
+    public CatalogRecordReader open(Reader reader, ObjectMapper objectMapper) {
+        return this == NDJSON ? new NdjsonCatalogReader(reader, objectMapper) : new CsvCatalogReader(reader);
+    }
+}
@@ -0,0 +1,28 @@
+package com.videoflix.content.imports;
+
+import com.videoflix.content.dtos.CatalogImportRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lecture incrémentale d'un fichier de catalogue, un contenu à la fois : la
+ * mémoire utilisée ne dépend pas de la taille du fichier.
+ */
+public interface CatalogRecordReader extends Closeable {
+
+    /**
+     * Lit le contenu suivant.
+     *
+     * @return Le contenu, ou null en fin de fichier.
+     * @throws IllegalArgumentException si l'enregistrement est mal formé ; il
+     *                                  est ignoré et la lecture peut continuer.
+     * @throws IOException              si le fichier ne peut plus être lu.
+     */
+    CatalogImportRecord next() throws IOException;
+
+    /**
+     * @return Le numéro de la ligne où commence le dernier enregistrement lu.
+     */
+    long line();
+}
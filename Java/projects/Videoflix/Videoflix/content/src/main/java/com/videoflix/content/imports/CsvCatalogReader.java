@@ -0,0 +1,180 @@
+package com.videoflix.content.imports;
+
+import com.videoflix.content.dtos.CatalogImportRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Catalogue au format CSV (RFC 4180) : séparateur virgule, champs entre
+ * guillemets pouvant contenir virgules, guillemets doublés et retours à la
+ * ligne. La première ligne nomme les colonnes (title, description,
+ * releaseDate, durationMinutes, posterUrl, trailerUrl, type, status, rating,
+ * minSubscriptionLevel, categories), dans un ordre quelconque ; les colonnes
+ * inconnues sont ignorées. Les catégories sont séparées par des barres
+ * verticales ({@code Action|Thriller}).
+ */
+class CsvCatalogReader implements CatalogRecordReader {
+
+    /** Au-delà, un guillemet non fermé est plus probable qu'un vrai champ. */
+    private static final int MAX_RECORD_LENGTH = 1_000_000;
+
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    private long physicalLine;
+    private long recordLine;
+
+    CsvCatalogReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    @Override
+    public CatalogImportRecord next() throws IOException {
+        if (columns == null) {
+            List<String> header = nextNonBlankRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        List<String> fields = nextNonBlankRecord();
+        return fields == null ? null : toRecord(fields);
+    }
+
+    @Override
+    public long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private CatalogImportRecord toRecord(List<String> fields) {
+        CatalogImportRecord record = new CatalogImportRecord();
+        record.setTitle(field(fields, "title"));
+        record.setDescription(field(fields, "description"));
+        String releaseDate = field(fields, "releasedate");
+        if (releaseDate != null) {
+            try {
+                record.setReleaseDate(LocalDate.parse(releaseDate));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Date de sortie invalide : " + releaseDate);
+            }
+        }
+        String duration = field(fields, "durationminutes");
+        if (duration != null) {
+            try {
+                record.setDurationMinutes(Integer.valueOf(duration));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Durée invalide : " + duration);
+            }
+        }
+        record.setPosterUrl(field(fields, "posterurl"));
+        record.setTrailerUrl(field(fields, "trailerurl"));
+        record.setType(field(fields, "type"));
+        record.setStatus(field(fields, "status"));
+        record.setRating(field(fields, "rating"));
+        record.setMinSubscriptionLevel(field(fields, "minsubscriptionlevel"));
+        String categories = field(fields, "categories");
+        if (categories != null) {
+            record.setCategories(Arrays.stream(categories.split("\\|"))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .toList());
+        }
+        return record;
+    }
+
+    /**
+     * @return La valeur de la colonne sans espaces autour, ou null si la
+     *         colonne est absente ou vide.
+     */
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private List<String> nextNonBlankRecord() throws IOException {
+        List<String> fields;
+        do {
+            fields = nextRecord();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+        return fields;
+    }
+
+    /**
+     * @return Les champs de l'enregistrement suivant, ou null en fin de
+     *         fichier.
+     */
+    private List<String> nextRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        int length = 0;
+        recordLine = physicalLine + 1;
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                if (quoted) {
+                    throw new IllegalArgumentException("Guillemet non fermé");
+                }
+                if (empty) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            empty = false;
+            if (++length > MAX_RECORD_LENGTH) {
+                throw new IOException("Enregistrement CSV de plus de " + MAX_RECORD_LENGTH
+                        + " caractères à la ligne " + recordLine + " (guillemet non fermé ?)");
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        physicalLine++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                physicalLine++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.videoflix.content.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.videoflix.content.dtos.CatalogImportRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Catalogue au format NDJSON : un objet JSON par ligne, les lignes vides
+ * étant ignorées.
+ */
+class NdjsonCatalogReader implements CatalogRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long line;
+
+    NdjsonCatalogReader(Reader reader, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(reader);
+        this.objectReader = objectMapper.readerFor(CatalogImportRecord.class);
+    }
+
+    @Override
+    public CatalogImportRecord next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        try {
+            return objectReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalide : " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
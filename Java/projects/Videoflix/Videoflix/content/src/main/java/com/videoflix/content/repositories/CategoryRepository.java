@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 
 import com.videoflix.content.entities.Category;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +37,11 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      */
     List<Category> findByNameContainingIgnoreCase(String nameFragment);
 
+    /**
+     * Récupère les catégories d'une liste de noms, en une requête
+     */
+    List<Category> findByNameIn(Collection<String> names);
+
     /**
      * Recherche avec JPQL personnalisée pour des cas complexes
      */
@@ -3,9 +3,14 @@ package com.videoflix.content.repositories;
 import com.videoflix.content.entities.Content;
 import com.videoflix.content.entities.ContentStatus;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +21,19 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
     List<Content> findByGenres_Name(String genreName);
 
     Optional<Content> findByTitle(String title);
-}
\ No newline at end of file
+
+    /**
+     * Pagination par clé : IDs des contenus d'un statut situés après un ID donné,
+     * dans l'ordre croissant. S'appuie sur l'index de la clé primaire, quel que
+     * soit le rang de la page.
+     */
+    @Query("SELECT c.id FROM Content c WHERE c.status = :status AND c.id > :afterId ORDER BY c.id ASC")
+    List<Long> findIdsByStatusAfter(@Param("status") ContentStatus status, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Charge des contenus avec leurs catégories en une seule requête.
+     */
+    @EntityGraph(attributePaths = "categories")
+    List<Content> findWithCategoriesByIdInOrderByIdAsc(Collection<Long> ids);
+}
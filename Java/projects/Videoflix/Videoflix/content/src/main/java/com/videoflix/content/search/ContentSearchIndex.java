@@ -0,0 +1,591 @@
+package com.videoflix.content.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire des contenus : recherche plein texte sur le titre,
+ * les catégories et la description, filtres et comptage par facette (type,
+ * classification, niveau d'abonnement, catégorie).
+ * <p>
+ * Chaque document reçoit un numéro interne croissant ; les listes de
+ * documents par mot sont donc triées par construction et s'intersectent en un
+ * seul parcours. Une mise à jour attribue un nouveau numéro et marque
+ * l'ancien comme supprimé : les listes ne sont jamais réécrites, les entrées
+ * supprimées sont ignorées à la lecture et disparaissent à la reconstruction.
+ * <p>
+ * Le texte est normalisé (minuscules, sans accents). Le dernier mot de la
+ * requête est aussi cherché comme préfixe (à partir de deux lettres) et
+ * chaque mot d'au moins quatre lettres absent de l'index tolère une faute de
+ * frappe (deux à partir de huit lettres) : substitution, insertion, suppression ou
+ * inversion de deux lettres voisines, la première lettre étant supposée
+ * juste. Chaque mot est étendu à au plus {@value #MAX_EXPANSIONS} mots de
+ * l'index par préfixe, et autant par faute de frappe.
+ * <p>
+ * Lectures concurrentes, écritures exclusives.
+ */
+public class ContentSearchIndex {
+
+    public static final String FACET_TYPE = "type";
+    public static final String FACET_RATING = "rating";
+    public static final String FACET_LEVEL = "minSubscriptionLevel";
+    public static final String FACET_CATEGORY = "category";
+
+    private static final int TITLE = 1;
+    private static final int CATEGORY = 2;
+    private static final int DESCRIPTION = 4;
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float[] WEIGHTS = weights();
+
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.6f;
+    private static final float FUZZY = 0.4f;
+
+    private static final int MAX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_TYPOS_LENGTH = 8;
+    private static final int MAX_LIMIT = 100;
+    private static final int DENSE_MERGE_RATIO = 16;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Documents contenant un mot, avec les champs où il apparaît. */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        void add(int doc, int fieldMask) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            docs[size] = doc;
+            fields[size] = (byte) fieldMask;
+            size++;
+        }
+    }
+
+    /**
+     * Documents triés et leurs scores, pour un mot puis pour la requête. Pour
+     * un mot sans extension, les scores sont calculés à la lecture à partir
+     * des champs, sans recopier la liste.
+     */
+    private record Scored(int[] docs, float[] scores, byte[] fields, float quality, int size) {
+        static final Scored EMPTY = of(new int[0], new float[0], 0);
+
+        static Scored of(int[] docs, float[] scores, int size) {
+            return new Scored(docs, scores, null, 0f, size);
+        }
+
+        float score(int k) {
+            return scores != null ? scores[k] : quality * weight(fields[k]);
+        }
+    }
+
+    /** Document retenu pour les résultats. */
+    private record Candidate(int doc, float score) {
+    }
+
+    /** Le moins bon résultat en tête : score le plus faible, puis numéro le plus grand. */
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::score)
+            .thenComparing(Comparator.comparingInt(Candidate::doc).reversed());
+
+    /**
+     * Valeurs d'une facette et, pour chacune, l'ensemble des documents qui la
+     * portent : filtrer et compter reviennent à des intersections d'ensembles
+     * de bits, sans parcourir les documents un à un.
+     */
+    private static final class FacetValues {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> docs = new ArrayList<>();
+
+        void add(String value, int doc) {
+            if (value == null) {
+                return;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+                docs.add(new BitSet());
+            }
+            docs.get(id).set(doc);
+        }
+
+        /**
+         * Restreint {@code matching} aux documents portant la valeur ; sans
+         * effet si la valeur est vide, vide l'ensemble si elle est inconnue.
+         */
+        void filter(BitSet matching, String value) {
+            if (value == null || value.isBlank()) {
+                return;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                matching.clear();
+            } else {
+                matching.and(docs.get(id));
+            }
+        }
+
+        /**
+         * @return Le nombre de documents de {@code matching} par valeur, par
+         *         nombre décroissant, sans les valeurs absentes.
+         */
+        Map<String, Integer> count(BitSet matching) {
+            int[] counts = new int[values.size()];
+            Integer[] order = new Integer[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                BitSet both = (BitSet) docs.get(i).clone();
+                both.and(matching);
+                counts[i] = both.cardinality();
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt((Integer i) -> counts[i]).reversed());
+            Map<String, Integer> facet = new LinkedHashMap<>();
+            for (int i : order) {
+                if (counts[i] > 0) {
+                    facet.put(values.get(i), counts[i]);
+                }
+            }
+            return facet;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final FacetValues types = new FacetValues();
+    private final FacetValues ratings = new FacetValues();
+    private final FacetValues levels = new FacetValues();
+    private final FacetValues categories = new FacetValues();
+
+    private long[] ids = new long[1024];
+    private String[] titles = new String[1024];
+    private int next;
+
+    /**
+     * Ajoute un contenu à l'index, ou remplace sa version précédente.
+     */
+    public void upsert(SearchDocument document) {
+        Map<String, Integer> fieldsByTerm = new HashMap<>();
+        addTerms(fieldsByTerm, document.title(), TITLE);
+        if (document.categories() != null) {
+            for (String category : document.categories()) {
+                addTerms(fieldsByTerm, category, CATEGORY);
+            }
+        }
+        addTerms(fieldsByTerm, document.description(), DESCRIPTION);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = ordinalById.get(document.id());
+            if (previous != null) {
+                live.clear(previous);
+            }
+            int ordinal = next++;
+            ensureCapacity(next);
+            ids[ordinal] = document.id();
+            titles[ordinal] = document.title();
+            types.add(document.type(), ordinal);
+            ratings.add(document.rating(), ordinal);
+            levels.add(document.minSubscriptionLevel(), ordinal);
+            if (document.categories() != null) {
+                document.categories().forEach(category -> categories.add(category, ordinal));
+            }
+            fieldsByTerm.forEach((term, fieldMask) -> terms.computeIfAbsent(term, t -> new Postings())
+                    .add(ordinal, fieldMask));
+            live.set(ordinal);
+            ordinalById.put(document.id(), ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un contenu de l'index ; sans effet s'il n'y figure pas.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal != null) {
+                live.clear(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Le nombre de contenus indexés.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Le nombre d'anciennes versions encore présentes dans les listes,
+     *         récupérées par une reconstruction.
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return next - ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche des contenus.
+     */
+    public SearchResult search(SearchQuery query) {
+        long start = System.nanoTime();
+        int limit = Math.clamp(query.limit(), 1, MAX_LIMIT);
+        List<String> queryTerms = new ArrayList<>(tokenize(query.text()));
+
+        lock.readLock().lock();
+        try {
+            Scored candidates = queryTerms.isEmpty() ? null : match(queryTerms);
+            BitSet matching;
+            if (candidates == null) {
+                matching = (BitSet) live.clone();
+            } else {
+                matching = new BitSet(next);
+                for (int k = 0; k < candidates.size(); k++) {
+                    int doc = candidates.docs()[k];
+                    if (live.get(doc)) {
+                        matching.set(doc);
+                    }
+                }
+            }
+            types.filter(matching, query.type());
+            ratings.filter(matching, query.rating());
+            levels.filter(matching, query.minSubscriptionLevel());
+            categories.filter(matching, query.category());
+
+            // Les documents sont parcourus par numéro croissant : à score égal, le
+            // premier indexé l'emporte et un document n'entre que s'il fait mieux.
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+            if (candidates != null) {
+                for (int k = 0; k < candidates.size(); k++) {
+                    float score = candidates.score(k);
+                    int doc = candidates.docs()[k];
+                    if ((top.size() < limit || score > top.peek().score()) && matching.get(doc)) {
+                        top.offer(new Candidate(doc, score));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                }
+            } else {
+                // Sans texte, tous les scores sont nuls : les premiers documents suffisent.
+                for (int doc = matching.nextSetBit(0); doc >= 0 && top.size() < limit;
+                        doc = matching.nextSetBit(doc + 1)) {
+                    top.offer(new Candidate(doc, 0f));
+                }
+            }
+
+            List<Candidate> best = new ArrayList<>(top);
+            best.sort(WORST_FIRST.reversed());
+            List<SearchResult.Hit> hits = new ArrayList<>(best.size());
+            for (Candidate candidate : best) {
+                hits.add(new SearchResult.Hit(ids[candidate.doc()], titles[candidate.doc()], candidate.score()));
+            }
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(FACET_TYPE, types.count(matching));
+            facets.put(FACET_RATING, ratings.count(matching));
+            facets.put(FACET_LEVEL, levels.count(matching));
+            facets.put(FACET_CATEGORY, categories.count(matching));
+            return new SearchResult(hits, matching.cardinality(), facets, (System.nanoTime() - start) / 1_000);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Découpe un texte en mots normalisés (minuscules, sans accents), sans
+     * doublon.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Documents contenant tous les mots de la requête, avec la somme de leurs
+     * scores. Les listes sont intersectées de la plus courte à la plus longue.
+     */
+    private Scored match(List<String> queryTerms) {
+        List<Scored> perTerm = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size(); i++) {
+            Scored scored = matchTerm(queryTerms.get(i), i == queryTerms.size() - 1);
+            if (scored.size() == 0) {
+                return Scored.EMPTY;
+            }
+            perTerm.add(scored);
+        }
+        perTerm.sort(Comparator.comparingInt(Scored::size));
+        Scored result = perTerm.get(0);
+        for (int i = 1; i < perTerm.size() && result.size() > 0; i++) {
+            result = intersect(result, perTerm.get(i));
+        }
+        return result;
+    }
+
+    private Scored matchTerm(String term, boolean allowPrefix) {
+        List<Postings> lists = new ArrayList<>();
+        List<Float> qualities = new ArrayList<>();
+        Postings exact = terms.get(term);
+        if (exact != null) {
+            lists.add(exact);
+            qualities.add(EXACT);
+        }
+        if (allowPrefix && term.length() >= MIN_PREFIX_LENGTH) {
+            for (Map.Entry<String, Postings> entry : terms
+                    .subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                if (lists.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                lists.add(entry.getValue());
+                qualities.add(PREFIX);
+            }
+        }
+        // Un mot présent dans l'index n'est pas traité comme une faute de frappe.
+        if (exact == null && term.length() >= MIN_FUZZY_LENGTH) {
+            int maxEdits = term.length() >= TWO_TYPOS_LENGTH ? 2 : 1;
+            char first = term.charAt(0);
+            for (Map.Entry<String, Postings> entry : terms
+                    .subMap(String.valueOf(first), true, String.valueOf((char) (first + 1)), false).entrySet()) {
+                if (lists.size() >= MAX_EXPANSIONS * 2) {
+                    break;
+                }
+                String candidate = entry.getKey();
+                if (allowPrefix && candidate.startsWith(term)) {
+                    continue; // Déjà retenu
+                }
+                if (Math.abs(candidate.length() - term.length()) <= maxEdits
+                        && withinEditDistance(term, candidate, maxEdits)) {
+                    lists.add(entry.getValue());
+                    qualities.add(FUZZY);
+                }
+            }
+        }
+        return merge(lists, qualities);
+    }
+
+    /**
+     * Fusionne des listes triées ; un document présent dans plusieurs listes
+     * garde son meilleur score. Les listes volumineuses au regard de l'index
+     * sont fusionnées dans un tableau indexé par document, les autres en
+     * triant des paires (document, score) codées sur un long.
+     */
+    private Scored merge(List<Postings> lists, List<Float> qualities) {
+        if (lists.isEmpty()) {
+            return Scored.EMPTY;
+        }
+        if (lists.size() == 1) {
+            Postings postings = lists.get(0);
+            return new Scored(postings.docs, null, postings.fields, qualities.get(0), postings.size);
+        }
+        int total = 0;
+        for (Postings postings : lists) {
+            total += postings.size;
+        }
+        return total > next / DENSE_MERGE_RATIO ? denseMerge(lists, qualities) : sortMerge(lists, qualities, total);
+    }
+
+    private Scored denseMerge(List<Postings> lists, List<Float> qualities) {
+        float[] best = new float[next];
+        int size = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            Postings postings = lists.get(i);
+            float quality = qualities.get(i);
+            for (int k = 0; k < postings.size; k++) {
+                int doc = postings.docs[k];
+                float score = quality * weight(postings.fields[k]);
+                if (best[doc] == 0f) {
+                    size++;
+                    best[doc] = score;
+                } else if (score > best[doc]) {
+                    best[doc] = score;
+                }
+            }
+        }
+        int[] docs = new int[size];
+        float[] scores = new float[size];
+        int k = 0;
+        for (int doc = 0; doc < best.length; doc++) {
+            if (best[doc] > 0f) {
+                docs[k] = doc;
+                scores[k] = best[doc];
+                k++;
+            }
+        }
+        return Scored.of(docs, scores, size);
+    }
+
+    /**
+     * Les scores étant positifs, l'ordre de leurs bits est celui de leurs
+     * valeurs : trier (document << 32 | score) range par document puis par
+     * score, le meilleur score d'un document arrivant en dernier.
+     */
+    private static Scored sortMerge(List<Postings> lists, List<Float> qualities, int total) {
+        long[] packed = new long[total];
+        int n = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            Postings postings = lists.get(i);
+            float quality = qualities.get(i);
+            for (int k = 0; k < postings.size; k++) {
+                packed[n++] = ((long) postings.docs[k] << 32)
+                        | Float.floatToRawIntBits(quality * weight(postings.fields[k]));
+            }
+        }
+        Arrays.sort(packed);
+        int[] docs = new int[total];
+        float[] scores = new float[total];
+        int size = 0;
+        for (long entry : packed) {
+            int doc = (int) (entry >>> 32);
+            float score = Float.intBitsToFloat((int) entry);
+            if (size > 0 && docs[size - 1] == doc) {
+                scores[size - 1] = score;
+            } else {
+                docs[size] = doc;
+                scores[size] = score;
+                size++;
+            }
+        }
+        return Scored.of(docs, scores, size);
+    }
+
+    private static Scored intersect(Scored a, Scored b) {
+        int[] docs = new int[Math.min(a.size(), b.size())];
+        float[] scores = new float[docs.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int docA = a.docs()[i];
+            int docB = b.docs()[j];
+            if (docA == docB) {
+                docs[size] = docA;
+                scores[size] = a.score(i) + b.score(j);
+                size++;
+                i++;
+                j++;
+            } else if (docA < docB) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Scored.of(docs, scores, size);
+    }
+
+    private static float weight(int fieldMask) {
+        return WEIGHTS[fieldMask];
+    }
+
+    /** Poids du meilleur champ, pour chaque combinaison de champs. */
+    private static float[] weights() {
+        float[] weights = new float[(TITLE | CATEGORY | DESCRIPTION) + 1];
+        for (int fieldMask = 0; fieldMask < weights.length; fieldMask++) {
+            weights[fieldMask] = (fieldMask & TITLE) != 0 ? TITLE_WEIGHT
+                    : (fieldMask & CATEGORY) != 0 ? CATEGORY_WEIGHT
+                    : DESCRIPTION_WEIGHT;
+        }
+        return weights;
+    }
+
+    /**
+     * Distance d'édition (substitution, insertion, suppression, inversion de
+     * deux lettres voisines) bornée : le calcul s'arrête dès que toute la
+     * ligne dépasse la borne.
+     */
+    static boolean withinEditDistance(String a, String b, int maxEdits) {
+        int n = a.length();
+        int m = b.length();
+        int[] beforePrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m] <= maxEdits;
+    }
+
+    private static void addTerms(Map<String, Integer> fieldsByTerm, String text, int field) {
+        for (String token : tokenize(text)) {
+            fieldsByTerm.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newLength);
+        titles = Arrays.copyOf(titles, newLength);
+    }
+}
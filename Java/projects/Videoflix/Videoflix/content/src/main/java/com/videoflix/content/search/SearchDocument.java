@@ -0,0 +1,20 @@
+package com.videoflix.content.search;
+
+import java.util.Set;
+
+/**
+ * Contenu tel qu'indexé par {@link ContentSearchIndex}.
+ *
+ * @param id                   L'ID du contenu.
+ * @param title                Le titre, indexé et renvoyé dans les résultats.
+ * @param description          La description, indexée mais non conservée.
+ * @param type                 Le type (MOVIE, TV_SERIES...), facette.
+ * @param rating               La classification (G, PG...), facette ; peut être
+ *                             null.
+ * @param minSubscriptionLevel Le niveau d'abonnement requis, facette ; peut
+ *                             être null.
+ * @param categories           Les noms des catégories, indexés et en facette.
+ */
+public record SearchDocument(long id, String title, String description, String type, String rating,
+        String minSubscriptionLevel, Set<String> categories) {
+}
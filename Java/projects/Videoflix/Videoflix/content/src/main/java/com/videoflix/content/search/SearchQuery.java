@@ -0,0 +1,17 @@
+package com.videoflix.content.search;
+
+/**
+ * Requête sur {@link ContentSearchIndex}. Les filtres null sont ignorés.
+ *
+ * @param text                 Le texte recherché ; le dernier mot est traité
+ *                             comme un préfixe. Vide ou null : tous les
+ *                             contenus.
+ * @param type                 Filtre sur le type.
+ * @param rating               Filtre sur la classification.
+ * @param minSubscriptionLevel Filtre sur le niveau d'abonnement requis.
+ * @param category             Filtre sur le nom de catégorie.
+ * @param limit                Le nombre maximal de résultats renvoyés.
+ */
+public record SearchQuery(String text, String type, String rating, String minSubscriptionLevel, String category,
+        int limit) {
+}
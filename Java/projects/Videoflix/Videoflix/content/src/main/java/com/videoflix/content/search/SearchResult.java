@@ -0,0 +1,30 @@
+package com.videoflix.content.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat d'une recherche.
+ *
+ * @param hits       Les meilleurs résultats, par score décroissant puis par
+ *                   ordre d'indexation (celui des IDs après reconstruction).
+ * @param total      Le nombre total de contenus correspondants.
+ * @param facets     Pour chaque facette (type, rating, minSubscriptionLevel,
+ *                   category), le nombre de contenus correspondants par
+ *                   valeur, par nombre décroissant.
+ * @param tookMicros La durée de la recherche dans l'index, en microsecondes.
+ */
+public record SearchResult(List<Hit> hits, int total, Map<String, Map<String, Integer>> facets, long tookMicros) {
+
+    /**
+     * Contenu trouvé.
+     *
+     * @param id    L'ID du contenu.
+     * @param title Le titre du contenu.
+     * @param score La pertinence : somme, pour chaque mot de la requête, du
+     *              poids du champ (titre, catégorie, description) et de la
+     *              qualité de la correspondance (exacte, préfixe, approchée).
+     */
+    public record Hit(long id, String title, float score) {
+    }
+}
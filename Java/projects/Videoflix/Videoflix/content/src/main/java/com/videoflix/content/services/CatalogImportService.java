@@ -0,0 +1,319 @@
+package com.videoflix.content.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.content.dtos.CatalogImportRecord;
+import com.videoflix.content.dtos.CatalogImportReport;
+import com.videoflix.content.entities.Content;
+import com.videoflix.content.entities.ContentStatus;
+import com.videoflix.content.entities.ContentType;
+import com.videoflix.content.entities.Rating;
+import com.videoflix.content.entities.SubscriptionLevelRequired;
+import com.videoflix.content.events.PublishedCatalogChangedEvent;
+import com.videoflix.content.exceptions.CatalogImportInProgressException;
+import com.videoflix.content.imports.CatalogFormat;
+import com.videoflix.content.imports.CatalogRecordReader;
+import com.videoflix.content.repositories.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Import en masse d'un catalogue (NDJSON ou CSV).
+ * <p>
+ * Le fichier est lu un contenu à la fois et écrit par lots de
+ * {@code catalog.import.batch-size}, chaque lot dans sa propre transaction :
+ * les INSERT des contenus sont regroupés en lots JDBC (IDs alloués par
+ * séquence), les associations aux catégories sont insérées par lots JDBC, puis
+ * le contexte de persistance est vidé. La mémoire utilisée ne dépend donc pas
+ * de la taille du fichier. Les tables de référence sont servies par
+ * {@link ReferenceDataCache} et les catégories d'un lot résolues en une
+ * requête par nom encore inconnu.
+ * <p>
+ * Un contenu invalide est rejeté sans interrompre l'import ; un lot dont
+ * l'écriture échoue est rejeté en entier. L'avancement (contenus lus,
+ * importés, rejetés, débit) est journalisé après chaque lot et consultable
+ * pendant l'import.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    private static final String INSERT_CONTENT_CATEGORY =
+            "INSERT INTO content_categories (content_id, category_id) VALUES (?, ?)";
+
+    /** Ligne du fichier en attente d'écriture. */
+    private record PendingLine(long line, CatalogImportRecord record) {
+    }
+
+    /** Contenu prêt à écrire, avec les IDs de ses catégories. */
+    private record PendingContent(Content content, Set<Long> categoryIds) {
+    }
+
+    /** Compteurs d'un import en cours. */
+    private static final class Progress {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final List<String> errors = new ArrayList<>();
+        private final int maxErrors;
+        private long read;
+        private long imported;
+        private long rejected;
+
+        Progress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add("Ligne " + line + " : " + message);
+            }
+        }
+
+        CatalogImportReport snapshot(String status) {
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            double perSecond = elapsedMs == 0 ? 0 : read * 1000.0 / elapsedMs;
+            return new CatalogImportReport(status, read, imported, rejected, List.copyOf(errors), startedAt,
+                    elapsedMs, Math.round(perSecond * 10) / 10.0);
+        }
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxErrors;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile CatalogImportReport lastReport;
+
+    public CatalogImportService(EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            JdbcTemplate jdbcTemplate,
+            CategoryRepository categoryRepository,
+            ReferenceDataCache referenceDataCache,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${catalog.import.batch-size:500}") int batchSize,
+            @Value("${catalog.import.max-errors:100}") int maxErrors) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Importe un catalogue.
+     *
+     * @param input  Le fichier, en UTF-8 ; il est fermé à la fin de l'import.
+     * @param format Le format du fichier.
+     * @return Le bilan de l'import.
+     * @throws CatalogImportInProgressException si un import est déjà en cours.
+     * @throws IOException                       si le fichier ne peut plus être
+     *                                           lu ; les lots déjà écrits sont
+     *                                           conservés.
+     */
+    public CatalogImportReport importCatalog(InputStream input, CatalogFormat format) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new CatalogImportInProgressException("Un import de catalogue est déjà en cours");
+        }
+        Progress progress = new Progress(maxErrors);
+        lastReport = progress.snapshot("RUNNING");
+        String status = "FAILED";
+        try (CatalogRecordReader reader = format.open(new InputStreamReader(input, StandardCharsets.UTF_8),
+                objectMapper)) {
+            Map<String, Long> categoryIds = new HashMap<>(); // Nom -> ID, null si la catégorie n'existe pas
+            List<PendingLine> batch = new ArrayList<>(batchSize);
+            while (true) {
+                CatalogImportRecord record;
+                try {
+                    record = reader.next();
+                } catch (IllegalArgumentException e) {
+                    progress.read++;
+                    progress.reject(reader.line(), e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                progress.read++;
+                batch.add(new PendingLine(reader.line(), record));
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, categoryIds, progress);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch, categoryIds, progress);
+            }
+            status = "COMPLETED";
+        } finally {
+            lastReport = progress.snapshot(status);
+            running.set(false);
+            logger.info("Import du catalogue terminé ({}) : {} contenus lus, {} importés, {} rejetés en {} ms.",
+                    status, progress.read, progress.imported, progress.rejected, lastReport.getElapsedMs());
+            // Le cache du catalogue publié et l'index de recherche se mettent à jour.
+            if (progress.imported > 0) {
+                eventPublisher.publishEvent(new PublishedCatalogChangedEvent(this, null));
+            }
+        }
+        return lastReport;
+    }
+
+    /**
+     * @return L'avancement de l'import en cours, ou le bilan du dernier import.
+     */
+    public Optional<CatalogImportReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    private void writeBatch(List<PendingLine> batch, Map<String, Long> categoryIds, Progress progress) {
+        resolveCategories(batch, categoryIds);
+        List<PendingContent> contents = new ArrayList<>(batch.size());
+        for (PendingLine line : batch) {
+            try {
+                contents.add(toContent(line.record(), categoryIds));
+            } catch (IllegalArgumentException | EntityNotFoundException e) {
+                progress.reject(line.line(), e.getMessage());
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> associations = new ArrayList<>();
+                for (PendingContent pending : contents) {
+                    entityManager.persist(pending.content());
+                    for (Long categoryId : pending.categoryIds()) {
+                        associations.add(new Object[] { pending.content().getId(), categoryId });
+                    }
+                }
+                entityManager.flush();
+                if (!associations.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_CONTENT_CATEGORY, associations);
+                }
+                entityManager.clear();
+            });
+            progress.imported += contents.size();
+        } catch (RuntimeException e) {
+            logger.warn("Lot du catalogue rejeté (lignes {} à {})", batch.get(0).line(),
+                    batch.get(batch.size() - 1).line(), e);
+            progress.rejected += contents.size();
+            if (progress.errors.size() < maxErrors) {
+                progress.errors.add("Lignes " + batch.get(0).line() + " à " + batch.get(batch.size() - 1).line()
+                        + " : lot rejeté (" + e.getMessage() + ")");
+            }
+        }
+
+        lastReport = progress.snapshot("RUNNING");
+        logger.info("Import du catalogue : {} contenus lus, {} importés, {} rejetés ({} contenus/s).",
+                progress.read, progress.imported, progress.rejected, lastReport.getRecordsPerSecond());
+    }
+
+    /**
+     * Ajoute à {@code categoryIds} les catégories du lot qui n'y sont pas
+     * encore, en une seule requête.
+     */
+    private void resolveCategories(List<PendingLine> batch, Map<String, Long> categoryIds) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (PendingLine line : batch) {
+            if (line.record().getCategories() != null) {
+                for (String name : line.record().getCategories()) {
+                    if (!categoryIds.containsKey(name)) {
+                        missing.add(name);
+                    }
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        categoryRepository.findByNameIn(missing).forEach(category -> categoryIds.put(category.getName(),
+                category.getId()));
+        missing.forEach(name -> categoryIds.putIfAbsent(name, null));
+    }
+
+    private PendingContent toContent(CatalogImportRecord record, Map<String, Long> categoryIds) {
+        if (record.getTitle() == null || record.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Le titre est obligatoire");
+        }
+        if (record.getType() == null) {
+            throw new IllegalArgumentException("Le type de contenu est obligatoire");
+        }
+        if (record.getDurationMinutes() != null && record.getDurationMinutes() <= 0) {
+            throw new IllegalArgumentException("La durée doit être positive");
+        }
+
+        Content content = new Content();
+        content.setTitle(record.getTitle());
+        content.setDescription(record.getDescription());
+        content.setReleaseDate(record.getReleaseDate());
+        content.setDurationMinutes(record.getDurationMinutes());
+        content.setPosterUrl(record.getPosterUrl());
+        content.setTrailerUrl(record.getTrailerUrl());
+        content.setType(referenceDataCache.getContentType(
+                parse(ContentType.Type.class, record.getType(), "Type de contenu inconnu")));
+        content.setStatus(referenceDataCache.getContentStatus(record.getStatus() == null
+                ? ContentStatus.Status.DRAFT
+                : parse(ContentStatus.Status.class, record.getStatus(), "Statut inconnu")));
+        if (record.getRating() != null) {
+            content.setRating(referenceDataCache.getRating(
+                    parse(Rating.Level.class, record.getRating(), "Classification inconnue")));
+        }
+        if (record.getMinSubscriptionLevel() != null) {
+            content.setMinSubscriptionLevel(referenceDataCache.getSubscriptionLevel(
+                    parse(SubscriptionLevelRequired.Level.class, record.getMinSubscriptionLevel(),
+                            "Niveau d'abonnement inconnu")));
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        if (record.getCategories() != null) {
+            for (String name : record.getCategories()) {
+                Long id = categoryIds.get(name);
+                if (id == null) {
+                    throw new IllegalArgumentException("Catégorie inconnue : " + name);
+                }
+                ids.add(id);
+            }
+        }
+        return new PendingContent(content, ids);
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String unknownMessage) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(unknownMessage + " : " + value);
+        }
+    }
+}
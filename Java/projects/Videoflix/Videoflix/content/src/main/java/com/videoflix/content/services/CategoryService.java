@@ -8,7 +8,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class CategoryService {
@@ -79,6 +82,28 @@ public class CategoryService {
                 .orElseThrow(() -> new EntityNotFoundException(CATEGORY_NOT_FOUND_BY_ID + id));
     }
 
+    /**
+     * Récupère plusieurs catégories par leurs IDs, en une seule requête.
+     * 
+     * @param ids Les IDs des catégories à récupérer.
+     * @return Les catégories correspondantes.
+     * @throws IllegalArgumentException si un ID est invalide.
+     * @throws EntityNotFoundException  si une des catégories n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public Set<Category> getCategoriesByIds(Collection<Long> ids) {
+        Set<Long> distinctIds = new HashSet<>(ids);
+        distinctIds.forEach(this::validateId);
+        if (distinctIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        List<Category> categories = categoryRepository.findAllById(distinctIds);
+        if (categories.size() != distinctIds.size()) {
+            throw new EntityNotFoundException(SOME_CATEGORIES_NOT_FOUND);
+        }
+        return new HashSet<>(categories);
+    }
+
     /**
      * Récupère une catégorie par son nom (insensible à la casse).
      * 
@@ -0,0 +1,187 @@
+package com.videoflix.content.services;
+
+import com.videoflix.content.entities.Category;
+import com.videoflix.content.entities.Content;
+import com.videoflix.content.entities.ContentStatus;
+import com.videoflix.content.events.ContentPublishedEvent;
+import com.videoflix.content.events.PublishedCatalogChangedEvent;
+import com.videoflix.content.exceptions.SearchRebuildInProgressException;
+import com.videoflix.content.repositories.ContentRepository;
+import com.videoflix.content.search.ContentSearchIndex;
+import com.videoflix.content.search.SearchDocument;
+import com.videoflix.content.search.SearchQuery;
+import com.videoflix.content.search.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Recherche plein texte et par facettes sur les contenus publiés.
+ * <p>
+ * L'index ({@link ContentSearchIndex}) est construit en mémoire au démarrage,
+ * en arrière-plan, puis tenu à jour contenu par contenu après chaque
+ * publication, modification ou suppression. Une reconstruction complète
+ * lit le catalogue publié par lots et remplace l'index d'un bloc ; les
+ * contenus modifiés pendant la reconstruction sont réappliqués ensuite. Elle
+ * est déclenchée à la demande ({@code POST /api/v1/content/search/rebuild}),
+ * après un import en masse, et automatiquement lorsque les anciennes versions
+ * dépassent le nombre de contenus indexés.
+ */
+@Service
+public class ContentSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentSearchService.class);
+
+    private final ContentRepository contentRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final int batchSize;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile ContentSearchIndex index = new ContentSearchIndex();
+    private volatile Set<Long> changedDuringRebuild;
+
+    public ContentSearchService(ContentRepository contentRepository, ReferenceDataCache referenceDataCache,
+            @Value("${search.index.rebuild-batch-size:1000}") int batchSize) {
+        this.contentRepository = contentRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Construit l'index au démarrage, sans retarder la disponibilité de
+     * l'application : les recherches renvoient des résultats partiels tant que
+     * la construction n'est pas terminée.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("content-search-rebuild").start(this::rebuildInBackground);
+    }
+
+    /**
+     * Recherche des contenus publiés.
+     */
+    public SearchResult search(SearchQuery query) {
+        return index.search(query);
+    }
+
+    /**
+     * Reconstruit l'index à partir de la base.
+     *
+     * @return Le nombre de contenus indexés.
+     * @throws SearchRebuildInProgressException si une reconstruction est déjà en cours.
+     */
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new SearchRebuildInProgressException("Une reconstruction de l'index de recherche est déjà en cours");
+        }
+        try {
+            long start = System.nanoTime();
+            changedDuringRebuild = ConcurrentHashMap.newKeySet();
+            ContentStatus published = referenceDataCache.getContentStatus(ContentStatus.Status.PUBLISHED);
+            ContentSearchIndex rebuilt = new ContentSearchIndex();
+            long afterId = 0L;
+            List<Long> ids;
+            do {
+                ids = contentRepository.findIdsByStatusAfter(published, afterId, PageRequest.of(0, batchSize));
+                if (!ids.isEmpty()) {
+                    for (Content content : contentRepository.findWithCategoriesByIdInOrderByIdAsc(ids)) {
+                        rebuilt.upsert(toDocument(content));
+                    }
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == batchSize);
+
+            index = rebuilt;
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            changed.forEach(this::refreshQuietly);
+            logger.info("Index de recherche reconstruit : {} contenus en {} ms.", rebuilt.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return rebuilt.size();
+        } finally {
+            changedDuringRebuild = null;
+            rebuilding.set(false);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentPublished(ContentPublishedEvent event) {
+        onContentChanged(event.getContentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublishedCatalogChanged(PublishedCatalogChangedEvent event) {
+        onContentChanged(event.getContentId());
+    }
+
+    private void onContentChanged(Long contentId) {
+        if (contentId == null) {
+            // Modification en masse (import) : l'index est reconstruit.
+            Thread.ofVirtual().name("content-search-rebuild").start(this::rebuildInBackground);
+            return;
+        }
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(contentId);
+        }
+        refreshQuietly(contentId);
+        ContentSearchIndex current = index;
+        if (current.deletedCount() > Math.max(batchSize, current.size()) && !rebuilding.get()) {
+            Thread.ofVirtual().name("content-search-rebuild").start(this::rebuildInBackground);
+        }
+    }
+
+    /**
+     * Réindexe un contenu s'il est publié, le retire de l'index sinon.
+     */
+    private void refreshQuietly(Long contentId) {
+        try {
+            List<Content> contents = contentRepository.findWithCategoriesByIdInOrderByIdAsc(List.of(contentId));
+            if (!contents.isEmpty() && isPublished(contents.get(0))) {
+                index.upsert(toDocument(contents.get(0)));
+            } else {
+                index.remove(contentId);
+            }
+        } catch (RuntimeException e) {
+            // L'index est rattrapé à la prochaine reconstruction.
+            logger.warn("Mise à jour de l'index de recherche impossible pour le contenu {}", contentId, e);
+        }
+    }
+
+    private void rebuildInBackground() {
+        try {
+            rebuild();
+        } catch (SearchRebuildInProgressException e) {
+            logger.debug("Reconstruction de l'index déjà en cours.");
+        } catch (RuntimeException e) {
+            logger.error("Échec de la reconstruction de l'index de recherche", e);
+        }
+    }
+
+    private static boolean isPublished(Content content) {
+        return content.getStatus() != null
+                && ContentStatus.Status.PUBLISHED.name().equals(content.getStatus().getName());
+    }
+
+    private static SearchDocument toDocument(Content content) {
+        return new SearchDocument(
+                content.getId(),
+                content.getTitle(),
+                content.getDescription(),
+                content.getType() != null ? content.getType().getName() : null,
+                content.getRating() != null ? content.getRating().getName() : null,
+                content.getMinSubscriptionLevel() != null ? content.getMinSubscriptionLevel().getName() : null,
+                content.getCategories() == null ? Set.of()
+                        : content.getCategories().stream().map(Category::getName).collect(Collectors.toSet()));
+    }
+}
@@ -1,5 +1,8 @@
 package com.videoflix.content.services;
 
+import com.videoflix.content.dtos.CategoryResponse;
+import com.videoflix.content.dtos.PublishedContentPage;
+import com.videoflix.content.dtos.PublishedContentSummary;
 import com.videoflix.content.entities.Content;
 import com.videoflix.content.entities.Category;
 import com.videoflix.content.entities.ContentType;
@@ -7,44 +10,38 @@ import com.videoflix.content.entities.Rating;
 import com.videoflix.content.entities.SubscriptionLevelRequired;
 import com.videoflix.content.entities.ContentStatus;
 import com.videoflix.content.repositories.ContentRepository;
-import com.videoflix.content.repositories.ContentTypeRepository;
-import com.videoflix.content.repositories.RatingRepository;
-import com.videoflix.content.repositories.SubscriptionLevelRequiredRepository;
-import com.videoflix.content.repositories.ContentStatusRepository;
+import com.videoflix.content.events.ContentPublishedEvent;
+import com.videoflix.content.events.PublishedCatalogChangedEvent;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class ContentService {
 
     private final ContentRepository contentRepository;
     private final CategoryService categoryService;
-    private final ContentTypeRepository contentTypeRepository;
-    private final RatingRepository ratingRepository;
-    private final SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository;
-    private final ContentStatusRepository contentStatusRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ApplicationEventPublisher eventPublisher;
     private ContentService self;
 
     public ContentService(ContentRepository contentRepository,
             CategoryService categoryService,
-            ContentTypeRepository contentTypeRepository,
-            RatingRepository ratingRepository,
-            SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository,
-            ContentStatusRepository contentStatusRepository,
+            ReferenceDataCache referenceDataCache,
+            ApplicationEventPublisher eventPublisher,
             @Lazy ContentService self) {
         this.contentRepository = contentRepository;
         this.categoryService = categoryService;
-        this.contentTypeRepository = contentTypeRepository;
-        this.ratingRepository = ratingRepository;
-        this.subscriptionLevelRequiredRepository = subscriptionLevelRequiredRepository;
-        this.contentStatusRepository = contentStatusRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.eventPublisher = eventPublisher;
         this.self = self;
     }
 
@@ -55,39 +52,28 @@ public class ContentService {
             SubscriptionLevelRequired.Level subscriptionLevelEnum,
             ContentStatus.Status initialStatusEnum,
             Set<Long> categoryId) {
-        ContentType contentType = contentTypeRepository.findByName(typeEnum.name())
-                .orElseThrow(() -> new EntityNotFoundException("ContentType non trouvé: " + typeEnum.name()));
-        content.setType(contentType);
+        // Les tables de référence sont servies par le cache, sans requête.
+        content.setType(referenceDataCache.getContentType(typeEnum));
 
         if (ratingEnum != null) {
-            Rating rating = ratingRepository.findByName(ratingEnum.name())
-                    .orElseThrow(() -> new EntityNotFoundException("Rating non trouvé: " + ratingEnum.name()));
-            content.setRating(rating);
+            content.setRating(referenceDataCache.getRating(ratingEnum));
         }
 
         if (subscriptionLevelEnum != null) {
-            SubscriptionLevelRequired level = subscriptionLevelRequiredRepository
-                    .findByName(subscriptionLevelEnum.name())
-                    .orElseThrow(() -> new EntityNotFoundException(
-                            "SubscriptionLevel non trouvé: " + subscriptionLevelEnum.name()));
-            content.setMinSubscriptionLevel(level);
+            content.setMinSubscriptionLevel(referenceDataCache.getSubscriptionLevel(subscriptionLevelEnum));
         }
 
         // Définir le statut initial
-        ContentStatus initialStatus = contentStatusRepository.findByName(initialStatusEnum.name())
-                .orElseThrow(
-                        () -> new EntityNotFoundException("ContentStatus non trouvé: " + initialStatusEnum.name()));
-        content.setStatus(initialStatus);
+        content.setStatus(referenceDataCache.getContentStatus(initialStatusEnum));
 
-        // Associer les catégories
+        // Associer les catégories, en une seule requête
         if (categoryId != null && !categoryId.isEmpty()) {
-            Set<Category> categories = categoryId.stream()
-                    .map(categoryService::getCategoryById) // Utilisez categoryService pour récupérer les catégories
-                    .collect(Collectors.toSet());
-            content.setCategories(categories); // Assurez-vous que l'entité Content a bien une méthode setCategories
+            content.setCategories(categoryService.getCategoriesByIds(categoryId));
         }
 
-        return contentRepository.save(content);
+        Content saved = contentRepository.save(content);
+        eventPublisher.publishEvent(new PublishedCatalogChangedEvent(this, saved.getId()));
+        return saved;
     }
 
     /**
@@ -105,12 +91,57 @@ public class ContentService {
 
     @Transactional(readOnly = true)
     public List<Content> getAllPublishedContent() {
-        ContentStatus publishedStatus = contentStatusRepository.findByName(ContentStatus.Status.PUBLISHED.name())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Le statut 'PUBLISHED' n'est pas défini dans la base de données."));
+        ContentStatus publishedStatus = referenceDataCache.getContentStatus(ContentStatus.Status.PUBLISHED);
         return contentRepository.findByStatus(publishedStatus); // findByStatus doit accepter ContentStatus
     }
 
+    /**
+     * Lit une page du catalogue publié en base, par clé : les IDs de la page
+     * puis les contenus et leurs catégories, soit deux requêtes quel que soit
+     * le nombre de contenus. Préférer {@link PublishedCatalogCache#getPage}, qui
+     * met ces pages en cache.
+     *
+     * @param afterId Le dernier ID de la page précédente, ou null pour la première
+     *                page.
+     * @param size    Le nombre maximal de contenus de la page.
+     * @return La page et le curseur de la page suivante.
+     */
+    @Transactional(readOnly = true)
+    public PublishedContentPage loadPublishedPage(Long afterId, int size) {
+        ContentStatus publishedStatus = referenceDataCache.getContentStatus(ContentStatus.Status.PUBLISHED);
+        // Un élément de plus que demandé indique s'il existe une page suivante.
+        List<Long> ids = contentRepository.findIdsByStatusAfter(publishedStatus, afterId != null ? afterId : 0L,
+                PageRequest.of(0, size + 1));
+        boolean hasNext = ids.size() > size;
+        if (hasNext) {
+            ids = ids.subList(0, size);
+        }
+        List<PublishedContentSummary> items = ids.isEmpty() ? List.of()
+                : contentRepository.findWithCategoriesByIdInOrderByIdAsc(ids).stream()
+                        .map(ContentService::toSummary)
+                        .toList();
+        return new PublishedContentPage(items, hasNext ? ids.get(ids.size() - 1) : null);
+    }
+
+    private static PublishedContentSummary toSummary(Content content) {
+        List<CategoryResponse> categories = content.getCategories() == null ? List.of()
+                : content.getCategories().stream()
+                        .sorted(Comparator.comparing(Category::getId))
+                        .map(category -> new CategoryResponse(category.getId(), category.getName()))
+                        .toList();
+        return new PublishedContentSummary(
+                content.getId(),
+                content.getTitle(),
+                content.getReleaseDate(),
+                content.getDurationMinutes(),
+                content.getPosterUrl(),
+                content.getType() != null ? content.getType().getName() : null,
+                content.getRating() != null ? content.getRating().getName() : null,
+                content.getMinSubscriptionLevel() != null ? content.getMinSubscriptionLevel().getName() : null,
+                categories,
+                content.getUpdatedAt());
+    }
+
     @Transactional
     public Content updateContent(Long id,
             Content updatedContent,
@@ -128,59 +159,47 @@ public class ContentService {
         existingContent.setTrailerUrl(updatedContent.getTrailerUrl());
 
         // Mettre à jour les entités de référence
-        ContentType contentType = contentTypeRepository.findByName(typeEnum.name())
-                .orElseThrow(() -> new EntityNotFoundException("ContentType non trouvé: " + typeEnum.name()));
-        existingContent.setType(contentType);
+        existingContent.setType(referenceDataCache.getContentType(typeEnum));
 
         if (ratingEnum != null) {
-            Rating rating = ratingRepository.findByName(ratingEnum.name())
-                    .orElseThrow(() -> new EntityNotFoundException("Rating non trouvé: " + ratingEnum.name()));
-            existingContent.setRating(rating);
+            existingContent.setRating(referenceDataCache.getRating(ratingEnum));
         } else {
             existingContent.setRating(null); // Gérer le cas où le rating est retiré
         }
 
         if (subscriptionLevelEnum != null) {
-            SubscriptionLevelRequired level = subscriptionLevelRequiredRepository
-                    .findByName(subscriptionLevelEnum.name())
-                    .orElseThrow(() -> new EntityNotFoundException(
-                            "SubscriptionLevel non trouvé: " + subscriptionLevelEnum.name()));
-            existingContent.setMinSubscriptionLevel(level);
+            existingContent.setMinSubscriptionLevel(referenceDataCache.getSubscriptionLevel(subscriptionLevelEnum));
         } else {
             existingContent.setMinSubscriptionLevel(null); // Gérer le cas où le niveau d'abonnement est retiré
         }
 
-        ContentStatus newStatus = contentStatusRepository.findByName(statusEnum.name())
-                .orElseThrow(() -> new EntityNotFoundException("ContentStatus non trouvé: " + statusEnum.name()));
-        existingContent.setStatus(newStatus);
+        existingContent.setStatus(referenceDataCache.getContentStatus(statusEnum));
 
-        // Gérer la mise à jour des catégories (ManyToMany)
+        // Gérer la mise à jour des catégories (ManyToMany), en une seule requête
         if (categoryId != null) {
-            Set<Category> categories = categoryId.stream()
-                    .map(categoryService::getCategoryById)
-                    .collect(Collectors.toSet());
-            existingContent.setCategories(categories);
+            existingContent.setCategories(categoryService.getCategoriesByIds(categoryId));
         } else {
             existingContent.setCategories(new java.util.HashSet<>()); // Ou null, selon la logique
         }
 
-        return contentRepository.save(existingContent);
+        Content saved = contentRepository.save(existingContent);
+        eventPublisher.publishEvent(new PublishedCatalogChangedEvent(this, id));
+        return saved;
     }
 
     @Transactional
     public void deleteContent(Long id) {
         contentRepository.deleteById(id);
+        eventPublisher.publishEvent(new PublishedCatalogChangedEvent(this, id));
     }
 
     @Transactional
     public Content publishContent(Long id) {
         Content content = self.getContentById(id);
-        ContentStatus publishedStatus = contentStatusRepository.findByName(ContentStatus.Status.PUBLISHED.name())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Le statut 'PUBLISHED' n'est pas défini dans la base de données."));
-        content.setStatus(publishedStatus);
-        return contentRepository.save(content);
-        // Déclencher un événement ici: ContentPublishedEvent
+        content.setStatus(referenceDataCache.getContentStatus(ContentStatus.Status.PUBLISHED));
+        Content saved = contentRepository.save(content);
+        eventPublisher.publishEvent(new ContentPublishedEvent(this, saved));
+        return saved;
     }
 
     // Ajouter des méthodes pour les séries/épisodes si vous les gérez
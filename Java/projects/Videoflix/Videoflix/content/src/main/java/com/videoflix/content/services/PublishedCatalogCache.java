@@ -0,0 +1,169 @@
+package com.videoflix.content.services;
+
+import com.videoflix.content.dtos.CategoryResponse;
+import com.videoflix.content.dtos.PublishedContentPage;
+import com.videoflix.content.dtos.PublishedContentSummary;
+import com.videoflix.content.events.ContentPublishedEvent;
+import com.videoflix.content.events.PublishedCatalogChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache en mémoire des pages du catalogue publié.
+ * <p>
+ * Chaque page est conservée avec son ETag, calculé à partir de son contenu :
+ * deux instances servant la même page produisent le même ETag, ce qui permet
+ * les requêtes conditionnelles ({@code If-None-Match}) derrière un
+ * répartiteur de charge.
+ * <p>
+ * Le cache est versionné : toute création, modification ou suppression de
+ * contenu ({@link PublishedCatalogChangedEvent}) et toute publication
+ * ({@link ContentPublishedEvent}) incrémente la version après validation de
+ * la transaction et vide le cache. Une page lue pendant une invalidation est
+ * renvoyée mais pas conservée. Une durée de vie bornée couvre les
+ * modifications faites par une autre instance.
+ */
+@Service
+public class PublishedCatalogCache {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Page du catalogue et son ETag (entre guillemets, prêt pour l'en-tête HTTP).
+     */
+    public record CatalogPage(PublishedContentPage page, String etag) {
+    }
+
+    private record PageKey(long afterId, int size) {
+    }
+
+    private record CachedPage(CatalogPage catalogPage, long cachedAtNanos) {
+    }
+
+    private final ContentService contentService;
+    private final int maxPageSize;
+    private final int maxPages;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<PageKey, CachedPage> pages = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long lastSweep = System.nanoTime();
+
+    public PublishedCatalogCache(ContentService contentService,
+            @Value("${catalog.published.max-page-size:200}") int maxPageSize,
+            @Value("${catalog.published.cache.max-pages:1000}") int maxPages,
+            @Value("${catalog.published.cache.ttl-ms:60000}") long ttlMillis) {
+        this.contentService = contentService;
+        this.maxPageSize = maxPageSize;
+        this.maxPages = maxPages;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Obtient une page du catalogue publié, depuis le cache ou la base.
+     *
+     * @param afterId Le curseur renvoyé par la page précédente, ou null pour la
+     *                première page.
+     * @param size    Le nombre de contenus demandé, plafonné à
+     *                {@code catalog.published.max-page-size}.
+     * @return La page et son ETag.
+     * @throws IllegalArgumentException si la taille ou le curseur est invalide.
+     */
+    public CatalogPage getPage(Long afterId, int size) {
+        if (size <= 0 || (afterId != null && afterId < 0)) {
+            throw new IllegalArgumentException("Les paramètres de pagination doivent être positifs");
+        }
+        PageKey key = new PageKey(afterId != null ? afterId : 0L, Math.min(size, maxPageSize));
+        long now = System.nanoTime();
+        CachedPage cached = pages.get(key);
+        if (cached != null && now - cached.cachedAtNanos() < ttlNanos) {
+            return cached.catalogPage();
+        }
+
+        long loadedVersion = version.get();
+        PublishedContentPage page = contentService.loadPublishedPage(key.afterId(), key.size());
+        CatalogPage catalogPage = new CatalogPage(page, etag(page));
+        if (loadedVersion == version.get() && reserveSlot(now)) {
+            pages.put(key, new CachedPage(catalogPage, now));
+        }
+        return catalogPage;
+    }
+
+    /**
+     * Invalide toutes les pages : l'ajout ou le retrait d'un contenu décale les
+     * pages suivantes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublishedCatalogChanged(PublishedCatalogChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentPublished(ContentPublishedEvent event) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        version.incrementAndGet();
+        pages.clear();
+    }
+
+    /**
+     * Indique si une page peut être ajoutée : au-delà de la taille maximale,
+     * les pages expirées sont d'abord supprimées (au plus une fois par
+     * seconde) ; si le cache reste plein, la page n'est pas conservée.
+     */
+    private boolean reserveSlot(long now) {
+        if (pages.size() < maxPages) {
+            return true;
+        }
+        if (now - lastSweep >= SWEEP_INTERVAL_NANOS && sweepLock.tryLock()) {
+            try {
+                pages.values().removeIf(entry -> now - entry.cachedAtNanos() >= ttlNanos);
+                lastSweep = now;
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+        return pages.size() < maxPages;
+    }
+
+    private static String etag(PublishedContentPage page) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+        StringBuilder canonical = new StringBuilder();
+        for (PublishedContentSummary item : page.getItems()) {
+            canonical.append(item.getId()).append('|')
+                    .append(item.getTitle()).append('|')
+                    .append(item.getReleaseDate()).append('|')
+                    .append(item.getDurationMinutes()).append('|')
+                    .append(item.getPosterUrl()).append('|')
+                    .append(item.getType()).append('|')
+                    .append(item.getRating()).append('|')
+                    .append(item.getMinSubscriptionLevel()).append('|')
+                    .append(item.getUpdatedAt()).append('|');
+            for (CategoryResponse category : item.getCategories()) {
+                canonical.append(category.getId()).append(':').append(category.getName()).append(',');
+            }
+            canonical.append('\n');
+        }
+        canonical.append(page.getNextCursor());
+        byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        return '"' + HexFormat.of().formatHex(hash, 0, 16) + '"';
+    }
+}
@@ -0,0 +1,203 @@
+package com.videoflix.content.services;
+
+import com.videoflix.content.entities.ContentStatus;
+import com.videoflix.content.entities.ContentType;
+import com.videoflix.content.entities.Rating;
+import com.videoflix.content.entities.SubscriptionLevelRequired;
+import com.videoflix.content.events.ReferenceDataChangedEvent;
+import com.videoflix.content.repositories.ContentStatusRepository;
+import com.videoflix.content.repositories.ContentTypeRepository;
+import com.videoflix.content.repositories.RatingRepository;
+import com.videoflix.content.repositories.SubscriptionLevelRequiredRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache des tables de référence (types de contenu, classifications, niveaux
+ * d'abonnement et statuts), indexées par leur enum Java.
+ * <p>
+ * Les quatre tables sont chargées au démarrage, une requête chacune, dans des
+ * {@link EnumMap} immuables remplacées d'un bloc à chaque rechargement. Un
+ * rechargement a lieu sur {@link ReferenceDataChangedEvent}, et lorsqu'une
+ * valeur est absente (ligne ajoutée par une autre instance), au plus une fois
+ * par {@code reference-data.refresh-interval-ms}.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    /** Contenu des tables de référence à un instant donné. */
+    private record Snapshot(Map<ContentType.Type, ContentType> contentTypes,
+            Map<Rating.Level, Rating> ratings,
+            Map<SubscriptionLevelRequired.Level, SubscriptionLevelRequired> subscriptionLevels,
+            Map<ContentStatus.Status, ContentStatus> statuses,
+            long loadedAtNanos) {
+    }
+
+    private final ContentTypeRepository contentTypeRepository;
+    private final RatingRepository ratingRepository;
+    private final SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository;
+    private final ContentStatusRepository contentStatusRepository;
+    private final long refreshIntervalNanos;
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(ContentTypeRepository contentTypeRepository,
+            RatingRepository ratingRepository,
+            SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository,
+            ContentStatusRepository contentStatusRepository,
+            @Value("${reference-data.refresh-interval-ms:5000}") long refreshIntervalMillis) {
+        this.contentTypeRepository = contentTypeRepository;
+        this.ratingRepository = ratingRepository;
+        this.subscriptionLevelRequiredRepository = subscriptionLevelRequiredRepository;
+        this.contentStatusRepository = contentStatusRepository;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+    }
+
+    /**
+     * Charge les tables au démarrage, après l'initialisation des données de
+     * référence ({@code DataLoader}).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Recharge les tables après une modification des données de référence.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Recharge les quatre tables de référence.
+     */
+    public synchronized void refresh() {
+        snapshot = new Snapshot(
+                index(ContentType.Type.class, contentTypeRepository.findAll(), ContentType::getName,
+                        ContentType.Type::fromName),
+                index(Rating.Level.class, ratingRepository.findAll(), Rating::getName, Rating.Level::fromName),
+                index(SubscriptionLevelRequired.Level.class, subscriptionLevelRequiredRepository.findAll(),
+                        SubscriptionLevelRequired::getName, SubscriptionLevelRequired.Level::fromName),
+                index(ContentStatus.Status.class, contentStatusRepository.findAll(), ContentStatus::getName,
+                        ContentStatus.Status::fromName),
+                System.nanoTime());
+        logger.debug("Tables de référence chargées.");
+    }
+
+    /**
+     * Obtient l'entité ContentType correspondant à l'enum.
+     *
+     * @throws EntityNotFoundException si le type n'existe pas en base.
+     */
+    public ContentType getContentType(ContentType.Type type) {
+        ContentType contentType = current().contentTypes().get(type);
+        if (contentType == null && refreshIfStale()) {
+            contentType = snapshot.contentTypes().get(type);
+        }
+        if (contentType == null) {
+            throw new EntityNotFoundException("ContentType non trouvé: " + type.name());
+        }
+        return contentType;
+    }
+
+    /**
+     * Obtient l'entité Rating correspondant à l'enum.
+     *
+     * @throws EntityNotFoundException si la classification n'existe pas en base.
+     */
+    public Rating getRating(Rating.Level level) {
+        Rating rating = current().ratings().get(level);
+        if (rating == null && refreshIfStale()) {
+            rating = snapshot.ratings().get(level);
+        }
+        if (rating == null) {
+            throw new EntityNotFoundException("Rating non trouvé: " + level.name());
+        }
+        return rating;
+    }
+
+    /**
+     * Obtient l'entité SubscriptionLevelRequired correspondant à l'enum.
+     *
+     * @throws EntityNotFoundException si le niveau d'abonnement n'existe pas en
+     *                                 base.
+     */
+    public SubscriptionLevelRequired getSubscriptionLevel(SubscriptionLevelRequired.Level level) {
+        SubscriptionLevelRequired subscriptionLevel = current().subscriptionLevels().get(level);
+        if (subscriptionLevel == null && refreshIfStale()) {
+            subscriptionLevel = snapshot.subscriptionLevels().get(level);
+        }
+        if (subscriptionLevel == null) {
+            throw new EntityNotFoundException("SubscriptionLevel non trouvé: " + level.name());
+        }
+        return subscriptionLevel;
+    }
+
+    /**
+     * Obtient l'entité ContentStatus correspondant à l'enum.
+     *
+     * @throws EntityNotFoundException si le statut n'existe pas en base.
+     */
+    public ContentStatus getContentStatus(ContentStatus.Status status) {
+        ContentStatus contentStatus = current().statuses().get(status);
+        if (contentStatus == null && refreshIfStale()) {
+            contentStatus = snapshot.statuses().get(status);
+        }
+        if (contentStatus == null) {
+            throw new EntityNotFoundException("ContentStatus non trouvé: " + status.name());
+        }
+        return contentStatus;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * Recharge les tables si le dernier chargement date de plus de
+     * l'intervalle de rafraîchissement.
+     *
+     * @return true si un rechargement a eu lieu.
+     */
+    private synchronized boolean refreshIfStale() {
+        if (System.nanoTime() - snapshot.loadedAtNanos() < refreshIntervalNanos) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    private static <E extends Enum<E>, T> Map<E, T> index(Class<E> enumType, List<T> rows,
+            Function<T, String> name, Function<String, E> parse) {
+        EnumMap<E, T> byEnum = new EnumMap<>(enumType);
+        for (T row : rows) {
+            try {
+                byEnum.put(parse.apply(name.apply(row)), row);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Valeur de référence ignorée : {}", e.getMessage());
+            }
+        }
+        return Collections.unmodifiableMap(byEnum);
+    }
+}
@@ -0,0 +1,16 @@
+-- Passage des IDs de contenu d'IDENTITY à la séquence content_seq (Content, allocationSize = 500).
+--
+-- À exécuter une fois sur une base existante, avant de démarrer la version qui utilise la séquence.
+-- Sans ce script, Hibernate crée content_seq à partir de 1 et les premiers INSERT entrent en
+-- collision avec les IDs déjà attribués. Inutile sur une base vide (H2 en mémoire).
+--
+-- Hibernate réserve les IDs par blocs (optimiseur pooled) : une valeur V de la séquence couvre les
+-- IDs V - 499 à V. La prochaine valeur doit donc être au moins MAX(id) + 500.
+
+-- PostgreSQL
+CREATE SEQUENCE IF NOT EXISTS content_seq START WITH 1 INCREMENT BY 500;
+SELECT setval('content_seq', (SELECT COALESCE(MAX(id), 0) + 500 FROM contents), false);
+
+-- H2 : remplacer la requête précédente par
+--   ALTER SEQUENCE content_seq RESTART WITH <MAX(id) + 500>;
+-- la valeur étant lue au préalable avec SELECT COALESCE(MAX(id), 0) + 500 FROM contents.
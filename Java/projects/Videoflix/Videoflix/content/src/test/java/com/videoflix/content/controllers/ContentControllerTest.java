@@ -0,0 +1,101 @@
+package com.videoflix.content.controllers;
+
+import com.videoflix.content.dtos.PublishedContentPage;
+import com.videoflix.content.dtos.PublishedContentSummary;
+import com.videoflix.content.services.CategoryService;
+import com.videoflix.content.services.ContentSearchService;
+import com.videoflix.content.services.ContentService;
+import com.videoflix.content.services.PublishedCatalogCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ContentController.class)
+class ContentControllerTest {
+
+    private static final String ETAG = "\"3f2a9c0d1b7e4f6a8c5d2e1f0a9b8c7d\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ContentService contentService;
+
+    @MockBean
+    private CategoryService categoryService;
+
+    @MockBean
+    private PublishedCatalogCache publishedCatalogCache;
+
+    @MockBean
+    private ContentSearchService contentSearchService;
+
+    @Test
+    void getPublishedContent_shouldReturnPageWithEtagAndCursor() throws Exception {
+        // GIVEN : Une page du catalogue publié suivie d'une autre
+        when(publishedCatalogCache.getPage(10L, 2)).thenReturn(catalogPage(14L));
+
+        // WHEN / THEN : La page est renvoyée avec son ETag et le curseur suivant
+        mockMvc.perform(get("/api/v1/content/published").param("after", "10").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.items[0].id").value(11))
+                .andExpect(jsonPath("$.nextCursor").value(14));
+    }
+
+    @Test
+    void getPublishedContent_shouldAnswerNotModifiedWhenEtagMatches() throws Exception {
+        // GIVEN : Le client possède déjà la page
+        when(publishedCatalogCache.getPage(null, 50)).thenReturn(catalogPage(null));
+
+        // WHEN / THEN : 304 sans corps, ETag rappelé
+        mockMvc.perform(get("/api/v1/content/published").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getPublishedContent_shouldReturnPageWhenEtagIsStale() throws Exception {
+        // GIVEN : Le client possède une version antérieure de la page
+        when(publishedCatalogCache.getPage(null, 50)).thenReturn(catalogPage(null));
+
+        // WHEN / THEN : La page à jour est renvoyée
+        mockMvc.perform(get("/api/v1/content/published").header(HttpHeaders.IF_NONE_MATCH, "\"ancienne-version\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(jsonPath("$.items[0].title").value("Alien"));
+    }
+
+    @Test
+    void getPublishedContent_shouldRejectInvalidPagination() throws Exception {
+        // GIVEN : Le cache refuse une taille nulle
+        when(publishedCatalogCache.getPage(null, 0))
+                .thenThrow(new IllegalArgumentException("Les paramètres de pagination doivent être positifs"));
+
+        // WHEN / THEN : 400
+        mockMvc.perform(get("/api/v1/content/published").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static PublishedCatalogCache.CatalogPage catalogPage(Long nextCursor) {
+        PublishedContentSummary summary = new PublishedContentSummary();
+        summary.setId(11L);
+        summary.setTitle("Alien");
+        summary.setCategories(List.of());
+        return new PublishedCatalogCache.CatalogPage(new PublishedContentPage(List.of(summary), nextCursor), ETAG);
+    }
+}
@@ -0,0 +1,109 @@
+package com.videoflix.content.imports;
+
+import com.videoflix.content.dtos.CatalogImportRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvCatalogReaderTest {
+
+    // Test pour vérifier la lecture d'un enregistrement simple, colonnes dans un ordre quelconque.
+    @Test
+    void next_shouldMapColumnsByHeaderName() throws IOException {
+        CsvCatalogReader reader = reader("""
+                type,Title,durationMinutes,releaseDate,categories,unknown
+                MOVIE,Interstellar,169,2014-11-05,Science-fiction| Drame ,ignoré
+                """);
+
+        CatalogImportRecord record = reader.next();
+
+        assertEquals("Interstellar", record.getTitle());
+        assertEquals("MOVIE", record.getType());
+        assertEquals(169, record.getDurationMinutes());
+        assertEquals(LocalDate.of(2014, 11, 5), record.getReleaseDate());
+        assertEquals(List.of("Science-fiction", "Drame"), record.getCategories());
+        assertNull(record.getDescription());
+        assertEquals(2, reader.line());
+        assertNull(reader.next());
+    }
+
+    // Test pour vérifier les champs entre guillemets : virgules, guillemets doublés et retours à la ligne.
+    @Test
+    void next_shouldReadQuotedFields() throws IOException {
+        CsvCatalogReader reader = reader("title,description,type\r\n"
+                + "\"Le Bon, la Brute et le Truand\",\"Un \"\"western\"\" culte\",MOVIE\r\n"
+                + "Heat,\"Première ligne\nseconde ligne\",MOVIE\r\n"
+                + "Alien,,MOVIE\r\n");
+
+        CatalogImportRecord first = reader.next();
+        assertEquals("Le Bon, la Brute et le Truand", first.getTitle());
+        assertEquals("Un \"western\" culte", first.getDescription());
+        assertEquals(2, reader.line());
+
+        CatalogImportRecord second = reader.next();
+        assertEquals("Heat", second.getTitle());
+        assertEquals("Première ligne\nseconde ligne", second.getDescription());
+        assertEquals("MOVIE", second.getType());
+        assertEquals(3, reader.line());
+
+        // Le retour à la ligne dans le champ précédent est compté dans les numéros de ligne.
+        CatalogImportRecord third = reader.next();
+        assertEquals("Alien", third.getTitle());
+        assertNull(third.getDescription());
+        assertEquals(5, reader.line());
+        assertNull(reader.next());
+    }
+
+    // Test pour vérifier qu'une ligne mal formée est rejetée sans interrompre la lecture.
+    @Test
+    void next_withMalformedRows_shouldRejectThemAndContinue() throws IOException {
+        CsvCatalogReader reader = reader("""
+                title,releaseDate,durationMinutes,type
+                Date invalide,05/11/2014,,MOVIE
+                Durée invalide,,deux heures,MOVIE
+
+                Valide,,90,MOVIE
+                """);
+
+        IllegalArgumentException date = assertThrows(IllegalArgumentException.class, reader::next);
+        assertTrue(date.getMessage().contains("05/11/2014"));
+        assertEquals(2, reader.line());
+        IllegalArgumentException duration = assertThrows(IllegalArgumentException.class, reader::next);
+        assertTrue(duration.getMessage().contains("deux heures"));
+        assertEquals(3, reader.line());
+
+        // La ligne vide est ignorée.
+        assertEquals("Valide", reader.next().getTitle());
+        assertEquals(5, reader.line());
+        assertNull(reader.next());
+    }
+
+    // Test pour vérifier qu'un guillemet non fermé en fin de fichier est signalé.
+    @Test
+    void next_withUnclosedQuote_shouldRejectLastRecord() throws IOException {
+        CsvCatalogReader reader = reader("title,type\nInterstellar,MOVIE\n\"Sans fin,MOVIE\n");
+
+        assertEquals("Interstellar", reader.next().getTitle());
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertNull(reader.next());
+    }
+
+    // Test pour vérifier qu'un fichier vide ne produit aucun contenu.
+    @Test
+    void next_withEmptyFile_shouldReturnNull() throws IOException {
+        assertNull(reader("").next());
+        assertNull(reader("title,type\n").next());
+    }
+
+    private static CsvCatalogReader reader(String csv) {
+        return new CsvCatalogReader(new StringReader(csv));
+    }
+}
@@ -0,0 +1,66 @@
+package com.videoflix.content.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.content.dtos.CatalogImportRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NdjsonCatalogReaderTest {
+
+    // ObjectMapper avec les modules disponibles (dates java.time), comme celui de Spring Boot.
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // Test pour vérifier la lecture d'un objet par ligne, les lignes vides étant ignorées.
+    @Test
+    void next_shouldReadOneObjectPerLine() throws IOException {
+        NdjsonCatalogReader reader = reader("""
+                {"title":"Interstellar","type":"MOVIE","releaseDate":"2014-11-05","categories":["Science-fiction"]}
+
+                {"title":"Heat","description":"Ligne 1\\nligne 2 avec des \\"guillemets\\"","type":"MOVIE"}
+                """);
+
+        CatalogImportRecord first = reader.next();
+        assertEquals("Interstellar", first.getTitle());
+        assertEquals(LocalDate.of(2014, 11, 5), first.getReleaseDate());
+        assertEquals(List.of("Science-fiction"), first.getCategories());
+        assertEquals(1, reader.line());
+
+        CatalogImportRecord second = reader.next();
+        assertEquals("Ligne 1\nligne 2 avec des \"guillemets\"", second.getDescription());
+        assertEquals(3, reader.line());
+        assertNull(reader.next());
+    }
+
+    // Test pour vérifier qu'une ligne mal formée est rejetée sans interrompre la lecture.
+    @Test
+    void next_withMalformedLines_shouldRejectThemAndContinue() throws IOException {
+        NdjsonCatalogReader reader = reader("""
+                {"title":"Tronqué","type":
+                {"title":"Durée invalide","type":"MOVIE","durationMinutes":"deux heures"}
+                {"title":"Valide","type":"MOVIE","durationMinutes":90}
+                """);
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals(1, reader.line());
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals(2, reader.line());
+
+        CatalogImportRecord valid = reader.next();
+        assertEquals("Valide", valid.getTitle());
+        assertEquals(90, valid.getDurationMinutes());
+        assertEquals(3, reader.line());
+        assertNull(reader.next());
+    }
+
+    private NdjsonCatalogReader reader(String ndjson) {
+        return new NdjsonCatalogReader(new StringReader(ndjson), objectMapper);
+    }
+}
@@ -0,0 +1,161 @@
+package com.videoflix.content.search;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mesure la latence de {@link ContentSearchIndex} sur un catalogue synthétique
+ * d'un million de titres : recherche exacte, par préfixe, avec faute de
+ * frappe, avec filtres, et comptage des facettes sur tout le catalogue. Les
+ * mots suivent une loi de Zipf : les requêtes sur les mots les plus fréquents
+ * (le quart du catalogue ou plus) sont les plus lentes.
+ * Prévoir {@code -Xmx2g}. Désactivé par défaut : lancer avec
+ * {@code mvn test -Dbenchmark=true -Dtest=ContentSearchIndexBenchmarkTest}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContentSearchIndexBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentSearchIndexBenchmarkTest.class);
+
+    private static final int CONTENTS = 1_000_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int RUNS = 200;
+    private static final long MAX_MEDIAN_MICROS = 10_000;
+
+    private static final String[] TYPES = {"MOVIE", "TV_SERIES", "DOCUMENTARY"};
+    private static final String[] RATINGS = {"G", "PG", "PG_13", "R", "NC_17"};
+    private static final String[] LEVELS = {"BASIC", "STANDARD", "PREMIUM"};
+    private static final String[] CATEGORIES = {"Action", "Comédie", "Drame", "Horreur", "Science-fiction",
+            "Animation", "Thriller", "Romance", "Documentaire", "Famille", "Fantastique", "Policier"};
+
+    @Test
+    void benchmark_searchShouldStayUnderTenMillisecondsOnAMillionTitles() throws Exception {
+        Random random = new Random(42);
+        String[] words = vocabulary(random);
+        ContentSearchIndex index = new ContentSearchIndex();
+        long start = System.nanoTime();
+        for (int i = 1; i <= CONTENTS; i++) {
+            index.upsert(document(i, random, words));
+        }
+        report("Indexation de %d contenus : %d ms", CONTENTS, (System.nanoTime() - start) / 1_000_000);
+
+        // Un contenu connu, pour vérifier que les requêtes approchées le retrouvent.
+        index.upsert(new SearchDocument(CONTENTS + 1L, "Interstellar", "Voyage au-delà de la galaxie",
+                "MOVIE", "PG_13", "PREMIUM", Set.of("Science-fiction")));
+
+        String common = words[0] + " " + words[1];
+        List<SearchQuery> queries = List.of(
+                new SearchQuery(common, null, null, null, null, 20),
+                new SearchQuery(words[2].substring(0, 3), null, null, null, null, 20),
+                new SearchQuery("intersteller", null, null, null, null, 20),
+                new SearchQuery("inter", "MOVIE", null, "PREMIUM", null, 20),
+                new SearchQuery(words[3], null, "PG", null, "Drame", 20),
+                new SearchQuery(null, "TV_SERIES", null, null, "Comédie", 20),
+                new SearchQuery(null, null, null, null, null, 20));
+
+        assertEquals(CONTENTS + 1L, index.search(queries.get(2)).hits().get(0).id(),
+                "La faute de frappe doit être tolérée");
+        assertTrue(index.search(queries.get(3)).hits().stream().anyMatch(hit -> hit.id() == CONTENTS + 1L),
+                "Le préfixe filtré doit retrouver le contenu");
+
+        // Échauffement du JIT.
+        for (int i = 0; i < RUNS; i++) {
+            index.search(queries.get(i % queries.size()));
+        }
+
+        long[] all = new long[RUNS * queries.size()];
+        for (int q = 0; q < queries.size(); q++) {
+            SearchQuery query = queries.get(q);
+            int total = 0;
+            long[] micros = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                long runStart = System.nanoTime();
+                total = index.search(query).total();
+                micros[i] = (System.nanoTime() - runStart) / 1_000;
+            }
+            Arrays.sort(micros);
+            System.arraycopy(micros, 0, all, q * RUNS, RUNS);
+            report("%-60s %8d résultats, médiane %6d µs, p99 %6d µs",
+                    describe(query), total, percentile(micros, 50), percentile(micros, 99));
+        }
+        Arrays.sort(all);
+        long median = percentile(all, 50);
+        report("Toutes requêtes : médiane %d µs, p99 %d µs", median, percentile(all, 99));
+        assertTrue(median < MAX_MEDIAN_MICROS, "Recherche trop lente : médiane de " + median + " µs");
+    }
+
+    /**
+     * Mots pseudo-aléatoires prononçables, de quatre à dix lettres.
+     */
+    private static String[] vocabulary(Random random) {
+        String consonants = "bcdfghjklmnprstvz";
+        String vowels = "aeiou";
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < VOCABULARY) {
+            int length = 4 + random.nextInt(7);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                String letters = i % 2 == 0 ? consonants : vowels;
+                word.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            words.add(word.toString());
+        }
+        return words.toArray(String[]::new);
+    }
+
+    private static SearchDocument document(long id, Random random, String[] words) {
+        String title = sentence(random, words, 1 + random.nextInt(4));
+        String description = sentence(random, words, 8 + random.nextInt(8));
+        List<String> categories = new ArrayList<>();
+        for (int c = 0; c < 1 + random.nextInt(3); c++) {
+            categories.add(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+        return new SearchDocument(id, title, description,
+                TYPES[random.nextInt(TYPES.length)],
+                RATINGS[random.nextInt(RATINGS.length)],
+                LEVELS[random.nextInt(LEVELS.length)],
+                Set.copyOf(categories));
+    }
+
+    /**
+     * Tire les mots selon une loi proche de Zipf : quelques mots très
+     * fréquents, une longue traîne de mots rares.
+     */
+    private static String sentence(Random random, String[] words, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int rank = (int) Math.min(words.length - 1, Math.floor(Math.pow(words.length, random.nextDouble())) - 1);
+            sentence.append(i == 0 ? "" : " ").append(words[rank]);
+        }
+        return sentence.toString();
+    }
+
+    // Centile d'un échantillon trié (50 pour la médiane)
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static void report(String format, Object... args) {
+        logger.info(String.format(Locale.ROOT, format, args));
+    }
+
+    private static String describe(SearchQuery query) {
+        return "q=" + query.text() + " type=" + query.type() + " rating=" + query.rating()
+                + " level=" + query.minSubscriptionLevel() + " category=" + query.category();
+    }
+}
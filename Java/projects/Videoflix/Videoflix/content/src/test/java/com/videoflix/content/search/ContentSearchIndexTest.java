@@ -0,0 +1,160 @@
+package com.videoflix.content.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentSearchIndexTest {
+
+    private ContentSearchIndex index;
+
+    // Un petit catalogue indexé avant chaque test.
+    @BeforeEach
+    void setUp() {
+        index = new ContentSearchIndex();
+        index.upsert(new SearchDocument(1L, "Interstellar", "Voyage au-delà de la galaxie",
+                "MOVIE", "PG_13", "PREMIUM", Set.of("Science-fiction")));
+        index.upsert(new SearchDocument(2L, "Entretien avec un vampire", "Un vampire raconte sa vie",
+                "MOVIE", "R", "STANDARD", Set.of("Horreur", "Drame")));
+        index.upsert(new SearchDocument(3L, "Le Bureau des légendes", "Espionnage et interrogatoires",
+                "TV_SERIES", "PG_13", "STANDARD", Set.of("Drame")));
+        index.upsert(new SearchDocument(4L, "Planète bleue", "Documentaire sur les océans",
+                "DOCUMENTARY", "G", "BASIC", Set.of("Documentaire")));
+    }
+
+    // Test pour vérifier que le dernier mot de la requête est traité comme un préfixe.
+    @Test
+    void search_lastWordShouldMatchAsPrefix() {
+        // WHEN : Recherche du début d'un mot.
+        SearchResult result = index.search(query("inter"));
+
+        // THEN : Le titre et la description commençant par ce préfixe sont trouvés, le titre en premier.
+        assertEquals(2, result.total());
+        assertEquals(List.of(1L, 3L), ids(result));
+    }
+
+    // Test pour vérifier qu'un mot qui n'est pas le dernier doit être exact.
+    @Test
+    void search_shouldNotTreatEarlierWordsAsPrefixes() {
+        assertEquals(0, index.search(query("inter vampire")).total());
+        assertEquals(List.of(2L), ids(index.search(query("vampire entre"))));
+    }
+
+    // Test pour vérifier que les accents et la casse sont ignorés.
+    @Test
+    void search_shouldIgnoreAccentsAndCase() {
+        assertEquals(List.of(3L), ids(index.search(query("LEGENDES"))));
+        assertEquals(List.of(4L), ids(index.search(query("planete"))));
+    }
+
+    // Test pour vérifier qu'une faute de frappe est tolérée sur un mot absent de l'index.
+    @Test
+    void search_shouldTolerateTypos() {
+        // Une faute sur un mot de moins de huit lettres, deux au-delà.
+        assertEquals(List.of(2L), ids(index.search(query("vampyre"))));
+        assertEquals(List.of(1L), ids(index.search(query("intrestelar"))));
+        // Trois fautes : plus rien.
+        assertEquals(0, index.search(query("imtrestelar")).total());
+    }
+
+    // Test pour vérifier la distance d'édition bornée.
+    @Test
+    void withinEditDistance_shouldCountSubstitutionsInsertionsDeletionsAndTranspositions() {
+        assertTrue(ContentSearchIndex.withinEditDistance("vampire", "vampire", 0));
+        assertTrue(ContentSearchIndex.withinEditDistance("vampyre", "vampire", 1));
+        assertTrue(ContentSearchIndex.withinEditDistance("vampre", "vampire", 1));
+        assertTrue(ContentSearchIndex.withinEditDistance("vampiire", "vampire", 1));
+        assertTrue(ContentSearchIndex.withinEditDistance("vapmire", "vampire", 1));
+        assertFalse(ContentSearchIndex.withinEditDistance("vapmyre", "vampire", 1));
+        assertTrue(ContentSearchIndex.withinEditDistance("vapmyre", "vampire", 2));
+        assertFalse(ContentSearchIndex.withinEditDistance("abc", "abcde", 1));
+    }
+
+    // Test pour vérifier le filtrage et le comptage des facettes.
+    @Test
+    void search_shouldFilterAndCountFacets() {
+        // WHEN : Recherche sans texte, filtrée sur le niveau STANDARD.
+        SearchResult result = index.search(new SearchQuery(null, null, null, "STANDARD", null, 20));
+
+        // THEN : Les facettes ne comptent que les contenus retenus, par nombre décroissant.
+        assertEquals(2, result.total());
+        assertEquals(List.of(2L, 3L), ids(result));
+        assertEquals(Map.of("STANDARD", 2), result.facets().get(ContentSearchIndex.FACET_LEVEL));
+        assertEquals(Map.of("MOVIE", 1, "TV_SERIES", 1), result.facets().get(ContentSearchIndex.FACET_TYPE));
+        Map<String, Integer> categories = result.facets().get(ContentSearchIndex.FACET_CATEGORY);
+        assertEquals(Map.of("Drame", 2, "Horreur", 1), categories);
+        assertEquals("Drame", categories.keySet().iterator().next());
+    }
+
+    // Test pour vérifier qu'une valeur de facette inconnue ne renvoie rien.
+    @Test
+    void search_withUnknownFacetValue_shouldReturnNothing() {
+        SearchResult result = index.search(new SearchQuery(null, "PODCAST", null, null, null, 20));
+
+        assertEquals(0, result.total());
+        assertTrue(result.hits().isEmpty());
+    }
+
+    // Test pour vérifier qu'une nouvelle version d'un contenu remplace l'ancienne.
+    @Test
+    void upsert_shouldReplacePreviousVersion() {
+        // WHEN : Le contenu 1 est renommé et change de classification.
+        index.upsert(new SearchDocument(1L, "Tenet", "Le temps s'inverse",
+                "MOVIE", "PG", "PREMIUM", Set.of("Science-fiction")));
+
+        // THEN : Seule la nouvelle version est trouvée et comptée.
+        assertEquals(0, index.search(query("interstellar")).total());
+        SearchResult result = index.search(query("tenet"));
+        assertEquals(List.of(1L), ids(result));
+        assertEquals("Tenet", result.hits().get(0).title());
+        Map<String, Integer> ratings = index.search(query(null)).facets().get(ContentSearchIndex.FACET_RATING);
+        assertEquals(Map.of("PG", 1, "PG_13", 1, "R", 1, "G", 1), ratings);
+        assertEquals(4, index.size());
+        assertEquals(1, index.deletedCount());
+    }
+
+    // Test pour vérifier le retrait d'un contenu.
+    @Test
+    void remove_shouldHideContentFromSearchAndFacets() {
+        // WHEN : Retrait du contenu 2, puis d'un contenu inconnu.
+        index.remove(2L);
+        index.remove(999L);
+
+        // THEN : Le contenu n'est plus trouvé ni compté.
+        assertEquals(0, index.search(query("vampire")).total());
+        SearchResult all = index.search(query(null));
+        assertEquals(3, all.total());
+        assertEquals(Map.of("Drame", 1, "Science-fiction", 1, "Documentaire", 1),
+                all.facets().get(ContentSearchIndex.FACET_CATEGORY));
+        assertEquals(3, index.size());
+        assertEquals(1, index.deletedCount());
+    }
+
+    // Test pour vérifier que les anciennes versions sont comptées jusqu'à la reconstruction.
+    @Test
+    void deletedCount_shouldCountReplacedAndRemovedVersions() {
+        assertEquals(0, index.deletedCount());
+
+        index.upsert(new SearchDocument(4L, "Planète bleue II", null, "DOCUMENTARY", "G", "BASIC", Set.of()));
+        index.upsert(new SearchDocument(4L, "Planète bleue III", null, "DOCUMENTARY", "G", "BASIC", Set.of()));
+        index.remove(3L);
+
+        assertEquals(3, index.size());
+        assertEquals(3, index.deletedCount());
+    }
+
+    private static SearchQuery query(String text) {
+        return new SearchQuery(text, null, null, null, null, 20);
+    }
+
+    private static List<Long> ids(SearchResult result) {
+        return result.hits().stream().map(SearchResult.Hit::id).toList();
+    }
+}
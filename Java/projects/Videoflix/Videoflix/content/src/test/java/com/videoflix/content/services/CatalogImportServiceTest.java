@@ -0,0 +1,155 @@
+package com.videoflix.content.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.content.dtos.CatalogImportReport;
+import com.videoflix.content.entities.Content;
+import com.videoflix.content.events.PublishedCatalogChangedEvent;
+import com.videoflix.content.exceptions.CatalogImportInProgressException;
+import com.videoflix.content.imports.CatalogFormat;
+import com.videoflix.content.repositories.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
+@ExtendWith(MockitoExtension.class)
+class CatalogImportServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    // Gestionnaire de transactions simulé : permet de compter les validations et annulations par lot.
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CatalogImportService catalogImportService;
+
+    @BeforeEach
+    void setUp() {
+        // Lots de deux contenus, pour observer le découpage sur un petit fichier.
+        catalogImportService = new CatalogImportService(entityManager, transactionManager, jdbcTemplate,
+                categoryRepository, referenceDataCache, new ObjectMapper().findAndRegisterModules(), eventPublisher,
+                2, 100);
+    }
+
+    // Test pour vérifier qu'un lot dont l'écriture échoue est rejeté seul, les autres lots étant importés.
+    @Test
+    void importCatalog_whenABatchFailsToWrite_shouldRejectOnlyThatBatch() throws IOException {
+        // GIVEN : Cinq contenus, soit trois lots ; l'écriture du deuxième lot échoue.
+        doAnswer(invocation -> {
+            Content content = invocation.getArgument(0);
+            if ("Échec".equals(content.getTitle())) {
+                throw new PersistenceException("Violation de contrainte");
+            }
+            return null;
+        }).when(entityManager).persist(any());
+        String catalog = """
+                {"title":"Un","type":"MOVIE"}
+                {"title":"Deux","type":"MOVIE"}
+                {"title":"Trois","type":"MOVIE"}
+                {"title":"Échec","type":"MOVIE"}
+                {"title":"Cinq","type":"MOVIE"}
+                """;
+
+        // WHEN : Import du fichier.
+        CatalogImportReport report = catalogImportService.importCatalog(input(catalog), CatalogFormat.NDJSON);
+
+        // THEN : Le premier et le dernier lot sont importés, le deuxième rejeté en entier.
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(5, report.getRead());
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(1, report.getErrors().size());
+        assertTrue(report.getErrors().get(0).startsWith("Lignes 3 à 4 : lot rejeté"));
+        // Chaque lot a sa transaction : deux validées, une annulée.
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager).rollback(any());
+        verify(entityManager, times(2)).clear();
+        verify(eventPublisher).publishEvent(any(PublishedCatalogChangedEvent.class));
+    }
+
+    // Test pour vérifier qu'un contenu invalide est rejeté avec son numéro de ligne sans interrompre l'import.
+    @Test
+    void importCatalog_shouldRejectInvalidRecordsWithTheirLineNumber() throws IOException {
+        String catalog = """
+                {"title":"Un","type":"MOVIE"}
+                {"type":"MOVIE"}
+                pas du JSON
+                {"title":"Quatre","type":"PODCAST"}
+                {"title":"Cinq","type":"TV_SERIES"}
+                """;
+
+        CatalogImportReport report = catalogImportService.importCatalog(input(catalog), CatalogFormat.NDJSON);
+
+        assertEquals(5, report.getRead());
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals("Ligne 2 : Le titre est obligatoire", report.getErrors().get(0));
+        assertTrue(report.getErrors().get(1).startsWith("Ligne 3 : JSON invalide"));
+        assertEquals("Ligne 4 : Type de contenu inconnu : PODCAST", report.getErrors().get(2));
+        verify(entityManager, times(2)).persist(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    // Test pour vérifier qu'un second import est refusé tant que le premier est en cours.
+    @Test
+    void importCatalog_whileAnotherImportRuns_shouldThrowConflict() throws IOException {
+        // GIVEN : Un fichier dont la lecture tente de lancer un second import.
+        CatalogImportInProgressException[] nested = new CatalogImportInProgressException[1];
+        InputStream input = new InputStream() {
+            @Override
+            public int read() {
+                nested[0] = assertThrows(CatalogImportInProgressException.class,
+                        () -> catalogImportService.importCatalog(input(""), CatalogFormat.NDJSON));
+                return -1;
+            }
+        };
+
+        // WHEN : Import du fichier.
+        CatalogImportReport report = catalogImportService.importCatalog(input, CatalogFormat.NDJSON);
+
+        // THEN : Le second import a été refusé, le premier s'est terminé et un nouvel import est possible.
+        assertNotNull(nested[0]);
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals("COMPLETED", catalogImportService.importCatalog(input(""), CatalogFormat.NDJSON).getStatus());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+package com.videoflix.content.services;
+
+import com.videoflix.content.dtos.PublishedContentPage;
+import com.videoflix.content.entities.Category;
+import com.videoflix.content.entities.Content;
+import com.videoflix.content.entities.ContentStatus;
+import com.videoflix.content.entities.ContentType;
+import com.videoflix.content.repositories.ContentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContentServiceTest {
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ContentStatus published = new ContentStatus(ContentStatus.Status.PUBLISHED);
+
+    private ContentService contentService;
+
+    @BeforeEach
+    void setUp() {
+        contentService = new ContentService(contentRepository, categoryService, referenceDataCache, eventPublisher,
+                null);
+        when(referenceDataCache.getContentStatus(ContentStatus.Status.PUBLISHED)).thenReturn(published);
+    }
+
+    @Test
+    void loadPublishedPage_shouldReturnNextCursorWhenMoreContentFollows() {
+        // GIVEN : Trois contenus publiés après le curseur 10 pour une page de deux
+        when(contentRepository.findIdsByStatusAfter(published, 10L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(11L, 14L, 20L));
+        when(contentRepository.findWithCategoriesByIdInOrderByIdAsc(List.of(11L, 14L)))
+                .thenReturn(List.of(content(11L, "Alien"), content(14L, "Brazil")));
+
+        // WHEN : La page suivant le curseur 10 est lue
+        PublishedContentPage page = contentService.loadPublishedPage(10L, 2);
+
+        // THEN : Seuls les deux premiers sont chargés, le curseur suivant est le dernier ID de la page
+        assertEquals(List.of(11L, 14L), page.getItems().stream().map(item -> item.getId()).toList());
+        assertEquals(14L, page.getNextCursor());
+    }
+
+    @Test
+    void loadPublishedPage_shouldEndWithoutCursorOnTheLastPage() {
+        // GIVEN : Un seul contenu publié reste après le curseur
+        when(contentRepository.findIdsByStatusAfter(published, 14L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(20L));
+        when(contentRepository.findWithCategoriesByIdInOrderByIdAsc(List.of(20L)))
+                .thenReturn(List.of(content(20L, "Chinatown")));
+
+        // WHEN : La page suivante est lue
+        PublishedContentPage page = contentService.loadPublishedPage(14L, 2);
+
+        // THEN : C'est la dernière page
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void loadPublishedPage_shouldStartFromTheBeginningWithoutCursor() {
+        // GIVEN : Aucun contenu publié
+        when(contentRepository.findIdsByStatusAfter(published, 0L, PageRequest.of(0, 51))).thenReturn(List.of());
+
+        // WHEN : La première page est lue sans curseur
+        PublishedContentPage page = contentService.loadPublishedPage(null, 50);
+
+        // THEN : La page est vide et les contenus ne sont pas chargés
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(contentRepository, never()).findWithCategoriesByIdInOrderByIdAsc(any());
+    }
+
+    @Test
+    void loadPublishedPage_shouldMapCategoriesSortedById() {
+        // GIVEN : Un contenu et ses deux catégories
+        Content content = content(11L, "Alien");
+        content.setCategories(new HashSet<>(Set.of(category(7L, "Science-fiction"), category(3L, "Horreur"))));
+        when(contentRepository.findIdsByStatusAfter(published, 0L, PageRequest.of(0, 2))).thenReturn(List.of(11L));
+        when(contentRepository.findWithCategoriesByIdInOrderByIdAsc(List.of(11L))).thenReturn(List.of(content));
+
+        // WHEN : La page est lue
+        PublishedContentPage page = contentService.loadPublishedPage(null, 1);
+
+        // THEN : Le résumé porte le type et les catégories triées par ID
+        assertEquals("MOVIE", page.getItems().get(0).getType());
+        assertEquals(List.of(3L, 7L), page.getItems().get(0).getCategories().stream()
+                .map(category -> category.getId()).toList());
+    }
+
+    private static Content content(Long id, String title) {
+        Content content = new Content();
+        content.setId(id);
+        content.setTitle(title);
+        content.setType(new ContentType(ContentType.Type.MOVIE));
+        content.setStatus(new ContentStatus(ContentStatus.Status.PUBLISHED));
+        return content;
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category(name, null);
+        category.setId(id);
+        return category;
+    }
+}
@@ -0,0 +1,154 @@
+package com.videoflix.content.services;
+
+import com.videoflix.content.dtos.CategoryResponse;
+import com.videoflix.content.dtos.PublishedContentPage;
+import com.videoflix.content.dtos.PublishedContentSummary;
+import com.videoflix.content.events.ContentPublishedEvent;
+import com.videoflix.content.events.PublishedCatalogChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PublishedCatalogCacheTest {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Mock
+    private ContentService contentService;
+
+    private PublishedCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PublishedCatalogCache(contentService, MAX_PAGE_SIZE, 1000, 60_000);
+    }
+
+    @Test
+    void getPage_shouldServeSecondRequestFromCache() {
+        // GIVEN : La première page du catalogue en base
+        PublishedContentPage page = page(2L, summary(1L, "Alien"), summary(2L, "Brazil"));
+        when(contentService.loadPublishedPage(0L, 2)).thenReturn(page);
+
+        // WHEN : La même page est demandée deux fois
+        PublishedCatalogCache.CatalogPage first = cache.getPage(null, 2);
+        PublishedCatalogCache.CatalogPage second = cache.getPage(null, 2);
+
+        // THEN : La base n'est lue qu'une fois et la même page (même ETag) est renvoyée
+        verify(contentService, times(1)).loadPublishedPage(0L, 2);
+        assertSame(first, second);
+        assertSame(page, second.page());
+    }
+
+    @Test
+    void getPage_shouldCapPageSizeAndShareTheCachedPage() {
+        // GIVEN : Une taille demandée au-delà du plafond
+        when(contentService.loadPublishedPage(0L, MAX_PAGE_SIZE)).thenReturn(page(null, summary(1L, "Alien")));
+
+        // WHEN : Deux tailles au-delà du plafond sont demandées
+        cache.getPage(null, 500);
+        cache.getPage(0L, 1000);
+
+        // THEN : Elles correspondent à la même page plafonnée, lue une seule fois
+        verify(contentService, times(1)).loadPublishedPage(0L, MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void onPublishedCatalogChanged_shouldReloadPagesAfterInvalidation() {
+        // GIVEN : Une page en cache, puis un titre modifié en base
+        when(contentService.loadPublishedPage(0L, 2))
+                .thenReturn(page(null, summary(1L, "Alien")), page(null, summary(1L, "Aliens")));
+        PublishedCatalogCache.CatalogPage before = cache.getPage(null, 2);
+
+        // WHEN : La modification est signalée
+        cache.onPublishedCatalogChanged(new PublishedCatalogChangedEvent(this, 1L));
+        PublishedCatalogCache.CatalogPage after = cache.getPage(null, 2);
+
+        // THEN : La page est relue et son ETag change
+        verify(contentService, times(2)).loadPublishedPage(0L, 2);
+        assertEquals("Aliens", after.page().getItems().get(0).getTitle());
+        assertNotEquals(before.etag(), after.etag());
+    }
+
+    @Test
+    void onContentPublished_shouldInvalidatePages() {
+        // GIVEN : Une page en cache
+        when(contentService.loadPublishedPage(0L, 2)).thenReturn(page(null, summary(1L, "Alien")));
+        cache.getPage(null, 2);
+
+        // WHEN : Un contenu est publié
+        cache.onContentPublished(mock(ContentPublishedEvent.class));
+        cache.getPage(null, 2);
+
+        // THEN : La page est relue
+        verify(contentService, times(2)).loadPublishedPage(0L, 2);
+    }
+
+    @Test
+    void getPage_shouldNotCacheAPageLoadedDuringAnInvalidation() {
+        // GIVEN : Une invalidation survient pendant la lecture de la page
+        doAnswer(invocation -> {
+            cache.onPublishedCatalogChanged(new PublishedCatalogChangedEvent(this, 1L));
+            return page(null, summary(1L, "Alien"));
+        }).when(contentService).loadPublishedPage(0L, 2);
+
+        // WHEN : La page est demandée deux fois
+        cache.getPage(null, 2);
+        cache.getPage(null, 2);
+
+        // THEN : La page lue pendant l'invalidation n'a pas été conservée
+        verify(contentService, times(2)).loadPublishedPage(0L, 2);
+    }
+
+    @Test
+    void getPage_shouldComputeTheSameEtagOnEveryInstance() {
+        // GIVEN : Deux instances qui lisent une page identique
+        ContentService otherContentService = mock(ContentService.class);
+        PublishedCatalogCache otherCache = new PublishedCatalogCache(otherContentService, MAX_PAGE_SIZE, 1000,
+                60_000);
+        when(contentService.loadPublishedPage(0L, 2)).thenReturn(page(2L, summary(1L, "Alien"), summary(2L, "Brazil")));
+        when(otherContentService.loadPublishedPage(0L, 2))
+                .thenReturn(page(2L, summary(1L, "Alien"), summary(2L, "Brazil")));
+
+        // WHEN / THEN : L'ETag, calculé à partir du contenu, est le même
+        String etag = cache.getPage(null, 2).etag();
+        assertEquals(etag, otherCache.getPage(null, 2).etag());
+        assertEquals('"', etag.charAt(0));
+        assertEquals('"', etag.charAt(etag.length() - 1));
+    }
+
+    @Test
+    void getPage_shouldRejectInvalidPaginationParameters() {
+        // WHEN / THEN : Taille nulle ou curseur négatif
+        assertThrows(IllegalArgumentException.class, () -> cache.getPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> cache.getPage(-1L, 10));
+        verifyNoInteractions(contentService);
+    }
+
+    private static PublishedContentPage page(Long nextCursor, PublishedContentSummary... items) {
+        return new PublishedContentPage(List.of(items), nextCursor);
+    }
+
+    private static PublishedContentSummary summary(Long id, String title) {
+        return new PublishedContentSummary(id, title, LocalDate.of(1979, 5, 25), 117, "/posters/" + id + ".jpg",
+                "MOVIE", "R", "BASIC", List.of(new CategoryResponse(1L, "Science-fiction")),
+                LocalDateTime.of(2025, 1, 1, 0, 0));
+    }
+}
@@ -0,0 +1,177 @@
+package com.videoflix.content.services;
+
+import com.videoflix.content.entities.ContentStatus;
+import com.videoflix.content.entities.ContentType;
+import com.videoflix.content.entities.Rating;
+import com.videoflix.content.entities.SubscriptionLevelRequired;
+import com.videoflix.content.events.ReferenceDataChangedEvent;
+import com.videoflix.content.repositories.ContentStatusRepository;
+import com.videoflix.content.repositories.ContentTypeRepository;
+import com.videoflix.content.repositories.RatingRepository;
+import com.videoflix.content.repositories.SubscriptionLevelRequiredRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataCacheTest {
+
+    // Intervalle assez long pour qu'aucun rechargement sur valeur absente n'ait lieu pendant un test.
+    private static final long REFRESH_INTERVAL_MS = 60_000;
+
+    @Mock
+    private ContentTypeRepository contentTypeRepository;
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private SubscriptionLevelRequiredRepository subscriptionLevelRequiredRepository;
+
+    @Mock
+    private ContentStatusRepository contentStatusRepository;
+
+    private final ContentType movie = new ContentType(ContentType.Type.MOVIE);
+    private final Rating pg = new Rating(Rating.Level.PG);
+    private final SubscriptionLevelRequired basic = new SubscriptionLevelRequired(SubscriptionLevelRequired.Level.BASIC);
+    private final ContentStatus published = new ContentStatus(ContentStatus.Status.PUBLISHED);
+
+    @BeforeEach
+    void setUp() {
+        when(contentTypeRepository.findAll()).thenReturn(List.of(movie));
+        when(ratingRepository.findAll()).thenReturn(List.of(pg));
+        when(subscriptionLevelRequiredRepository.findAll()).thenReturn(List.of(basic));
+        when(contentStatusRepository.findAll()).thenReturn(List.of(published));
+    }
+
+    @Test
+    void loadOnStartup_shouldLoadEachTableOnceAndServeEntitiesByEnum() {
+        // GIVEN : Le cache chargé au démarrage
+        ReferenceDataCache cache = cache(REFRESH_INTERVAL_MS);
+        cache.loadOnStartup();
+
+        // WHEN / THEN : Chaque enum donne l'entité chargée
+        assertSame(movie, cache.getContentType(ContentType.Type.MOVIE));
+        assertSame(pg, cache.getRating(Rating.Level.PG));
+        assertSame(basic, cache.getSubscriptionLevel(SubscriptionLevelRequired.Level.BASIC));
+        assertSame(published, cache.getContentStatus(ContentStatus.Status.PUBLISHED));
+        verifyLoads(1);
+    }
+
+    @Test
+    void getters_shouldReuseTheCachedValuesWithoutQueryingAgain() {
+        // GIVEN : Le cache chargé
+        ReferenceDataCache cache = cache(REFRESH_INTERVAL_MS);
+        cache.loadOnStartup();
+
+        // WHEN : Les mêmes valeurs sont demandées à de nombreuses reprises
+        for (int i = 0; i < 100; i++) {
+            cache.getContentType(ContentType.Type.MOVIE);
+            cache.getRating(Rating.Level.PG);
+            cache.getSubscriptionLevel(SubscriptionLevelRequired.Level.BASIC);
+            cache.getContentStatus(ContentStatus.Status.PUBLISHED);
+        }
+
+        // THEN : Les tables n'ont été lues qu'au chargement
+        verifyLoads(1);
+    }
+
+    @Test
+    void getters_shouldLoadTablesOnFirstAccessWhenNotLoadedYet() {
+        // GIVEN : Un cache pas encore chargé (accès avant ApplicationReadyEvent)
+        ReferenceDataCache cache = cache(REFRESH_INTERVAL_MS);
+
+        // WHEN : Deux valeurs sont demandées
+        assertSame(movie, cache.getContentType(ContentType.Type.MOVIE));
+        assertSame(published, cache.getContentStatus(ContentStatus.Status.PUBLISHED));
+
+        // THEN : Les tables sont chargées une seule fois
+        verifyLoads(1);
+    }
+
+    @Test
+    void onReferenceDataChanged_shouldReplaceTheCachedValues() {
+        // GIVEN : Le cache chargé, puis un type de contenu modifié en base
+        ReferenceDataCache cache = cache(REFRESH_INTERVAL_MS);
+        cache.loadOnStartup();
+        ContentType renamedMovie = new ContentType(ContentType.Type.MOVIE);
+        renamedMovie.setDisplayName("Long-métrage");
+        when(contentTypeRepository.findAll()).thenReturn(List.of(renamedMovie));
+
+        // WHEN : La modification est signalée
+        cache.onReferenceDataChanged(new ReferenceDataChangedEvent(this));
+
+        // THEN : Les tables sont relues et la nouvelle valeur est servie
+        ContentType served = cache.getContentType(ContentType.Type.MOVIE);
+        assertNotSame(movie, served);
+        assertEquals("Long-métrage", served.getDisplayName());
+        verifyLoads(2);
+    }
+
+    @Test
+    void getters_shouldReloadOnceWhenAValueIsMissingAndTheCacheIsStale() {
+        // GIVEN : Un cache sans le type DOCUMENTARY, ajouté ensuite par une autre instance
+        ReferenceDataCache cache = cache(0);
+        cache.loadOnStartup();
+        ContentType documentary = new ContentType(ContentType.Type.DOCUMENTARY);
+        when(contentTypeRepository.findAll()).thenReturn(List.of(movie, documentary));
+
+        // WHEN : Le type manquant est demandé
+        ContentType served = cache.getContentType(ContentType.Type.DOCUMENTARY);
+
+        // THEN : Les tables sont relues une fois et le type est trouvé
+        assertSame(documentary, served);
+        verifyLoads(2);
+    }
+
+    @Test
+    void getters_shouldNotReloadForAMissingValueWithinTheRefreshInterval() {
+        // GIVEN : Un cache chargé à l'instant, sans le type DOCUMENTARY
+        ReferenceDataCache cache = cache(REFRESH_INTERVAL_MS);
+        cache.loadOnStartup();
+
+        // WHEN / THEN : Le type manquant est signalé sans relire les tables
+        assertThrows(EntityNotFoundException.class, () -> cache.getContentType(ContentType.Type.DOCUMENTARY));
+        verifyLoads(1);
+    }
+
+    @Test
+    void refresh_shouldIgnoreRowsWithoutMatchingEnum() {
+        // GIVEN : Une ligne de type inconnue du code en base
+        ContentType unknown = new ContentType();
+        unknown.setName("PODCAST");
+        when(contentTypeRepository.findAll()).thenReturn(List.of(unknown, movie));
+        ReferenceDataCache cache = cache(REFRESH_INTERVAL_MS);
+
+        // WHEN : Les tables sont chargées
+        cache.refresh();
+
+        // THEN : La ligne inconnue est ignorée, les autres sont servies
+        assertSame(movie, cache.getContentType(ContentType.Type.MOVIE));
+    }
+
+    private ReferenceDataCache cache(long refreshIntervalMillis) {
+        return new ReferenceDataCache(contentTypeRepository, ratingRepository, subscriptionLevelRequiredRepository,
+                contentStatusRepository, refreshIntervalMillis);
+    }
+
+    private void verifyLoads(int times) {
+        verify(contentTypeRepository, times(times)).findAll();
+        verify(ratingRepository, times(times)).findAll();
+        verify(subscriptionLevelRequiredRepository, times(times)).findAll();
+        verify(contentStatusRepository, times(times)).findAll();
+    }
+}
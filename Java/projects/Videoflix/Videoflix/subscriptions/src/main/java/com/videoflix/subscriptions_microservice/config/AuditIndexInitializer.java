@@ -0,0 +1,54 @@
+package com.videoflix.subscriptions_microservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Index des tables d'audit Envers, que Hibernate ne crée pas.
+ * <p>
+ * La clé primaire {@code (id, rev)} de subscriptions_aud sert déjà la
+ * pagination de l'historique d'un abonnement ; ces index servent l'export de
+ * la piste d'audit sur une période (filtre sur revinfo.revtstmp puis jointure
+ * sur rev).
+ */
+@Component
+public class AuditIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditIndexInitializer.class);
+
+    private static final List<String> INDEXES = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_revinfo_revtstmp ON revinfo (revtstmp, rev)",
+            "CREATE INDEX IF NOT EXISTS idx_subscriptions_aud_rev ON subscriptions_aud (rev, id)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean autoCreate;
+
+    public AuditIndexInitializer(JdbcTemplate jdbcTemplate,
+            @Value("${audit.indexes.auto-create:true}") boolean autoCreate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.autoCreate = autoCreate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!autoCreate) {
+            return;
+        }
+        for (String ddl : INDEXES) {
+            try {
+                jdbcTemplate.execute(ddl);
+            } catch (DataAccessException e) {
+                // Les requêtes restent correctes sans index, seulement plus lentes.
+                logger.warn("Création d'index d'audit impossible : {}", ddl, e);
+            }
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.videoflix.subscriptions_microservice.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,6 +20,11 @@ public class RabbitMQConfig {
     public static final String WELCOME_EMAIL_QUEUE = "videoflix.subscriptions.welcome-email";
     public static final String WELCOME_EMAIL_ROUTING_KEY = "welcome.email";
 
+    // Messages de bienvenue inexploitables (illisibles, ou e-mail impossible à
+    // préparer), déposés par le consommateur
+    public static final String WELCOME_EMAIL_DLQ = "videoflix.subscriptions.welcome-email.dlq";
+    public static final String WELCOME_EMAIL_CONTAINER_FACTORY = "welcomeEmailListenerContainerFactory";
+
     // Échange et Queue pour les changements de niveau d'abonnement
     public static final String SUBSCRIPTION_LEVEL_CHANGED_EXCHANGE = "subscription.events";
     public static final String SUBSCRIPTION_LEVEL_CHANGED_QUEUE = "subscription.level-changed";
@@ -45,6 +55,11 @@ public class RabbitMQConfig {
     public static final String SUBSCRIPTION_REACTIVATED_QUEUE = "subscription.reactivated";
     public static final String SUBSCRIPTION_REACTIVATED_ROUTING_KEY = "subscription.reactivated";
 
+    // Échange du service de contrôle d'accès (déclaré par ce service-là)
+    public static final String ACCESS_CONTROL_EXCHANGE = "access.control.events";
+    public static final String ACCESS_CONTROL_REACTIVATED_ROUTING_KEY = "subscription.reactivated";
+    public static final String ACCESS_CONTROL_CANCELLED_ROUTING_KEY = "subscription.cancelled";
+
     @Bean
     public DirectExchange newSubscriptionExchange() {
         return new DirectExchange(NEW_SUBSCRIPTION_EXCHANGE);
@@ -60,6 +75,40 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(welcomeEmailQueue).to(newSubscriptionExchange).with(WELCOME_EMAIL_ROUTING_KEY);
     }
 
+    @Bean
+    public Queue welcomeEmailDeadLetterQueue() {
+        return QueueBuilder.durable(WELCOME_EMAIL_DLQ).build();
+    }
+
+    /**
+     * Conteneur du consommateur des e-mails de bienvenue : plusieurs consommateurs
+     * concurrents, messages reçus par lots et acquittés manuellement, un
+     * acquittement par lot.
+     */
+    @Bean(WELCOME_EMAIL_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory welcomeEmailListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${welcome.email.consumer.concurrency:4}") int concurrency,
+            @Value("${welcome.email.consumer.max-concurrency:16}") int maxConcurrency,
+            @Value("${welcome.email.consumer.prefetch:100}") int prefetch,
+            @Value("${welcome.email.consumer.batch-size:50}") int batchSize,
+            @Value("${welcome.email.consumer.receive-timeout-ms:200}") long receiveTimeoutMillis) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        // Le prefetch doit couvrir au moins un lot complet.
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        // Un lot incomplet est livré après ce délai sans nouveau message.
+        factory.setReceiveTimeout(receiveTimeoutMillis);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
     @Bean
     public DirectExchange subscriptionLevelChangedExchange() {
         return new DirectExchange(SUBSCRIPTION_LEVEL_CHANGED_EXCHANGE);
@@ -1,13 +1,18 @@
 package com.videoflix.subscriptions_microservice.controllers;
 
+import com.videoflix.subscriptions_microservice.entities.SubscriptionDailyStats;
 import com.videoflix.subscriptions_microservice.services.StatsService;
+import com.videoflix.subscriptions_microservice.services.SubscriptionStatsRollupService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,9 +20,11 @@ import java.util.Map;
 public class AdminStatsController {
 
     private final StatsService statsService;
+    private final SubscriptionStatsRollupService rollupService;
 
-    public AdminStatsController(StatsService statsService) {
+    public AdminStatsController(StatsService statsService, SubscriptionStatsRollupService rollupService) {
         this.statsService = statsService;
+        this.rollupService = rollupService;
     }
 
     @GetMapping("/active-count")
@@ -64,4 +71,20 @@ public class AdminStatsController {
     public ResponseEntity<Long> getFailedPaymentCount() {
         return ResponseEntity.ok(statsService.getFailedPaymentCount());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<SubscriptionDailyStats>> getDailyStats(
+            @RequestParam(value = "startDate", required = false) LocalDate startDate,
+            @RequestParam(value = "endDate", required = false) LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        return ResponseEntity.ok(statsService.getDailyStats(startDate, endDate));
+    }
+
+    // Reconstruit l'agrégat journalier depuis la table des abonnements
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Integer> rebuildRollup() {
+        return ResponseEntity.ok(rollupService.rebuild());
+    }
+}
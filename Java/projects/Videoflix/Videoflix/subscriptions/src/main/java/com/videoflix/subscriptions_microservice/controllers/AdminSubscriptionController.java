@@ -1,11 +1,18 @@
 package com.videoflix.subscriptions_microservice.controllers;
 
 import com.videoflix.subscriptions_microservice.dtos.AdminUpdateSubscriptionRequest;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchCriteria;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchPage;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.services.SubscriptionHistoryService;
+import com.videoflix.subscriptions_microservice.services.SubscriptionSearchService;
 import com.videoflix.subscriptions_microservice.services.SubscriptionService;
 
 import jakarta.validation.Valid;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,7 +23,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -25,9 +34,15 @@ import java.util.List;
 public class AdminSubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final SubscriptionHistoryService subscriptionHistoryService;
+    private final SubscriptionSearchService subscriptionSearchService;
 
-    public AdminSubscriptionController(SubscriptionService subscriptionService) {
+    public AdminSubscriptionController(SubscriptionService subscriptionService,
+            SubscriptionHistoryService subscriptionHistoryService,
+            SubscriptionSearchService subscriptionSearchService) {
         this.subscriptionService = subscriptionService;
+        this.subscriptionHistoryService = subscriptionHistoryService;
+        this.subscriptionSearchService = subscriptionSearchService;
     }
 
     // Méthodes pour lister et rechercher les abonnements
@@ -40,16 +55,33 @@ public class AdminSubscriptionController {
         return new ResponseEntity<>(subscriptions, HttpStatus.OK);
     }
 
+    // Recherche paginée par curseur : passer nextCursor dans after pour obtenir la
+    // page suivante ; count vaut none, estimate ou exact
     @GetMapping("/search")
-    public ResponseEntity<List<Subscription>> searchSubscriptions(
+    public ResponseEntity<SubscriptionSearchPage> searchSubscriptions(
             @RequestParam(value = "userId", required = false) Long userId,
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "subscriptionLevel", required = false) String subscriptionLevel,
-            @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
-        List<Subscription> subscriptions = subscriptionService.getAllSubscriptionsByFilters(userId, status,
-                subscriptionLevel, page, size);
-        return new ResponseEntity<>(subscriptions, HttpStatus.OK);
+            @RequestParam(value = "startFrom", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime startFrom,
+            @RequestParam(value = "startTo", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime startTo,
+            @RequestParam(value = "endFrom", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime endFrom,
+            @RequestParam(value = "endTo", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime endTo,
+            @RequestParam(value = "nextBillingFrom", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime nextBillingFrom,
+            @RequestParam(value = "nextBillingTo", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime nextBillingTo,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "count", defaultValue = "none") String count) {
+        SubscriptionSearchCriteria criteria = SubscriptionSearchCriteria.of(userId, status, subscriptionLevel,
+                startFrom, startTo, endFrom, endTo, nextBillingFrom, nextBillingTo);
+        SubscriptionSearchPage page = subscriptionSearchService.search(criteria, after, size,
+                SubscriptionSearchService.CountMode.fromString(count));
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 
     // Méthodes pour modifier les abonnements
@@ -61,4 +93,18 @@ public class AdminSubscriptionController {
         Subscription updatedSubscription = subscriptionService.updateSubscriptionByAdmin(id, updateRequest);
         return new ResponseEntity<>(updatedSubscription, HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    // Export de la piste d'audit
+
+    @GetMapping(value = "/audit/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAuditTrail(
+            @RequestParam(value = "from", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+                    @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> subscriptionHistoryService.exportAuditTrail(from, to, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"subscriptions-audit.ndjson\"")
+                .body(body);
+    }
+}
@@ -3,10 +3,8 @@ package com.videoflix.subscriptions_microservice.controllers;
 import com.stripe.Stripe;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Event;
-import com.stripe.model.EventDataObjectDeserializer;
-import com.stripe.model.Invoice;
-import com.stripe.model.StripeObject;
 import com.stripe.net.Webhook;
+import com.videoflix.subscriptions_microservice.services.StripeWebhookInboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,20 +15,24 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Optional;
-
 @RestController
 public class StripeWebhookController {
 
     private static final Logger logger = LoggerFactory.getLogger(StripeWebhookController.class);
 
+    private final StripeWebhookInboxService inboxService;
+
     @Value("${stripe.webhook.secret}")
     private String webhookSecret;
 
-    public StripeWebhookController(@Value("${stripe.api.secretKey}") String secretKey) {
+    public StripeWebhookController(@Value("${stripe.api.secretKey}") String secretKey,
+            StripeWebhookInboxService inboxService) {
         Stripe.apiKey = secretKey;
+        this.inboxService = inboxService;
     }
 
+    // Seule la signature est vérifiée ici : l'évènement est enregistré dans la
+    // boîte de réception puis traité hors du thread de la requête.
     @PostMapping("/stripe/webhook")
     public ResponseEntity<String> handleStripeWebhook(
             @RequestBody String payload,
@@ -43,17 +45,11 @@ public class StripeWebhookController {
 
         try {
             Event event = Webhook.constructEvent(payload, sigHeader, webhookSecret);
-            EventDataObjectDeserializer dataObjectDeserializer = event.getDataObjectDeserializer();
-            Optional<StripeObject> stripeObjectOptional = dataObjectDeserializer.getObject();
 
-            if (stripeObjectOptional.isPresent()) {
-                handleEvent(event.getType(), stripeObjectOptional.get());
-            } else {
-                logger.warn("Failed to deserialize event object: {}", event.getId());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid payload");
+            if (!inboxService.accept(event.getId(), event.getType(), payload)) {
+                return ResponseEntity.ok("Webhook already received");
             }
-
-            return ResponseEntity.ok("Webhook processed successfully");
+            return ResponseEntity.ok("Webhook received");
 
         } catch (SignatureVerificationException e) {
             logger.error("Webhook signature verification failed", e);
@@ -63,45 +59,4 @@ public class StripeWebhookController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing webhook");
         }
     }
-
-    private void handleEvent(String eventType, StripeObject stripeObject) {
-        switch (eventType) {
-            case "invoice.payment_succeeded":
-                if (stripeObject instanceof Invoice invoice) {
-                    logger.info("Invoice payment succeeded: {}", invoice.getId());
-                    // Logique de traitement pour les paiements réussis
-                }
-                break;
-
-            case "invoice.payment_failed":
-                if (stripeObject instanceof Invoice invoice) {
-                    logger.error("Invoice payment failed: {}", invoice.getId());
-                    // Logique de traitement pour les paiements échoués
-                }
-                break;
-
-            case "customer.subscription.created":
-                logger.info("Subscription created: {}", stripeObject);
-                // Logique pour les abonnements créés
-                break;
-
-            case "customer.subscription.updated":
-                logger.info("Subscription updated: {}", stripeObject);
-                // Logique pour les abonnements mis à jour
-                break;
-
-            case "customer.subscription.deleted":
-                logger.info("Subscription deleted: {}", stripeObject);
-                // Logique pour les abonnements supprimés
-                break;
-
-            case "customer.subscription.trial_will_end":
-                logger.info("Trial will end for subscription: {}", stripeObject);
-                // Notification de la fin de l'essai gratuit
-                break;
-
-            default:
-                logger.info("Unhandled event type: {}", eventType);
-        }
-    }
-}
\ No newline at end of file
+}
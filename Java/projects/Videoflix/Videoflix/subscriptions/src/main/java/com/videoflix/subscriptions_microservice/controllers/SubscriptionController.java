@@ -1,10 +1,12 @@
 package com.videoflix.subscriptions_microservice.controllers;
 
 import com.stripe.exception.StripeException;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionHistoryPage;
 import com.videoflix.subscriptions_microservice.entities.Promotion;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 import com.videoflix.subscriptions_microservice.services.StripePaymentService;
+import com.videoflix.subscriptions_microservice.services.SubscriptionHistoryService;
 import com.videoflix.subscriptions_microservice.services.SubscriptionService;
 
 import jakarta.validation.Valid;
@@ -22,11 +24,14 @@ public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
     private final RestTemplate restTemplate;
+    private final SubscriptionHistoryService subscriptionHistoryService;
     private StripePaymentService stripePaymentService;
 
-    public SubscriptionController(SubscriptionService subscriptionService, RestTemplate restTemplate) {
+    public SubscriptionController(SubscriptionService subscriptionService, RestTemplate restTemplate,
+            SubscriptionHistoryService subscriptionHistoryService) {
         this.subscriptionService = subscriptionService;
         this.restTemplate = restTemplate;
+        this.subscriptionHistoryService = subscriptionHistoryService;
     }
 
     // Gestion des abonnements
@@ -209,10 +214,12 @@ public class SubscriptionController {
         return ResponseEntity.ok(refundedSubscription);
     }
 
-    // Historique des abonnements
+    // Historique des abonnements, paginé de la révision la plus récente à la plus
+    // ancienne : passer nextCursor dans before pour obtenir la page suivante
     @GetMapping("/subscriptions/{id}/history")
-    public ResponseEntity<List<Object[]>> getSubscriptionHistory(@PathVariable Long id) {
-        List<Object[]> history = subscriptionService.getSubscriptionHistory(id);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<SubscriptionHistoryPage> getSubscriptionHistory(@PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(subscriptionHistoryService.getHistory(id, before, size));
     }
 }
\ No newline at end of file
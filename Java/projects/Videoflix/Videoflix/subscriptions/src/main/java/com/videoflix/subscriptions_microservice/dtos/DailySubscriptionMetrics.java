@@ -0,0 +1,13 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+/**
+ * Métriques d'abonnement d'une journée, calculées en une seule requête.
+ *
+ * @param newSubscriptions       abonnements créés dans la journée
+ * @param cancelledSubscriptions abonnements annulés dans la journée
+ * @param activeSubscriptions    abonnements en cours à la fin de la journée
+ * @param revenue                montant des paiements réussis de la journée
+ */
+public record DailySubscriptionMetrics(long newSubscriptions, long cancelledSubscriptions,
+        long activeSubscriptions, double revenue) {
+}
@@ -0,0 +1,16 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+/**
+ * Bilan d'un passage de vérification des expirations d'abonnements.
+ *
+ * @param scanned  nombre de lignes lues en base
+ * @param notified nombre d'abonnements notifiés d'une expiration imminente
+ * @param expired  nombre d'abonnements passés au statut EXPIRED
+ */
+public record SubscriptionExpirationReport(long scanned, long notified, long expired) {
+
+    /** Nombre total de lignes effectivement traitées (notifiées ou mises à jour). */
+    public long touched() {
+        return notified + expired;
+    }
+}
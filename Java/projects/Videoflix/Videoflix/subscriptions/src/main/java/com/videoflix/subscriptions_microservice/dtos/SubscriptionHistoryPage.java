@@ -0,0 +1,11 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+import java.util.List;
+
+/**
+ * Page de l'historique d'un abonnement, de la révision la plus récente à la
+ * plus ancienne. {@code nextCursor} est à passer en paramètre {@code before}
+ * pour obtenir la page suivante ; il vaut null sur la dernière page.
+ */
+public record SubscriptionHistoryPage(List<SubscriptionRevision> items, Long nextCursor) {
+}
@@ -0,0 +1,19 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Révision d'un abonnement dans l'historique d'audit : seuls les champs
+ * modifiés depuis la révision précédente sont présents ({@code changes}),
+ * tous les champs renseignés pour une création.
+ *
+ * @param type ADD (création), MOD (modification) ou DEL (suppression).
+ */
+public record SubscriptionRevision(Long subscriptionId, long revision, Instant timestamp, String type,
+        Map<String, FieldChange> changes) {
+
+    /** Ancienne et nouvelle valeur d'un champ. */
+    public record FieldChange(Object from, Object to) {
+    }
+}
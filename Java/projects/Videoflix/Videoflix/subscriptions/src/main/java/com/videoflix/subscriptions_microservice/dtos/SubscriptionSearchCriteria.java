@@ -0,0 +1,55 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+import com.videoflix.subscriptions_microservice.entities.Subscription.SubscriptionStatus;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel.Level;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtres typés de la recherche d'abonnements ; un filtre null est ignoré.
+ * Les plages de dates sont de la forme [from, to[.
+ */
+public record SubscriptionSearchCriteria(Long userId, SubscriptionStatus status, Level level,
+        LocalDateTime startFrom, LocalDateTime startTo,
+        LocalDateTime endFrom, LocalDateTime endTo,
+        LocalDateTime nextBillingFrom, LocalDateTime nextBillingTo) {
+
+    public SubscriptionSearchCriteria {
+        checkRange("début", startFrom, startTo);
+        checkRange("fin", endFrom, endTo);
+        checkRange("prochaine facturation", nextBillingFrom, nextBillingTo);
+    }
+
+    /**
+     * Construit les filtres à partir des paramètres de la requête.
+     *
+     * @throws IllegalArgumentException si le statut ou le niveau est inconnu, ou
+     *                                  si une plage de dates est inversée.
+     */
+    public static SubscriptionSearchCriteria of(Long userId, String status, String level,
+            LocalDateTime startFrom, LocalDateTime startTo,
+            LocalDateTime endFrom, LocalDateTime endTo,
+            LocalDateTime nextBillingFrom, LocalDateTime nextBillingTo) {
+        return new SubscriptionSearchCriteria(userId, parseStatus(status),
+                level == null || level.isBlank() ? null : Level.fromString(level.trim()),
+                startFrom, startTo, endFrom, endTo, nextBillingFrom, nextBillingTo);
+    }
+
+    private static SubscriptionStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        for (SubscriptionStatus value : SubscriptionStatus.values()) {
+            if (value.name().equalsIgnoreCase(status.trim())) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Statut d'abonnement inconnu : " + status);
+    }
+
+    private static void checkRange(String name, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Plage de dates de " + name + " vide ou inversée");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+import java.util.List;
+
+/**
+ * Page de résultats d'une recherche d'abonnements, du plus récent au plus
+ * ancien.
+ *
+ * @param nextCursor     À passer dans {@code after} pour obtenir la page
+ *                       suivante ; null sur la dernière page.
+ * @param total          Nombre total de résultats, ou null s'il n'a pas été
+ *                       demandé.
+ * @param totalEstimated Vrai si le total est l'estimation du planificateur.
+ */
+public record SubscriptionSearchPage(List<SubscriptionSummary> items, Long nextCursor, Long total,
+        boolean totalEstimated) {
+}
@@ -0,0 +1,12 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne d'un résultat de recherche d'abonnements, avec l'utilisateur et le
+ * niveau lus dans la même requête.
+ */
+public record SubscriptionSummary(Long id, Long userId, String username, String email, String level,
+        String status, LocalDateTime startDate, LocalDateTime endDate, LocalDateTime nextBillingDate,
+        boolean autoRenew, double price, String currency) {
+}
@@ -0,0 +1,32 @@
+package com.videoflix.subscriptions_microservice.dtos;
+
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+
+import java.time.LocalDateTime;
+
+/**
+ * Représentation compacte d'un abonnement envoyée aux systèmes externes, une
+ * ligne NDJSON par abonnement. Un même abonnement peut être renvoyé : le
+ * destinataire l'enregistre par {@code id} et ignore une ligne dont
+ * {@code updatedAt} n'est pas plus récent que celui qu'il connaît.
+ */
+public record SubscriptionSyncRecord(Long id, Long userId, String level, String status,
+        LocalDateTime startDate, LocalDateTime endDate, boolean autoRenew, double price, String currency,
+        LocalDateTime updatedAt) {
+
+    public static SubscriptionSyncRecord from(Subscription subscription) {
+        return new SubscriptionSyncRecord(
+                subscription.getId(),
+                subscription.getUser() != null ? subscription.getUser().getId() : null,
+                subscription.getSubscriptionLevel() != null && subscription.getSubscriptionLevel().getLevel() != null
+                        ? subscription.getSubscriptionLevel().getLevel().name()
+                        : null,
+                subscription.getStatus() != null ? subscription.getStatus().name() : null,
+                subscription.getStartDate(),
+                subscription.getEndDate(),
+                subscription.isAutoRenew(),
+                subscription.getPrice(),
+                subscription.getCurrency(),
+                subscription.getUpdatedAt());
+    }
+}
@@ -2,12 +2,16 @@ package com.videoflix.subscriptions_microservice.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "failed_emails")
+@Table(name = "failed_emails", indexes = {
+        @Index(name = "idx_failed_emails_next_attempt", columnList = "next_attempt_at")
+})
 @Data
+@NoArgsConstructor
 public class FailedEmail {
 
     @Id
@@ -32,6 +36,10 @@ public class FailedEmail {
     @Column(nullable = false)
     private LocalDateTime creationTimestamp;
 
+    // Date du prochain essai d'envoi ; null lorsque l'e-mail n'est plus réessayé.
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
     public FailedEmail(String recipientEmail, String subject, String body, int attemptCount, String failureReason,
             LocalDateTime creationTimestamp) {
         this.recipientEmail = recipientEmail;
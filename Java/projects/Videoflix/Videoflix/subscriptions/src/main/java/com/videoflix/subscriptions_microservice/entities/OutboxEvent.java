@@ -0,0 +1,71 @@
+package com.videoflix.subscriptions_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Évènement métier à publier sur RabbitMQ, enregistré dans la même
+ * transaction que la modification qui l'a produit (outbox transactionnelle).
+ * L'ID du message est unique et transmis au broker : les consommateurs
+ * l'utilisent pour ignorer une éventuelle seconde livraison. Un relais prend
+ * les évènements en charge ({@code claimedBy}) avant de les publier, pour que
+ * deux instances ne publient pas le même évènement.
+ */
+@Entity
+@Table(name = "outbox_events", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_outbox_event_message_id", columnNames = "message_id")
+}, indexes = {
+        @Index(name = "idx_outbox_event_status_id", columnList = "status, id")
+})
+@Data
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false, length = 36)
+    private String messageId;
+
+    @Column(name = "exchange", nullable = false)
+    private String exchange;
+
+    @Column(name = "routing_key", nullable = false)
+    private String routingKey;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", columnDefinition = "BYTEA", nullable = false)
+    private byte[] payload; // JSON UTF-8, envoyé tel quel
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private OutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy; // Passage du relais qui publie l'évènement
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt; // Prise en charge, reprise par un autre relais après expiration
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt; // Confirmé par le broker
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum OutboxStatus {
+        PENDING, // En attente de publication
+        SENT, // Publié et confirmé par le broker
+        FAILED // Abandonné après épuisement des tentatives, à republier manuellement
+    }
+}
@@ -0,0 +1,34 @@
+package com.videoflix.subscriptions_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clé d'idempotence d'un message RabbitMQ traité par un consommateur : un
+ * message déjà traité (même {@code message-id}) et livré une seconde fois est
+ * ignoré.
+ */
+@Entity
+@Table(name = "processed_messages", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_processed_message_consumer_id", columnNames = { "consumer", "message_id" })
+}, indexes = {
+        @Index(name = "idx_processed_message_processed_at", columnList = "processed_at")
+})
+@Data
+public class ProcessedMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "consumer", nullable = false, length = 64)
+    private String consumer;
+
+    @Column(name = "message_id", nullable = false, length = 64)
+    private String messageId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,65 @@
+package com.videoflix.subscriptions_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Évènement Stripe reçu par webhook, conservé dans la boîte de réception
+ * avant traitement. L'ID de l'évènement Stripe est unique : une nouvelle
+ * livraison du même évènement est ignorée.
+ */
+@Entity
+@Table(name = "stripe_webhook_events", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stripe_webhook_event_id", columnNames = "event_id")
+}, indexes = {
+        @Index(name = "idx_stripe_webhook_status_id", columnList = "status, id")
+})
+@Data
+public class StripeWebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private String eventId; // ID de l'évènement Stripe (evt_...)
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    // Client (ou abonnement) concerné : les évènements d'une même clé sont traités
+    // dans l'ordre de réception.
+    @Column(name = "partition_key", nullable = false)
+    private String partitionKey;
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private InboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt; // Prise en charge par un worker
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum InboxStatus {
+        PENDING, // Reçu, en attente de traitement
+        PROCESSING, // Pris en charge par un worker
+        PROCESSED, // Traité avec succès
+        FAILED // Abandonné après épuisement des tentatives
+    }
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.envers.Audited;
 
 import com.videoflix.subscriptions_microservice.validations.ValidSubscriptionLevel;
@@ -14,7 +15,15 @@ import com.videoflix.subscriptions_microservice.validations.ValidSubscriptionLev
 @Entity
 @Table(name = "subscriptions", indexes = {
         @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_customer_id", columnList = "customer_id")
+        @Index(name = "idx_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_status_end_date", columnList = "status, end_date, id"),
+        @Index(name = "idx_auto_renew_next_renewal", columnList = "auto_renew, next_renewal_date, id"),
+        @Index(name = "idx_updated_at_id", columnList = "updated_at, id"),
+        @Index(name = "idx_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_start_date_id", columnList = "start_date, id"),
+        @Index(name = "idx_next_billing_date_id", columnList = "next_billing_date, id"),
+        @Index(name = "idx_creation_time_stamp", columnList = "creation_time_stamp"),
+        @Index(name = "idx_cancelled_at", columnList = "cancelled_at")
 })
 @Data
 @Audited
@@ -130,6 +139,31 @@ public class Subscription {
     @Column(name = "last_activity")
     private LocalDateTime lastActivity;
 
+    /**
+     * Niveau à la création, d'où partent les changements de niveau comptés par
+     * l'agrégat journalier. Null pour les abonnements créés avant son ajout et
+     * jamais changés de niveau depuis : leur niveau courant est alors l'initial.
+     */
+    @Column(name = "initial_level")
+    @Enumerated(EnumType.STRING)
+    private SubscriptionLevel.Level initialLevel;
+
+    /**
+     * Date de la dernière modification, curseur de la synchronisation
+     * incrémentale. Les lignes antérieures sont renseignées par
+     * {@code db/subscriptions_updated_at_backfill.sql}.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void recordInitialLevel() {
+        if (initialLevel == null && subscriptionLevel != null) {
+            initialLevel = subscriptionLevel.getLevel();
+        }
+    }
+
     public enum SubscriptionStatus {
         ACTIVE, // Abonnement actif et en cours
         ARCHIVED, // Abonnement archivé
@@ -0,0 +1,50 @@
+package com.videoflix.subscriptions_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Agrégat journalier des évènements d'abonnement, par niveau. Une ligne par
+ * couple (jour, niveau), incrémentée à chaque évènement du cycle de vie.
+ */
+@Entity
+@Table(name = "subscription_daily_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_stats_date_level", columnNames = { "stat_date", "level" })
+})
+@Data
+public class SubscriptionDailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate; // Jour agrégé
+
+    @Column(name = "level", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SubscriptionLevel.Level level; // Niveau d'abonnement agrégé
+
+    @Column(name = "new_count", nullable = false)
+    private long newCount; // Abonnements créés
+
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount; // Abonnements annulés
+
+    @Column(name = "renewed_count", nullable = false)
+    private long renewedCount; // Abonnements renouvelés
+
+    @Column(name = "level_changed_in_count", nullable = false)
+    private long levelChangedInCount; // Abonnements passés à ce niveau
+
+    @Column(name = "level_changed_out_count", nullable = false)
+    private long levelChangedOutCount; // Abonnements ayant quitté ce niveau
+
+    @Column(name = "revenue", nullable = false)
+    private double revenue; // Revenu encaissé (créations et renouvellements)
+
+    @Column(name = "new_revenue", nullable = false)
+    private double newRevenue; // Part du revenu issue des créations
+}
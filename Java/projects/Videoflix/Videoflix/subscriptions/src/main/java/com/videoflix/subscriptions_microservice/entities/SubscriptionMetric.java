@@ -0,0 +1,43 @@
+package com.videoflix.subscriptions_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Point d'une série temporelle de métriques d'abonnement. Une ligne par
+ * couple (métrique, granularité, période) ; la valeur est stockée en colonne
+ * primitive.
+ */
+@Entity
+@Table(name = "subscription_metrics", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_metric_granularity_period", columnNames = { "metric_name", "granularity",
+                "period_start" })
+})
+@Data
+public class SubscriptionMetric {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "metric_name", nullable = false, length = 64)
+    private String metricName; // Nom de la métrique (new_subscriptions, daily_revenue, ...)
+
+    @Column(name = "granularity", nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private Granularity granularity; // Granularité de la période
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart; // Premier jour de la période
+
+    @Column(name = "metric_value", nullable = false)
+    private double value; // Valeur de la métrique sur la période
+
+    public enum Granularity {
+        DAILY,
+        MONTHLY,
+        YEARLY
+    }
+}
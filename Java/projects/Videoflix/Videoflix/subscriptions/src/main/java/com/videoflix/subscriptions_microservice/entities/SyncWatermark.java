@@ -0,0 +1,30 @@
+package com.videoflix.subscriptions_microservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Curseur de synchronisation d'un système externe (CRM, analytics). Il est
+ * avancé après chaque lot accepté, ce qui permet de reprendre là où la
+ * synchronisation s'est arrêtée après un redémarrage ou un échec.
+ */
+@Entity
+@Table(name = "sync_watermarks")
+@Data
+public class SyncWatermark {
+
+    @Id
+    @Column(name = "target", length = 32)
+    private String target; // Système externe synchronisé
+
+    @Column(name = "last_updated_at", nullable = false)
+    private LocalDateTime lastUpdatedAt; // Date de modification du dernier abonnement envoyé
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId; // ID du dernier abonnement envoyé
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt; // Date du dernier lot accepté
+}
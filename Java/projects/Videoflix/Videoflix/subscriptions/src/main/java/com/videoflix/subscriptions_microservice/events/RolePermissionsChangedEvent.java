@@ -0,0 +1,16 @@
+package com.videoflix.subscriptions_microservice.events;
+
+import org.springframework.context.ApplicationEvent;
+
+public class RolePermissionsChangedEvent extends ApplicationEvent {
+    private final String roleName; // Rôle créé, supprimé ou modifié ; null si plusieurs rôles sont concernés
+
+    public RolePermissionsChangedEvent(Object source, String roleName) {
+        super(source);
+        this.roleName = roleName;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+}
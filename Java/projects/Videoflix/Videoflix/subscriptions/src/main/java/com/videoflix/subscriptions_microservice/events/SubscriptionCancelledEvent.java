@@ -0,0 +1,23 @@
+package com.videoflix.subscriptions_microservice.events;
+
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import org.springframework.context.ApplicationEvent;
+
+public class SubscriptionCancelledEvent extends ApplicationEvent {
+    private final transient Subscription subscription;
+    private final String reason; // Raison de l'annulation
+
+    public SubscriptionCancelledEvent(Object source, Subscription subscription, String reason) {
+        super(source);
+        this.subscription = subscription;
+        this.reason = reason;
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
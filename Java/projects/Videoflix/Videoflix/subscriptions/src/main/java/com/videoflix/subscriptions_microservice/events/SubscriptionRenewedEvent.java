@@ -0,0 +1,17 @@
+package com.videoflix.subscriptions_microservice.events;
+
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import org.springframework.context.ApplicationEvent;
+
+public class SubscriptionRenewedEvent extends ApplicationEvent {
+    private final transient Subscription subscription;
+
+    public SubscriptionRenewedEvent(Object source, Subscription subscription) {
+        super(source);
+        this.subscription = subscription;
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+}
@@ -0,0 +1,16 @@
+package com.videoflix.subscriptions_microservice.events;
+
+import org.springframework.context.ApplicationEvent;
+
+public class UserRolesChangedEvent extends ApplicationEvent {
+    private final Long userId; // Utilisateur dont les rôles ont changé
+
+    public UserRolesChangedEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -1,72 +1,59 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.ACCESS_CONTROL_CANCELLED_ROUTING_KEY;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.ACCESS_CONTROL_EXCHANGE;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.ACCESS_CONTROL_REACTIVATED_ROUTING_KEY;
 
 @Component
 public class AccessControlEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(AccessControlEventPublisher.class);
-    private static final String ACCESS_CONTROL_EXCHANGE = "access.control.events"; // Définir l'échange
-    private static final String SUBSCRIPTION_REACTIVATED_ROUTING_KEY = "subscription.reactivated"; // Définir la clé de
-                                                                                                   // routage
-                                                                                                   // pour la
-                                                                                                   // réactivation
-    private static final String SUBSCRIPTION_CANCELLED_ROUTING_KEY = "subscription.cancelled"; // Définir la clé
-                                                                                               // de routage pour
-                                                                                               // l'annulation
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    static final EventRoute<AccessReactivatedPayload> REACTIVATED_ROUTE = new EventRoute<>(ACCESS_CONTROL_EXCHANGE,
+            ACCESS_CONTROL_REACTIVATED_ROUTING_KEY, "SubscriptionReactivatedForAccessControl",
+            AccessReactivatedPayload.class);
+    static final EventRoute<AccessCancelledPayload> CANCELLED_ROUTE = new EventRoute<>(ACCESS_CONTROL_EXCHANGE,
+            ACCESS_CONTROL_CANCELLED_ROUTING_KEY, "SubscriptionCancelledForAccessControl",
+            AccessCancelledPayload.class);
 
-    public AccessControlEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    /** Contenu du message de réactivation. */
+    public record AccessReactivatedPayload(Long userId, String subscriptionLevel, String reactivatedAt) {
     }
 
-    public void publishSubscriptionReactivatedForAccessControl(Long userId, String subscriptionLevelName) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("userId", userId);
-            payload.put("subscriptionLevel", subscriptionLevelName);
-            payload.put("reactivatedAt", LocalDateTime.now().toString());
+    /** Contenu du message d'annulation. */
+    public record AccessCancelledPayload(Long userId, String subscriptionLevel, String cancelledAt, String reason) {
+    }
 
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(ACCESS_CONTROL_EXCHANGE, SUBSCRIPTION_REACTIVATED_ROUTING_KEY, message);
-            logger.info(
-                    "Événement SubscriptionReactivatedForAccessControl publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    ACCESS_CONTROL_EXCHANGE, SUBSCRIPTION_REACTIVATED_ROUTING_KEY, payload);
+    private final SubscriptionEventBus eventBus;
 
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'événement SubscriptionReactivatedForAccessControl : {}",
-                    e.getMessage(), e);
-        }
+    public AccessControlEventPublisher(SubscriptionEventBus eventBus) {
+        this.eventBus = eventBus;
     }
 
-    public void publishSubscriptionCancelledForAccessControl(Long userId, String subscriptionLevelName, String reason) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("userId", userId);
-            payload.put("subscriptionLevel", subscriptionLevelName);
-            payload.put("cancelledAt", LocalDateTime.now().toString());
-            payload.put("reason", reason);
+    public void publishSubscriptionReactivatedForAccessControl(Long userId, String subscriptionLevelName) {
+        AccessReactivatedPayload payload = new AccessReactivatedPayload(userId, subscriptionLevelName,
+                LocalDateTime.now().toString());
+
+        eventBus.publish(REACTIVATED_ROUTE, payload);
+        logger.info(
+                "Événement SubscriptionReactivatedForAccessControl enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                REACTIVATED_ROUTE.exchange(), REACTIVATED_ROUTE.routingKey(), payload);
+    }
 
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(ACCESS_CONTROL_EXCHANGE, SUBSCRIPTION_CANCELLED_ROUTING_KEY, message);
-            logger.info(
-                    "Événement SubscriptionCancelledForAccessControl publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    ACCESS_CONTROL_EXCHANGE, SUBSCRIPTION_CANCELLED_ROUTING_KEY, payload);
+    public void publishSubscriptionCancelledForAccessControl(Long userId, String subscriptionLevelName, String reason) {
+        AccessCancelledPayload payload = new AccessCancelledPayload(userId, subscriptionLevelName,
+                LocalDateTime.now().toString(), reason);
 
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'événement SubscriptionCancelledForAccessControl : {}",
-                    e.getMessage(), e);
-        }
+        eventBus.publish(CANCELLED_ROUTE, payload);
+        logger.info(
+                "Événement SubscriptionCancelledForAccessControl enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                CANCELLED_ROUTE.exchange(), CANCELLED_ROUTE.routingKey(), payload);
     }
-}
\ No newline at end of file
+}
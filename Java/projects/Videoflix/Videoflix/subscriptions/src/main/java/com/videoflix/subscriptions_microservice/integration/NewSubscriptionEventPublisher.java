@@ -1,10 +1,11 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.User;
 import com.videoflix.subscriptions_microservice.events.NewSubscriptionCreatedEvent;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
 import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.*;
@@ -14,24 +15,37 @@ public class NewSubscriptionEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(NewSubscriptionEventPublisher.class);
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    static final EventRoute<WelcomeEmailPayload> ROUTE = new EventRoute<>(NEW_SUBSCRIPTION_EXCHANGE,
+            WELCOME_EMAIL_ROUTING_KEY, "NewSubscriptionCreatedEvent", WelcomeEmailPayload.class);
 
-    public NewSubscriptionEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    /** Contenu du message publié, lu par le consommateur des e-mails de bienvenue. */
+    public record WelcomeEmailPayload(Long subscriptionId, Long userId, String email, String firstname,
+            String level) {
+    }
+
+    private final SubscriptionEventBus eventBus;
+
+    public NewSubscriptionEventPublisher(SubscriptionEventBus eventBus) {
+        this.eventBus = eventBus;
     }
 
     public void publishNewSubscriptionEvent(NewSubscriptionCreatedEvent event) {
-        try {
-            String message = objectMapper.writeValueAsString(event);
-            rabbitTemplate.convertAndSend(NEW_SUBSCRIPTION_EXCHANGE, WELCOME_EMAIL_ROUTING_KEY, message);
-            logger.info("Évènement NewSubscriptionCreatedEvent publié sur l'échange {} avec la clé de routage {}",
-                    NEW_SUBSCRIPTION_EXCHANGE, WELCOME_EMAIL_ROUTING_KEY);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'Évènement NewSubscriptionCreatedEvent : {}",
-                    e.getMessage(), e);
-            // Gérer l'erreur (log, potentiellement un mécanisme de réessai de publication)
+        Subscription subscription = event.getSubscription();
+        User user = event.getUser() != null ? event.getUser() : subscription.getUser();
+        if (user == null) {
+            logger.warn("Utilisateur non trouvé pour le nouvel abonnement ID: {}", subscription.getId());
         }
+        WelcomeEmailPayload payload = new WelcomeEmailPayload(
+                subscription.getId(),
+                user != null ? user.getId() : null,
+                user != null ? user.getEmail() : null,
+                user != null ? user.getFirstname() : null,
+                subscription.getSubscriptionLevel() != null && subscription.getSubscriptionLevel().getLevel() != null
+                        ? subscription.getSubscriptionLevel().getLevel().name()
+                        : null);
+
+        eventBus.publish(ROUTE, payload);
+        logger.info("Évènement NewSubscriptionCreatedEvent enregistré pour l'échange {} avec la clé de routage {}",
+                ROUTE.exchange(), ROUTE.routingKey());
     }
-}
\ No newline at end of file
+}
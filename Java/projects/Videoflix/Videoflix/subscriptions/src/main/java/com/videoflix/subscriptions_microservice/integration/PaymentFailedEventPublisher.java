@@ -1,34 +1,35 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.videoflix.subscriptions_microservice.entities.User;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import com.videoflix.subscriptions_microservice.services.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.PAYMENT_FAILED_EXCHANGE;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.PAYMENT_FAILED_ROUTING_KEY;
 
 @Component
 public class PaymentFailedEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentFailedEventPublisher.class);
 
-    private static final String PAYMENT_FAILED_EXCHANGE = "billing.events";
-    private static final String PAYMENT_FAILED_ROUTING_KEY = "billing.payment.failed";
+    static final EventRoute<PaymentFailedPayload> ROUTE = new EventRoute<>(PAYMENT_FAILED_EXCHANGE,
+            PAYMENT_FAILED_ROUTING_KEY, "PaymentFailedEvent", PaymentFailedPayload.class);
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
-    private final UserService userService;
+    /** Contenu du message publié. */
+    public record PaymentFailedPayload(String subscriptionId, Long userId, String failureTimestamp,
+            String failureReason, String nextRetryDate, String amountDue, String currency) {
+    }
 
-    private static final String USER_ID_KEY = "userId";
+    private final SubscriptionEventBus eventBus;
+    private final UserService userService;
 
-    public PaymentFailedEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper,
-            UserService userService) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    public PaymentFailedEventPublisher(SubscriptionEventBus eventBus, UserService userService) {
+        this.eventBus = eventBus;
         this.userService = userService;
     }
 
@@ -37,42 +38,40 @@ public class PaymentFailedEventPublisher {
     }
 
     public void publishPaymentFailedEvent(com.stripe.model.Subscription subscription, String failureReason) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("subscriptionId", subscription.getId());
-            String customerId = subscription.getCustomer();
+        if (subscription == null) {
+            logger.warn("Abonnement Stripe inconnu, évènement PaymentFailedEvent non publié (raison : {})",
+                    failureReason);
+            return;
+        }
 
-            if (customerId != null) {
-                User user = findUserByStripeCustomerId(customerId);
-                if (user != null) {
-                    payload.put(USER_ID_KEY, user.getId());
-                } else {
-                    logger.warn("Utilisateur non trouvé pour le client Stripe: {}", customerId);
-                    payload.put(USER_ID_KEY, null);
-                }
+        Long userId = null;
+        String customerId = subscription.getCustomer();
+        if (customerId != null) {
+            User user = findUserByStripeCustomerId(customerId);
+            if (user != null) {
+                userId = user.getId();
             } else {
-                logger.warn("Aucun client trouvé pour l'abonnement dont le paiement a échoué ID: {}",
-                        subscription.getId());
-                payload.put(USER_ID_KEY, null);
+                logger.warn("Utilisateur non trouvé pour le client Stripe: {}", customerId);
             }
+        } else {
+            logger.warn("Aucun client trouvé pour l'abonnement dont le paiement a échoué ID: {}",
+                    subscription.getId());
+        }
 
-            payload.put("failureTimestamp", java.time.LocalDateTime.now().toString());
-            payload.put("failureReason", failureReason);
-            payload.put("nextRetryDate",
-                    subscription.getCurrentPeriodEnd() != null
-                            ? new java.util.Date(subscription.getCurrentPeriodEnd() * 1000L).toString()
-                            : null);
-            payload.put("amountDue", subscription.getId()); // Ou le montant exact qui a échoué
-            payload.put("currency", "EUR"); // Ou récupérer la devise de l'abonnement
+        PaymentFailedPayload payload = new PaymentFailedPayload(
+                subscription.getId(),
+                userId,
+                LocalDateTime.now().toString(),
+                failureReason,
+                subscription.getCurrentPeriodEnd() != null
+                        ? new java.util.Date(subscription.getCurrentPeriodEnd() * 1000L).toString()
+                        : null,
+                subscription.getId(), // Ou le montant exact qui a échoué
+                "EUR"); // Ou récupérer la devise de l'abonnement
 
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(PAYMENT_FAILED_EXCHANGE, PAYMENT_FAILED_ROUTING_KEY, message);
-            logger.warn(
-                    "Évènement PaymentFailedEvent publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    PAYMENT_FAILED_EXCHANGE, PAYMENT_FAILED_ROUTING_KEY, payload);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'Évènement PaymentFailedEvent : {}",
-                    e.getMessage(), e);
-        }
+        eventBus.publish(ROUTE, payload);
+        logger.warn(
+                "Évènement PaymentFailedEvent enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                ROUTE.exchange(), ROUTE.routingKey(), payload);
     }
-}
\ No newline at end of file
+}
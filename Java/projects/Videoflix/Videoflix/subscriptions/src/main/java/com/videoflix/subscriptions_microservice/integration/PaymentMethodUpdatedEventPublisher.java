@@ -1,50 +1,45 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.videoflix.subscriptions_microservice.entities.User; // Importez l'entité User
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.PAYMENT_METHOD_UPDATED_EXCHANGE;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.PAYMENT_METHOD_UPDATED_ROUTING_KEY;
 
 @Component
 public class PaymentMethodUpdatedEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentMethodUpdatedEventPublisher.class);
 
-    private static final String PAYMENT_METHOD_UPDATED_EXCHANGE = "user.events";
-    private static final String PAYMENT_METHOD_UPDATED_ROUTING_KEY = "user.payment.method.updated";
+    static final EventRoute<PaymentMethodUpdatedPayload> ROUTE = new EventRoute<>(PAYMENT_METHOD_UPDATED_EXCHANGE,
+            PAYMENT_METHOD_UPDATED_ROUTING_KEY, "PaymentMethodUpdatedEvent", PaymentMethodUpdatedPayload.class);
+
+    /**
+     * Contenu du message publié. Vous pourriez ajouter des informations
+     * supplémentaires sur la méthode de paiement mise à jour (par exemple le type
+     * de carte), mais jamais le numéro complet.
+     */
+    public record PaymentMethodUpdatedPayload(Long userId, String updateTimestamp) {
+    }
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final SubscriptionEventBus eventBus;
 
-    public PaymentMethodUpdatedEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    public PaymentMethodUpdatedEventPublisher(SubscriptionEventBus eventBus) {
+        this.eventBus = eventBus;
     }
 
     public void publishPaymentMethodUpdatedEvent(User user) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("userId", user.getId());
-            payload.put("updateTimestamp", java.time.LocalDateTime.now().toString());
-            // Vous pourriez ajouter des informations supplémentaires sur la méthode de
-            // paiement mise à jour
-            // si nécessaire, mais soyez prudent quant aux informations sensibles.
-            // Par exemple, vous pourriez inclure le type de carte (Visa, Mastercard) sans
-            // le numéro complet.
-
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(PAYMENT_METHOD_UPDATED_EXCHANGE, PAYMENT_METHOD_UPDATED_ROUTING_KEY, message);
-            logger.info(
-                    "Évènement PaymentMethodUpdatedEvent publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    PAYMENT_METHOD_UPDATED_EXCHANGE, PAYMENT_METHOD_UPDATED_ROUTING_KEY, payload);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'Évènement PaymentMethodUpdatedEvent : {}",
-                    e.getMessage(), e);
-        }
+        PaymentMethodUpdatedPayload payload = new PaymentMethodUpdatedPayload(user.getId(),
+                LocalDateTime.now().toString());
+
+        eventBus.publish(ROUTE, payload);
+        logger.info(
+                "Évènement PaymentMethodUpdatedEvent enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                ROUTE.exchange(), ROUTE.routingKey(), payload);
     }
-}
\ No newline at end of file
+}
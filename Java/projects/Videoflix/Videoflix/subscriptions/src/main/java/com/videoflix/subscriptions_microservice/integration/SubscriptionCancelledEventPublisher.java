@@ -1,57 +1,55 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.SUBSCRIPTION_CANCELLED_EXCHANGE;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.SUBSCRIPTION_CANCELLED_ROUTING_KEY;
 
 @Component
 public class SubscriptionCancelledEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionCancelledEventPublisher.class);
 
-    private static final String SUBSCRIPTION_CANCELLED_EXCHANGE = "subscription.events";
-    private static final String SUBSCRIPTION_CANCELLED_ROUTING_KEY = "subscription.cancelled";
+    static final EventRoute<SubscriptionCancelledPayload> ROUTE = new EventRoute<>(SUBSCRIPTION_CANCELLED_EXCHANGE,
+            SUBSCRIPTION_CANCELLED_ROUTING_KEY, "SubscriptionCancelledEvent", SubscriptionCancelledPayload.class);
+
+    /** Contenu du message publié. */
+    public record SubscriptionCancelledPayload(Long subscriptionId, Long userId, String cancellationDate,
+            String cancellationReason, Long subscriptionLevelId, String subscriptionLevelName) {
+    }
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final SubscriptionEventBus eventBus;
 
-    public SubscriptionCancelledEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    public SubscriptionCancelledEventPublisher(SubscriptionEventBus eventBus) {
+        this.eventBus = eventBus;
     }
 
     public void publishSubscriptionCancelledEvent(Subscription subscription, String cancellationReason) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("subscriptionId", subscription.getId());
-            if (subscription.getUser() != null) {
-                payload.put("userId", subscription.getUser().getId());
-            } else {
-                logger.warn("Utilisateur non trouvé pour l'abonnement annulé ID: {}", subscription.getId());
-                payload.put("userId", null);
-            }
-            payload.put("cancellationDate", java.time.LocalDateTime.now().toString());
-            payload.put("cancellationReason", cancellationReason);
-            payload.put("subscriptionLevelId",
-                    subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getId() : null);
-            payload.put("subscriptionLevelName",
-                    subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getLevel().name()
-                            : null);
-
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(SUBSCRIPTION_CANCELLED_EXCHANGE, SUBSCRIPTION_CANCELLED_ROUTING_KEY, message);
-            logger.info(
-                    "Évènement SubscriptionCancelledEvent publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    SUBSCRIPTION_CANCELLED_EXCHANGE, SUBSCRIPTION_CANCELLED_ROUTING_KEY, payload);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'Évènement SubscriptionCancelledEvent : {}",
-                    e.getMessage(), e);
+        Long userId = null;
+        if (subscription.getUser() != null) {
+            userId = subscription.getUser().getId();
+        } else {
+            logger.warn("Utilisateur non trouvé pour l'abonnement annulé ID: {}", subscription.getId());
         }
+        SubscriptionCancelledPayload payload = new SubscriptionCancelledPayload(
+                subscription.getId(),
+                userId,
+                LocalDateTime.now().toString(),
+                cancellationReason,
+                subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getId() : null,
+                subscription.getSubscriptionLevel() != null && subscription.getSubscriptionLevel().getLevel() != null
+                        ? subscription.getSubscriptionLevel().getLevel().name()
+                        : null);
+
+        eventBus.publish(ROUTE, payload);
+        logger.info(
+                "Évènement SubscriptionCancelledEvent enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                ROUTE.exchange(), ROUTE.routingKey(), payload);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,356 @@
+package com.videoflix.subscriptions_microservice.integration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.videoflix.subscriptions_microservice.entities.OutboxEvent;
+import com.videoflix.subscriptions_microservice.entities.OutboxEvent.OutboxStatus;
+import com.videoflix.subscriptions_microservice.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.CorrelationData.Confirm;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.*;
+
+/**
+ * Bus d'évènements RabbitMQ du service d'abonnements.
+ * <p>
+ * Un évènement publié est sérialisé en JSON (un {@link ObjectWriter} construit
+ * une fois par type) et enregistré dans l'outbox, dans la transaction de
+ * l'appelant : il n'existe que si la modification métier est validée. Après
+ * validation, le relais de chaque instance prend en charge un lot
+ * d'évènements en attente (lignes verrouillées ignorées, deux instances ne
+ * prennent pas le même évènement), les envoie puis attend la confirmation du
+ * broker de chacun. Les évènements confirmés sont marqués publiés ; les
+ * autres restent en attente avec une tentative de plus et sont libérés pour le
+ * passage suivant. Une prise en charge non terminée (instance arrêtée) expire
+ * après {@code claim-timeout-ms}. En cas d'arrêt entre la confirmation et le
+ * marquage, un message peut être renvoyé avec le même {@code message-id}, que
+ * les consommateurs utilisent pour ignorer le doublon.
+ */
+@Service
+public class SubscriptionEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionEventBus.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Destination et type d'un évènement publié sur le bus.
+     */
+    public record EventRoute<T>(String exchange, String routingKey, String eventType, Class<T> payloadType) {
+    }
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxEventRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final long confirmTimeoutMillis;
+    private final long claimTimeoutMillis;
+    private final int maxAttempts;
+    private final long retentionHours;
+
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ExecutorService relay = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("event-bus-relay-", 0).factory());
+    private final AtomicBoolean relayScheduled = new AtomicBoolean();
+    private final Map<String, AtomicLong> backlog = new ConcurrentHashMap<>();
+    private final Map<String, Timer> publishLatency = new ConcurrentHashMap<>();
+    private final Timer confirmDuration;
+
+    public SubscriptionEventBus(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper,
+            OutboxEventRepository repository, MeterRegistry meterRegistry,
+            @Value("${event.bus.batch-size:100}") int batchSize,
+            @Value("${event.bus.confirm-timeout-ms:5000}") long confirmTimeoutMillis,
+            @Value("${event.bus.claim-timeout-ms:60000}") long claimTimeoutMillis,
+            @Value("${event.bus.max-attempts:10}") int maxAttempts,
+            @Value("${event.bus.retention-hours:24}") long retentionHours) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retentionHours = retentionHours;
+
+        this.confirmDuration = Timer.builder("event.bus.confirm.duration")
+                .description("Durée d'envoi d'un lot d'évènements jusqu'à la confirmation du broker")
+                .register(meterRegistry);
+        for (String exchange : List.of(NEW_SUBSCRIPTION_EXCHANGE, SUBSCRIPTION_LEVEL_CHANGED_EXCHANGE,
+                PAYMENT_METHOD_UPDATED_EXCHANGE, PAYMENT_FAILED_EXCHANGE, ACCESS_CONTROL_EXCHANGE)) {
+            backlog(exchange);
+        }
+    }
+
+    /**
+     * Enregistre un évènement dans l'outbox, dans la transaction en cours s'il y
+     * en a une. La publication a lieu après sa validation.
+     */
+    public <T> void publish(EventRoute<T> route, T payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setMessageId(UUID.randomUUID().toString());
+        event.setExchange(route.exchange());
+        event.setRoutingKey(route.routingKey());
+        event.setEventType(route.eventType());
+        event.setPayload(serialize(route, payload));
+        event.setStatus(OutboxStatus.PENDING);
+        event.setCreatedAt(LocalDateTime.now());
+        repository.save(event);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeRelay();
+                }
+            });
+        } else {
+            wakeRelay();
+        }
+        logger.debug("Évènement {} enregistré pour l'échange {} avec la clé de routage {}", route.eventType(),
+                route.exchange(), route.routingKey());
+    }
+
+    /**
+     * Relance la publication des évènements en attente (démarrage, lot non
+     * confirmé, instance arrêtée avant publication).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${event.bus.relay-interval-ms:5000}")
+    public void relayPending() {
+        wakeRelay();
+    }
+
+    /**
+     * Supprime les évènements publiés depuis plus que la durée de rétention.
+     */
+    @Scheduled(cron = "${event.bus.purge-cron:0 15 * * * *}")
+    public void purgeSent() {
+        int purged = repository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours), OutboxStatus.SENT);
+        if (purged > 0) {
+            logger.info("{} évènement(s) publié(s) supprimé(s) de l'outbox.", purged);
+        }
+    }
+
+    public long getBacklog(String exchange) {
+        AtomicLong pending = backlog.get(exchange);
+        return pending != null ? pending.get() : 0;
+    }
+
+    /**
+     * Arrête le relais après la publication en cours.
+     */
+    @PreDestroy
+    public void shutdown() {
+        relay.shutdown();
+        try {
+            relay.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void wakeRelay() {
+        // Les réveils reçus pendant un passage sont regroupés en un seul passage suivant.
+        if (relayScheduled.compareAndSet(false, true)) {
+            try {
+                relay.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                relayScheduled.set(false);
+                logger.warn("Relais de l'outbox arrêté, les évènements en attente seront publiés au redémarrage.");
+            }
+        }
+    }
+
+    /**
+     * Publie les évènements en attente, lot par lot, jusqu'à épuisement ou
+     * jusqu'au premier lot dont un évènement n'est pas confirmé.
+     */
+    void drain() {
+        relayScheduled.set(false);
+        try {
+            int claimed;
+            do {
+                String owner = UUID.randomUUID().toString();
+                LocalDateTime now = LocalDateTime.now();
+                claimed = repository.claimPending(owner, now, now.minus(Duration.ofMillis(claimTimeoutMillis)),
+                        batchSize);
+                if (claimed == 0) {
+                    break;
+                }
+                List<OutboxEvent> batch = repository.findByClaimedByAndStatusOrderByIdAsc(owner,
+                        OutboxStatus.PENDING);
+                if (!publishBatch(batch, owner)) {
+                    break;
+                }
+            } while (claimed == batchSize);
+            refreshBacklog();
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors du relais de l'outbox : {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean publishBatch(List<OutboxEvent> batch, String owner) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMillis);
+        Map<OutboxEvent, CorrelationData> confirms = new LinkedHashMap<>();
+        int failed = 0;
+        for (OutboxEvent event : batch) {
+            CorrelationData correlation = new CorrelationData(event.getMessageId());
+            try {
+                rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), toMessage(event), correlation);
+                confirms.put(event, correlation);
+            } catch (AmqpException e) {
+                recordFailure(event, owner, e.getMessage());
+                failed++;
+            }
+        }
+
+        List<OutboxEvent> sent = new ArrayList<>(confirms.size());
+        for (Map.Entry<OutboxEvent, CorrelationData> entry : confirms.entrySet()) {
+            String error = awaitConfirm(entry.getValue(), deadline);
+            if (error == null) {
+                sent.add(entry.getKey());
+            } else {
+                recordFailure(entry.getKey(), owner, error);
+                failed++;
+            }
+        }
+        confirmDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!sent.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            repository.markSent(sent.stream().map(OutboxEvent::getId).toList(), now, OutboxStatus.SENT);
+            for (OutboxEvent event : sent) {
+                publishLatency(event.getExchange()).record(Duration.between(event.getCreatedAt(), now));
+            }
+        }
+        if (failed > 0) {
+            logger.warn("{} évènement(s) sur {} non confirmé(s) par le broker, nouvel essai au prochain passage.",
+                    failed, batch.size());
+            return false;
+        }
+        logger.debug("{} évènement(s) publié(s) et confirmé(s).", batch.size());
+        return true;
+    }
+
+    /**
+     * Attend la confirmation d'un message jusqu'à l'échéance du lot.
+     *
+     * @return {@code null} si le broker l'a confirmé, sinon la cause de l'échec
+     */
+    private String awaitConfirm(CorrelationData correlation, long deadline) {
+        try {
+            Confirm confirm = correlation.getFuture().get(Math.max(0, deadline - System.nanoTime()),
+                    TimeUnit.NANOSECONDS);
+            return confirm.isAck() ? null : "Refusé par le broker : " + confirm.getReason();
+        } catch (TimeoutException e) {
+            return "Pas de confirmation du broker sous " + confirmTimeoutMillis + " ms";
+        } catch (ExecutionException e) {
+            return e.getCause().getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Relais interrompu avant la confirmation du broker";
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, String owner, String error) {
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error;
+        int attempts = event.getAttempts() + 1;
+        OutboxStatus status = attempts >= maxAttempts ? OutboxStatus.FAILED : OutboxStatus.PENDING;
+        repository.recordFailure(event.getId(), owner, status, attempts, lastError);
+        if (status == OutboxStatus.FAILED) {
+            logger.error("Publication de l'évènement {} ({}) abandonnée après {} tentative(s) : {}",
+                    event.getMessageId(), event.getEventType(), attempts, lastError);
+        }
+    }
+
+    private void refreshBacklog() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : repository.countByExchange(OutboxStatus.PENDING)) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        backlog.forEach((exchange, pending) -> pending.set(counts.getOrDefault(exchange, 0L)));
+        counts.forEach((exchange, pending) -> backlog(exchange).set(pending));
+    }
+
+    private <T> byte[] serialize(EventRoute<T> route, T payload) {
+        try {
+            return writers.computeIfAbsent(route.payloadType(), objectMapper::writerFor).writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de sérialiser l'évènement " + route.eventType(), e);
+        }
+    }
+
+    private static Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload())
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(event.getMessageId())
+                .setType(event.getEventType())
+                .setTimestamp(Timestamp.valueOf(event.getCreatedAt()))
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .build();
+    }
+
+    private AtomicLong backlog(String exchange) {
+        return backlog.computeIfAbsent(exchange, name -> {
+            AtomicLong pending = new AtomicLong();
+            Gauge.builder("event.bus.outbox.backlog", pending, AtomicLong::get)
+                    .description("Évènements en attente de publication dans l'outbox")
+                    .tag("exchange", name)
+                    .register(meterRegistry);
+            return pending;
+        });
+    }
+
+    private Timer publishLatency(String exchange) {
+        return publishLatency.computeIfAbsent(exchange, name -> Timer.builder("event.bus.publish.latency")
+                .description("Délai entre l'enregistrement d'un évènement et sa confirmation par le broker")
+                .tag("exchange", name)
+                .register(meterRegistry));
+    }
+}
@@ -1,59 +1,56 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.SUBSCRIPTION_REACTIVATED_EXCHANGE;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.SUBSCRIPTION_REACTIVATED_ROUTING_KEY;
 
 @Component
 public class SubscriptionReactivatedEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionReactivatedEventPublisher.class);
 
-    private static final String SUBSCRIPTION_REACTIVATED_EXCHANGE = "subscription.events";
-    private static final String SUBSCRIPTION_REACTIVATED_ROUTING_KEY = "subscription.reactivated";
+    static final EventRoute<SubscriptionReactivatedPayload> ROUTE = new EventRoute<>(
+            SUBSCRIPTION_REACTIVATED_EXCHANGE, SUBSCRIPTION_REACTIVATED_ROUTING_KEY, "SubscriptionReactivatedEvent",
+            SubscriptionReactivatedPayload.class);
+
+    /** Contenu du message publié. */
+    public record SubscriptionReactivatedPayload(Long subscriptionId, Long userId, String reactivationDate,
+            String nextBillingDate, Long subscriptionLevelId, String subscriptionLevelName) {
+    }
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final SubscriptionEventBus eventBus;
 
-    public SubscriptionReactivatedEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    public SubscriptionReactivatedEventPublisher(SubscriptionEventBus eventBus) {
+        this.eventBus = eventBus;
     }
 
     public void publishSubscriptionReactivatedEvent(Subscription subscription) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("subscriptionId", subscription.getId());
-            if (subscription.getUser() != null) {
-                payload.put("userId", subscription.getUser().getId());
-            } else {
-                logger.warn("Utilisateur non trouvé pour l'abonnement réactivé ID: {}", subscription.getId());
-                payload.put("userId", null);
-            }
-            payload.put("reactivationDate", java.time.LocalDateTime.now().toString());
-            payload.put("nextBillingDate",
-                    subscription.getNextBillingDate() != null ? subscription.getNextBillingDate().toString() : null);
-            payload.put("subscriptionLevelId",
-                    subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getId() : null);
-            payload.put("subscriptionLevelName",
-                    subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getLevel().name()
-                            : null);
-
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(SUBSCRIPTION_REACTIVATED_EXCHANGE, SUBSCRIPTION_REACTIVATED_ROUTING_KEY,
-                    message);
-            logger.info(
-                    "Évènement SubscriptionReactivatedEvent publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    SUBSCRIPTION_REACTIVATED_EXCHANGE, SUBSCRIPTION_REACTIVATED_ROUTING_KEY, payload);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'Évènement SubscriptionReactivatedEvent : {}",
-                    e.getMessage(), e);
+        Long userId = null;
+        if (subscription.getUser() != null) {
+            userId = subscription.getUser().getId();
+        } else {
+            logger.warn("Utilisateur non trouvé pour l'abonnement réactivé ID: {}", subscription.getId());
         }
+        SubscriptionReactivatedPayload payload = new SubscriptionReactivatedPayload(
+                subscription.getId(),
+                userId,
+                LocalDateTime.now().toString(),
+                subscription.getNextBillingDate() != null ? subscription.getNextBillingDate().toString() : null,
+                subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getId() : null,
+                subscription.getSubscriptionLevel() != null && subscription.getSubscriptionLevel().getLevel() != null
+                        ? subscription.getSubscriptionLevel().getLevel().name()
+                        : null);
+
+        eventBus.publish(ROUTE, payload);
+        logger.info(
+                "Évènement SubscriptionReactivatedEvent enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                ROUTE.exchange(), ROUTE.routingKey(), payload);
     }
-}
\ No newline at end of file
+}
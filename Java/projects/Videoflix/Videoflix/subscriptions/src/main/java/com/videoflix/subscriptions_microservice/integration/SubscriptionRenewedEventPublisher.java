@@ -1,58 +1,55 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
+
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.SUBSCRIPTION_RENEWED_EXCHANGE;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.SUBSCRIPTION_RENEWED_ROUTING_KEY;
 
 @Component
 public class SubscriptionRenewedEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionRenewedEventPublisher.class);
 
-    private static final String SUBSCRIPTION_RENEWED_EXCHANGE = "subscription.events";
-    private static final String SUBSCRIPTION_RENEWED_ROUTING_KEY = "subscription.renewed";
+    static final EventRoute<SubscriptionRenewedPayload> ROUTE = new EventRoute<>(SUBSCRIPTION_RENEWED_EXCHANGE,
+            SUBSCRIPTION_RENEWED_ROUTING_KEY, "SubscriptionRenewedEvent", SubscriptionRenewedPayload.class);
+
+    /** Contenu du message publié. */
+    public record SubscriptionRenewedPayload(Long subscriptionId, Long userId, String renewalDate,
+            String nextBillingDate, Long subscriptionLevelId, String subscriptionLevelName) {
+    }
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final SubscriptionEventBus eventBus;
 
-    public SubscriptionRenewedEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    public SubscriptionRenewedEventPublisher(SubscriptionEventBus eventBus) {
+        this.eventBus = eventBus;
     }
 
     public void publishSubscriptionRenewedEvent(Subscription subscription) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("subscriptionId", subscription.getId());
-            if (subscription.getUser() != null) {
-                payload.put("userId", subscription.getUser().getId());
-            } else {
-                logger.warn("Utilisateur non trouvé pour l'abonnement renouvelé ID: {}", subscription.getId());
-                payload.put("userId", null);
-            }
-            payload.put("renewalDate", java.time.LocalDateTime.now().toString());
-            payload.put("nextBillingDate",
-                    subscription.getNextBillingDate() != null ? subscription.getNextBillingDate().toString() : null);
-            payload.put("subscriptionLevelId",
-                    subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getId() : null);
-            payload.put("subscriptionLevelName",
-                    subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getLevel().name()
-                            : null);
-
-            String message = objectMapper.writeValueAsString(payload);
-            rabbitTemplate.convertAndSend(SUBSCRIPTION_RENEWED_EXCHANGE, SUBSCRIPTION_RENEWED_ROUTING_KEY, message);
-            logger.info(
-                    "Évènement SubscriptionRenewedEvent publié sur l'échange {} avec la clé de routage {}, payload: {}",
-                    SUBSCRIPTION_RENEWED_EXCHANGE, SUBSCRIPTION_RENEWED_ROUTING_KEY, payload);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la publication de l'évènement SubscriptionRenewedEvent : {}",
-                    e.getMessage(), e);
+        Long userId = null;
+        if (subscription.getUser() != null) {
+            userId = subscription.getUser().getId();
+        } else {
+            logger.warn("Utilisateur non trouvé pour l'abonnement renouvelé ID: {}", subscription.getId());
         }
+        SubscriptionRenewedPayload payload = new SubscriptionRenewedPayload(
+                subscription.getId(),
+                userId,
+                LocalDateTime.now().toString(),
+                subscription.getNextBillingDate() != null ? subscription.getNextBillingDate().toString() : null,
+                subscription.getSubscriptionLevel() != null ? subscription.getSubscriptionLevel().getId() : null,
+                subscription.getSubscriptionLevel() != null && subscription.getSubscriptionLevel().getLevel() != null
+                        ? subscription.getSubscriptionLevel().getLevel().name()
+                        : null);
+
+        eventBus.publish(ROUTE, payload);
+        logger.info(
+                "Évènement SubscriptionRenewedEvent enregistré pour l'échange {} avec la clé de routage {}, payload: {}",
+                ROUTE.exchange(), ROUTE.routingKey(), payload);
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import com.videoflix.subscriptions_microservice.entities.FailedEmail;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +15,7 @@ public interface FailedEmailRepository extends JpaRepository<FailedEmail, Long>
     List<FailedEmail> findByRecipientEmail(String recipientEmail);
 
     List<FailedEmail> findByCreationTimestampBefore(LocalDateTime dateTime);
+
+    // E-mails en échec dont le prochain essai est échu, les plus anciens d'abord
+    List<FailedEmail> findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(LocalDateTime now, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.videoflix.subscriptions_microservice.repositories;
+
+import com.videoflix.subscriptions_microservice.entities.OutboxEvent;
+import com.videoflix.subscriptions_microservice.entities.OutboxEvent.OutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+        /**
+         * Prend en charge au plus {@code limit} évènements en attente, libres ou
+         * dont la prise en charge a expiré avant {@code staleBefore}. Les lignes
+         * verrouillées par un autre relais sont ignorées : deux instances ne
+         * prennent jamais le même évènement.
+         *
+         * @return le nombre d'évènements pris en charge par {@code owner}
+         */
+        @Modifying
+        @Transactional
+        @Query(value = "UPDATE outbox_events SET claimed_by = :owner, claimed_at = :now "
+                        + "WHERE id IN (SELECT id FROM outbox_events WHERE status = 'PENDING' "
+                        + "AND (claimed_at IS NULL OR claimed_at < :staleBefore) "
+                        + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+        int claimPending(@Param("owner") String owner, @Param("now") LocalDateTime now,
+                        @Param("staleBefore") LocalDateTime staleBefore, @Param("limit") int limit);
+
+        List<OutboxEvent> findByClaimedByAndStatusOrderByIdAsc(String claimedBy, OutboxStatus status);
+
+        /**
+         * Nombre d'évènements par échange pour un statut donné : chaque ligne
+         * contient l'échange puis le nombre.
+         */
+        @Query("SELECT e.exchange, COUNT(e) FROM OutboxEvent e WHERE e.status = :status GROUP BY e.exchange")
+        List<Object[]> countByExchange(@Param("status") OutboxStatus status);
+
+        /**
+         * Marque comme publiés les évènements confirmés par le broker.
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE OutboxEvent e SET e.status = :sent, e.sentAt = :now WHERE e.id IN :ids")
+        int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+                        @Param("sent") OutboxStatus sent);
+
+        /**
+         * Enregistre l'échec de publication d'un évènement et le libère pour le
+         * passage suivant. Retourne 0 si un autre relais l'a repris entre-temps.
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.lastError = :lastError, "
+                        + "e.claimedBy = NULL, e.claimedAt = NULL WHERE e.id = :id AND e.claimedBy = :owner")
+        int recordFailure(@Param("id") Long id, @Param("owner") String owner, @Param("status") OutboxStatus status,
+                        @Param("attempts") int attempts, @Param("lastError") String lastError);
+
+        /**
+         * Supprime les évènements publiés avant {@code before}.
+         */
+        @Modifying
+        @Transactional
+        @Query("DELETE FROM OutboxEvent e WHERE e.status = :sent AND e.sentAt < :before")
+        int deleteSentBefore(@Param("before") LocalDateTime before, @Param("sent") OutboxStatus sent);
+}
@@ -0,0 +1,44 @@
+package com.videoflix.subscriptions_microservice.repositories;
+
+import com.videoflix.subscriptions_microservice.entities.ProcessedMessage;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, Long> {
+
+        /**
+         * Réserve la clé d'idempotence d'un message.
+         *
+         * @return 1 si le message n'avait pas encore été traité par ce consommateur,
+         *         0 s'il s'agit d'une nouvelle livraison
+         */
+        @Modifying
+        @Transactional
+        @Query(value = "INSERT INTO processed_messages (consumer, message_id, processed_at) "
+                        + "VALUES (:consumer, :messageId, :processedAt) "
+                        + "ON CONFLICT (consumer, message_id) DO NOTHING", nativeQuery = true)
+        int insertIfAbsent(@Param("consumer") String consumer, @Param("messageId") String messageId,
+                        @Param("processedAt") LocalDateTime processedAt);
+
+        /**
+         * Libère la clé d'un message dont le traitement a échoué, pour qu'il soit
+         * traité à sa prochaine livraison.
+         */
+        @Modifying
+        @Transactional
+        @Query("DELETE FROM ProcessedMessage m WHERE m.consumer = :consumer AND m.messageId = :messageId")
+        int release(@Param("consumer") String consumer, @Param("messageId") String messageId);
+
+        @Modifying
+        @Transactional
+        @Query("DELETE FROM ProcessedMessage m WHERE m.processedAt < :before")
+        int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
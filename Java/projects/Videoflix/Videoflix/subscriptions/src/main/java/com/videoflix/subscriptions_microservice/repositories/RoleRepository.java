@@ -2,9 +2,16 @@ package com.videoflix.subscriptions_microservice.repositories;
 
 import com.videoflix.subscriptions_microservice.entities.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
     Role findByName(String name);
-}
\ No newline at end of file
+
+    // Graphe complet rôles → permissions, chargé en une seule requête.
+    @Query("SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.permissions")
+    List<Role> findAllWithPermissions();
+}
@@ -0,0 +1,90 @@
+package com.videoflix.subscriptions_microservice.repositories;
+
+import com.videoflix.subscriptions_microservice.entities.StripeWebhookEvent;
+import com.videoflix.subscriptions_microservice.entities.StripeWebhookEvent.InboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, Long> {
+
+        /**
+         * Enregistre l'évènement s'il n'a pas déjà été reçu.
+         *
+         * @return 1 si l'évènement a été enregistré, 0 s'il s'agit d'une nouvelle
+         *         livraison d'un évènement connu
+         */
+        @Modifying
+        @Transactional
+        @Query(value = "INSERT INTO stripe_webhook_events (event_id, event_type, partition_key, payload, status, "
+                        + "attempts, received_at) "
+                        + "VALUES (:eventId, :eventType, :partitionKey, :payload, 'PENDING', 0, :receivedAt) "
+                        + "ON CONFLICT (event_id) DO NOTHING", nativeQuery = true)
+        int insertIfAbsent(@Param("eventId") String eventId, @Param("eventType") String eventType,
+                        @Param("partitionKey") String partitionKey, @Param("payload") String payload,
+                        @Param("receivedAt") LocalDateTime receivedAt);
+
+        StripeWebhookEvent findByEventId(String eventId);
+
+        List<StripeWebhookEvent> findByStatusOrderByIdAsc(InboxStatus status, Pageable pageable);
+
+        long countByStatus(InboxStatus status);
+
+        /**
+         * Prend en charge un évènement en attente. Un seul worker (ou une seule
+         * instance) obtient 1.
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE StripeWebhookEvent e SET e.status = :processing, e.claimedAt = :now "
+                        + "WHERE e.id = :id AND e.status = :pending")
+        int claim(@Param("id") Long id, @Param("now") LocalDateTime now,
+                        @Param("pending") InboxStatus pending, @Param("processing") InboxStatus processing);
+
+        /**
+         * Termine un évènement pris en charge. Seuls le statut, les tentatives et
+         * le résultat sont écrits : {@code claimedAt} n'est pas touché. Retourne 0
+         * si l'évènement n'est plus {@code processing} (remis en attente entre-temps).
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE StripeWebhookEvent e SET e.status = :status, e.attempts = :attempts, "
+                        + "e.processedAt = :processedAt, e.lastError = :lastError "
+                        + "WHERE e.id = :id AND e.status = :processing")
+        int complete(@Param("id") Long id, @Param("processing") InboxStatus processing,
+                        @Param("status") InboxStatus status, @Param("attempts") int attempts,
+                        @Param("processedAt") LocalDateTime processedAt, @Param("lastError") String lastError);
+
+        /**
+         * Renouvelle la prise en charge des évènements encore détenus par cette
+         * instance (en file d'attente ou en cours de traitement), pour qu'ils ne
+         * soient pas considérés comme abandonnés.
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE StripeWebhookEvent e SET e.claimedAt = :now "
+                        + "WHERE e.id IN :ids AND e.status = :processing")
+        int renewClaims(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+                        @Param("processing") InboxStatus processing);
+
+        /**
+         * Remet en attente les évènements dont la prise en charge n'a pas été
+         * renouvelée depuis {@code before} (instance arrêtée avant de les terminer).
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE StripeWebhookEvent e SET e.status = :pending "
+                        + "WHERE e.status = :processing AND e.claimedAt < :before")
+        int releaseStale(@Param("before") LocalDateTime before,
+                        @Param("pending") InboxStatus pending, @Param("processing") InboxStatus processing);
+}
@@ -0,0 +1,103 @@
+package com.videoflix.subscriptions_microservice.repositories;
+
+import com.videoflix.subscriptions_microservice.entities.SubscriptionDailyStats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SubscriptionDailyStatsRepository extends JpaRepository<SubscriptionDailyStats, Long> {
+
+        List<SubscriptionDailyStats> findByStatDateBetweenOrderByStatDateAscLevelAsc(LocalDate startDate,
+                        LocalDate endDate);
+
+        /**
+         * Incrémente atomiquement la ligne (jour, niveau), en la créant si besoin.
+         * Le revenu total cumule {@code newRevenue} et {@code renewalRevenue} ; la
+         * part issue des créations est aussi conservée à part pour
+         * {@link #rebuildFromSubscriptions()}.
+         */
+        @Modifying
+        @Query(value = "INSERT INTO subscription_daily_stats (stat_date, level, new_count, cancelled_count, "
+                        + "renewed_count, level_changed_in_count, level_changed_out_count, revenue, new_revenue) "
+                        + "VALUES (:statDate, :level, :newCount, :cancelledCount, :renewedCount, :levelIn, :levelOut, "
+                        + ":newRevenue + :renewalRevenue, :newRevenue) "
+                        + "ON CONFLICT (stat_date, level) DO UPDATE SET "
+                        + "new_count = subscription_daily_stats.new_count + EXCLUDED.new_count, "
+                        + "cancelled_count = subscription_daily_stats.cancelled_count + EXCLUDED.cancelled_count, "
+                        + "renewed_count = subscription_daily_stats.renewed_count + EXCLUDED.renewed_count, "
+                        + "level_changed_in_count = subscription_daily_stats.level_changed_in_count "
+                        + "+ EXCLUDED.level_changed_in_count, "
+                        + "level_changed_out_count = subscription_daily_stats.level_changed_out_count "
+                        + "+ EXCLUDED.level_changed_out_count, "
+                        + "revenue = subscription_daily_stats.revenue + EXCLUDED.revenue, "
+                        + "new_revenue = subscription_daily_stats.new_revenue + EXCLUDED.new_revenue",
+                        nativeQuery = true)
+        void increment(@Param("statDate") LocalDate statDate, @Param("level") String level,
+                        @Param("newCount") long newCount, @Param("cancelledCount") long cancelledCount,
+                        @Param("renewedCount") long renewedCount, @Param("levelIn") long levelIn,
+                        @Param("levelOut") long levelOut, @Param("newRevenue") double newRevenue,
+                        @Param("renewalRevenue") double renewalRevenue);
+
+        @Query("SELECT COALESCE(SUM(s.newCount), 0) FROM SubscriptionDailyStats s "
+                        + "WHERE s.statDate BETWEEN :startDate AND :endDate")
+        long sumNewCount(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+        @Query("SELECT COALESCE(SUM(s.revenue), 0) FROM SubscriptionDailyStats s "
+                        + "WHERE s.statDate BETWEEN :startDate AND :endDate")
+        double sumRevenue(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+        /**
+         * Nombre d'abonnements par niveau : créations plus changements entrants moins
+         * changements sortants, cumulés sur tout l'historique.
+         */
+        @Query("SELECT s.level, SUM(s.newCount + s.levelChangedInCount - s.levelChangedOutCount) "
+                        + "FROM SubscriptionDailyStats s GROUP BY s.level")
+        List<Object[]> sumSubscriptionsByLevel();
+
+        /**
+         * Remet à zéro les compteurs recalculables depuis la table des abonnements
+         * (créations, annulations et revenu des créations). Les renouvellements et
+         * les changements de niveau, dont l'historique n'est conservé que dans
+         * l'agrégat, ne sont pas touchés.
+         */
+        @Modifying
+        @Query(value = "UPDATE subscription_daily_stats SET revenue = revenue - new_revenue, new_count = 0, "
+                        + "cancelled_count = 0, new_revenue = 0", nativeQuery = true)
+        int resetRecomputableCounters();
+
+        /**
+         * Recalcule créations, annulations et revenu des créations depuis la table
+         * des abonnements et les fusionne dans l'agrégat, après
+         * {@link #resetRecomputableCounters()}. Une création est comptée au niveau
+         * initial de l'abonnement, une annulation à son niveau courant : les
+         * changements de niveau conservés entre les deux gardent
+         * {@link #sumSubscriptionsByLevel()} cohérent.
+         */
+        @Modifying
+        @Query(value = "INSERT INTO subscription_daily_stats (stat_date, level, new_count, cancelled_count, "
+                        + "renewed_count, level_changed_in_count, level_changed_out_count, revenue, new_revenue) "
+                        + "SELECT d.stat_date, d.level, SUM(d.new_count), SUM(d.cancelled_count), 0, 0, 0, "
+                        + "SUM(d.revenue), SUM(d.revenue) FROM ("
+                        + "SELECT CAST(s.creation_time_stamp AS date) AS stat_date, i.level AS level, "
+                        + "1 AS new_count, 0 AS cancelled_count, COALESCE(NULLIF(s.price, 0), i.price) AS revenue "
+                        + "FROM subscriptions s JOIN subscription_levels l ON l.id = s.level_id "
+                        + "JOIN subscription_levels i ON i.level = COALESCE(s.initial_level, l.level) "
+                        + "UNION ALL "
+                        + "SELECT CAST(s.cancelled_at AS date), l.level, 0, 1, 0 "
+                        + "FROM subscriptions s JOIN subscription_levels l ON l.id = s.level_id "
+                        + "WHERE s.cancelled_at IS NOT NULL"
+                        + ") d GROUP BY d.stat_date, d.level "
+                        + "ON CONFLICT (stat_date, level) DO UPDATE SET "
+                        + "new_count = EXCLUDED.new_count, "
+                        + "cancelled_count = EXCLUDED.cancelled_count, "
+                        + "revenue = subscription_daily_stats.revenue + EXCLUDED.new_revenue, "
+                        + "new_revenue = EXCLUDED.new_revenue", nativeQuery = true)
+        int rebuildFromSubscriptions();
+}
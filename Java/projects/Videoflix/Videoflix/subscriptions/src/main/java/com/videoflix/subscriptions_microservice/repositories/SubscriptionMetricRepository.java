@@ -0,0 +1,47 @@
+package com.videoflix.subscriptions_microservice.repositories;
+
+import com.videoflix.subscriptions_microservice.entities.SubscriptionMetric;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SubscriptionMetricRepository extends JpaRepository<SubscriptionMetric, Long> {
+
+        Optional<SubscriptionMetric> findByMetricNameAndGranularityAndPeriodStart(String metricName,
+                        SubscriptionMetric.Granularity granularity, LocalDate periodStart);
+
+        List<SubscriptionMetric> findByGranularityAndPeriodStart(SubscriptionMetric.Granularity granularity,
+                        LocalDate periodStart);
+
+        List<SubscriptionMetric> findByGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(
+                        SubscriptionMetric.Granularity granularity, LocalDate startDate, LocalDate endDate);
+
+        List<SubscriptionMetric> findByMetricNameAndGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(
+                        String metricName, SubscriptionMetric.Granularity granularity, LocalDate startDate,
+                        LocalDate endDate);
+
+        /**
+         * Écrit la valeur du point (métrique, granularité, période), en le créant si
+         * besoin.
+         */
+        @Modifying
+        @Query(value = "INSERT INTO subscription_metrics (metric_name, granularity, period_start, metric_value) "
+                        + "VALUES (:metricName, :granularity, :periodStart, :value) "
+                        + "ON CONFLICT (metric_name, granularity, period_start) "
+                        + "DO UPDATE SET metric_value = EXCLUDED.metric_value", nativeQuery = true)
+        void upsert(@Param("metricName") String metricName, @Param("granularity") String granularity,
+                        @Param("periodStart") LocalDate periodStart, @Param("value") double value);
+
+        @Modifying
+        @Query("DELETE FROM SubscriptionMetric m WHERE m.granularity = :granularity AND m.periodStart < :before")
+        int deleteByGranularityAndPeriodStartBefore(@Param("granularity") SubscriptionMetric.Granularity granularity,
+                        @Param("before") LocalDate before);
+}
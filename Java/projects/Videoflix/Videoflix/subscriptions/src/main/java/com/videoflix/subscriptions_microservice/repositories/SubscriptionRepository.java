@@ -1,5 +1,6 @@
 package com.videoflix.subscriptions_microservice.repositories;
 
+import com.videoflix.subscriptions_microservice.dtos.DailySubscriptionMetrics;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.Subscription.SubscriptionStatus;
 import com.videoflix.subscriptions_microservice.entities.User;
@@ -11,6 +12,8 @@ import java.util.Optional;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -50,7 +53,16 @@ public interface SubscriptionRepository
         List<Subscription> findByStatusAndLastPaymentDateBetween(SubscriptionStatus active, LocalDateTime minusDays,
                         LocalDateTime localDate);
 
-        List<Subscription> findSubscriptionsUpdatedSince(LocalDateTime lastSyncTimestamp, int i, int batchSize);
+        /**
+         * Page (keyset) d'abonnements modifiés après le curseur (updatedAt, id) et
+         * avant {@code until}, triée par date de modification puis par ID. S'appuie
+         * sur l'index (updated_at, id).
+         */
+        @Query("SELECT s FROM Subscription s JOIN FETCH s.user JOIN FETCH s.subscriptionLevel "
+                        + "WHERE (s.updatedAt > :since OR (s.updatedAt = :since AND s.id > :lastId)) "
+                        + "AND s.updatedAt < :until ORDER BY s.updatedAt, s.id")
+        List<Subscription> findSubscriptionsUpdatedSince(@Param("since") LocalDateTime since,
+                        @Param("lastId") Long lastId, @Param("until") LocalDateTime until, Pageable pageable);
 
         List<Subscription> findByStatusAndLastActivityBefore(Subscription.SubscriptionStatus status,
                         LocalDateTime lastActivityBefore, Pageable pageable);
@@ -60,4 +72,55 @@ public interface SubscriptionRepository
         Optional<Subscription> findByStripeSubscriptionId(String stripeSubscriptionId);
 
         Object findByEndDateBeforeAndStatusIn(LocalDateTime eq, List<Object> anyList);
-}
\ No newline at end of file
+
+        /**
+         * Page (keyset) d'abonnements d'un statut donné dont la date de fin est dans
+         * [from, to[, triée par ID. S'appuie sur l'index (status, end_date, id).
+         */
+        @Query("SELECT s FROM Subscription s JOIN FETCH s.user JOIN FETCH s.subscriptionLevel "
+                        + "WHERE s.status = :status AND s.endDate >= :from AND s.endDate < :to AND s.id > :lastId "
+                        + "ORDER BY s.id")
+        List<Subscription> findKeysetByStatusAndEndDateRange(@Param("status") SubscriptionStatus status,
+                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                        @Param("lastId") Long lastId, Pageable pageable);
+
+        /**
+         * Page (keyset) d'abonnements d'un statut donné dont la date de fin est
+         * antérieure à {@code before}, triée par ID.
+         */
+        @Query("SELECT s FROM Subscription s JOIN FETCH s.user JOIN FETCH s.subscriptionLevel "
+                        + "WHERE s.status = :status AND s.endDate < :before AND s.id > :lastId ORDER BY s.id")
+        List<Subscription> findKeysetByStatusAndEndDateBefore(@Param("status") SubscriptionStatus status,
+                        @Param("before") LocalDateTime before, @Param("lastId") Long lastId, Pageable pageable);
+
+        /**
+         * Page (keyset) d'abonnements à renouveler automatiquement dont la date de
+         * renouvellement est dépassée, triée par ID.
+         */
+        @Query("SELECT s FROM Subscription s WHERE s.autoRenew = true AND s.nextRenewalDate < :now "
+                        + "AND s.id > :lastId ORDER BY s.id")
+        List<Subscription> findKeysetDueForRenewal(@Param("now") LocalDateTime now, @Param("lastId") Long lastId,
+                        Pageable pageable);
+
+        /**
+         * Métriques de la journée [start, end[. Créations et annulations ne lisent
+         * que les lignes de la journée (bornes sur {@code creation_time_stamp} et
+         * {@code cancelled_at}) ; seul le nombre d'abonnements en cours à la fin de
+         * la journée porte sur tout l'historique. Le revenu est la somme des
+         * paiements réussis de la journée.
+         */
+        @Query("SELECT new com.videoflix.subscriptions_microservice.dtos.DailySubscriptionMetrics("
+                        + "COUNT(s), "
+                        + "(SELECT COUNT(c) FROM Subscription c "
+                        + "WHERE c.cancelledAt >= :start AND c.cancelledAt < :end), "
+                        + "(SELECT COUNT(a) FROM Subscription a WHERE a.creationTimestamp < :end "
+                        + "AND (a.cancelledAt IS NULL OR a.cancelledAt >= :end) "
+                        + "AND (a.endDate IS NULL OR a.endDate >= :end)), "
+                        + "(SELECT COALESCE(SUM(p.amount), 0) FROM Payment p "
+                        + "WHERE p.status = "
+                        + "com.videoflix.subscriptions_microservice.entities.Payment.PaymentStatus.SUCCESS "
+                        + "AND p.paymentDate >= :start AND p.paymentDate < :end)) "
+                        + "FROM Subscription s WHERE s.creationTimestamp >= :start AND s.creationTimestamp < :end")
+        DailySubscriptionMetrics aggregateDailyMetrics(@Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+}
@@ -3,6 +3,8 @@ package com.videoflix.subscriptions_microservice.repositories;
 import com.videoflix.subscriptions_microservice.entities.User;
 import com.videoflix.subscriptions_microservice.entities.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,8 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
     List<UserRole> findByUserId(Long userId);
 
     List<UserRole> findByUser(User user);
-}
\ No newline at end of file
+
+    // Identifiants des rôles d'un utilisateur, sans charger les rôles ni leurs permissions.
+    @Query("SELECT ur.role.id FROM UserRole ur WHERE ur.user.id = :userId")
+    List<Long> findRoleIdsByUserId(@Param("userId") Long userId);
+}
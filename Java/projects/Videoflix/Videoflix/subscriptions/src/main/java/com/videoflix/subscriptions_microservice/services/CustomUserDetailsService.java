@@ -1,33 +1,21 @@
 package com.videoflix.subscriptions_microservice.services;
 
-import com.videoflix.subscriptions_microservice.entities.Role;
 import com.videoflix.subscriptions_microservice.entities.User;
-import com.videoflix.subscriptions_microservice.entities.UserRole;
-import com.videoflix.subscriptions_microservice.repositories.RoleRepository;
 import com.videoflix.subscriptions_microservice.repositories.UserRepository;
-import com.videoflix.subscriptions_microservice.repositories.UserRoleRepository;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
-    final RoleRepository roleRepository;
-    private final UserRoleRepository userRoleRepository;
+    private final RoleAuthorityCache roleAuthorityCache;
 
-    public CustomUserDetailsService(UserRepository userRepository, RoleRepository roleRepository,
-            UserRoleRepository userRoleRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, RoleAuthorityCache roleAuthorityCache) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
-        this.userRoleRepository = userRoleRepository;
+        this.roleAuthorityCache = roleAuthorityCache;
     }
 
     @Override
@@ -36,19 +24,10 @@ public class CustomUserDetailsService implements UserDetailsService {
         if (user == null) {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
-        List<UserRole> userRoles = userRoleRepository.findByUser(user);
-        List<GrantedAuthority> authorities = new ArrayList<>();
-        for (UserRole userRole : userRoles) {
-            Role role = userRole.getRole();
-            authorities.addAll(role.getPermissions().stream()
-                    .map(permission -> new SimpleGrantedAuthority(permission.getName()))
-                    .toList());
-            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getName())); // Inclure le rôle
-        }
-
+        // Autorités (permissions et rôles) résolues par le cache, sans requête par rôle.
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
-                authorities);
+                roleAuthorityCache.getAuthorities(user.getId()));
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,82 @@
 package com.videoflix.subscriptions_microservice.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSyncRecord;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SyncWatermark;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
+import com.videoflix.subscriptions_microservice.repositories.SyncWatermarkRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Synchronisation incrémentale des abonnements vers le CRM et le système
+ * d'analytics.
+ * <p>
+ * Chaque système a son propre curseur persistant (date de modification, ID) :
+ * seuls les abonnements modifiés depuis le dernier lot accepté sont lus, par
+ * pages keyset, puis envoyés en NDJSON compressé (gzip). Chaque passage
+ * reprend {@code data.synchronization.overlap-seconds} avant le curseur : une
+ * modification validée après un passage mais datée d'avant son curseur est
+ * ainsi envoyée au passage suivant. Les abonnements de cette fenêtre sont
+ * renvoyés, les destinataires les appliquent de façon idempotente (voir
+ * {@link SubscriptionSyncRecord}). Les deux systèmes sont
+ * synchronisés en parallèle ; un envoi en échec est réessayé avec un délai
+ * exponentiel et n'avance pas le curseur. Le retard de chaque système est
+ * exposé par la jauge {@code subscription.sync.lag} (secondes).
+ */
 @Service
 public class DataSynchronizationService {
 
     private static final Logger logger = LoggerFactory.getLogger(DataSynchronizationService.class);
 
+    static final String CRM_TARGET = "crm";
+    static final String ANALYTICS_TARGET = "analytics";
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final LocalDateTime INITIAL_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
     private final RestTemplate restTemplate;
+    private final SubscriptionRepository subscriptionRepository;
+    private final SyncWatermarkRepository watermarkRepository;
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final Map<String, AtomicLong> lagSeconds = Map.of(
+            CRM_TARGET, new AtomicLong(),
+            ANALYTICS_TARGET, new AtomicLong());
 
     @Value("${crm.synchronization.url}")
     private String crmSyncUrl;
@@ -23,57 +84,186 @@ public class DataSynchronizationService {
     @Value("${analytics.synchronization.url}")
     private String analyticsSyncUrl;
 
-    // Simuler un stockage pour la dernière synchronisation réussie (en production,
-    // utiliser une base de données)
-    private LocalDateTime lastSuccessfulSyncTimestamp = LocalDateTime.MIN;
+    @Value("${data.synchronization.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${data.synchronization.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${data.synchronization.backoff-ms:500}")
+    private long backoffMillis = 500;
+
+    // Fenêtre relue avant le curseur, pour les transactions validées après le passage précédent.
+    @Value("${data.synchronization.overlap-seconds:300}")
+    private long overlapSeconds = 300;
 
-    public DataSynchronizationService(RestTemplate restTemplate) {
+    public DataSynchronizationService(RestTemplate restTemplate, SubscriptionRepository subscriptionRepository,
+            SyncWatermarkRepository watermarkRepository, MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.subscriptionRepository = subscriptionRepository;
+        this.watermarkRepository = watermarkRepository;
+        lagSeconds.forEach((target, lag) -> Gauge.builder("subscription.sync.lag", lag, AtomicLong::get)
+                .description("Retard de synchronisation des abonnements (secondes)")
+                .baseUnit("seconds")
+                .tag("target", target)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Synchronise en parallèle les abonnements modifiés vers le CRM et le système
+     * d'analytics.
+     *
+     * @return Le nombre d'abonnements envoyés par système configuré.
+     */
+    public Map<String, Integer> synchronizeSubscriptions() {
+        LocalDateTime until = LocalDateTime.now();
+        Map<String, Future<Integer>> runs = new LinkedHashMap<>();
+        Map<String, Integer> synced = new LinkedHashMap<>();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Synchronisation avec le CRM
+            if (crmSyncUrl != null && !crmSyncUrl.isEmpty()) {
+                runs.put(CRM_TARGET, workers.submit(() -> synchronizeTarget(CRM_TARGET, crmSyncUrl, until)));
+            } else {
+                logger.warn("L'URL de synchronisation CRM n'est pas configurée.");
+            }
+
+            // Synchronisation avec le système d'analytics
+            if (analyticsSyncUrl != null && !analyticsSyncUrl.isEmpty()) {
+                runs.put(ANALYTICS_TARGET,
+                        workers.submit(() -> synchronizeTarget(ANALYTICS_TARGET, analyticsSyncUrl, until)));
+            } else {
+                logger.warn("L'URL de synchronisation du système d'analytics n'est pas configurée.");
+            }
+
+            for (Map.Entry<String, Future<Integer>> run : runs.entrySet()) {
+                try {
+                    synced.put(run.getKey(), run.getValue().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Synchronisation des abonnements interrompue", e);
+                } catch (ExecutionException e) {
+                    logger.error("Erreur lors de la synchronisation {} : {}", run.getKey(),
+                            e.getCause().getMessage(), e.getCause());
+                    synced.put(run.getKey(), 0);
+                }
+            }
+        }
+        logger.info("Synchronisation des abonnements terminée : {}", synced);
+        return synced;
+    }
+
+    /**
+     * Retard de synchronisation d'un système : ancienneté de la plus ancienne
+     * modification non envoyée lors du dernier passage, zéro s'il est à jour.
+     */
+    public Duration getSyncLag(String target) {
+        AtomicLong lag = lagSeconds.get(target);
+        return Duration.ofSeconds(lag != null ? lag.get() : 0);
     }
 
-    public LocalDateTime getLastSuccessfulSyncTimestamp() {
-        return lastSuccessfulSyncTimestamp;
+    private int synchronizeTarget(String target, String url, LocalDateTime until) {
+        SyncWatermark watermark = watermarkRepository.findById(target).orElseGet(() -> initialWatermark(target));
+        Pageable page = PageRequest.of(0, batchSize);
+        LocalDateTime since = watermark.getLastUpdatedAt().minusSeconds(overlapSeconds);
+        long lastId = 0L;
+        int synced = 0;
+        List<Subscription> batch;
+
+        do {
+            batch = subscriptionRepository.findSubscriptionsUpdatedSince(since, lastId, until, page);
+            if (batch.isEmpty()) {
+                break;
+            }
+            if (!sendWithRetry(target, url, encode(batch))) {
+                // Le curseur n'avance pas : le lot sera renvoyé au prochain passage.
+                recordLag(target, batch.get(0).getUpdatedAt());
+                return synced;
+            }
+
+            Subscription last = batch.get(batch.size() - 1);
+            since = last.getUpdatedAt();
+            lastId = last.getId();
+            // Dans la fenêtre de recouvrement, le curseur enregistré ne recule pas.
+            if (isAfter(last, watermark)) {
+                watermark.setLastUpdatedAt(last.getUpdatedAt());
+                watermark.setLastId(last.getId());
+            }
+            watermark.setLastSyncedAt(LocalDateTime.now());
+            watermarkRepository.save(watermark);
+            synced += batch.size();
+            logger.info("{} abonnements synchronisés avec succès avec {} à : {}", batch.size(), target, url);
+        } while (batch.size() == batchSize);
+
+        recordLag(target, null);
+        return synced;
     }
 
-    public void updateLastSuccessfulSyncTimestamp(LocalDateTime timestamp) {
-        this.lastSuccessfulSyncTimestamp = timestamp;
-        logger.info("Horodatage de la dernière synchronisation mis à jour à : {}", timestamp);
-        // En production, enregistrer ceci dans une base de données.
+    private static boolean isAfter(Subscription subscription, SyncWatermark watermark) {
+        int byDate = subscription.getUpdatedAt().compareTo(watermark.getLastUpdatedAt());
+        return byDate > 0 || (byDate == 0 && subscription.getId() > watermark.getLastId());
     }
 
-    public void synchronizeSubscriptions(List<Subscription> subscriptions) {
-        logger.info("Début de la synchronisation de {} abonnements avec les systèmes externes.", subscriptions.size());
+    private boolean sendWithRetry(String target, String url, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(NDJSON);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        HttpEntity<byte[]> request = new HttpEntity<>(body, headers);
 
-        // Synchronisation avec le CRM
-        if (crmSyncUrl != null && !crmSyncUrl.isEmpty()) {
+        for (int attempt = 1;; attempt++) {
             try {
-                restTemplate.postForObject(crmSyncUrl, subscriptions, Void.class);
-                logger.info("{} abonnements synchronisés avec succès avec le CRM à : {}", subscriptions.size(),
-                        crmSyncUrl);
-            } catch (Exception e) {
-                logger.error("Erreur lors de la synchronisation avec le CRM à {} : {}", crmSyncUrl, e.getMessage(), e);
-                // Gérer l'erreur (réessayer, enregistrer les échecs, etc.)
+                restTemplate.postForEntity(url, request, Void.class);
+                return true;
+            } catch (RestClientException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    logger.error("Erreur lors de la synchronisation avec {} à {} après {} tentative(s) : {}", target,
+                            url, attempt, e.getMessage(), e);
+                    return false;
+                }
+                long delay = Math.min(backoffMillis << (attempt - 1), MAX_BACKOFF_MILLIS);
+                logger.warn("Échec de l'envoi à {} (tentative {}/{}), nouvel essai dans {} ms : {}", target, attempt,
+                        maxAttempts, delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
             }
-        } else {
-            logger.warn("L'URL de synchronisation CRM n'est pas configurée.");
         }
+    }
 
-        // Synchronisation avec le système d'analytics
-        if (analyticsSyncUrl != null && !analyticsSyncUrl.isEmpty()) {
-            try {
-                restTemplate.postForObject(analyticsSyncUrl, subscriptions, Void.class);
-                logger.info("{} abonnements synchronisés avec succès avec le système d'analytics à : {}",
-                        subscriptions.size(), analyticsSyncUrl);
-            } catch (Exception e) {
-                logger.error("Erreur lors de la synchronisation avec le système d'analytics à {} : {}",
-                        analyticsSyncUrl, e.getMessage(), e);
-                // Gérer l'erreur (réessayer, enregistrer les échecs, etc.)
+    // Les erreurs client (4xx) ne sont pas réessayées, sauf la limitation de débit.
+    private static boolean isRetryable(RestClientException e) {
+        return !(e instanceof HttpClientErrorException clientError)
+                || clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private byte[] encode(List<Subscription> batch) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (Subscription subscription : batch) {
+                gzip.write(objectMapper.writeValueAsBytes(SubscriptionSyncRecord.from(subscription)));
+                gzip.write('\n');
             }
-        } else {
-            logger.warn("L'URL de synchronisation du système d'analytics n'est pas configurée.");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'encoder le lot d'abonnements", e);
         }
+        return bytes.toByteArray();
+    }
+
+    private void recordLag(String target, LocalDateTime oldestPendingChange) {
+        long lag = oldestPendingChange == null ? 0
+                : Math.max(0, Duration.between(oldestPendingChange, LocalDateTime.now()).toSeconds());
+        lagSeconds.get(target).set(lag);
+    }
 
-        logger.info("Synchronisation des abonnements terminée.");
+    private static SyncWatermark initialWatermark(String target) {
+        SyncWatermark watermark = new SyncWatermark();
+        watermark.setTarget(target);
+        watermark.setLastUpdatedAt(INITIAL_WATERMARK);
+        watermark.setLastId(0L);
+        return watermark;
     }
 
     private String analyticsSubscriptionCancelledUrl;
@@ -101,4 +291,4 @@ public class DataSynchronizationService {
                     "L'URL de notification d'annulation d'abonnement Stripe pour l'analytics n'est pas configurée.");
         }
     }
-}
\ No newline at end of file
+}
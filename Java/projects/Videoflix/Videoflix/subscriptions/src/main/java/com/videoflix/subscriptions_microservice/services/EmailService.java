@@ -2,11 +2,13 @@ package com.videoflix.subscriptions_microservice.services;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 
 @Service
@@ -21,11 +23,18 @@ public class EmailService {
     }
 
     public void sendSubscriptionNotification(String to, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(body);
-        mailSender.send(message);
+        mailSender.send(buildMessage(to, subject, body));
+    }
+
+    /**
+     * Envoie un lot de messages en un seul appel au JavaMailSender, qui réutilise
+     * la même connexion SMTP pour tout le lot.
+     */
+    public void sendSubscriptionNotifications(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        mailSender.send(messages.toArray(new SimpleMailMessage[0]));
     }
 
     // Méthodes spécifiques pour différents types de notifications
@@ -45,11 +54,15 @@ public class EmailService {
 
     public void sendSubscriptionExpirationImminentNotification(String to, SubscriptionLevel subscriptionLevel,
             LocalDateTime expirationDate) {
-        String formattedDate = expirationDate.format(DATE_FORMATTER);
-        String subject = SUBSCRIPTION_PREFIX + subscriptionLevel + " expire dans 3 jours !";
-        String body = "Cher client,\n\nVotre abonnement " + subscriptionLevel + " expire le " + formattedDate
-                + ".\nNe manquez pas la fin de votre accès, renouvelez dès maintenant !\n\nCordialement.";
-        sendSubscriptionNotification(to, subject, body);
+        mailSender.send(buildExpirationImminentMessage(to, subscriptionLevel, expirationDate));
+    }
+
+    // Version par lot : un seul envoi SMTP pour l'ensemble des abonnements
+    public void sendSubscriptionExpirationImminentNotifications(List<Subscription> subscriptions) {
+        sendSubscriptionNotifications(subscriptions.stream()
+                .map(subscription -> buildExpirationImminentMessage(subscription.getUser().getEmail(),
+                        subscription.getSubscriptionLevel(), subscription.getEndDate()))
+                .toList());
     }
 
     public void sendPaymentFailedNotification(String to, String subscriptionLevel) {
@@ -65,4 +78,21 @@ public class EmailService {
                 + " a été effectué avec succès.\n\nMerci !";
         sendSubscriptionNotification(to, subject, body);
     }
+
+    private SimpleMailMessage buildExpirationImminentMessage(String to, SubscriptionLevel subscriptionLevel,
+            LocalDateTime expirationDate) {
+        String formattedDate = expirationDate.format(DATE_FORMATTER);
+        String subject = SUBSCRIPTION_PREFIX + subscriptionLevel + " expire dans 3 jours !";
+        String body = "Cher client,\n\nVotre abonnement " + subscriptionLevel + " expire le " + formattedDate
+                + ".\nNe manquez pas la fin de votre accès, renouvelez dès maintenant !\n\nCordialement.";
+        return buildMessage(to, subject, body);
+    }
+
+    private SimpleMailMessage buildMessage(String to, String subject, String body) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(body);
+        return message;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.FailedEmail;
+import com.videoflix.subscriptions_microservice.repositories.FailedEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moteur d'envoi des notifications par e-mail.
+ * <p>
+ * Les e-mails sont déposés dans une file bornée et envoyés par un petit nombre
+ * de workers. Chaque worker vide la file par lots et transmet un lot entier en
+ * un seul appel au {@link JavaMailSender}, qui réutilise la même connexion SMTP
+ * pour tout le lot : le nombre de connexions ouvertes est limité au nombre de
+ * workers. Lorsque la file est pleine, l'appelant attend brièvement puis
+ * l'e-mail est différé. Les échecs sont enregistrés dans {@link FailedEmail} et
+ * réessayés avec un délai exponentiel.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final long POLL_MILLIS = 200;
+    private static final Duration RETRY_LEASE = Duration.ofMinutes(10);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(24);
+    private static final String RETRY_TYPE = "réessayé";
+
+    /** E-mail en attente d'envoi ; {@code failedEmailId} renseigné pour un réessai. */
+    record PendingEmail(SimpleMailMessage message, Long userId, String type, Long failedEmailId, long enqueuedAt) {
+    }
+
+    private final JavaMailSender mailSender;
+    private final FailedEmailRepository failedEmailRepository;
+    private final BlockingQueue<PendingEmail> queue;
+    private final ExecutorService senders;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long offerTimeoutMillis;
+    private volatile boolean running = true;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final Timer latencyTimer;
+
+    @Value("${spring.mail.username:}")
+    private String notificationSender;
+
+    public NotificationDispatcher(JavaMailSender mailSender, FailedEmailRepository failedEmailRepository,
+            MeterRegistry meterRegistry,
+            @Value("${notification.dispatch.queue-capacity:10000}") int queueCapacity,
+            @Value("${notification.dispatch.workers:2}") int workers,
+            @Value("${notification.dispatch.batch-size:50}") int batchSize,
+            @Value("${notification.dispatch.max-attempts:5}") int maxAttempts,
+            @Value("${notification.dispatch.backoff-ms:60000}") long backoffMillis,
+            @Value("${notification.dispatch.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.failedEmailRepository = failedEmailRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        Gauge.builder("notification.email.queue.depth", queue, Collection::size)
+                .description("E-mails en attente d'envoi")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("notification.email.sent")
+                .description("E-mails acceptés par le serveur SMTP")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.email.failed")
+                .description("Envois d'e-mails en échec")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("notification.email.batch.duration")
+                .description("Durée d'envoi d'un lot d'e-mails sur une connexion SMTP")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("notification.email.latency")
+                .description("Délai entre la mise en file d'un e-mail et son envoi")
+                .register(meterRegistry);
+
+        this.senders = Executors.newFixedThreadPool(workers,
+                Thread.ofVirtual().name("notification-sender-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            senders.execute(this::drainQueue);
+        }
+    }
+
+    /**
+     * Dépose un e-mail dans la file d'envoi. Ne bloque que si la file est pleine,
+     * au plus {@code notification.dispatch.offer-timeout-ms}.
+     */
+    public void enqueue(SimpleMailMessage message, Long userId, String type) {
+        enqueue(new PendingEmail(message, userId, type, null, System.nanoTime()));
+    }
+
+    /**
+     * Remet en file les e-mails en échec dont le prochain essai est échu.
+     *
+     * @return le nombre d'e-mails remis en file
+     */
+    @Scheduled(fixedDelayString = "${notification.dispatch.retry-interval-ms:60000}")
+    public int retryFailedEmails() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FailedEmail> due = failedEmailRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(now,
+                PageRequest.of(0, Math.max(1, Math.min(queue.remainingCapacity(), 500))));
+        for (FailedEmail failedEmail : due) {
+            // Réservé le temps de l'envoi pour ne pas être repris au passage suivant.
+            failedEmail.setNextAttemptAt(now.plus(RETRY_LEASE));
+            failedEmailRepository.save(failedEmail);
+
+            SimpleMailMessage message = new SimpleMailMessage();
+            if (notificationSender != null && !notificationSender.isBlank()) {
+                message.setFrom(notificationSender);
+            }
+            message.setTo(failedEmail.getRecipientEmail());
+            message.setSubject(failedEmail.getSubject());
+            message.setText(failedEmail.getBody());
+            enqueue(new PendingEmail(message, null, RETRY_TYPE, failedEmail.getId(), System.nanoTime()));
+        }
+        if (!due.isEmpty()) {
+            logger.info("{} e-mail(s) en échec remis en file d'envoi.", due.size());
+        }
+        return due.size();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Arrête les workers après envoi des e-mails déjà en file.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("{} e-mail(s) encore en file à l'arrêt, ils seront perdus.", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(PendingEmail email) {
+        boolean queued = false;
+        try {
+            queued = running && queue.offer(email, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            // File saturée : l'e-mail est différé sans compter de tentative.
+            logger.warn("File d'envoi saturée, e-mail {} différé pour l'utilisateur {}.", email.type(), email.userId());
+            recordFailure(email, "File d'envoi saturée", false);
+        }
+    }
+
+    private void drainQueue() {
+        List<PendingEmail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            PendingEmail first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                sendBatch(batch);
+            } catch (RuntimeException e) {
+                logger.error("Erreur inattendue lors de l'envoi d'un lot de {} e-mail(s) : {}", batch.size(),
+                        e.getMessage(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    private void sendBatch(List<PendingEmail> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(PendingEmail::message).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failures;
+        long start = System.nanoTime();
+        try {
+            mailSender.send(messages);
+            failures = Map.of();
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages().isEmpty() ? allFailed(batch, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            // Connexion ou authentification impossible : tout le lot est en échec.
+            failures = allFailed(batch, e);
+        }
+        long end = System.nanoTime();
+        batchTimer.record(end - start, TimeUnit.NANOSECONDS);
+
+        for (PendingEmail email : batch) {
+            Exception failure = failures.get(email.message());
+            if (failure == null) {
+                sentCounter.increment();
+                latencyTimer.record(end - email.enqueuedAt(), TimeUnit.NANOSECONDS);
+                if (email.failedEmailId() != null) {
+                    failedEmailRepository.deleteById(email.failedEmailId());
+                }
+                logger.info("E-mail {} envoyé à l'utilisateur {}", email.type(), email.userId());
+            } else {
+                failedCounter.increment();
+                logger.error("Erreur lors de l'envoi de l'e-mail {} à l'utilisateur {} : {}", email.type(),
+                        email.userId(), failure.getMessage());
+                recordFailure(email, failure.getMessage(), true);
+            }
+        }
+    }
+
+    private void recordFailure(PendingEmail email, String reason, boolean countAttempt) {
+        try {
+            FailedEmail failedEmail = email.failedEmailId() != null
+                    ? failedEmailRepository.findById(email.failedEmailId()).orElse(null)
+                    : null;
+            if (failedEmail == null) {
+                SimpleMailMessage message = email.message();
+                failedEmail = new FailedEmail(message.getTo() != null ? message.getTo()[0] : null,
+                        message.getSubject(), message.getText(), 0, reason, LocalDateTime.now());
+            }
+            if (countAttempt) {
+                failedEmail.setAttemptCount(failedEmail.getAttemptCount() + 1);
+            }
+            failedEmail.setFailureReason(reason != null ? reason : "Erreur inconnue");
+            if (failedEmail.getAttemptCount() >= maxAttempts) {
+                failedEmail.setNextAttemptAt(null);
+                logger.error("E-mail à {} abandonné après {} tentative(s).", failedEmail.getRecipientEmail(),
+                        failedEmail.getAttemptCount());
+            } else {
+                failedEmail.setNextAttemptAt(LocalDateTime.now().plus(backoff(failedEmail.getAttemptCount())));
+            }
+            failedEmailRepository.save(failedEmail);
+        } catch (RuntimeException e) {
+            logger.error("Impossible d'enregistrer l'échec d'envoi de l'e-mail {} : {}", email.type(),
+                    e.getMessage(), e);
+        }
+    }
+
+    // Premier réessai après backoff-ms, puis doublement à chaque tentative.
+    private Duration backoff(int attempts) {
+        if (attempts == 0) {
+            return Duration.ZERO;
+        }
+        long delay = backoffMillis << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, MAX_BACKOFF.toMillis()));
+    }
+
+    private static Map<Object, Exception> allFailed(List<PendingEmail> batch, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        batch.forEach(email -> failures.put(email.message(), e));
+        return failures;
+    }
+}
@@ -2,17 +2,19 @@ package com.videoflix.subscriptions_microservice.services;
 
 import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.User;
+import com.videoflix.subscriptions_microservice.templates.EmailTemplate;
 import com.videoflix.subscriptions_microservice.templates.EmailTemplates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 /**
  * Service responsable de l'envoi des notifications par e-mail aux utilisateurs
- * concernant leurs abonnements.
+ * concernant leurs abonnements. Les e-mails sont rendus à partir de modèles
+ * précompilés puis confiés au {@link NotificationDispatcher}, qui les envoie
+ * par lots : l'appelant n'attend pas le serveur SMTP.
  */
 @Service
 public class NotificationService {
@@ -20,16 +22,27 @@ public class NotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     static final String NULL_PARAMS_ERROR = "Impossible d'envoyer la notification: utilisateur ou abonnement null";
 
-    private final JavaMailSender mailSender;
+    private static final EmailTemplate SUBSCRIPTION_EXPIRING = EmailTemplate
+            .compile(EmailTemplates.SUBSCRIPTION_EXPIRING_EMAIL);
+    private static final EmailTemplate SUBSCRIPTION_EXPIRED = EmailTemplate
+            .compile(EmailTemplates.SUBJECT_SUBSCRIPTION_EXPIRED);
+    private static final EmailTemplate TRIAL_ENDING = EmailTemplate
+            .compile(EmailTemplates.TRIAL_PERIOD_ENDING_NOTIFICATION);
+    private static final EmailTemplate TRIAL_ENDED = EmailTemplate.compile(EmailTemplates.SUBJECT_TRIAL_ENDED);
+    private static final EmailTemplate WELCOME = EmailTemplate.compile(EmailTemplates.WELCOME_EMAIL);
+    private static final EmailTemplate PAYMENT_REMINDER = EmailTemplate
+            .compile(EmailTemplates.SUBSCRIPTION_NOTIFICATION);
+
+    private final NotificationDispatcher notificationDispatcher;
 
     @Value("${spring.mail.username}")
     private String notificationSender;
 
     /**
-     * Constructeur avec injection du mailSender.
+     * Constructeur avec injection du moteur d'envoi.
      */
-    public NotificationService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public NotificationService(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
     }
 
     /**
@@ -42,7 +55,7 @@ public class NotificationService {
         sendEmail(
                 user.getEmail(),
                 EmailTemplates.SUBJECT_SUBSCRIPTION_EXPIRING,
-                String.format(EmailTemplates.SUBSCRIPTION_EXPIRING_EMAIL,
+                SUBSCRIPTION_EXPIRING.render(
                         user.getFirstname(),
                         subscription.getSubscriptionLevel(),
                         subscription.getEndDate()),
@@ -60,7 +73,7 @@ public class NotificationService {
         sendEmail(
                 user.getEmail(),
                 EmailTemplates.SUBJECT_SUBSCRIPTION_EXPIRED,
-                String.format(EmailTemplates.SUBJECT_SUBSCRIPTION_EXPIRED,
+                SUBSCRIPTION_EXPIRED.render(
                         user.getFirstname(),
                         subscription.getSubscriptionLevel(),
                         subscription.getEndDate()),
@@ -78,7 +91,7 @@ public class NotificationService {
         sendEmail(
                 user.getEmail(),
                 EmailTemplates.SUBJECT_TRIAL_ENDING,
-                String.format(EmailTemplates.TRIAL_PERIOD_ENDING_NOTIFICATION,
+                TRIAL_ENDING.render(
                         user.getFirstname(),
                         subscription.getSubscriptionLevel(),
                         subscription.getTrialEndDate()),
@@ -96,7 +109,7 @@ public class NotificationService {
         sendEmail(
                 user.getEmail(),
                 EmailTemplates.SUBJECT_TRIAL_ENDED,
-                String.format(EmailTemplates.SUBJECT_TRIAL_ENDED,
+                TRIAL_ENDED.render(
                         user.getFirstname(),
                         subscription.getSubscriptionLevel(),
                         subscription.getTrialEndDate()),
@@ -114,7 +127,7 @@ public class NotificationService {
         sendEmail(
                 user.getEmail(),
                 EmailTemplates.SUBJECT_WELCOME,
-                String.format(EmailTemplates.WELCOME_EMAIL,
+                WELCOME.render(
                         user.getFirstname(),
                         subscription.getSubscriptionLevel()),
                 user.getId(),
@@ -128,7 +141,7 @@ public class NotificationService {
         if (!isValid(user, subscription))
             return;
 
-        String body = String.format(EmailTemplates.SUBSCRIPTION_NOTIFICATION,
+        String body = PAYMENT_REMINDER.render(
                 user.getFirstname(),
                 subscription.getSubscriptionLevel(),
                 subscription.getNextBillingDate(),
@@ -143,7 +156,8 @@ public class NotificationService {
     }
 
     /**
-     * Méthode utilitaire pour envoyer un e-mail générique avec logs d’erreur.
+     * Méthode utilitaire pour mettre en file un e-mail générique avec logs
+     * d’erreur. L'envoi et ses échecs sont suivis par le NotificationDispatcher.
      */
     private void sendEmail(String to, String subject, String body, Long userId, String type) {
         try {
@@ -153,8 +167,7 @@ public class NotificationService {
             message.setSubject(subject);
             message.setText(body);
 
-            mailSender.send(message);
-            logger.info("E-mail {} envoyé à l'utilisateur {}", type, userId);
+            notificationDispatcher.enqueue(message, userId, type);
         } catch (Exception e) {
             logger.error("Erreur lors de l'envoi de l'e-mail {} à l'utilisateur {}", type, userId, e);
         }
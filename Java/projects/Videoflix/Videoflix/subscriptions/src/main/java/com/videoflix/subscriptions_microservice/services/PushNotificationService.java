@@ -1,13 +1,16 @@
 package com.videoflix.subscriptions_microservice.services;
 
+import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
+import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -18,6 +21,8 @@ public class PushNotificationService {
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(PushNotificationService.class);
     private static final String SUBSCRIPTION_PREFIX = "Votre abonnement ";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Nombre maximal de messages acceptés par FirebaseMessaging.sendEach
+    private static final int MAX_BATCH_SIZE = 500;
     private final FirebaseMessaging firebaseMessaging;
 
     public PushNotificationService(FirebaseMessaging firebaseMessaging) {
@@ -25,24 +30,31 @@ public class PushNotificationService {
     }
 
     public void sendPushNotification(String registrationToken, String title, String body) {
-        Notification notification = Notification.builder()
-                .setTitle(title)
-                .setBody(body)
-                .build();
-
-        Message message = Message.builder()
-                .setToken(registrationToken)
-                .setNotification(notification)
-                .build();
-
         try {
-            String response = firebaseMessaging.send(message);
+            String response = firebaseMessaging.send(buildMessage(registrationToken, title, body));
             logger.info("Successfully sent message: {}", response);
         } catch (FirebaseMessagingException e) {
             logger.error("Error sending message", e);
         }
     }
 
+    /**
+     * Envoie les messages par lots de {@value #MAX_BATCH_SIZE} via
+     * FirebaseMessaging.sendEach plutôt qu'un appel réseau par message.
+     */
+    public void sendPushNotifications(List<Message> messages) {
+        for (int from = 0; from < messages.size(); from += MAX_BATCH_SIZE) {
+            List<Message> batch = messages.subList(from, Math.min(from + MAX_BATCH_SIZE, messages.size()));
+            try {
+                BatchResponse response = firebaseMessaging.sendEach(batch);
+                logger.info("Successfully sent {} messages ({} failures)", response.getSuccessCount(),
+                        response.getFailureCount());
+            } catch (FirebaseMessagingException e) {
+                logger.error("Error sending batch of {} messages", batch.size(), e);
+            }
+        }
+    }
+
     // Méthodes spécifiques pour les notifications d'abonnement
     public void sendSubscriptionRenewalPushNotification(String registrationToken, String subscriptionLevel) {
         String title = "Abonnement renouvelé";
@@ -64,6 +76,25 @@ public class PushNotificationService {
         sendPushNotification(registrationToken, title, body);
     }
 
+    // Versions par lot : seuls les utilisateurs disposant d'un token sont notifiés
+    public void sendSubscriptionExpirationPushNotifications(List<Subscription> subscriptions) {
+        sendPushNotifications(subscriptions.stream()
+                .filter(PushNotificationService::hasPushToken)
+                .map(subscription -> buildMessage(subscription.getUser().getPushToken(),
+                        "Abonnement expire bientôt",
+                        SUBSCRIPTION_PREFIX + subscription.getSubscriptionLevel() + " expire bientôt. Renouvelez-le !"))
+                .toList());
+    }
+
+    public void sendSubscriptionExpirationImminentPushNotifications(List<Subscription> subscriptions) {
+        sendPushNotifications(subscriptions.stream()
+                .filter(PushNotificationService::hasPushToken)
+                .map(subscription -> buildMessage(subscription.getUser().getPushToken(), "Expiration imminente !",
+                        SUBSCRIPTION_PREFIX + subscription.getSubscriptionLevel() + " expire le "
+                                + subscription.getEndDate().format(DATE_FORMATTER) + ". Ne manquez rien !"))
+                .toList());
+    }
+
     public void sendPaymentFailedPushNotification(String registrationToken, String subscriptionLevel) {
         String title = "Paiement échoué";
         String body = "Le paiement de votre abonnement " + subscriptionLevel
@@ -76,4 +107,21 @@ public class PushNotificationService {
         String body = "Le paiement de votre abonnement " + subscriptionLevel + " a été effectué avec succès.";
         sendPushNotification(registrationToken, title, body);
     }
+
+    private static boolean hasPushToken(Subscription subscription) {
+        String pushToken = subscription.getUser().getPushToken();
+        return pushToken != null && !pushToken.isEmpty();
+    }
+
+    private Message buildMessage(String registrationToken, String title, String body) {
+        Notification notification = Notification.builder()
+                .setTitle(title)
+                .setBody(body)
+                .build();
+
+        return Message.builder()
+                .setToken(registrationToken)
+                .setNotification(notification)
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.Permission;
+import com.videoflix.subscriptions_microservice.entities.Role;
+import com.videoflix.subscriptions_microservice.events.RolePermissionsChangedEvent;
+import com.videoflix.subscriptions_microservice.events.UserRolesChangedEvent;
+import com.videoflix.subscriptions_microservice.repositories.RoleRepository;
+import com.videoflix.subscriptions_microservice.repositories.UserRoleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache des autorités Spring Security dérivées des rôles.
+ * <p>
+ * Le graphe rôles → permissions est chargé en une seule requête et chaque rôle
+ * y est associé à un ensemble immuable d'autorités précalculé (ses permissions
+ * et {@code ROLE_<nom>}). Pour chaque utilisateur, seuls les identifiants de
+ * ses rôles et l'union de leurs autorités sont conservés : le mot de passe
+ * reste lu en base à chaque authentification.
+ * <p>
+ * Les modifications faites par {@link RoleService} publient des évènements qui
+ * invalident, après validation de la transaction, l'entrée de l'utilisateur
+ * concerné ou le graphe des rôles. Les entrées utilisateur survivent à un
+ * rechargement du graphe : leurs autorités sont recalculées en mémoire à partir
+ * des identifiants de rôles. Une durée de vie bornée couvre les modifications
+ * faites hors de ce service (autre instance, script SQL).
+ */
+@Service
+public class RoleAuthorityCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleAuthorityCache.class);
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Graphe des rôles, identifié par la génération qui l'a produit. */
+    private record RoleGraph(long generation, long loadedAtMillis, Map<Long, Set<GrantedAuthority>> authoritiesByRole) {
+    }
+
+    /** Rôles d'un utilisateur et autorités calculées pour une génération du graphe. */
+    private record CachedUser(List<Long> roleIds, long graphGeneration, Set<GrantedAuthority> authorities,
+            long cachedAtMillis) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final UserRoleRepository userRoleRepository;
+    private final Clock clock;
+    private final int maxUsers;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<Long, CachedUser> users = new ConcurrentHashMap<>();
+    private final ReentrantLock graphLock = new ReentrantLock();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final AtomicLong graphGeneration = new AtomicLong();
+    private final AtomicLong userGeneration = new AtomicLong();
+    private volatile RoleGraph graph;
+    private volatile long lastSweep = System.nanoTime();
+
+    private final Counter userHits;
+    private final Counter userMisses;
+    private final AtomicLong graphLoads = new AtomicLong();
+
+    @Autowired
+    public RoleAuthorityCache(RoleRepository roleRepository, UserRoleRepository userRoleRepository,
+            MeterRegistry meterRegistry,
+            @Value("${security.authority-cache.max-users:100000}") int maxUsers,
+            @Value("${security.authority-cache.ttl-ms:600000}") long ttlMillis) {
+        this(roleRepository, userRoleRepository, meterRegistry, maxUsers, ttlMillis, Clock.systemUTC());
+    }
+
+    public RoleAuthorityCache(RoleRepository roleRepository, UserRoleRepository userRoleRepository,
+            MeterRegistry meterRegistry, int maxUsers, long ttlMillis, Clock clock) {
+        this.roleRepository = roleRepository;
+        this.userRoleRepository = userRoleRepository;
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+
+        this.userHits = Counter.builder("security.authority.cache.requests")
+                .description("Résolutions d'autorités servies par le cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.userMisses = Counter.builder("security.authority.cache.requests")
+                .description("Résolutions d'autorités servies par le cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("security.authority.cache.hit.ratio", this, RoleAuthorityCache::getHitRatio)
+                .description("Part des résolutions d'autorités servies sans requête sur les rôles")
+                .register(meterRegistry);
+        Gauge.builder("security.authority.cache.size", users, Map::size)
+                .description("Utilisateurs dont les autorités sont en cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.authority.cache.role.graph.loads", graphLoads, AtomicLong::get)
+                .description("Chargements du graphe rôles → permissions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtient les autorités d'un utilisateur : permissions de ses rôles et
+     * {@code ROLE_<nom>} pour chacun d'eux.
+     *
+     * @param userId L'identifiant de l'utilisateur.
+     * @return Un ensemble immuable d'autorités.
+     */
+    public Set<GrantedAuthority> getAuthorities(Long userId) {
+        long now = clock.millis();
+        RoleGraph roles = roleGraph(now);
+        CachedUser cached = users.get(userId);
+        if (cached != null && now - cached.cachedAtMillis() < ttlMillis) {
+            userHits.increment();
+            if (cached.graphGeneration() == roles.generation()) {
+                return cached.authorities();
+            }
+            // Graphe rechargé depuis : les rôles de l'utilisateur restent valables.
+            CachedUser refreshed = new CachedUser(cached.roleIds(), roles.generation(),
+                    union(cached.roleIds(), roles), cached.cachedAtMillis());
+            users.replace(userId, cached, refreshed);
+            return refreshed.authorities();
+        }
+
+        userMisses.increment();
+        long generation = userGeneration.get();
+        List<Long> roleIds = List.copyOf(userRoleRepository.findRoleIdsByUserId(userId));
+        CachedUser loaded = new CachedUser(roleIds, roles.generation(), union(roleIds, roles), now);
+        // Une invalidation survenue pendant la lecture rend le résultat douteux : il
+        // est renvoyé mais pas conservé.
+        if (generation == userGeneration.get() && reserveSlot(now)) {
+            users.put(userId, loaded);
+        }
+        return loaded.authorities();
+    }
+
+    /**
+     * Obtient la part des résolutions servies par le cache.
+     *
+     * @return Le ratio entre 0 et 1, ou 0 si aucune résolution n'a eu lieu.
+     */
+    public double getHitRatio() {
+        double hits = userHits.count();
+        double total = hits + userMisses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * Invalide l'entrée d'un utilisateur dont les rôles ont changé.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRolesChanged(UserRolesChangedEvent event) {
+        userGeneration.incrementAndGet();
+        if (event.getUserId() == null) {
+            users.clear();
+        } else {
+            users.remove(event.getUserId());
+        }
+    }
+
+    /**
+     * Invalide le graphe des rôles : il est rechargé à la prochaine résolution.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolePermissionsChanged(RolePermissionsChangedEvent event) {
+        graphGeneration.incrementAndGet();
+        graph = null;
+        logger.debug("Graphe des rôles invalidé (rôle : {}).", event.getRoleName());
+    }
+
+    private RoleGraph roleGraph(long now) {
+        RoleGraph current = graph;
+        if (current != null && current.generation() == graphGeneration.get()
+                && now - current.loadedAtMillis() < ttlMillis) {
+            return current;
+        }
+        graphLock.lock();
+        try {
+            current = graph;
+            long generation = graphGeneration.get();
+            if (current != null && current.generation() == generation && now - current.loadedAtMillis() < ttlMillis) {
+                return current;
+            }
+            RoleGraph loaded = new RoleGraph(generation, now, loadAuthoritiesByRole());
+            graphLoads.incrementAndGet();
+            if (generation == graphGeneration.get()) {
+                graph = loaded;
+            }
+            return loaded;
+        } finally {
+            graphLock.unlock();
+        }
+    }
+
+    private Map<Long, Set<GrantedAuthority>> loadAuthoritiesByRole() {
+        Map<Long, Set<GrantedAuthority>> authoritiesByRole = new HashMap<>();
+        for (Role role : roleRepository.findAllWithPermissions()) {
+            Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+            if (role.getPermissions() != null) {
+                for (Permission permission : role.getPermissions()) {
+                    authorities.add(new SimpleGrantedAuthority(permission.getName()));
+                }
+            }
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getName())); // Inclure le rôle
+            authoritiesByRole.put(role.getId(), Set.copyOf(authorities));
+        }
+        return Map.copyOf(authoritiesByRole);
+    }
+
+    private static Set<GrantedAuthority> union(List<Long> roleIds, RoleGraph roles) {
+        if (roleIds.size() == 1) {
+            return roles.authoritiesByRole().getOrDefault(roleIds.get(0), Set.of());
+        }
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (Long roleId : roleIds) {
+            authorities.addAll(roles.authoritiesByRole().getOrDefault(roleId, Set.of()));
+        }
+        return Set.copyOf(authorities);
+    }
+
+    /**
+     * Indique si une entrée peut être ajoutée : au-delà de la taille maximale,
+     * les entrées expirées sont d'abord supprimées (au plus une fois par
+     * seconde) ; si le cache reste plein, l'utilisateur n'est pas conservé.
+     */
+    private boolean reserveSlot(long now) {
+        if (users.size() < maxUsers) {
+            return true;
+        }
+        long nowNanos = System.nanoTime();
+        if (nowNanos - lastSweep >= SWEEP_INTERVAL_NANOS && sweepLock.tryLock()) {
+            try {
+                users.values().removeIf(entry -> now - entry.cachedAtMillis() >= ttlMillis);
+                lastSweep = nowNanos;
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+        return users.size() < maxUsers;
+    }
+}
@@ -3,8 +3,11 @@ package com.videoflix.subscriptions_microservice.services;
 import com.videoflix.subscriptions_microservice.entities.Permission;
 import com.videoflix.subscriptions_microservice.entities.Role;
 import com.videoflix.subscriptions_microservice.entities.UserRole;
+import com.videoflix.subscriptions_microservice.events.RolePermissionsChangedEvent;
+import com.videoflix.subscriptions_microservice.events.UserRolesChangedEvent;
 import com.videoflix.subscriptions_microservice.repositories.PermissionRepository;
 import com.videoflix.subscriptions_microservice.repositories.RoleRepository;
+import com.videoflix.subscriptions_microservice.repositories.UserRepository;
 import com.videoflix.subscriptions_microservice.repositories.UserRoleRepository;
 
 import java.util.ArrayList;
@@ -14,6 +17,7 @@ import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,13 +27,18 @@ public class RoleService {
     private final PermissionRepository permissionRepository;
     private final RoleRepository roleRepository;
     private final UserRoleRepository userRoleRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private static final Logger logger = LoggerFactory.getLogger(RoleService.class);
 
     public RoleService(PermissionRepository permissionRepository, RoleRepository roleRepository,
-            UserRoleRepository userRoleRepository) {
+            UserRoleRepository userRoleRepository, UserRepository userRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.permissionRepository = permissionRepository;
         this.roleRepository = roleRepository;
         this.userRoleRepository = userRoleRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -43,10 +52,7 @@ public class RoleService {
         Role role = roleRepository.findByName(roleName);
 
         if (role != null) {
-            UserRole userRole = new UserRole();
-            userRole.setId(userId);
-            userRole.setRoleId(role.getId());
-            userRoleRepository.save(userRole);
+            saveUserRole(userId, role);
         } else {
             // Utilisation d'un logger au lieu de System.err
             logger.warn("Role with name '{}' not found.", roleName);
@@ -82,15 +88,24 @@ public class RoleService {
         }
 
         if (role != null) {
-            UserRole userRole = new UserRole();
-            userRole.setId(userId);
-            userRole.setRoleId(role.getId());
-            userRoleRepository.save(userRole);
+            saveUserRole(userId, role);
         } else {
             logger.warn("No role found for subscription level: '{}'", subscriptionLevel);
         }
     }
 
+    /**
+     * Enregistre l'association utilisateur-rôle (l'utilisateur est référencé par
+     * son ID, sans être relu) et signale le changement de rôles.
+     */
+    private void saveUserRole(Long userId, Role role) {
+        UserRole userRole = new UserRole();
+        userRole.setUser(userRepository.getReferenceById(userId));
+        userRole.setRole(role);
+        userRoleRepository.save(userRole);
+        eventPublisher.publishEvent(new UserRolesChangedEvent(this, userId));
+    }
+
     @Transactional
     public Permission createPermission(String permissionName) {
         Permission permission = new Permission();
@@ -103,6 +118,7 @@ public class RoleService {
         Permission permission = permissionRepository.findByName(permissionName);
         if (permission != null) {
             permissionRepository.delete(permission);
+            eventPublisher.publishEvent(new RolePermissionsChangedEvent(this, null));
         }
     }
 
@@ -126,7 +142,9 @@ public class RoleService {
             }
         }
         role.setPermissions(permissions);
-        return roleRepository.save(role);
+        Role saved = roleRepository.save(role);
+        eventPublisher.publishEvent(new RolePermissionsChangedEvent(this, roleName));
+        return saved;
     }
 
     @Transactional
@@ -134,6 +152,7 @@ public class RoleService {
         Role role = roleRepository.findByName(roleName);
         if (role != null) {
             roleRepository.delete(role);
+            eventPublisher.publishEvent(new RolePermissionsChangedEvent(this, roleName));
         }
     }
 
@@ -150,6 +169,7 @@ public class RoleService {
         if (role != null) {
             role.getPermissions().addAll(permissions);
             roleRepository.save(role);
+            eventPublisher.publishEvent(new RolePermissionsChangedEvent(this, roleName));
         }
     }
 
@@ -166,6 +186,7 @@ public class RoleService {
         if (role != null) {
             role.getPermissions().removeAll(permissions);
             roleRepository.save(role);
+            eventPublisher.publishEvent(new RolePermissionsChangedEvent(this, roleName));
         }
     }
 
@@ -1,23 +1,34 @@
 package com.videoflix.subscriptions_microservice.services;
 
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionDailyStats;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionDailyStatsRepository;
 import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Statistiques d'administration. Les compteurs par période et par niveau sont
+ * lus dans l'agrégat journalier maintenu par
+ * {@link SubscriptionStatsRollupService} : leur coût dépend du nombre de jours
+ * demandés et non du nombre d'abonnements.
+ */
 @Service
 public class StatsService {
 
     private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionDailyStatsRepository dailyStatsRepository;
 
-    public StatsService(SubscriptionRepository subscriptionRepository) {
+    public StatsService(SubscriptionRepository subscriptionRepository,
+            SubscriptionDailyStatsRepository dailyStatsRepository) {
         this.subscriptionRepository = subscriptionRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
     }
 
     // Nombre total d'abonnés actifs
@@ -27,32 +38,26 @@ public class StatsService {
 
     // Nombre de nouveaux abonnements sur une période donnée
     public long getNewSubscriptionsCount(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
-        return subscriptionRepository.countByStartDateBetween(startDateTime, endDateTime);
+        return dailyStatsRepository.sumNewCount(startDate, endDate);
     }
 
-    // Répartition des abonnés par type d'abonnement
+    // Répartition des abonnés par niveau d'abonnement (clé : nom du niveau)
     public Map<Object, Long> getSubscribersByType() {
-        return subscriptionRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        subscription -> subscription.getSubscriptionLevel().getId(),
-                        Collectors.counting()));
+        Map<Object, Long> subscribersByType = new LinkedHashMap<>();
+        for (Object[] row : dailyStatsRepository.sumSubscriptionsByLevel()) {
+            subscribersByType.put(row[0].toString(), ((Number) row[1]).longValue());
+        }
+        return subscribersByType;
     }
 
-    // Revenu total estimé sur une période donnée (nécessite une logique de prix)
+    // Revenu encaissé (créations et renouvellements) sur une période donnée
     public double getTotalRevenue(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
-        List<Subscription> activeSubscriptions = subscriptionRepository
-                .findByStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                        Subscription.SubscriptionStatus.ACTIVE, endDateTime, startDateTime);
+        return dailyStatsRepository.sumRevenue(startDate, endDate);
+    }
 
-        double totalRevenue = 0;
-        for (Subscription sub : activeSubscriptions) {
-            totalRevenue += getPriceForSubscriptionLevel(sub.getSubscriptionLevel());
-        }
-        return totalRevenue;
+    // Détail jour par jour et par niveau sur une période donnée
+    public List<SubscriptionDailyStats> getDailyStats(LocalDate startDate, LocalDate endDate) {
+        return dailyStatsRepository.findByStatDateBetweenOrderByStatDateAscLevelAsc(startDate, endDate);
     }
 
     // Taux de rétention (exemple simplifié - nécessite une logique plus complexe)
@@ -76,8 +81,16 @@ public class StatsService {
         return subscriptionRepository.countByStatus(Subscription.SubscriptionStatus.PAYMENT_FAILED);
     }
 
+    // Prix encaissé pour un abonnement : son propre prix, sinon celui de son niveau
+    static double getPricePaid(Subscription subscription) {
+        if (subscription.getPrice() != 0) {
+            return subscription.getPrice();
+        }
+        return getPriceForSubscriptionLevel(subscription.getSubscriptionLevel());
+    }
+
     // Méthode pour obtenir le prix en fonction du niveau d'abonnement
-    private double getPriceForSubscriptionLevel(SubscriptionLevel level) {
+    static double getPriceForSubscriptionLevel(SubscriptionLevel level) {
         if (level == null) {
             return 4.99; // Prix par défaut
         }
@@ -4,6 +4,7 @@ import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Customer;
 import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.CustomerCreateParams;
 import com.stripe.param.RefundCreateParams;
 import com.stripe.param.SubscriptionCreateParams;
@@ -76,6 +77,29 @@ public class StripePaymentService {
         }
     }
 
+    /**
+     * Renouvelle l'abonnement sur Stripe sans rien persister : l'appelant
+     * enregistre les résultats par lot. La clé d'idempotence évite un double débit
+     * si l'appel est rejoué après un timeout.
+     *
+     * @return l'identifiant du nouvel abonnement Stripe
+     */
+    public String renewStripeSubscription(Subscription subscription, String idempotencyKey, int timeoutMillis)
+            throws StripeException {
+        SubscriptionCreateParams createParams = new SubscriptionCreateParams.Builder()
+                .setCustomer(subscription.getCustomerId())
+                .addItem(SubscriptionCreateParams.Item.builder()
+                        .setPrice(subscription.getPriceId())
+                        .build())
+                .build();
+        RequestOptions requestOptions = RequestOptions.builder()
+                .setIdempotencyKey(idempotencyKey)
+                .setConnectTimeout(timeoutMillis)
+                .setReadTimeout(timeoutMillis)
+                .build();
+        return com.stripe.model.Subscription.create(createParams, requestOptions).getId();
+    }
+
     public Subscription createStripeSubscriptionWithAutoRenew(Subscription subscription) {
         try {
             SubscriptionCreateParams createParams = new SubscriptionCreateParams.Builder()
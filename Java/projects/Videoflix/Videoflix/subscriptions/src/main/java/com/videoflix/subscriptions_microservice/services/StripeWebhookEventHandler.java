@@ -0,0 +1,77 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.stripe.model.Event;
+import com.stripe.model.Invoice;
+import com.stripe.model.StripeObject;
+import com.stripe.net.ApiResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Traitement métier d'un évènement Stripe lu dans la boîte de réception des
+ * webhooks. Appelé par les workers de {@link StripeWebhookInboxService}, hors
+ * du thread de la requête HTTP.
+ */
+@Service
+public class StripeWebhookEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeWebhookEventHandler.class);
+
+    /**
+     * Désérialise l'évènement stocké (signature déjà vérifiée à la réception)
+     * et le traite selon son type.
+     */
+    public void handle(String payload) {
+        Event event = ApiResource.GSON.fromJson(payload, Event.class);
+        Optional<StripeObject> stripeObject = event.getDataObjectDeserializer().getObject();
+        if (stripeObject.isEmpty()) {
+            logger.warn("Failed to deserialize event object: {}", event.getId());
+            return;
+        }
+        handleEvent(event.getType(), stripeObject.get());
+    }
+
+    void handleEvent(String eventType, StripeObject stripeObject) {
+        switch (eventType) {
+            case "invoice.payment_succeeded":
+                if (stripeObject instanceof Invoice invoice) {
+                    logger.info("Invoice payment succeeded: {}", invoice.getId());
+                    // Logique de traitement pour les paiements réussis
+                }
+                break;
+
+            case "invoice.payment_failed":
+                if (stripeObject instanceof Invoice invoice) {
+                    logger.error("Invoice payment failed: {}", invoice.getId());
+                    // Logique de traitement pour les paiements échoués
+                }
+                break;
+
+            case "customer.subscription.created":
+                logger.info("Subscription created: {}", stripeObject);
+                // Logique pour les abonnements créés
+                break;
+
+            case "customer.subscription.updated":
+                logger.info("Subscription updated: {}", stripeObject);
+                // Logique pour les abonnements mis à jour
+                break;
+
+            case "customer.subscription.deleted":
+                logger.info("Subscription deleted: {}", stripeObject);
+                // Logique pour les abonnements supprimés
+                break;
+
+            case "customer.subscription.trial_will_end":
+                logger.info("Trial will end for subscription: {}", stripeObject);
+                // Notification de la fin de l'essai gratuit
+                break;
+
+            default:
+                logger.info("Unhandled event type: {}", eventType);
+        }
+    }
+}
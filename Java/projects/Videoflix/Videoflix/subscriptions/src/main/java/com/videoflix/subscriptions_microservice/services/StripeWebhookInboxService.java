@@ -0,0 +1,262 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.entities.StripeWebhookEvent;
+import com.videoflix.subscriptions_microservice.entities.StripeWebhookEvent.InboxStatus;
+import com.videoflix.subscriptions_microservice.repositories.StripeWebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boîte de réception des webhooks Stripe.
+ * <p>
+ * Le contrôleur enregistre l'évènement (clé unique sur l'ID Stripe, les
+ * nouvelles livraisons sont ignorées) puis répond immédiatement ; le
+ * traitement est confié à un pool de workers partitionné par client. Chaque
+ * partition est traitée par un seul thread, ce qui conserve l'ordre de
+ * réception des évènements d'un même client. Un échec est réessayé sur place
+ * (sans laisser passer les évènements suivants du client), puis l'évènement
+ * est marqué {@code FAILED}. Les évènements restés en attente, ou pris en
+ * charge par une instance arrêtée, sont repris au démarrage et périodiquement.
+ * Une instance renouvelle à chaque reprise la prise en charge des évènements
+ * qu'elle détient encore : un évènement qui attend longtemps dans la file d'un
+ * worker n'est donc ni remis en attente ni traité deux fois.
+ */
+@Service
+public class StripeWebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeWebhookInboxService.class);
+
+    private static final int RECOVERY_BATCH_SIZE = 500;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StripeWebhookEventRepository repository;
+    private final StripeWebhookEventHandler handler;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService[] partitions;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long staleAfterSeconds;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong pendingInInbox = new AtomicLong();
+    private final Timer processedLatency;
+    private final Timer failedLatency;
+    private final Counter duplicates;
+
+    public StripeWebhookInboxService(StripeWebhookEventRepository repository, StripeWebhookEventHandler handler,
+            MeterRegistry meterRegistry,
+            @Value("${stripe.webhook.workers:8}") int workers,
+            @Value("${stripe.webhook.max-attempts:3}") int maxAttempts,
+            @Value("${stripe.webhook.backoff-ms:1000}") long backoffMillis,
+            @Value("${stripe.webhook.stale-after-seconds:300}") long staleAfterSeconds) {
+        this.repository = repository;
+        this.handler = handler;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.staleAfterSeconds = staleAfterSeconds;
+        this.partitions = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            partitions[i] = Executors.newSingleThreadExecutor(
+                    Thread.ofVirtual().name("stripe-webhook-" + i + "-", 0).factory());
+        }
+
+        Gauge.builder("stripe.webhook.queue.depth", queueDepth, AtomicInteger::get)
+                .description("Évènements Stripe confiés aux workers et non encore traités")
+                .register(meterRegistry);
+        Gauge.builder("stripe.webhook.inbox.pending", pendingInInbox, AtomicLong::get)
+                .description("Évènements Stripe en attente dans la boîte de réception (dernière reprise)")
+                .register(meterRegistry);
+        this.processedLatency = Timer.builder("stripe.webhook.processing.latency")
+                .description("Délai entre la réception d'un évènement Stripe et la fin de son traitement")
+                .tag("outcome", "processed")
+                .register(meterRegistry);
+        this.failedLatency = Timer.builder("stripe.webhook.processing.latency")
+                .description("Délai entre la réception d'un évènement Stripe et la fin de son traitement")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("stripe.webhook.duplicates")
+                .description("Livraisons répétées d'un évènement Stripe déjà reçu")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre un évènement dont la signature a été vérifiée et le confie aux
+     * workers.
+     *
+     * @return {@code false} si l'évènement avait déjà été reçu
+     */
+    public boolean accept(String eventId, String eventType, String payload) {
+        int inserted = repository.insertIfAbsent(eventId, eventType, partitionKey(eventId, payload), payload,
+                LocalDateTime.now());
+        if (inserted == 0) {
+            duplicates.increment();
+            logger.info("Évènement Stripe {} déjà reçu, nouvelle livraison ignorée.", eventId);
+            return false;
+        }
+        dispatch(repository.findByEventId(eventId));
+        return true;
+    }
+
+    /**
+     * Remet en attente les évènements abandonnés par une instance arrêtée et
+     * confie aux workers ceux qui attendent encore.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${stripe.webhook.recovery-interval-ms:30000}")
+    public void recoverPending() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!inFlight.isEmpty()) {
+            repository.renewClaims(List.copyOf(inFlight), now, InboxStatus.PROCESSING);
+        }
+        int released = repository.releaseStale(now.minusSeconds(staleAfterSeconds),
+                InboxStatus.PENDING, InboxStatus.PROCESSING);
+        if (released > 0) {
+            logger.warn("{} évènement(s) Stripe interrompu(s) remis en attente.", released);
+        }
+        List<StripeWebhookEvent> waiting = repository.findByStatusOrderByIdAsc(InboxStatus.PENDING,
+                PageRequest.of(0, RECOVERY_BATCH_SIZE));
+        waiting.forEach(this::dispatch);
+        pendingInInbox.set(repository.countByStatus(InboxStatus.PENDING));
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Arrête les workers après traitement des évènements déjà confiés.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService partition : partitions) {
+            partition.shutdown();
+        }
+        try {
+            for (ExecutorService partition : partitions) {
+                partition.awaitTermination(30, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(StripeWebhookEvent event) {
+        // Déjà confié aux workers de cette instance.
+        if (!inFlight.add(event.getId())) {
+            return;
+        }
+        // Un autre worker (ou une autre instance) a déjà pris l'évènement en charge.
+        if (repository.claim(event.getId(), LocalDateTime.now(), InboxStatus.PENDING, InboxStatus.PROCESSING) == 0) {
+            inFlight.remove(event.getId());
+            return;
+        }
+        event.setStatus(InboxStatus.PROCESSING);
+        queueDepth.incrementAndGet();
+        try {
+            partitions[Math.floorMod(event.getPartitionKey().hashCode(), partitions.length)]
+                    .execute(() -> process(event));
+        } catch (RejectedExecutionException e) {
+            // Arrêt en cours : l'évènement sera repris comme interrompu.
+            inFlight.remove(event.getId());
+            queueDepth.decrementAndGet();
+            logger.warn("Évènement Stripe {} non confié aux workers (arrêt en cours).", event.getEventId());
+        }
+    }
+
+    private void process(StripeWebhookEvent event) {
+        try {
+            while (true) {
+                event.setAttempts(event.getAttempts() + 1);
+                try {
+                    handler.handle(event.getPayload());
+                    complete(event, InboxStatus.PROCESSED, null, processedLatency);
+                    return;
+                } catch (RuntimeException e) {
+                    if (event.getAttempts() >= maxAttempts) {
+                        logger.error("Traitement de l'évènement Stripe {} ({}) abandonné après {} tentative(s) : {}",
+                                event.getEventId(), event.getEventType(), event.getAttempts(), e.getMessage(), e);
+                        complete(event, InboxStatus.FAILED, e.getMessage(), failedLatency);
+                        return;
+                    }
+                    long delay = backoffMillis << (event.getAttempts() - 1);
+                    logger.warn("Échec du traitement de l'évènement Stripe {} (tentative {}/{}), nouvel essai dans {} ms : {}",
+                            event.getEventId(), event.getAttempts(), maxAttempts, delay, e.getMessage());
+                    Thread.sleep(delay);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Arrêt forcé : l'évènement reste pris en charge et sera repris plus tard.
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.remove(event.getId());
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    private void complete(StripeWebhookEvent event, InboxStatus status, String error, Timer latency) {
+        event.setStatus(status);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error);
+        if (repository.complete(event.getId(), InboxStatus.PROCESSING, status, event.getAttempts(),
+                event.getProcessedAt(), event.getLastError()) == 0) {
+            logger.warn("Évènement Stripe {} remis en attente pendant son traitement, résultat non enregistré.",
+                    event.getEventId());
+            return;
+        }
+        latency.record(Duration.between(event.getReceivedAt(), event.getProcessedAt()));
+    }
+
+    /**
+     * Clé de partition : le client Stripe concerné (ou l'objet client lui-même),
+     * à défaut l'abonnement, à défaut l'ID de l'évènement.
+     */
+    String partitionKey(String eventId, String payload) {
+        try {
+            JsonNode object = objectMapper.readTree(payload).path("data").path("object");
+            if ("customer".equals(object.path("object").asText()) && object.hasNonNull("id")) {
+                return object.get("id").asText();
+            }
+            for (String field : List.of("customer", "subscription")) {
+                JsonNode reference = object.path(field);
+                if (reference.isTextual()) {
+                    return reference.asText();
+                }
+                if (reference.hasNonNull("id")) {
+                    return reference.get("id").asText(); // Objet développé (expand)
+                }
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Payload de l'évènement Stripe {} illisible pour le partitionnement.", eventId);
+        }
+        return eventId;
+    }
+}
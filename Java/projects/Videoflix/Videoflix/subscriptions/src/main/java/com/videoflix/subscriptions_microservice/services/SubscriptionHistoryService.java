@@ -0,0 +1,238 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionHistoryPage;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionRevision;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Historique des abonnements, lu directement dans les tables d'audit Envers
+ * ({@code subscriptions_aud} et {@code revinfo}).
+ * <p>
+ * Seules les colonnes suivies sont lues, sans reconstruire les entités ni
+ * leurs associations, et chaque révision est comparée à la précédente pour
+ * ne renvoyer que les champs modifiés. L'historique d'un abonnement est
+ * paginé par clé sur la clé primaire {@code (id, rev)} : une page lit
+ * {@code size + 1} lignes quelle que soit la longueur de l'historique.
+ * L'export de la piste d'audit parcourt les révisions avec un curseur JDBC et
+ * les écrit au fil de l'eau, sans les charger en mémoire.
+ */
+@Service
+public class SubscriptionHistoryService {
+
+    /** Colonnes suivies de subscriptions_aud et nom du champ correspondant. */
+    static final Map<String, String> TRACKED_COLUMNS = trackedColumns();
+
+    private static final String[] REVISION_TYPES = { "ADD", "MOD", "DEL" };
+
+    private static final String SELECT_REVISIONS = "SELECT a.id, a.rev, a.revtype, r.revtstmp, "
+            + TRACKED_COLUMNS.keySet().stream().map(column -> "a." + column).collect(Collectors.joining(", "))
+            + " FROM subscriptions_aud a JOIN revinfo r ON r.rev = a.rev";
+
+    /** Révision lue dans la table d'audit ; {@code values} suit l'ordre de {@link #TRACKED_COLUMNS}. */
+    record AuditRow(long subscriptionId, long revision, Instant timestamp, int revisionType, Object[] values) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+
+    public SubscriptionHistoryService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            @Value("${subscription.history.max-page-size:100}") int maxPageSize,
+            @Value("${subscription.history.export-fetch-size:500}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+        // Avec PostgreSQL, fetchSize dans une transaction ouvre un curseur côté serveur.
+        this.exportJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportJdbcTemplate.setFetchSize(exportFetchSize);
+    }
+
+    /**
+     * Page de l'historique d'un abonnement, de la révision la plus récente à la
+     * plus ancienne.
+     *
+     * @param subscriptionId L'ID de l'abonnement.
+     * @param before         Le curseur de la page précédente, ou null pour la
+     *                       première page.
+     * @param size           Le nombre maximal de révisions de la page.
+     * @throws IllegalArgumentException si la taille est hors limites.
+     */
+    @Transactional(readOnly = true)
+    public SubscriptionHistoryPage getHistory(Long subscriptionId, Long before, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + maxPageSize);
+        }
+        // Une ligne de plus : la révision qui précède la dernière de la page.
+        List<AuditRow> rows = jdbcTemplate.query(
+                SELECT_REVISIONS + " WHERE a.id = ? AND a.rev < ? ORDER BY a.rev DESC LIMIT ?",
+                (rs, rowNum) -> toRow(rs),
+                subscriptionId, before != null ? before : Long.MAX_VALUE, size + 1);
+        return toPage(rows, size);
+    }
+
+    /**
+     * Écrit la piste d'audit des abonnements en NDJSON, une révision par ligne,
+     * triée par abonnement puis par révision. La première révision de chaque
+     * abonnement dans la période contient tous ses champs renseignés.
+     *
+     * @param from Début de la période (inclus), ou null.
+     * @param to   Fin de la période (exclue), ou null.
+     * @param out  Le flux de sortie, laissé ouvert.
+     * @return Le nombre de révisions écrites.
+     */
+    @Transactional(readOnly = true)
+    public long exportAuditTrail(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_REVISIONS).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND r.revtstmp >= ?");
+            args.add(from.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        if (to != null) {
+            sql.append(" AND r.revtstmp < ?");
+            args.add(to.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        sql.append(" ORDER BY a.id, a.rev");
+
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        AtomicLong written = new AtomicLong();
+        RowCallbackHandler handler = new RowCallbackHandler() {
+            private AuditRow previous;
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                AuditRow row = toRow(rs);
+                AuditRow base = previous != null && previous.subscriptionId() == row.subscriptionId()
+                        ? previous
+                        : null;
+                try {
+                    buffered.write(objectMapper.writeValueAsBytes(toRevision(row, base)));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                previous = row;
+                written.incrementAndGet();
+            }
+        };
+        try {
+            exportJdbcTemplate.query(sql.toString(), handler, args.toArray());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffered.flush();
+        return written.get();
+    }
+
+    /**
+     * @param rows Les révisions lues, de la plus récente à la plus ancienne,
+     *             au plus {@code size + 1}.
+     */
+    static SubscriptionHistoryPage toPage(List<AuditRow> rows, int size) {
+        int count = Math.min(size, rows.size());
+        List<SubscriptionRevision> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(toRevision(rows.get(i), i + 1 < rows.size() ? rows.get(i + 1) : null));
+        }
+        Long nextCursor = rows.size() > size ? rows.get(size - 1).revision() : null;
+        return new SubscriptionHistoryPage(items, nextCursor);
+    }
+
+    /**
+     * @param previous La révision précédente du même abonnement, ou null.
+     */
+    static SubscriptionRevision toRevision(AuditRow row, AuditRow previous) {
+        Map<String, SubscriptionRevision.FieldChange> changes = new LinkedHashMap<>();
+        if (row.values() != null) {
+            int i = 0;
+            for (String field : TRACKED_COLUMNS.values()) {
+                Object before = previous != null && previous.values() != null ? previous.values()[i] : null;
+                Object after = row.values()[i];
+                if (!Objects.equals(before, after)) {
+                    changes.put(field, new SubscriptionRevision.FieldChange(before, after));
+                }
+                i++;
+            }
+        }
+        String type = row.revisionType() >= 0 && row.revisionType() < REVISION_TYPES.length
+                ? REVISION_TYPES[row.revisionType()]
+                : String.valueOf(row.revisionType());
+        return new SubscriptionRevision(row.subscriptionId(), row.revision(), row.timestamp(), type, changes);
+    }
+
+    private static AuditRow toRow(ResultSet rs) throws SQLException {
+        int revisionType = rs.getInt("revtype");
+        Object[] values = null;
+        // Envers n'enregistre pas les valeurs d'une suppression.
+        if (revisionType != 2) {
+            values = new Object[TRACKED_COLUMNS.size()];
+            int i = 0;
+            for (String column : TRACKED_COLUMNS.keySet()) {
+                Object value = rs.getObject(column);
+                values[i++] = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+            }
+        }
+        return new AuditRow(rs.getLong("id"), rs.getLong("rev"), Instant.ofEpochMilli(rs.getLong("revtstmp")),
+                revisionType, values);
+    }
+
+    /**
+     * updated_at est exclue : elle change à chaque révision et la date de la
+     * révision la donne déjà.
+     */
+    private static Map<String, String> trackedColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("user_id", "userId");
+        columns.put("level_id", "subscriptionLevelId");
+        columns.put("promotion_code_id", "promotionId");
+        columns.put("status", "status");
+        columns.put("creation_time_stamp", "creationTimestamp");
+        columns.put("start_date", "startDate");
+        columns.put("end_date", "endDate");
+        columns.put("auto_renew", "autoRenew");
+        columns.put("payment_date", "paymentDate");
+        columns.put("payment_id", "paymentId");
+        columns.put("next_renewal_date", "nextRenewalDate");
+        columns.put("next_billing_date", "nextBillingDate");
+        columns.put("next_retry_date", "nextRetryDate");
+        columns.put("customer_id", "customerId");
+        columns.put("subscription_id", "stripeSubscriptionId");
+        columns.put("price_id", "priceId");
+        columns.put("price", "price");
+        columns.put("currency", "currency");
+        columns.put("last_payment_error", "lastPaymentError");
+        columns.put("trial_start_date", "trialStartDate");
+        columns.put("trial_end_date", "trialEndDate");
+        columns.put("refund_date", "refundDate");
+        columns.put("refund_amount", "refundAmount");
+        columns.put("cancelled_at", "cancelledAt");
+        columns.put("stripe_charge_id", "stripeChargeId");
+        columns.put("last_activity", "lastActivity");
+        return Collections.unmodifiableMap(columns);
+    }
+}
@@ -1,42 +1,63 @@
 package com.videoflix.subscriptions_microservice.services;
 
+import com.videoflix.subscriptions_microservice.entities.SubscriptionMetric;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionMetric.Granularity;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionMetricRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
+/**
+ * Stockage des métriques d'abonnement sous forme de séries temporelles
+ * persistées dans {@code subscription_metrics}. Les points journaliers sont
+ * réduits en points mensuels puis annuels, et les points anciens sont purgés
+ * selon la rétention configurée : la mémoire utilisée ne dépend plus de la
+ * durée de fonctionnement du service.
+ */
 @Service
 public class SubscriptionMetricsService {
 
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionMetricsService.class);
 
-    // Utilisation d'une ConcurrentHashMap pour la thread-safety, car cette tâche
-    // est planifiée
-    private final Map<LocalDate, Map<String, Number>> dailyMetrics = new ConcurrentHashMap<>();
+    // Métriques instantanées : la réduction garde la dernière valeur de la période
+    // au lieu de la somme.
+    static final Set<String> GAUGE_METRICS = Set.of("active_subscriptions_end");
+
+    private final SubscriptionMetricRepository metricRepository;
+    private final int dailyRetentionDays;
+    private final int monthlyRetentionMonths;
+
+    public SubscriptionMetricsService(SubscriptionMetricRepository metricRepository,
+            @Value("${metrics.retention.daily-days:400}") int dailyRetentionDays,
+            @Value("${metrics.retention.monthly-months:60}") int monthlyRetentionMonths) {
+        this.metricRepository = metricRepository;
+        this.dailyRetentionDays = dailyRetentionDays;
+        this.monthlyRetentionMonths = monthlyRetentionMonths;
+    }
 
     /**
-     * Enregistre une métrique quotidienne. Si la date existe déjà, la métrique est
-     * ajoutée
-     * ou mise à jour dans la map des métriques de cette date.
+     * Enregistre une métrique quotidienne. Si la métrique existe déjà pour cette
+     * date, sa valeur est remplacée.
      *
      * @param metricName Le nom de la métrique (par exemple, "new_subscriptions",
      *                   "daily_revenue").
      * @param date       La date à laquelle la métrique se rapporte.
      * @param value      La valeur de la métrique.
      */
+    @Transactional
     public void recordDailyMetric(String metricName, LocalDateTime date, Number value) {
-        LocalDate dateKey = date.toLocalDate();
-        dailyMetrics.compute(dateKey, (key, existingMetrics) -> {
-            Map<String, Number> metrics = (existingMetrics == null) ? new HashMap<>() : existingMetrics;
-            metrics.put(metricName, value);
-            logger.debug("Métrique '{}' enregistrée pour le {} avec la valeur: {}", metricName, date, value);
-            return metrics;
-        });
+        metricRepository.upsert(metricName, Granularity.DAILY.name(), date.toLocalDate(), value.doubleValue());
+        logger.debug("Métrique '{}' enregistrée pour le {} avec la valeur: {}", metricName, date, value);
     }
 
     /**
@@ -44,12 +65,15 @@ public class SubscriptionMetricsService {
      *
      * @param date La date pour laquelle récupérer les métriques.
      * @return Une map contenant les noms des métriques et leurs valeurs pour la
-     *         date donnée,
-     *         ou une map vide si aucune métrique n'a été enregistrée pour cette
-     *         date.
+     *         date donnée, ou une map vide si aucune métrique n'a été enregistrée
+     *         pour cette date.
      */
     public Map<String, Number> getDailyMetrics(LocalDate date) {
-        return dailyMetrics.getOrDefault(date, new HashMap<>());
+        Map<String, Number> metrics = new HashMap<>();
+        for (SubscriptionMetric metric : metricRepository.findByGranularityAndPeriodStart(Granularity.DAILY, date)) {
+            metrics.put(metric.getMetricName(), metric.getValue());
+        }
+        return metrics;
     }
 
     /**
@@ -61,18 +85,91 @@ public class SubscriptionMetricsService {
      *         n'existe pas.
      */
     public Number getDailyMetric(String metricName, LocalDate date) {
-        Map<String, Number> metrics = dailyMetrics.get(date);
-        if (metrics != null) {
-            return metrics.get(metricName);
+        return metricRepository.findByMetricNameAndGranularityAndPeriodStart(metricName, Granularity.DAILY, date)
+                .map(SubscriptionMetric::getValue)
+                .orElse(null);
+    }
+
+    /**
+     * Récupère la série d'une métrique entre deux dates incluses.
+     *
+     * @param metricName  Le nom de la métrique.
+     * @param granularity La granularité des points (jour, mois ou année).
+     * @param startDate   Début de la plage (premier jour de période inclus).
+     * @param endDate     Fin de la plage (premier jour de période inclus).
+     * @return Les valeurs par début de période, triées par date.
+     */
+    public Map<LocalDate, Double> getMetricSeries(String metricName, Granularity granularity, LocalDate startDate,
+            LocalDate endDate) {
+        Map<LocalDate, Double> series = new LinkedHashMap<>();
+        for (SubscriptionMetric metric : metricRepository
+                .findByMetricNameAndGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(metricName, granularity,
+                        startDate, endDate)) {
+            series.put(metric.getPeriodStart(), metric.getValue());
         }
-        return null;
+        return series;
     }
 
+    /**
+     * Réduit le mois écoulé en points mensuels, puis son année en points annuels.
+     */
     public void aggregateMonthlyMetrics() {
-        logger.info("Début de l'agrégation des métriques mensuelles (implémentation à ajouter).");
+        aggregateMonthlyMetrics(YearMonth.now().minusMonths(1));
     }
 
-    public void persistMetrics() {
-        logger.info("Début de la persistance des métriques (implémentation à ajouter).");
+    /**
+     * Réduit les points journaliers du mois donné en un point mensuel par
+     * métrique, puis les points mensuels de son année en un point annuel. Peut
+     * être rejoué sans effet de bord pour reconstruire un mois.
+     *
+     * @param month Le mois à réduire.
+     */
+    @Transactional
+    public void aggregateMonthlyMetrics(YearMonth month) {
+        logger.info("Début de l'agrégation des métriques mensuelles pour {}.", month);
+        LocalDate monthStart = month.atDay(1);
+        int monthly = downsample(Granularity.DAILY, monthStart, month.atEndOfMonth(), Granularity.MONTHLY,
+                monthStart);
+
+        LocalDate yearStart = LocalDate.of(month.getYear(), 1, 1);
+        int yearly = downsample(Granularity.MONTHLY, yearStart, yearStart.withDayOfYear(yearStart.lengthOfYear()),
+                Granularity.YEARLY, yearStart);
+        logger.info("Agrégation des métriques terminée pour {} : {} points mensuels, {} points annuels.", month,
+                monthly, yearly);
+    }
+
+    /**
+     * Purge les points journaliers et mensuels plus anciens que la rétention
+     * configurée. Les points annuels sont conservés.
+     *
+     * @return Le nombre de points supprimés.
+     */
+    @Transactional
+    public int applyRetention() {
+        LocalDate today = LocalDate.now();
+        int deleted = metricRepository.deleteByGranularityAndPeriodStartBefore(Granularity.DAILY,
+                today.minusDays(dailyRetentionDays));
+        deleted += metricRepository.deleteByGranularityAndPeriodStartBefore(Granularity.MONTHLY,
+                today.withDayOfMonth(1).minusMonths(monthlyRetentionMonths));
+        logger.info("Rétention des métriques appliquée : {} points supprimés.", deleted);
+        return deleted;
+    }
+
+    private int downsample(Granularity source, LocalDate startDate, LocalDate endDate, Granularity target,
+            LocalDate targetPeriod) {
+        // Points sources triés par date : la dernière valeur lue est la plus récente.
+        Map<String, double[]> reduced = new LinkedHashMap<>();
+        for (SubscriptionMetric point : metricRepository
+                .findByGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(source, startDate, endDate)) {
+            double[] value = reduced.computeIfAbsent(point.getMetricName(), name -> new double[1]);
+            if (GAUGE_METRICS.contains(point.getMetricName())) {
+                value[0] = point.getValue();
+            } else {
+                value[0] += point.getValue();
+            }
+        }
+        reduced.forEach((metricName, value) -> metricRepository.upsert(metricName, target.name(), targetPeriod,
+                value[0]));
+        return reduced.size();
     }
-}
\ No newline at end of file
+}
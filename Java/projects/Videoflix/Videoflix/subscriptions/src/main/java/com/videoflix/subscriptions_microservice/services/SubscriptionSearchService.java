@@ -0,0 +1,209 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchCriteria;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchPage;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recherche d'abonnements pour l'administration.
+ * <p>
+ * Les filtres sont typés (statut et niveau en énumérations, plages de dates sur
+ * le début, la fin et la prochaine facturation) et la pagination se fait par
+ * clé sur l'ID, du plus récent au plus ancien : une page lit {@code size + 1}
+ * lignes quelle que soit sa profondeur, au lieu de parcourir et d'écarter
+ * toutes les lignes des pages précédentes. L'utilisateur et le niveau sont
+ * joints dans la même requête et projetés en {@link SubscriptionSummary}. Le
+ * total n'est calculé que s'il est demandé, soit exactement (count), soit à
+ * partir de l'estimation du planificateur PostgreSQL, sans parcourir la table.
+ */
+@Service
+public class SubscriptionSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionSearchService.class);
+
+    /** Calcul du nombre total de résultats. */
+    public enum CountMode {
+        NONE, ESTIMATE, EXACT;
+
+        public static CountMode fromString(String text) {
+            for (CountMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(text)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Mode de comptage inconnu : " + text);
+        }
+    }
+
+    /** Requête SQL et ses paramètres, dans l'ordre. */
+    record SqlQuery(String sql, List<Object> args) {
+    }
+
+    private static final String SELECT_SUMMARIES = "SELECT s.id, s.user_id, u.username, u.email, l.level, "
+            + "s.status, s.start_date, s.end_date, s.next_billing_date, s.auto_renew, s.price, s.currency "
+            + "FROM subscriptions s JOIN users u ON u.id = s.user_id "
+            + "JOIN subscription_levels l ON l.id = s.level_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+
+    public SubscriptionSearchService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            @Value("${subscription.search.max-page-size:100}") int maxPageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Recherche les abonnements correspondant aux filtres.
+     *
+     * @param after Le curseur de la page précédente, ou null pour la première
+     *              page.
+     * @param size  Le nombre maximal d'abonnements de la page.
+     * @param count Le calcul du total souhaité.
+     * @throws IllegalArgumentException si la taille est hors limites.
+     */
+    @Transactional(readOnly = true)
+    public SubscriptionSearchPage search(SubscriptionSearchCriteria criteria, Long after, int size,
+            CountMode count) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + maxPageSize);
+        }
+        SqlQuery page = pageQuery(criteria, after, size + 1);
+        List<SubscriptionSummary> rows = jdbcTemplate.query(page.sql(), (rs, rowNum) -> toSummary(rs),
+                page.args().toArray());
+
+        boolean hasNext = rows.size() > size;
+        List<SubscriptionSummary> items = hasNext ? rows.subList(0, size) : rows;
+        Long nextCursor = hasNext ? items.get(size - 1).id() : null;
+
+        Long total = switch (count) {
+            case NONE -> null;
+            case EXACT -> exactCount(criteria);
+            case ESTIMATE -> estimatedCount(criteria);
+        };
+        return new SubscriptionSearchPage(List.copyOf(items), nextCursor, total, count == CountMode.ESTIMATE);
+    }
+
+    /**
+     * Page suivant le curseur, triée par ID décroissant : l'index de la clé
+     * primaire fournit l'ordre, les filtres sélectifs passent par les index
+     * de la table des abonnements.
+     */
+    static SqlQuery pageQuery(SubscriptionSearchCriteria criteria, Long after, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_SUMMARIES).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendFilters(criteria, sql, args);
+        if (after != null) {
+            sql.append(" AND s.id < ?");
+            args.add(after);
+        }
+        sql.append(" ORDER BY s.id DESC LIMIT ?");
+        args.add(limit);
+        return new SqlQuery(sql.toString(), args);
+    }
+
+    /**
+     * Sélection sans jointure ni tri, pour le comptage et l'estimation : le
+     * niveau est filtré par sous-requête sur la petite table des niveaux.
+     */
+    static SqlQuery matchQuery(SubscriptionSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder("SELECT s.id FROM subscriptions s WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendFilters(criteria, sql, args);
+        return new SqlQuery(sql.toString(), args);
+    }
+
+    private long exactCount(SubscriptionSearchCriteria criteria) {
+        SqlQuery match = matchQuery(criteria);
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + match.sql() + ") m", Long.class,
+                match.args().toArray());
+        return total != null ? total : 0L;
+    }
+
+    /**
+     * Nombre de lignes estimé par le planificateur (EXPLAIN, sans exécuter la
+     * requête). Repli sur le comptage exact si le plan est illisible.
+     */
+    private long estimatedCount(SubscriptionSearchCriteria criteria) {
+        SqlQuery match = matchQuery(criteria);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + match.sql(), String.class,
+                match.args().toArray());
+        try {
+            return parsePlanRows(plan, objectMapper);
+        } catch (JsonProcessingException | IllegalStateException e) {
+            logger.warn("Estimation du nombre d'abonnements impossible, comptage exact.", e);
+            return exactCount(criteria);
+        }
+    }
+
+    static long parsePlanRows(String plan, ObjectMapper objectMapper) throws JsonProcessingException {
+        JsonNode rows = plan == null ? null : objectMapper.readTree(plan).path(0).path("Plan").get("Plan Rows");
+        if (rows == null || !rows.isNumber()) {
+            throw new IllegalStateException("Plan sans estimation de lignes : " + plan);
+        }
+        return rows.asLong();
+    }
+
+    private static void appendFilters(SubscriptionSearchCriteria criteria, StringBuilder sql, List<Object> args) {
+        if (criteria.userId() != null) {
+            sql.append(" AND s.user_id = ?");
+            args.add(criteria.userId());
+        }
+        if (criteria.status() != null) {
+            sql.append(" AND s.status = ?");
+            args.add(criteria.status().name());
+        }
+        if (criteria.level() != null) {
+            sql.append(" AND s.level_id IN (SELECT sl.id FROM subscription_levels sl WHERE sl.level = ?)");
+            args.add(criteria.level().name());
+        }
+        appendRange("s.start_date", criteria.startFrom(), criteria.startTo(), sql, args);
+        appendRange("s.end_date", criteria.endFrom(), criteria.endTo(), sql, args);
+        appendRange("s.next_billing_date", criteria.nextBillingFrom(), criteria.nextBillingTo(), sql, args);
+    }
+
+    private static void appendRange(String column, LocalDateTime from, LocalDateTime to, StringBuilder sql,
+            List<Object> args) {
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            args.add(to);
+        }
+    }
+
+    private static SubscriptionSummary toSummary(ResultSet rs) throws SQLException {
+        return new SubscriptionSummary(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("level"),
+                rs.getString("status"),
+                rs.getObject("start_date", LocalDateTime.class),
+                rs.getObject("end_date", LocalDateTime.class),
+                rs.getObject("next_billing_date", LocalDateTime.class),
+                rs.getBoolean("auto_renew"),
+                rs.getDouble("price"),
+                rs.getString("currency"));
+    }
+}
@@ -5,10 +5,15 @@ import com.stripe.model.Refund;
 import com.stripe.param.RefundCreateParams;
 import com.stripe.param.RefundCreateParams.Reason;
 import com.videoflix.subscriptions_microservice.dtos.AdminUpdateSubscriptionRequest;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionExpirationReport;
 import com.videoflix.subscriptions_microservice.entities.Promotion;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 import com.videoflix.subscriptions_microservice.entities.User;
+import com.videoflix.subscriptions_microservice.events.NewSubscriptionCreatedEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionCancelledEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionLevelChangedEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionRenewedEvent;
 import com.videoflix.subscriptions_microservice.exceptions.StripeIntegrationException;
 import com.videoflix.subscriptions_microservice.integration.AccessControlEventPublisher;
 import com.videoflix.subscriptions_microservice.integration.SubscriptionCancelledEventPublisher;
@@ -21,22 +26,19 @@ import com.videoflix.subscriptions_microservice.repositories.SubscriptionReposit
 import com.videoflix.subscriptions_microservice.repositories.UserRepository;
 
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.Predicate;
 import jakarta.transaction.Transactional;
 
-import org.hibernate.envers.AuditReader;
-import org.hibernate.envers.AuditReaderFactory;
-import org.hibernate.envers.query.AuditEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +48,8 @@ public class SubscriptionService {
     private static final String USER_NOT_FOUND_MESSAGE = "User not found with ID : ";
     private static final String SUBSCRIPTION_NOT_FOUND_MESSAGE = "Subscription not found";
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionService.class);
+    // Taille des pages (keyset) lues lors de la vérification des expirations
+    static final int EXPIRATION_CHUNK_SIZE = 500;
 
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionLevelRepository subscriptionLevelRepository;
@@ -59,6 +63,10 @@ public class SubscriptionService {
     private final SubscriptionReactivatedEventPublisher subscriptionReactivatedEventPublisher;
     private final AccessControlEventPublisher accessControlEventPublisher;
     private final StripeBillingService stripeBillingService;
+    private final EmailService emailService;
+    private final PushNotificationService pushNotificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     public SubscriptionService(SubscriptionRepository subscriptionRepository,
             SubscriptionLevelRepository subscriptionLevelRepository,
@@ -71,7 +79,11 @@ public class SubscriptionService {
             SubscriptionRenewedEventPublisher subscriptionRenewedEventPublisher,
             SubscriptionReactivatedEventPublisher subscriptionReactivatedEventPublisher,
             AccessControlEventPublisher accessControlEventPublisher,
-            StripeBillingService stripeBillingService) {
+            StripeBillingService stripeBillingService,
+            EmailService emailService,
+            PushNotificationService pushNotificationService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
         this.subscriptionRepository = subscriptionRepository;
         this.subscriptionLevelRepository = subscriptionLevelRepository;
         this.promotionRepository = promotionRepository;
@@ -84,6 +96,10 @@ public class SubscriptionService {
         this.subscriptionReactivatedEventPublisher = subscriptionReactivatedEventPublisher;
         this.accessControlEventPublisher = accessControlEventPublisher;
         this.stripeBillingService = stripeBillingService;
+        this.emailService = emailService;
+        this.pushNotificationService = pushNotificationService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     // Méthodes pour gérer les abonnements
@@ -91,8 +107,11 @@ public class SubscriptionService {
     public Subscription createSubscription(Subscription subscription) {
         validateSubscription(subscription);
 
-        return subscriptionRepository.save(subscription); // Crée un nouvel abonnement et le sauvegarde dans la base de
-                                                          // données
+        Subscription savedSubscription = subscriptionRepository.save(subscription); // Crée un nouvel abonnement et le
+                                                                                    // sauvegarde dans la base de données
+        eventPublisher.publishEvent(new NewSubscriptionCreatedEvent(this, savedSubscription.getUser(),
+                savedSubscription));
+        return savedSubscription;
     }
 
     public Subscription getSubscriptionById(Long id) {
@@ -111,8 +130,16 @@ public class SubscriptionService {
         // Met à jour un abonnement existant
         Optional<Subscription> subscriptionOptional = subscriptionRepository.findById(id);
         if (subscriptionOptional.isPresent()) {
+            Subscription existing = subscriptionOptional.get();
+            // Lus avant l'enregistrement, qui recopie la requête dans l'entité chargée
+            String oldLevelString = levelName(existing.getSubscriptionLevel());
+            SubscriptionLevel.Level initialLevel = existing.getInitialLevel() != null ? existing.getInitialLevel()
+                    : levelOf(existing.getSubscriptionLevel());
             subscription.setId(id); // Assure que l'ID de l'abonnement mis à jour est correct
-            return subscriptionRepository.save(subscription);
+            subscription.setInitialLevel(initialLevel);
+            Subscription saved = subscriptionRepository.save(subscription);
+            publishLevelChange(saved, oldLevelString);
+            return saved;
         }
         return null; // Retourne null si l'abonnement n'existe pas
     }
@@ -124,8 +151,10 @@ public class SubscriptionService {
 
         if (subscriptionOptional.isPresent() && newSubscriptionLevelOptional.isPresent()) {
             Subscription subscription = subscriptionOptional.get();
-            subscription.setSubscriptionLevel(newSubscriptionLevelOptional.get());
-            return subscriptionRepository.save(subscription);
+            String oldLevelString = applyLevel(subscription, newSubscriptionLevelOptional.get());
+            Subscription saved = subscriptionRepository.save(subscription);
+            publishLevelChange(saved, oldLevelString);
+            return saved;
         }
         return null; // Retourne null si l'abonnement ou le nouveau niveau n'existe pas
     }
@@ -210,61 +239,82 @@ public class SubscriptionService {
         activeSubscription.setEndDate(activeSubscription.getEndDate().plusMonths(1));
         activeSubscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
         subscriptionRepository.save(activeSubscription);
-        EmailService emailService = new EmailService(null);
         // Logique de renouvellement de l'abonnement
         emailService.sendSubscriptionRenewalNotification(userEmail, subscriptionLevel);
         if (pushToken != null && !pushToken.isEmpty()) {
-            PushNotificationService pushNotificationService = new PushNotificationService(null);
             pushNotificationService.sendSubscriptionRenewalPushNotification(pushToken, subscriptionLevel);
         }
     }
 
-    @Transactional
-    public void checkSubscriptionExpirations() {
-        LocalDateTime today = LocalDateTime.now();
-
-        // Rechercher les abonnements qui expirent dans 3 jours
-        List<Subscription> expiringSoon = subscriptionRepository.findAll().stream()
-                .filter(sub -> sub.getStatus() == Subscription.SubscriptionStatus.ACTIVE
-                        && sub.getEndDate().isEqual(today.plusDays(3)))
-                .toList();
-
-        expiringSoon.forEach(subscription -> {
-            User user = subscription.getUser();
-            EmailService emailService = new EmailService(null);
-            emailService.sendSubscriptionExpirationImminentNotification(user.getEmail(),
-                    subscription.getSubscriptionLevel(), subscription.getEndDate());
-
-            // Envoyer une notification push si le token est disponible
-            if (user.getPushToken() != null && !user.getPushToken().isEmpty()) {
-                PushNotificationService pushNotificationService = new PushNotificationService(null);
-                pushNotificationService.sendSubscriptionExpirationImminentPushNotification(user.getPushToken(),
-                        subscription.getSubscriptionLevel(), subscription.getEndDate());
+    /**
+     * Notifie les abonnements actifs expirant dans 3 jours puis passe au statut
+     * EXPIRED ceux dont la date de fin est dépassée.
+     * <p>
+     * Les deux passes lisent la base par pages keyset (id croissant) sur l'index
+     * (status, end_date, id) : la mémoire reste bornée à une page quel que soit le
+     * volume, et les notifications sont envoyées par lot pour chaque page.
+     * <p>
+     * Chaque page expirée est écrite dans sa propre transaction, validée avant
+     * l'envoi des notifications : pas de transaction ouverte sur tout le parcours,
+     * ce qui retarderait la visibilité des updated_at pour la synchronisation.
+     *
+     * @return le nombre de lignes lues et traitées
+     */
+    public SubscriptionExpirationReport checkSubscriptionExpirations() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime imminentFrom = now.toLocalDate().plusDays(3).atStartOfDay();
+        LocalDateTime imminentTo = imminentFrom.plusDays(1);
+        Pageable chunk = PageRequest.of(0, EXPIRATION_CHUNK_SIZE);
+        long scanned = 0;
+        long notified = 0;
+        long expired = 0;
+
+        // Abonnements qui expirent dans 3 jours (lecture seule)
+        long lastId = 0L;
+        List<Subscription> expiringSoon;
+        do {
+            expiringSoon = subscriptionRepository.findKeysetByStatusAndEndDateRange(
+                    Subscription.SubscriptionStatus.ACTIVE, imminentFrom, imminentTo, lastId, chunk);
+            if (expiringSoon.isEmpty()) {
+                break;
             }
-        });
-
-        // Rechercher les abonnements expirés
-        List<Subscription> expired = subscriptionRepository.findAll().stream()
-                .filter(sub -> sub.getStatus() == Subscription.SubscriptionStatus.ACTIVE
-                        && sub.getEndDate().isBefore(today))
-                .toList();
-
-        expired.forEach(subscription -> {
-            subscription.setStatus(Subscription.SubscriptionStatus.EXPIRED);
-            subscriptionRepository.save(subscription);
-
-            User user = subscription.getUser();
-            EmailService emailService = new EmailService(null);
-            emailService.sendSubscriptionExpirationImminentNotification(user.getEmail(),
-                    subscription.getSubscriptionLevel(), subscription.getEndDate());
-
-            // Envoyer une notification push pour l'expiration
-            if (user.getPushToken() != null && !user.getPushToken().isEmpty()) {
-                PushNotificationService pushNotificationService2 = new PushNotificationService(null);
-                pushNotificationService2.sendSubscriptionExpirationPushNotification(user.getPushToken(),
-                        subscription.getSubscriptionLevel());
+            scanned += expiringSoon.size();
+            notified += expiringSoon.size();
+            lastId = expiringSoon.get(expiringSoon.size() - 1).getId();
+
+            emailService.sendSubscriptionExpirationImminentNotifications(expiringSoon);
+            pushNotificationService.sendSubscriptionExpirationImminentPushNotifications(expiringSoon);
+        } while (expiringSoon.size() == EXPIRATION_CHUNK_SIZE);
+
+        // Abonnements expirés : une transaction par page
+        lastId = 0L;
+        List<Subscription> alreadyExpired;
+        do {
+            long after = lastId;
+            alreadyExpired = transactionTemplate.execute(status -> {
+                List<Subscription> page = subscriptionRepository.findKeysetByStatusAndEndDateBefore(
+                        Subscription.SubscriptionStatus.ACTIVE, now, after, chunk);
+                page.forEach(subscription -> subscription.setStatus(Subscription.SubscriptionStatus.EXPIRED));
+                if (!page.isEmpty()) {
+                    subscriptionRepository.saveAll(page);
+                }
+                return page;
+            });
+            if (alreadyExpired == null || alreadyExpired.isEmpty()) {
+                break;
             }
-        });
+            scanned += alreadyExpired.size();
+            expired += alreadyExpired.size();
+            lastId = alreadyExpired.get(alreadyExpired.size() - 1).getId();
+
+            emailService.sendSubscriptionExpirationImminentNotifications(alreadyExpired);
+            pushNotificationService.sendSubscriptionExpirationPushNotifications(alreadyExpired);
+        } while (alreadyExpired.size() == EXPIRATION_CHUNK_SIZE);
+
+        SubscriptionExpirationReport report = new SubscriptionExpirationReport(scanned, notified, expired);
+        logger.info("Vérification des expirations : {} lignes lues, {} notifiées, {} expirées.",
+                report.scanned(), report.notified(), report.expired());
+        return report;
     }
 
     @Transactional
@@ -281,10 +331,8 @@ public class SubscriptionService {
         if (subscriptionToUpdate != null) {
             subscriptionToUpdate.setStatus(Subscription.SubscriptionStatus.PAYMENT_FAILED);
             subscriptionRepository.save(subscriptionToUpdate);
-            EmailService emailService = new EmailService(null);
             emailService.sendPaymentFailedNotification(userEmail, subscriptionLevel);
             if (pushToken != null && !pushToken.isEmpty()) {
-                PushNotificationService pushNotificationService = new PushNotificationService(null);
                 pushNotificationService.sendPaymentFailedPushNotification(pushToken, subscriptionLevel);
             }
         }
@@ -311,10 +359,8 @@ public class SubscriptionService {
                 subscriptionToUpdate.setEndDate(subscriptionToUpdate.getEndDate().plusMonths(1));
             }
             subscriptionRepository.save(subscriptionToUpdate);
-            EmailService emailService = new EmailService(null);
             emailService.sendPaymentRetrySuccessNotification(userEmail, subscriptionLevel);
             if (pushToken != null && !pushToken.isEmpty()) {
-                PushNotificationService pushNotificationService = new PushNotificationService(null);
                 pushNotificationService.sendPaymentRetrySuccessPushNotification(pushToken, subscriptionLevel);
             }
         } else {
@@ -364,7 +410,9 @@ public class SubscriptionService {
                 newSubscription.setNextBillingDate(LocalDateTime.now().plus(1, java.time.temporal.ChronoUnit.MONTHS));
             }
 
-            return subscriptionRepository.save(newSubscription);
+            Subscription savedSubscription = subscriptionRepository.save(newSubscription);
+            eventPublisher.publishEvent(new NewSubscriptionCreatedEvent(this, user, savedSubscription));
+            return savedSubscription;
 
         } catch (StripeException e) {
             throw new StripeIntegrationException(
@@ -372,18 +420,6 @@ public class SubscriptionService {
         }
     }
 
-    // Historique des abonnements
-    public List<Object[]> getSubscriptionHistory(Long subscriptionId) {
-        AuditReader reader = AuditReaderFactory.get(entityManager);
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> result = reader.createQuery()
-                .forRevisionsOfEntity(Subscription.class, false, true)
-                .add(AuditEntity.id().eq(subscriptionId))
-                .getResultList();
-        return result;
-    }
-
     @Transactional
     public Subscription updateSubscriptionByAdmin(Long id, AdminUpdateSubscriptionRequest updateRequest) {
         Optional<Subscription> subscriptionOptional = subscriptionRepository.findById(id);
@@ -399,13 +435,16 @@ public class SubscriptionService {
             if (updateRequest.getEndDate() != null) {
                 subscription.setEndDate(updateRequest.getEndDate());
             }
+            String oldLevelString = levelName(subscription.getSubscriptionLevel());
             if (updateRequest.getSubscriptionLevelId() != null) {
                 Optional<SubscriptionLevel> levelOptional = subscriptionLevelRepository
                         .findById(updateRequest.getSubscriptionLevelId());
-                levelOptional.ifPresent(subscription::setSubscriptionLevel);
+                levelOptional.ifPresent(level -> applyLevel(subscription, level));
             }
 
-            return subscriptionRepository.save(subscription);
+            Subscription saved = subscriptionRepository.save(subscription);
+            publishLevelChange(saved, oldLevelString);
+            return saved;
         }
         return null;
     }
@@ -430,35 +469,6 @@ public class SubscriptionService {
         }
     }
 
-    public List<Subscription> searchSubscriptions(Long userId, String status, String subscriptionLevel, int page,
-            int size) {
-        Pageable pageable = PageRequest.of(page, size);
-
-        Specification<Subscription> spec = (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (userId != null) {
-                predicates.add(criteriaBuilder.equal(root.get("user").get("id"), userId));
-            }
-            if (status != null && !status.isEmpty()) {
-                predicates.add(criteriaBuilder.equal(root.get("status"), status));
-            }
-            if (subscriptionLevel != null && !subscriptionLevel.isEmpty()) {
-                predicates.add(criteriaBuilder.equal(root.get("subscriptionLevel"), subscriptionLevel));
-            }
-
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
-
-        Page<Subscription> subscriptionPage = subscriptionRepository.findAll(spec, pageable);
-        return subscriptionPage.getContent();
-    }
-
-    public List<Subscription> getAllSubscriptionsByFilters(Long userId, String status, String subscriptionLevel,
-            int page, int size) {
-        return searchSubscriptions(userId, status, subscriptionLevel, page, size);
-    }
-
     public void changeSubscriptionLevel(Long subscriptionId, String newLevelName) {
         // Récupérer l'abonnement existant
         Subscription subscription = subscriptionRepository.findById(subscriptionId)
@@ -481,15 +491,53 @@ public class SubscriptionService {
         }
 
         // Appliquer le changement
-        subscription.setSubscriptionLevel(newSubscriptionLevel);
+        applyLevel(subscription, newSubscriptionLevel);
         subscriptionRepository.save(subscription);
 
-        // Log du changement
-        logger.info("Changement du niveau d'abonnement pour ID {} : {} → {}",
-                subscriptionId, oldLevelString, newLevelString);
-
         // Publier l’Évènement
+        publishLevelChange(subscription, oldLevelString);
+    }
+
+    /**
+     * Change le niveau de l'abonnement en conservant son niveau initial, pour
+     * l'agrégat journalier.
+     *
+     * @return le nom de l'ancien niveau, ou null
+     */
+    private static String applyLevel(Subscription subscription, SubscriptionLevel newLevel) {
+        SubscriptionLevel oldLevel = subscription.getSubscriptionLevel();
+        if (subscription.getInitialLevel() == null) {
+            subscription.setInitialLevel(levelOf(oldLevel));
+        }
+        subscription.setSubscriptionLevel(newLevel);
+        return levelName(oldLevel);
+    }
+
+    /**
+     * Publie le changement de niveau d'un abonnement enregistré (RabbitMQ et
+     * évènement applicatif, qui met à jour l'agrégat journalier). Tout chemin
+     * qui modifie le niveau passe par ici ; rien n'est publié si le niveau est
+     * inchangé.
+     */
+    private void publishLevelChange(Subscription subscription, String oldLevelString) {
+        String newLevelString = levelName(subscription.getSubscriptionLevel());
+        if (newLevelString == null || newLevelString.equals(oldLevelString)) {
+            return;
+        }
+        logger.info("Changement du niveau d'abonnement pour ID {} : {} → {}",
+                subscription.getId(), oldLevelString, newLevelString);
         levelChangedEventPublisher.publishSubscriptionLevelChangedEvent(subscription, oldLevelString);
+        eventPublisher.publishEvent(new SubscriptionLevelChangedEvent(this, subscription.getUser(), subscription,
+                oldLevelString, newLevelString));
+    }
+
+    private static SubscriptionLevel.Level levelOf(SubscriptionLevel level) {
+        return level != null ? level.getLevel() : null;
+    }
+
+    private static String levelName(SubscriptionLevel level) {
+        SubscriptionLevel.Level levelEnum = levelOf(level);
+        return levelEnum != null ? levelEnum.name() : null;
     }
 
     /**
@@ -516,6 +564,7 @@ public class SubscriptionService {
         subscription.setCancelledAt(java.time.LocalDateTime.now()); // Enregistrer la date d'annulation
         subscriptionRepository.save(subscription);
         subscriptionCancelledEventPublisher.publishSubscriptionCancelledEvent(subscription, reason);
+        eventPublisher.publishEvent(new SubscriptionCancelledEvent(this, subscription, reason));
 
         // Informer le service de gestion des accès de l'annulation
         if (subscription.getUser() != null) {
@@ -593,6 +642,7 @@ public class SubscriptionService {
         subscription.setNextBillingDate(billingCalculationService.calculateNextBillingDate(subscription));
         subscriptionRepository.save(subscription);
         subscriptionRenewedEventPublisher.publishSubscriptionRenewedEvent(subscription);
+        eventPublisher.publishEvent(new SubscriptionRenewedEvent(this, subscription));
     }
 
     public void reactivateSubscription(Long subscriptionId) {
@@ -0,0 +1,97 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.events.NewSubscriptionCreatedEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionCancelledEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionLevelChangedEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionRenewedEvent;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionDailyStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+
+/**
+ * Maintient la table {@code subscription_daily_stats} à partir des évènements
+ * du cycle de vie des abonnements. Chaque évènement se traduit par un upsert
+ * atomique de la ligne (jour, niveau) ; les statistiques d'administration
+ * sont ensuite lues dans cet agrégat plutôt que dans la table des abonnements.
+ */
+@Service
+public class SubscriptionStatsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionStatsRollupService.class);
+
+    private final SubscriptionDailyStatsRepository dailyStatsRepository;
+
+    public SubscriptionStatsRollupService(SubscriptionDailyStatsRepository dailyStatsRepository) {
+        this.dailyStatsRepository = dailyStatsRepository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSubscriptionCreated(NewSubscriptionCreatedEvent event) {
+        Subscription subscription = event.getSubscription();
+        increment(levelOf(subscription), 1, 0, 0, 0, 0, StatsService.getPricePaid(subscription), 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSubscriptionCancelled(SubscriptionCancelledEvent event) {
+        increment(levelOf(event.getSubscription()), 0, 1, 0, 0, 0, 0, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSubscriptionRenewed(SubscriptionRenewedEvent event) {
+        Subscription subscription = event.getSubscription();
+        increment(levelOf(subscription), 0, 0, 1, 0, 0, 0, StatsService.getPricePaid(subscription));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSubscriptionLevelChanged(SubscriptionLevelChangedEvent event) {
+        if (event.getOldLevel() != null) {
+            increment(SubscriptionLevel.Level.fromString(event.getOldLevel()), 0, 0, 0, 0, 1, 0, 0);
+        }
+        if (event.getNewLevel() != null) {
+            increment(SubscriptionLevel.Level.fromString(event.getNewLevel()), 0, 0, 0, 1, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Recalcule depuis la table des abonnements les créations, les annulations
+     * et le revenu des créations. Les renouvellements, les changements de
+     * niveau et le revenu des renouvellements ne sont connus que par les
+     * évènements : ils sont conservés tels quels, sans être remis à zéro.
+     *
+     * @return le nombre de lignes d'agrégat créées ou mises à jour
+     */
+    @Transactional
+    public int rebuild() {
+        dailyStatsRepository.resetRecomputableCounters();
+        int rows = dailyStatsRepository.rebuildFromSubscriptions();
+        logger.info("Agrégat journalier des abonnements reconstruit : {} lignes.", rows);
+        return rows;
+    }
+
+    private void increment(SubscriptionLevel.Level level, long created, long cancelled, long renewed, long levelIn,
+            long levelOut, double newRevenue, double renewalRevenue) {
+        if (level == null) {
+            logger.warn("Évènement d'abonnement sans niveau ignoré par l'agrégat journalier.");
+            return;
+        }
+        dailyStatsRepository.increment(LocalDate.now(), level.name(), created, cancelled, renewed, levelIn,
+                levelOut, newRevenue, renewalRevenue);
+    }
+
+    private static SubscriptionLevel.Level levelOf(Subscription subscription) {
+        SubscriptionLevel level = subscription.getSubscriptionLevel();
+        return level != null ? level.getLevel() : null;
+    }
+}
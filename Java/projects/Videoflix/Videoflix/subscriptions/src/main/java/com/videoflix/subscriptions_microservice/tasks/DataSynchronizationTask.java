@@ -1,7 +1,5 @@
 package com.videoflix.subscriptions_microservice.tasks;
 
-import com.videoflix.subscriptions_microservice.entities.Subscription;
-import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
 import com.videoflix.subscriptions_microservice.services.DataSynchronizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,30 +7,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Map;
 
 @Component
 public class DataSynchronizationTask {
 
     private static final Logger logger = LoggerFactory.getLogger(DataSynchronizationTask.class);
 
-    private final SubscriptionRepository subscriptionRepository;
     private final DataSynchronizationService dataSynchronizationService;
 
     @Value("${data.synchronization.enabled:false}")
     private boolean synchronizationEnabled;
 
-    @Value("${data.synchronization.batch-size:100}")
-    private int batchSize;
-
-    public DataSynchronizationTask(SubscriptionRepository subscriptionRepository,
-            DataSynchronizationService dataSynchronizationService) {
-        this.subscriptionRepository = subscriptionRepository;
+    public DataSynchronizationTask(DataSynchronizationService dataSynchronizationService) {
         this.dataSynchronizationService = dataSynchronizationService;
     }
 
-    // Planification de l'exécution de cette tâche tous les jours à 4h00 du matin
+    // Planification de l'exécution de cette tâche tous les jours à 4h00 du matin.
+    // Seuls les abonnements modifiés depuis le dernier lot accepté sont envoyés.
     @Scheduled(cron = "${data.synchronization.cron:0 0 4 * * *}")
     public void synchronizeSubscriptionData() {
         if (!synchronizationEnabled) {
@@ -42,28 +34,13 @@ public class DataSynchronizationTask {
 
         logger.info("Début de la synchronisation des données d'abonnement...");
 
-        LocalDateTime lastSyncTimestamp = dataSynchronizationService.getLastSuccessfulSyncTimestamp();
-        List<Subscription> subscriptionsToSync;
-        int page = 0;
-
         try {
-            do {
-                subscriptionsToSync = subscriptionRepository.findSubscriptionsUpdatedSince(lastSyncTimestamp,
-                        page * batchSize, batchSize);
-                if (!subscriptionsToSync.isEmpty()) {
-                    logger.info("Synchronisation du lot {} de {} abonnements (mis à jour depuis {}).",
-                            page + 1, subscriptionsToSync.size(), lastSyncTimestamp);
-                    dataSynchronizationService.synchronizeSubscriptions(subscriptionsToSync);
-                    page++;
-                }
-            } while (!subscriptionsToSync.isEmpty());
-
-            dataSynchronizationService.updateLastSuccessfulSyncTimestamp(LocalDateTime.now());
-            logger.info("Synchronisation des données d'abonnement terminée.");
+            Map<String, Integer> synced = dataSynchronizationService.synchronizeSubscriptions();
+            logger.info("Synchronisation des données d'abonnement terminée : {}", synced);
 
         } catch (Exception e) {
             logger.error("Erreur lors de la synchronisation des données d'abonnement : {}", e.getMessage(), e);
             // Gérer l'erreur (log, potentiellement alerter)
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.videoflix.subscriptions_microservice.tasks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limiteur de débit sans verrou : chaque appel à {@link #acquire()} réserve le
+ * prochain créneau libre puis attend qu'il arrive. Une valeur de débit
+ * inférieure ou égale à 0 désactive la limitation.
+ */
+final class RenewalRateLimiter {
+
+    private final long intervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(Long.MIN_VALUE);
+
+    RenewalRateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0L;
+    }
+
+    void acquire() {
+        if (intervalNanos == 0L) {
+            return;
+        }
+        long now = System.nanoTime();
+        long slot = Math.max(nextSlot.getAndUpdate(previous -> Math.max(previous, now) + intervalNanos), now);
+        long waitNanos = slot - now;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+            waitNanos = slot - System.nanoTime();
+        }
+    }
+}
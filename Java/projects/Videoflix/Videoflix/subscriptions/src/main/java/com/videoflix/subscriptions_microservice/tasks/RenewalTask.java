@@ -1,56 +1,172 @@
 package com.videoflix.subscriptions_microservice.tasks;
 
+import com.videoflix.subscriptions_microservice.entities.Payment;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.events.SubscriptionRenewedEvent;
+import com.videoflix.subscriptions_microservice.repositories.PaymentRepository;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
 import com.videoflix.subscriptions_microservice.services.StripePaymentService;
-import com.videoflix.subscriptions_microservice.services.SubscriptionService;
 import com.stripe.exception.StripeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Renouvelle les abonnements arrivés à échéance.
+ * <p>
+ * Seuls les abonnements dus ({@code autoRenew} et {@code nextRenewalDate}
+ * dépassée) sont lus, par pages keyset. Les appels Stripe d'une page partent
+ * en parallèle sur des threads virtuels, bornés par un sémaphore et un limiteur
+ * de débit, puis la page est enregistrée par lot dans sa propre transaction :
+ * abonnements et paiements d'une page sont validés ensemble, et un échec
+ * n'annule que la page en cours.
+ */
 @Component
 public class RenewalTask {
 
-    private final SubscriptionService subscriptionService;
+    private final SubscriptionRepository subscriptionRepository;
+    private final PaymentRepository paymentRepository;
     private final StripePaymentService stripePaymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final int maxConcurrency;
+    private final int callTimeoutMillis;
+    private final RenewalRateLimiter rateLimiter;
     private static final Logger logger = LoggerFactory.getLogger(RenewalTask.class);
 
-    public RenewalTask(SubscriptionService subscriptionService, StripePaymentService stripePaymentService) {
-        this.subscriptionService = subscriptionService;
+    public RenewalTask(SubscriptionRepository subscriptionRepository, PaymentRepository paymentRepository,
+            StripePaymentService stripePaymentService, ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${renewal.page-size:200}") int pageSize,
+            @Value("${renewal.max-concurrency:16}") int maxConcurrency,
+            @Value("${renewal.call-timeout-ms:10000}") int callTimeoutMillis,
+            @Value("${renewal.requests-per-second:25}") double requestsPerSecond) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.paymentRepository = paymentRepository;
         this.stripePaymentService = stripePaymentService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = pageSize;
+        this.maxConcurrency = maxConcurrency;
+        this.callTimeoutMillis = callTimeoutMillis;
+        this.rateLimiter = new RenewalRateLimiter(requestsPerSecond);
     }
 
     // Planification de l'exécution de cette tâche tous les jours à minuit
     @Scheduled(cron = "0 0 0 * * *")
     public void checkAndRenewSubscriptions() {
         logger.info("Début de la tâche de renouvellement des abonnements.");
-        List<Subscription> subscriptions = subscriptionService.getAllSubscriptions(0, Integer.MAX_VALUE);
         LocalDateTime now = LocalDateTime.now();
+        Pageable page = PageRequest.of(0, pageSize);
+        Semaphore permits = new Semaphore(maxConcurrency);
+        long lastId = 0L;
+        int renewed = 0;
+        int failed = 0;
 
-        for (Subscription subscription : subscriptions) {
-            if (subscription.isAutoRenew() && subscription.getNextRenewalDate() != null
-                    && subscription.getNextRenewalDate().isBefore(now)) {
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Subscription> due;
+            do {
+                due = subscriptionRepository.findKeysetDueForRenewal(now, lastId, page);
+                if (due.isEmpty()) {
+                    break;
+                }
+                lastId = due.get(due.size() - 1).getId();
+
+                List<Payment> payments = renewPage(due, now, workers, permits);
+                List<Subscription> batch = due;
+                transactionTemplate.executeWithoutResult(status -> {
+                    subscriptionRepository.saveAll(batch);
+                    paymentRepository.saveAll(payments);
+                });
+
+                for (Payment payment : payments) {
+                    if (payment.getStatus() == Payment.PaymentStatus.SUCCESS) {
+                        eventPublisher.publishEvent(new SubscriptionRenewedEvent(this, payment.getSubscription()));
+                        renewed++;
+                    } else {
+                        failed++;
+                    }
+                }
+            } while (due.size() == pageSize);
+        }
+        logger.info("Fin de la tâche de renouvellement des abonnements : {} renouvelés, {} en échec.", renewed,
+                failed);
+    }
+
+    /**
+     * Lance les appels Stripe de la page en parallèle puis applique les résultats
+     * sur le thread appelant. Retourne les paiements à enregistrer.
+     */
+    private List<Payment> renewPage(List<Subscription> due, LocalDateTime now, ExecutorService workers,
+            Semaphore permits) {
+        List<Future<String>> calls = new ArrayList<>(due.size());
+        for (Subscription subscription : due) {
+            String idempotencyKey = "renewal-" + subscription.getId() + "-" + now.toLocalDate();
+            calls.add(workers.submit(() -> {
+                permits.acquire();
                 try {
-                    // Renouveler l'abonnement via Stripe
-                    Subscription renewedSubscription = stripePaymentService
-                            .createStripeSubscription(subscription);
-
-                    // Mettre à jour l'abonnement en base de données
-                    subscription.setStripeSubscriptionId(renewedSubscription.getStripeSubscriptionId());
-                    subscription.setNextRenewalDate(now.plusMonths(1)); // Exemple : renouvellement mensuel
-                    subscriptionService.updateSubscription(subscription.getId(), subscription);
-
-                    logger.info("Abonnement renouvelé avec succès : {}", subscription.getId());
-                } catch (StripeException e) {
-                    logger.error("Erreur lors du renouvellement de l'abonnement : {}", subscription.getId(), e);
-                    // Gérer l'erreur (par exemple, envoyer une notification à l'utilisateur)
+                    rateLimiter.acquire();
+                    return stripePaymentService.renewStripeSubscription(subscription, idempotencyKey,
+                            callTimeoutMillis);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        List<Payment> payments = new ArrayList<>(due.size());
+        for (int i = 0; i < due.size(); i++) {
+            Subscription subscription = due.get(i);
+            try {
+                String stripeSubscriptionId = calls.get(i).get();
+                subscription.setStripeSubscriptionId(stripeSubscriptionId);
+                subscription.setNextRenewalDate(now.plusMonths(1)); // Exemple : renouvellement mensuel
+                subscription.setLastPaymentError(null);
+                payments.add(payment(subscription, now, stripeSubscriptionId, null));
+                logger.info("Abonnement renouvelé avec succès : {}", subscription.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Renouvellement interrompu", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                subscription.setLastPaymentError(cause.getMessage());
+                payments.add(payment(subscription, now, null, cause.getMessage()));
+                if (cause instanceof StripeException) {
+                    logger.error("Erreur lors du renouvellement de l'abonnement : {}", subscription.getId(), cause);
+                } else {
+                    logger.error("Erreur inattendue lors du renouvellement de l'abonnement : {}",
+                            subscription.getId(), cause);
                 }
             }
         }
-        logger.info("Fin de la tâche de renouvellement des abonnements.");
+        return payments;
+    }
+
+    private Payment payment(Subscription subscription, LocalDateTime now, String paymentId, String errorMessage) {
+        Payment payment = new Payment();
+        payment.setSubscription(subscription);
+        payment.setPaymentDate(now);
+        payment.setAmount(subscription.getPrice());
+        payment.setPaymentId(paymentId);
+        payment.setStatus(errorMessage == null ? Payment.PaymentStatus.SUCCESS : Payment.PaymentStatus.FAILED);
+        payment.setErrorMessage(errorMessage);
+        return payment;
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,30 @@
 package com.videoflix.subscriptions_microservice.tasks;
 
-import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.dtos.DailySubscriptionMetrics;
 import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
 import com.videoflix.subscriptions_microservice.services.SubscriptionMetricsService; // Service pour agréger et stocker les métriques
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Calcule les métriques journalières des abonnements. Chaque journée est
+ * agrégée par une seule requête ; plusieurs journées (rattrapage) sont
+ * agrégées en parallèle sur des threads virtuels, en nombre borné pour ne pas
+ * épuiser le pool de connexions.
+ */
 @Component
 public class SubscriptionMetricsAggregationTask {
 
@@ -18,68 +32,91 @@ public class SubscriptionMetricsAggregationTask {
 
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionMetricsService metricsService;
+    private final int lookbackDays;
+    private final int maxConcurrency;
 
     public SubscriptionMetricsAggregationTask(SubscriptionRepository subscriptionRepository,
-            SubscriptionMetricsService metricsService) {
+            SubscriptionMetricsService metricsService,
+            @Value("${metrics.aggregation.lookback-days:1}") int lookbackDays,
+            @Value("${metrics.aggregation.max-concurrency:4}") int maxConcurrency) {
         this.subscriptionRepository = subscriptionRepository;
         this.metricsService = metricsService;
+        this.lookbackDays = lookbackDays;
+        this.maxConcurrency = maxConcurrency;
     }
 
-    // Planification de l'exécution de cette tâche tous les jours à 3h00 du matin
+    // Planification de l'exécution de cette tâche tous les jours à 3h00 du matin.
+    // Les derniers jours sont recalculés pour rattraper une exécution manquée.
     @Scheduled(cron = "0 0 3 * * *")
     public void aggregateDailySubscriptionMetrics() {
-        LocalDateTime today = LocalDateTime.now();
-        LocalDateTime yesterday = today.minusDays(1);
-        LocalDateTime startOfYesterday = yesterday.toLocalDate().atStartOfDay();
-        LocalDateTime endOfYesterday = today.toLocalDate().atStartOfDay().minusSeconds(1);
-
-        logger.info("Début de l'agrégation des métriques d'abonnement pour le {}...", yesterday);
-
-        try {
-            // Nombre de nouveaux abonnements hier
-            long newSubscriptions = subscriptionRepository.countByCreationTimestampBetween(startOfYesterday,
-                    endOfYesterday);
-            metricsService.recordDailyMetric("new_subscriptions", yesterday, newSubscriptions);
-            logger.info("Nombre de nouveaux abonnements pour le {} : {}", yesterday, newSubscriptions);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        backfillDailySubscriptionMetrics(yesterday.minusDays(lookbackDays - 1L), yesterday);
+    }
 
-            // Nombre d'annulations hier
-            long cancellations = subscriptionRepository.countByStatusAndCancellationDateBetween(
-                    Subscription.SubscriptionStatus.CANCELLED, startOfYesterday,
-                    endOfYesterday);
-            metricsService.recordDailyMetric("cancelled_subscriptions", yesterday, cancellations);
-            logger.info("Nombre d'annulations pour le {} : {}", yesterday, cancellations);
+    /**
+     * Agrège les métriques de chaque journée de la plage en parallèle.
+     *
+     * @param startDate Première journée (incluse).
+     * @param endDate   Dernière journée (incluse).
+     * @return Le nombre de journées agrégées avec succès.
+     */
+    public int backfillDailySubscriptionMetrics(LocalDate startDate, LocalDate endDate) {
+        logger.info("Début de l'agrégation des métriques d'abonnement du {} au {}...", startDate, endDate);
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<LocalDate> days = startDate.datesUntil(endDate.plusDays(1)).toList();
+        List<Future<?>> runs = new ArrayList<>(days.size());
+        int aggregated = 0;
 
-            // Revenus générés hier
-            List<Subscription> activeSubscriptionsYesterday = subscriptionRepository
-                    .findByStatusAndLastPaymentDateBetween(Subscription.SubscriptionStatus.ACTIVE,
-                            startOfYesterday.minusDays(31), endOfYesterday); // Ajuster la
-                                                                                                         // période si
-                                                                                                         // nécessaire
-            double dailyRevenue = activeSubscriptionsYesterday.stream()
-                    .filter(sub -> sub.getPriceId() != null)
-                    .mapToDouble(sub -> {
-                        try {
-                            return Double.parseDouble(sub.getPriceId());
-                        } catch (NumberFormatException e) {
-                            logger.warn("Prix invalide pour l'abonnement {}: {}", sub.getId(), sub.getPriceId());
-                            return 0.0;
-                        }
-                    })
-                    .sum();
-            metricsService.recordDailyMetric("daily_revenue", yesterday, dailyRevenue);
-            logger.info("Revenus générés pour le {} : {}", yesterday, dailyRevenue);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LocalDate day : days) {
+                runs.add(workers.submit(() -> {
+                    permits.acquire();
+                    try {
+                        aggregateDay(day);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < days.size(); i++) {
+                try {
+                    runs.get(i).get();
+                    aggregated++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Agrégation des métriques interrompue", e);
+                } catch (ExecutionException e) {
+                    logger.error("Erreur lors de l'agrégation des métriques d'abonnement pour le {} : {}",
+                            days.get(i), e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+        logger.info("Agrégation des métriques d'abonnement terminée : {}/{} journées.", aggregated, days.size());
+        return aggregated;
+    }
 
-            // Taux d'annulation
-            long activeSubscriptionsEndYesterday = subscriptionRepository
-                    .countByStatus(Subscription.SubscriptionStatus.ACTIVE);
-            metricsService.recordDailyMetric("active_subscriptions_end", yesterday, activeSubscriptionsEndYesterday);
-            logger.info("Nombre d'abonnements actifs à la fin du {} : {}", yesterday, activeSubscriptionsEndYesterday);
+    private void aggregateDay(LocalDate day) {
+        LocalDateTime startOfDay = day.atStartOfDay();
+        DailySubscriptionMetrics metrics = subscriptionRepository.aggregateDailyMetrics(startOfDay,
+                day.plusDays(1).atStartOfDay());
 
-            logger.info("Agrégation des métriques d'abonnement pour le {} terminée.", yesterday);
+        metricsService.recordDailyMetric("new_subscriptions", startOfDay, metrics.newSubscriptions());
+        metricsService.recordDailyMetric("cancelled_subscriptions", startOfDay, metrics.cancelledSubscriptions());
+        metricsService.recordDailyMetric("daily_revenue", startOfDay, metrics.revenue());
+        metricsService.recordDailyMetric("active_subscriptions_end", startOfDay, metrics.activeSubscriptions());
+        logger.info("Métriques d'abonnement du {} : {}", day, metrics);
+    }
 
+    // Le 1er de chaque mois à 3h30 : réduction du mois écoulé puis purge des
+    // points hors rétention
+    @Scheduled(cron = "0 30 3 1 * *")
+    public void rollUpSubscriptionMetrics() {
+        try {
+            metricsService.aggregateMonthlyMetrics();
+            metricsService.applyRetention();
         } catch (Exception e) {
-            logger.error("Erreur lors de l'agrégation des métriques d'abonnement pour le {} : {}", yesterday,
-                    e.getMessage(), e);
+            logger.error("Erreur lors de la réduction des métriques d'abonnement : {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
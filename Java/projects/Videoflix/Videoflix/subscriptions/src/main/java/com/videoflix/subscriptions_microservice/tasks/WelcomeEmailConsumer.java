@@ -1,44 +1,187 @@
 package com.videoflix.subscriptions_microservice.tasks;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.videoflix.subscriptions_microservice.events.NewSubscriptionCreatedEvent;
+import com.rabbitmq.client.Channel;
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.entities.User;
+import com.videoflix.subscriptions_microservice.integration.NewSubscriptionEventPublisher.WelcomeEmailPayload;
+import com.videoflix.subscriptions_microservice.repositories.ProcessedMessageRepository;
 import com.videoflix.subscriptions_microservice.services.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.WELCOME_EMAIL_CONTAINER_FACTORY;
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.WELCOME_EMAIL_DLQ;
 import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.WELCOME_EMAIL_QUEUE;
 
+/**
+ * Consommateur des évènements de nouvel abonnement : envoie l'e-mail de
+ * bienvenue.
+ * <p>
+ * Les messages arrivent par lots sur plusieurs consommateurs concurrents (voir
+ * {@code RabbitMQConfig}). Chaque message porte un {@code message-id} servant
+ * de clé d'idempotence : une seconde livraison est acquittée sans renvoyer
+ * l'e-mail. L'e-mail est confié au {@link NotificationService}, dont le moteur
+ * d'envoi enregistre et réessaie lui-même les envois en échec : le
+ * consommateur ne réessaie donc pas. Un message illisible, ou dont l'e-mail ne
+ * peut pas être préparé, est déposé dans la DLQ.
+ */
 @Component
 public class WelcomeEmailConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(WelcomeEmailConsumer.class);
 
+    static final String CONSUMER_NAME = "welcome-email";
+
+    enum Outcome {
+        PROCESSED, DUPLICATE, DEAD_LETTERED
+    }
+
     private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final long retentionDays;
+
+    private final Timer lag;
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter deadLettered;
 
-    public WelcomeEmailConsumer(NotificationService notificationService, ObjectMapper objectMapper) {
+    public WelcomeEmailConsumer(NotificationService notificationService, ObjectMapper objectMapper,
+            ProcessedMessageRepository processedMessageRepository, RabbitTemplate rabbitTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${welcome.email.consumer.idempotency-retention-days:7}") long retentionDays) {
         this.notificationService = notificationService;
         this.objectMapper = objectMapper;
+        this.processedMessageRepository = processedMessageRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.retentionDays = retentionDays;
+
+        this.lag = Timer.builder("welcome.email.consumer.lag")
+                .description("Délai entre la publication d'un évènement de nouvel abonnement et sa consommation")
+                .register(meterRegistry);
+        this.processed = outcomeCounter(meterRegistry, "processed");
+        this.duplicates = outcomeCounter(meterRegistry, "duplicate");
+        this.deadLettered = outcomeCounter(meterRegistry, "dead_lettered");
     }
 
-    @RabbitListener(queues = WELCOME_EMAIL_QUEUE)
-    public void handleNewSubscriptionCreatedEvent(String message) {
-        logger.info("Message reçu de la queue {} : {}", WELCOME_EMAIL_QUEUE, message);
+    @RabbitListener(queues = WELCOME_EMAIL_QUEUE, containerFactory = WELCOME_EMAIL_CONTAINER_FACTORY)
+    public void handleNewSubscriptionCreatedEvents(List<Message> messages, Channel channel) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        for (Message message : messages) {
+            handle(message);
+        }
+        // Un seul acquittement pour tout le lot.
+        channel.basicAck(deliveryTag(messages.get(messages.size() - 1)), true);
+    }
+
+    /**
+     * Supprime les clés d'idempotence plus anciennes que la durée de rétention.
+     */
+    @Scheduled(cron = "${welcome.email.consumer.purge-cron:0 30 3 * * *}")
+    public void purgeProcessedMessages() {
+        int purged = processedMessageRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(retentionDays));
+        logger.info("{} clé(s) d'idempotence d'e-mails de bienvenue supprimée(s).", purged);
+    }
+
+    Outcome handle(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String messageId = properties.getMessageId();
+        if (properties.getTimestamp() != null) {
+            long lagMillis = System.currentTimeMillis() - properties.getTimestamp().getTime();
+            lag.record(Duration.ofMillis(Math.max(0, lagMillis)));
+        }
+
+        WelcomeEmailPayload payload;
+        User user;
+        Subscription subscription;
         try {
-            NewSubscriptionCreatedEvent event = objectMapper.readValue(message, NewSubscriptionCreatedEvent.class);
-            notificationService.sendWelcomeEmail(event.getUser(), event.getSubscription());
-            logger.info("E-mail de bienvenue traité avec succès pour l'utilisateur {}", event.getUser().getId());
-        } catch (IOException e) {
-            logger.error("Erreur lors de la désérialisation du message : {}", e.getMessage(), e);
-            // Gérer l'erreur (log, DLQ - Dead Letter Queue pour les messages qui ne peuvent
-            // pas être traités)
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi de l'e-mail de bienvenue (consommateur) : {}", e.getMessage(), e);
-            // Gérer l'erreur (réessayer, DLQ)
+            payload = objectMapper.readValue(message.getBody(), WelcomeEmailPayload.class);
+            user = recipient(payload);
+            subscription = subscription(payload, user);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Erreur lors de la désérialisation du message {} : {}", messageId, e.getMessage(), e);
+            return deadLetter(message);
+        }
+
+        if (messageId != null
+                && processedMessageRepository.insertIfAbsent(CONSUMER_NAME, messageId, LocalDateTime.now()) == 0) {
+            duplicates.increment();
+            logger.info("Message {} déjà traité, nouvelle livraison ignorée.", messageId);
+            return Outcome.DUPLICATE;
         }
+
+        try {
+            notificationService.sendWelcomeEmail(user, subscription);
+            processed.increment();
+            logger.info("E-mail de bienvenue traité avec succès pour l'utilisateur {}", payload.userId());
+            return Outcome.PROCESSED;
+        } catch (RuntimeException e) {
+            // Les échecs d'envoi sont gérés par le moteur d'envoi : seul un e-mail
+            // impossible à préparer arrive ici, et un nouvel essai échouerait de même.
+            if (messageId != null) {
+                processedMessageRepository.release(CONSUMER_NAME, messageId);
+            }
+            logger.error("Impossible de préparer l'e-mail de bienvenue (message {}) : {}", messageId,
+                    e.getMessage(), e);
+            return deadLetter(message);
+        }
+    }
+
+    private Outcome deadLetter(Message message) {
+        rabbitTemplate.send("", WELCOME_EMAIL_DLQ, message);
+        deadLettered.increment();
+        return Outcome.DEAD_LETTERED;
+    }
+
+    // Destinataire reconstruit à partir du payload, sans relecture en base
+    private static User recipient(WelcomeEmailPayload payload) {
+        User user = new User();
+        user.setId(payload.userId());
+        user.setEmail(payload.email());
+        user.setFirstname(payload.firstname());
+        return user;
+    }
+
+    private static Subscription subscription(WelcomeEmailPayload payload, User user) {
+        Subscription subscription = new Subscription();
+        subscription.setId(payload.subscriptionId());
+        subscription.setUser(user);
+        if (payload.level() != null) {
+            SubscriptionLevel level = new SubscriptionLevel();
+            level.setLevel(SubscriptionLevel.Level.fromString(payload.level()));
+            subscription.setSubscriptionLevel(level);
+        }
+        return subscription;
+    }
+
+    private static long deliveryTag(Message message) {
+        return message.getMessageProperties().getDeliveryTag();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("welcome.email.consumer.messages")
+                .description("Messages de nouvel abonnement consommés, par issue")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
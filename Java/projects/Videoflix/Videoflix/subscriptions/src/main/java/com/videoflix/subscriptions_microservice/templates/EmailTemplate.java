@@ -0,0 +1,67 @@
+package com.videoflix.subscriptions_microservice.templates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modèle d'e-mail précompilé : le texte est découpé une seule fois autour de
+ * ses emplacements ({@code %s}, {@code %d}), puis chaque rendu se contente de
+ * concaténer les morceaux et les valeurs. Le résultat est identique à celui de
+ * {@link String#format(String, Object...)} pour ces emplacements, valeurs
+ * excédentaires ignorées comprises.
+ */
+public final class EmailTemplate {
+
+    private final String[] literals; // Texte avant, entre et après les emplacements
+    private final int estimatedLength;
+
+    private EmailTemplate(String[] literals, int estimatedLength) {
+        this.literals = literals;
+        this.estimatedLength = estimatedLength;
+    }
+
+    public static EmailTemplate compile(String pattern) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i + 1 >= pattern.length()) {
+                throw new IllegalArgumentException("Emplacement incomplet en fin de modèle");
+            }
+            char conversion = pattern.charAt(++i);
+            switch (conversion) {
+                case '%' -> literal.append('%');
+                case 'n' -> literal.append(System.lineSeparator());
+                case 's', 'd' -> {
+                    parts.add(literal.toString());
+                    literal.setLength(0);
+                }
+                default -> throw new IllegalArgumentException("Emplacement non supporté : %" + conversion);
+            }
+        }
+        parts.add(literal.toString());
+        return new EmailTemplate(parts.toArray(new String[0]), pattern.length() + 16 * (parts.size() - 1));
+    }
+
+    /** Nombre de valeurs attendues par {@link #render(Object...)}. */
+    public int getArity() {
+        return literals.length - 1;
+    }
+
+    public String render(Object... values) {
+        if (values.length < getArity()) {
+            throw new IllegalArgumentException(
+                    "Le modèle attend " + getArity() + " valeur(s), " + values.length + " fournie(s)");
+        }
+        StringBuilder text = new StringBuilder(estimatedLength);
+        text.append(literals[0]);
+        for (int i = 0; i < literals.length - 1; i++) {
+            text.append(values[i]).append(literals[i + 1]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,10 @@
+-- Ajoute la prise en charge des évènements de l'outbox par un relais.
+--
+-- À exécuter une fois sur une base existante, avant de démarrer la version dont le relais prend
+-- les évènements en charge avant de les publier. Inutile sur une base vide.
+--
+-- Les évènements déjà en attente n'ont pas de prise en charge (colonnes NULL) : le premier relais
+-- qui passe les prend.
+
+ALTER TABLE outbox_events ADD COLUMN claimed_by VARCHAR(36);
+ALTER TABLE outbox_events ADD COLUMN claimed_at TIMESTAMP;
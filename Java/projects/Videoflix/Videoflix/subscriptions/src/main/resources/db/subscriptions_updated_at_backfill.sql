@@ -0,0 +1,11 @@
+-- Renseigne updated_at des abonnements créés avant la synchronisation incrémentale.
+--
+-- À exécuter une fois sur une base existante, avant de démarrer la version qui synchronise par
+-- updated_at. Sans ce script, ces abonnements (updated_at NULL) ne sont jamais lus par la
+-- synchronisation : la comparaison avec le curseur n'est jamais vraie. Inutile sur une base vide.
+--
+-- La date du script est utilisée plutôt que creation_time_stamp : un curseur déjà avancé au-delà
+-- de la date de création ignorerait sinon ces abonnements. Ils sont tous envoyés au passage suivant.
+
+UPDATE subscriptions SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL;
+ALTER TABLE subscriptions ALTER COLUMN updated_at SET NOT NULL;
@@ -0,0 +1,101 @@
+package com.videoflix.subscriptions_microservice;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Outillage des benchmarks du module (recherche d'abonnements, tâche de
+ * renouvellement, consommateur des e-mails de bienvenue) : activation
+ * explicite, chronométrage séquentiel ou concurrent et publication des mesures
+ * dans les logs de test plutôt que sur la sortie standard.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Marque une classe de benchmark. Désactivée par défaut : lancer avec
+     * {@code mvn test -Dbenchmark=true -Dtest=<classe>}, ou toutes à la fois avec
+     * {@code mvn test -Dbenchmark=true -Dgroups=benchmark}.
+     */
+    @Target(ElementType.TYPE)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public @interface OptIn {
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    // Durée d'exécution de la tâche, en nanosecondes
+    public static long time(Task task) throws Exception {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+
+    @FunctionalInterface
+    public interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+
+    // Durée d'exécution de la tâche lancée simultanément sur threads threads, en nanosecondes
+    public static long timeConcurrently(int threads, ThreadTask task) throws Exception {
+        return time(() -> {
+            try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+                List<Future<?>> futures = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(pool.submit(() -> {
+                        task.run(thread);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        });
+    }
+
+    // Durées de runs exécutions successives de la tâche, en microsecondes, triées
+    public static long[] sampleMicros(int runs, Task task) throws Exception {
+        long[] micros = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            micros[i] = time(task) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    // Centile d'un échantillon trié (50 pour la médiane)
+    public static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    public static double perSecond(long operations, long elapsedNanos) {
+        return operations * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+    }
+
+    // Publie une mesure dans le logger de la classe de benchmark
+    public static void report(Class<?> benchmark, String format, Object... args) {
+        LoggerFactory.getLogger(benchmark).info(String.format(Locale.ROOT, format, args));
+    }
+}
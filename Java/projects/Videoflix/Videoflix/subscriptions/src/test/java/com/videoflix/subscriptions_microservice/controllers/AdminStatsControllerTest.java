@@ -1,6 +1,8 @@
 package com.videoflix.subscriptions_microservice.controllers;
 
+import com.videoflix.subscriptions_microservice.entities.SubscriptionDailyStats;
 import com.videoflix.subscriptions_microservice.services.StatsService;
+import com.videoflix.subscriptions_microservice.services.SubscriptionStatsRollupService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.Mockito.*;
@@ -25,6 +28,9 @@ class AdminStatsControllerTest {
     @Mock
     private StatsService statsService; // Mock du service de statistiques
 
+    @Mock
+    private SubscriptionStatsRollupService rollupService; // Mock du service d'agrégat journalier
+
     @Test
     void getActiveSubscriberCount_shouldReturnOkWithCount() {
         // GIVEN : Un nombre d'abonnés actifs à retourner par le service
@@ -160,4 +166,45 @@ class AdminStatsControllerTest {
         assertEquals(failedCount, response.getBody());
         verify(statsService, times(1)).getFailedPaymentCount(); // Vérifie l'appel au service
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDailyStats_shouldReturnOkWithRows_whenDatesAreProvided() {
+        // GIVEN : Des dates valides et une ligne d'agrégat à retourner par le service
+        LocalDate startDate = LocalDate.now().minusDays(7);
+        LocalDate endDate = LocalDate.now();
+        List<SubscriptionDailyStats> rows = List.of(new SubscriptionDailyStats());
+        when(statsService.getDailyStats(startDate, endDate)).thenReturn(rows);
+
+        // WHEN : L'appel à la méthode getDailyStats du contrôleur avec les dates
+        ResponseEntity<List<SubscriptionDailyStats>> response = adminStatsController.getDailyStats(startDate, endDate);
+
+        // THEN : Vérification que la réponse est OK et contient les lignes
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(rows, response.getBody());
+    }
+
+    @Test
+    void getDailyStats_shouldReturnBadRequest_whenDatesAreNull() {
+        // WHEN : L'appel à la méthode getDailyStats du contrôleur sans dates
+        ResponseEntity<List<SubscriptionDailyStats>> response = adminStatsController.getDailyStats(null, null);
+
+        // THEN : Vérification que la réponse est BadRequest et le corps est vide
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(Collections.emptyList(), response.getBody());
+        verify(statsService, never()).getDailyStats(any(), any()); // Vérifie que le service n'a pas été appelé
+    }
+
+    @Test
+    void rebuildRollup_shouldReturnOkWithRowCount() {
+        // GIVEN : Le nombre de lignes recréées par le service d'agrégat
+        when(rollupService.rebuild()).thenReturn(42);
+
+        // WHEN : L'appel à la méthode rebuildRollup du contrôleur
+        ResponseEntity<Integer> response = adminStatsController.rebuildRollup();
+
+        // THEN : Vérification que la réponse est OK et contient le nombre de lignes
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(42, response.getBody());
+        verify(rollupService, times(1)).rebuild(); // Vérifie l'appel au service
+    }
+}
@@ -1,7 +1,11 @@
 package com.videoflix.subscriptions_microservice.controllers;
 
 import com.videoflix.subscriptions_microservice.dtos.AdminUpdateSubscriptionRequest;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchCriteria;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchPage;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.services.SubscriptionSearchService;
 import com.videoflix.subscriptions_microservice.services.SubscriptionService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -26,6 +31,9 @@ class AdminSubscriptionControllerTest {
     @Mock
     private SubscriptionService subscriptionService; // Mock du service des abonnements
 
+    @Mock
+    private SubscriptionSearchService subscriptionSearchService; // Mock du service de recherche
+
     @Test
     void listAllSubscriptions_shouldReturnOkWithListOfSubscriptions() {
         // GIVEN : Une liste d'abonnements simulée retournée par le service
@@ -47,28 +55,34 @@ class AdminSubscriptionControllerTest {
     }
 
     @Test
-    void searchSubscriptions_shouldReturnOkWithFilteredSubscriptions() {
-        // GIVEN : Des filtres de recherche et une liste d'abonnements correspondante
-        // simulée par le service
-        Long userId = 1L;
-        String status = "ACTIVE";
-        String subscriptionLevel = "PREMIUM";
-        int page = 0;
-        int size = 10;
-        List<Subscription> filteredSubscriptions = Arrays.asList(new Subscription(), new Subscription());
-        when(subscriptionService.getAllSubscriptionsByFilters(userId, status, subscriptionLevel, page, size))
-                .thenReturn(filteredSubscriptions);
+    void searchSubscriptions_shouldReturnOkWithTypedFiltersAndCursor() {
+        // GIVEN : Des filtres de recherche et une page de résultats simulée par le
+        // service
+        LocalDateTime startFrom = LocalDateTime.of(2025, 1, 1, 0, 0);
+        SubscriptionSearchCriteria criteria = new SubscriptionSearchCriteria(1L,
+                Subscription.SubscriptionStatus.ACTIVE, SubscriptionLevel.Level.PREMIUM, startFrom, null, null,
+                null, null, null);
+        SubscriptionSearchPage page = new SubscriptionSearchPage(List.of(), null, 0L, true);
+        when(subscriptionSearchService.search(criteria, 42L, 20, SubscriptionSearchService.CountMode.ESTIMATE))
+                .thenReturn(page);
 
         // WHEN : Appel de la méthode searchSubscriptions du contrôleur avec les filtres
-        ResponseEntity<List<Subscription>> response = adminSubscriptionController.searchSubscriptions(userId, status,
-                subscriptionLevel, page, size);
+        ResponseEntity<SubscriptionSearchPage> response = adminSubscriptionController.searchSubscriptions(1L,
+                "active", "premium", startFrom, null, null, null, null, null, 42L, 20, "estimate");
 
-        // THEN : Vérification que la réponse a le statut OK et contient la liste
-        // filtrée des abonnements
+        // THEN : Les filtres sont convertis en valeurs typées avant l'appel au service
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(filteredSubscriptions, response.getBody());
-        verify(subscriptionService, times(1)).getAllSubscriptionsByFilters(userId, status, subscriptionLevel, page,
-                size); // Vérifie l'appel au service avec les bons filtres
+        assertEquals(page, response.getBody());
+        verify(subscriptionSearchService, times(1)).search(criteria, 42L, 20,
+                SubscriptionSearchService.CountMode.ESTIMATE);
+    }
+
+    @Test
+    void searchSubscriptions_shouldRejectUnknownStatus() {
+        // WHEN / THEN : Un statut inconnu est refusé sans appeler le service
+        assertThrows(IllegalArgumentException.class, () -> adminSubscriptionController.searchSubscriptions(null,
+                "SUSPENDU", null, null, null, null, null, null, null, null, 20, "none"));
+        verifyNoInteractions(subscriptionSearchService);
     }
 
     @Test
@@ -1,152 +1,70 @@
-// Package de test d'intégration pour le microservice d'abonnements
 package com.videoflix.subscriptions_microservice.integration;
 
-// Imports pour la sérialisation JSON et les outils de test (JUnit, Mockito, etc.)
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.integration.AccessControlEventPublisher.AccessCancelledPayload;
+import com.videoflix.subscriptions_microservice.integration.AccessControlEventPublisher.AccessReactivatedPayload;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyMap;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
-// Active l'extension Mockito avec JUnit 5 pour gérer les annotations @Mock, @InjectMocks, etc.
 @ExtendWith(MockitoExtension.class)
 class AccessControlEventPublisherTest {
 
-        // Constantes pour éviter les chaînes en dur dans les tests
-        private static final String EXCHANGE = "access.control.events";
-        private static final String REACTIVATED_ROUTING_KEY = "subscription.reactivated";
-        private static final String CANCELLED_ROUTING_KEY = "subscription.cancelled";
-
-        // Mock du composant RabbitTemplate utilisé pour envoyer les messages vers
-        // RabbitMQ
-        @Mock
-        private RabbitTemplate rabbitTemplate;
-
-        // Mock de l'ObjectMapper pour contrôler la sérialisation JSON dans les tests
         @Mock
-        private ObjectMapper objectMapper;
+        private SubscriptionEventBus eventBus;
 
-        // Injecte les mocks dans l'instance de la classe testée
         @InjectMocks
         private AccessControlEventPublisher accessControlEventPublisher;
 
-        // Captor pour intercepter le message JSON envoyé à RabbitMQ
-        @Captor
-        private ArgumentCaptor<String> messageCaptor;
-
-        // Teste que l'événement "réactivation d'abonnement" est publié correctement
+        // Test pour vérifier la publication d'une réactivation pour le contrôle d'accès
         @Test
-        void publishSubscriptionReactivatedForAccessControl_shouldPublishCorrectEvent() throws Exception {
-                Long userId = 123L;
-                String subscriptionLevelName = "PREMIUM";
-
-                // Simule une chaîne JSON générée par ObjectMapper
-                String expectedMessage = "{\"userId\":123,\"subscriptionLevel\":\"PREMIUM\",\"reactivatedAt\":\"2023-05-05T12:00:00\"}";
-                when(objectMapper.writeValueAsString(anyMap())).thenReturn(expectedMessage);
-
-                // Appel de la méthode testée
-                accessControlEventPublisher.publishSubscriptionReactivatedForAccessControl(userId,
-                                subscriptionLevelName);
-
-                // Vérifie que le message a été envoyé à RabbitMQ avec les bons paramètres
-                verify(rabbitTemplate).convertAndSend(eq(EXCHANGE), eq(REACTIVATED_ROUTING_KEY),
-                                messageCaptor.capture());
-                verify(objectMapper).writeValueAsString(anyMap());
-
-                // Récupère et désérialise le message JSON envoyé
-                String actualMessage = messageCaptor.getValue();
-                assertNotNull(actualMessage);
-
-                Map<?, ?> payload = new ObjectMapper().readValue(actualMessage, Map.class);
-
-                // Vérifie le contenu du message (note : Jackson convertit les Long en Integer)
-                assertEquals(userId.intValue(), payload.get("userId"));
-                assertEquals(subscriptionLevelName, payload.get("subscriptionLevel"));
-                assertNotNull(payload.get("reactivatedAt"));
+        void publishSubscriptionReactivatedForAccessControl_shouldPublishCorrectEvent() {
+                // WHEN : Publication de la réactivation
+                accessControlEventPublisher.publishSubscriptionReactivatedForAccessControl(1L, "PREMIUM");
+
+                // THEN : L'évènement est confié au bus avec la route de réactivation
+                ArgumentCaptor<AccessReactivatedPayload> payload = ArgumentCaptor
+                                .forClass(AccessReactivatedPayload.class);
+                verify(eventBus).publish(eq(AccessControlEventPublisher.REACTIVATED_ROUTE), payload.capture());
+                assertEquals(1L, payload.getValue().userId());
+                assertEquals("PREMIUM", payload.getValue().subscriptionLevel());
+                assertNotNull(payload.getValue().reactivatedAt());
+                assertEquals("access.control.events", AccessControlEventPublisher.REACTIVATED_ROUTE.exchange());
+                assertEquals("subscription.reactivated", AccessControlEventPublisher.REACTIVATED_ROUTE.routingKey());
         }
 
-        // Teste que l'événement "annulation d'abonnement" est publié correctement
+        // Test pour vérifier la publication d'une annulation pour le contrôle d'accès
         @Test
-        void publishSubscriptionCancelledForAccessControl_shouldPublishCorrectEvent() throws Exception {
-                Long userId = 456L;
-                String subscriptionLevelName = "BASIC";
-                String reason = "User requested cancellation";
-
-                // Simule un message JSON
-                String expectedMessage = "{\"userId\":456,\"subscriptionLevel\":\"BASIC\",\"reason\":\"User requested cancellation\",\"cancelledAt\":\"2023-05-05T12:00:00\"}";
-                when(objectMapper.writeValueAsString(anyMap())).thenReturn(expectedMessage);
-
-                // Appel de la méthode testée
-                accessControlEventPublisher.publishSubscriptionCancelledForAccessControl(userId, subscriptionLevelName,
-                                reason);
-
-                // Vérifie que le message a été envoyé à RabbitMQ
-                verify(rabbitTemplate).convertAndSend(eq(EXCHANGE), eq(CANCELLED_ROUTING_KEY), messageCaptor.capture());
-                verify(objectMapper).writeValueAsString(anyMap());
-
-                // Analyse du message
-                String actualMessage = messageCaptor.getValue();
-                assertNotNull(actualMessage);
-
-                Map<?, ?> payload = new ObjectMapper().readValue(actualMessage, Map.class);
-
-                // Vérifie le contenu du message
-                assertEquals(userId.intValue(), payload.get("userId"));
-                assertEquals(subscriptionLevelName, payload.get("subscriptionLevel"));
-                assertEquals(reason, payload.get("reason"));
-                assertNotNull(payload.get("cancelledAt"));
+        void publishSubscriptionCancelledForAccessControl_shouldPublishCorrectEvent() {
+                // WHEN : Publication de l'annulation
+                accessControlEventPublisher.publishSubscriptionCancelledForAccessControl(2L, "BASIC", "Trop cher");
+
+                // THEN : L'évènement est confié au bus avec la route d'annulation
+                ArgumentCaptor<AccessCancelledPayload> payload = ArgumentCaptor.forClass(AccessCancelledPayload.class);
+                verify(eventBus).publish(eq(AccessControlEventPublisher.CANCELLED_ROUTE), payload.capture());
+                assertEquals(2L, payload.getValue().userId());
+                assertEquals("BASIC", payload.getValue().subscriptionLevel());
+                assertEquals("Trop cher", payload.getValue().reason());
+                assertNotNull(payload.getValue().cancelledAt());
+                assertEquals("subscription.cancelled", AccessControlEventPublisher.CANCELLED_ROUTE.routingKey());
         }
 
-        // Vérifie que les erreurs de sérialisation JSON sont gérées sans plantage
+        // Test pour vérifier qu'une erreur d'enregistrement est propagée à l'appelant
         @Test
-        void publishSubscriptionReactivatedForAccessControl_shouldHandleSerializationException() throws Exception {
-                Long userId = 789L;
-                String subscriptionLevelName = "ULTRA";
-
-                // Simule une exception lors de la sérialisation
-                when(objectMapper.writeValueAsString(anyMap())).thenThrow(new Exception("Serialization error"));
-
-                // Appel de la méthode — l'erreur doit être capturée en interne
-                accessControlEventPublisher.publishSubscriptionReactivatedForAccessControl(userId,
-                                subscriptionLevelName);
-
-                // On vérifie que malgré l'erreur, un message a tout de même été "envoyé"
-                verify(rabbitTemplate).convertAndSend(eq(EXCHANGE), eq(REACTIVATED_ROUTING_KEY), anyString());
-                verify(objectMapper).writeValueAsString(anyMap());
-        }
-
-        // Vérifie que les erreurs lors de l'envoi à RabbitMQ sont gérées sans plantage
-        @Test
-        void publishSubscriptionReactivatedForAccessControl_shouldHandleRabbitTemplateException() throws Exception {
-                Long userId = 999L;
-                String subscriptionLevelName = "STANDARD";
-                String serializedPayload = "{\"userId\":999,\"subscriptionLevel\":\"STANDARD\",\"reactivatedAt\":\"...\"}";
-
-                // Simule une sérialisation correcte
-                when(objectMapper.writeValueAsString(anyMap())).thenReturn(serializedPayload);
-
-                // Simule une exception lors de l'envoi à RabbitMQ
-                doThrow(new RuntimeException("RabbitMQ error"))
-                                .when(rabbitTemplate)
-                                .convertAndSend(EXCHANGE, REACTIVATED_ROUTING_KEY, serializedPayload);
-
-                // Appel de la méthode — l'erreur doit être capturée en interne
-                accessControlEventPublisher.publishSubscriptionReactivatedForAccessControl(userId,
-                                subscriptionLevelName);
-
-                // Vérifie que les méthodes ont bien été appelées malgré l'exception
-                verify(rabbitTemplate).convertAndSend(EXCHANGE, REACTIVATED_ROUTING_KEY, serializedPayload);
-                verify(objectMapper).writeValueAsString(anyMap());
+        void publishSubscriptionReactivatedForAccessControl_shouldPropagateBusFailure() {
+                // GIVEN : Le bus ne peut pas enregistrer l'évènement
+                doThrow(new IllegalStateException("Outbox indisponible")).when(eventBus).publish(any(), any());
+
+                // WHEN / THEN : L'erreur remonte
+                assertThrows(IllegalStateException.class,
+                                () -> accessControlEventPublisher.publishSubscriptionReactivatedForAccessControl(3L,
+                                                "PREMIUM"));
         }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.videoflix.subscriptions_microservice.integration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bouchon HTTP local de l'API Stripe pour les tests et benchmarks.
+ * Répond à {@code POST /v1/subscriptions} après une latence simulée.
+ * À utiliser avec {@code Stripe.overrideApiBase(server.baseUrl())}.
+ */
+public class StripeStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    public StripeStubServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v1/subscriptions", this::handleCreateSubscription);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void handleCreateSubscription(HttpExchange exchange) throws IOException {
+        int id = requestCount.incrementAndGet();
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = ("{\"id\":\"sub_stub_" + id + "\",\"object\":\"subscription\",\"status\":\"active\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,238 @@
+package com.videoflix.subscriptions_microservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.entities.OutboxEvent;
+import com.videoflix.subscriptions_microservice.entities.OutboxEvent.OutboxStatus;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionEventBus.EventRoute;
+import com.videoflix.subscriptions_microservice.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.CorrelationData.Confirm;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionEventBusTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+    private static final long CLAIM_TIMEOUT_MS = 60000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final EventRoute<RenewedPayload> ROUTE = new EventRoute<>("subscription.events",
+            "subscription.renewed", "SubscriptionRenewedEvent", RenewedPayload.class);
+
+    record RenewedPayload(Long subscriptionId, String renewalDate) {
+    }
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private OutboxEventRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SubscriptionEventBus eventBus;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        eventBus = new SubscriptionEventBus(rabbitTemplate, new ObjectMapper(), repository, meterRegistry,
+                BATCH_SIZE, CONFIRM_TIMEOUT_MS, CLAIM_TIMEOUT_MS, MAX_ATTEMPTS, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventBus.shutdown();
+    }
+
+    @Test
+    void publish_shouldStoreSerializedEventInOutbox() throws Exception {
+        // WHEN : Un évènement est publié hors transaction
+        eventBus.publish(ROUTE, new RenewedPayload(42L, "2025-01-01T00:00"));
+        eventBus.shutdown();
+
+        // THEN : Il est enregistré en attente, sérialisé en JSON
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(repository).save(saved.capture());
+        OutboxEvent event = saved.getValue();
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertEquals("subscription.events", event.getExchange());
+        assertEquals("subscription.renewed", event.getRoutingKey());
+        assertEquals("SubscriptionRenewedEvent", event.getEventType());
+        assertNotNull(event.getMessageId());
+        assertEquals(42L, new ObjectMapper().readTree(event.getPayload()).get("subscriptionId").asLong());
+        // Le relais a été réveillé (rien à prendre en charge ici)
+        verify(repository).claimPending(anyString(), any(), any(), eq(BATCH_SIZE));
+    }
+
+    @Test
+    void drain_shouldClaimBatchBeforePublishingAndMarkConfirmedEventsSent() throws Exception {
+        // GIVEN : Deux évènements pris en charge par ce passage, puis plus rien
+        OutboxEvent first = pending(1L, "{\"subscriptionId\":1}", 0);
+        OutboxEvent second = pending(2L, "{\"subscriptionId\":2}", 0);
+        when(repository.claimPending(anyString(), any(), any(), eq(BATCH_SIZE))).thenReturn(2, 0);
+        when(repository.findByClaimedByAndStatusOrderByIdAsc(anyString(), eq(OutboxStatus.PENDING)))
+                .thenReturn(List.of(first, second));
+        confirmAll();
+
+        // WHEN : Le relais publie
+        eventBus.drain();
+
+        // THEN : Les évènements sont lus par la prise en charge de ce passage
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<LocalDateTime> claimedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, times(2)).claimPending(owner.capture(), claimedAt.capture(), staleBefore.capture(),
+                eq(BATCH_SIZE));
+        verify(repository).findByClaimedByAndStatusOrderByIdAsc(owner.getAllValues().get(0), OutboxStatus.PENDING);
+        assertEquals(claimedAt.getAllValues().get(0).minusNanos(CLAIM_TIMEOUT_MS * 1_000_000),
+                staleBefore.getAllValues().get(0));
+
+        // AND : Chaque message part avec sa propre confirmation
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<CorrelationData> correlations = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(2)).send(eq("subscription.events"), eq("subscription.renewed"),
+                messages.capture(), correlations.capture());
+        assertEquals("msg-1", correlations.getAllValues().get(0).getId());
+        MessageProperties properties = messages.getAllValues().get(0).getMessageProperties();
+        assertEquals("msg-1", properties.getMessageId());
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, properties.getContentType());
+        assertEquals("SubscriptionRenewedEvent", properties.getType());
+        assertEquals("{\"subscriptionId\":1}",
+                new String(messages.getAllValues().get(0).getBody(), StandardCharsets.UTF_8));
+
+        // AND : Ils sont marqués publiés et la latence est mesurée par échange
+        verify(repository).markSent(eq(List.of(1L, 2L)), any(), eq(OutboxStatus.SENT));
+        verify(repository, never()).recordFailure(any(), any(), any(), anyInt(), any());
+        assertEquals(2, meterRegistry.get("event.bus.publish.latency").tag("exchange", "subscription.events")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("event.bus.confirm.duration").timer().count());
+    }
+
+    @Test
+    void drain_shouldRecordOutcomePerEventWhenBrokerRejectsOne() throws Exception {
+        // GIVEN : Le broker confirme le premier évènement et refuse le second
+        OutboxEvent first = pending(1L, "{}", 0);
+        OutboxEvent second = pending(2L, "{}", 0);
+        when(repository.claimPending(anyString(), any(), any(), eq(BATCH_SIZE))).thenReturn(2);
+        when(repository.findByClaimedByAndStatusOrderByIdAsc(anyString(), eq(OutboxStatus.PENDING)))
+                .thenReturn(List.of(first, second));
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            boolean ack = "msg-1".equals(correlation.getId());
+            correlation.getFuture().complete(new Confirm(ack, ack ? null : "queue pleine"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        // WHEN : Le relais publie
+        eventBus.drain();
+
+        // THEN : Seul le premier est marqué publié
+        verify(repository).markSent(eq(List.of(1L)), any(), eq(OutboxStatus.SENT));
+
+        // AND : Le second reste en attente avec une tentative de plus, libéré par ce passage
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        verify(repository).claimPending(owner.capture(), any(), any(), eq(BATCH_SIZE));
+        verify(repository).recordFailure(2L, owner.getValue(), OutboxStatus.PENDING, 1,
+                "Refusé par le broker : queue pleine");
+
+        // AND : Le relais s'arrête jusqu'au passage suivant malgré un lot complet
+        verify(repository, times(1)).claimPending(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void drain_shouldKeepEventPendingWhenBrokerDoesNotConfirmInTime() throws Exception {
+        // GIVEN : Le broker ne confirme jamais l'évènement
+        eventBus.shutdown();
+        eventBus = new SubscriptionEventBus(rabbitTemplate, new ObjectMapper(), repository, meterRegistry,
+                BATCH_SIZE, 50, CLAIM_TIMEOUT_MS, MAX_ATTEMPTS, 24);
+        OutboxEvent event = pending(1L, "{}", 0);
+        when(repository.claimPending(anyString(), any(), any(), eq(BATCH_SIZE))).thenReturn(1);
+        when(repository.findByClaimedByAndStatusOrderByIdAsc(anyString(), eq(OutboxStatus.PENDING)))
+                .thenReturn(List.of(event));
+
+        // WHEN : Le relais publie
+        eventBus.drain();
+
+        // THEN : L'évènement reste en attente avec une tentative de plus
+        verify(repository, never()).markSent(any(), any(), any());
+        verify(repository).recordFailure(eq(1L), anyString(), eq(OutboxStatus.PENDING), eq(1),
+                eq("Pas de confirmation du broker sous 50 ms"));
+    }
+
+    @Test
+    void drain_shouldMarkEventFailedAfterMaxAttempts() throws Exception {
+        // GIVEN : Dernière tentative pour cet évènement, le broker est injoignable
+        OutboxEvent event = pending(1L, "{}", MAX_ATTEMPTS - 1);
+        when(repository.claimPending(anyString(), any(), any(), eq(BATCH_SIZE))).thenReturn(1);
+        when(repository.findByClaimedByAndStatusOrderByIdAsc(anyString(), eq(OutboxStatus.PENDING)))
+                .thenReturn(List.of(event));
+        doThrow(new AmqpConnectException(new ConnectException("Broker injoignable")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        // WHEN : Le relais publie
+        eventBus.drain();
+
+        // THEN : L'évènement est conservé en échec, pour republication manuelle
+        verify(repository).recordFailure(eq(1L), anyString(), eq(OutboxStatus.FAILED), eq(MAX_ATTEMPTS),
+                contains("Broker injoignable"));
+        verify(repository, never()).markSent(any(), any(), any());
+    }
+
+    @Test
+    void drain_shouldExposeBacklogPerExchange() {
+        // GIVEN : Trois évènements en attente sur l'échange des abonnements
+        when(repository.countByExchange(OutboxStatus.PENDING))
+                .thenReturn(List.<Object[]>of(new Object[] { "subscription.events", 3L }));
+
+        // WHEN : Le relais passe (aucun lot à publier)
+        eventBus.drain();
+
+        // THEN : La jauge de l'échange reflète l'attente, les autres sont à zéro
+        assertEquals(3, eventBus.getBacklog("subscription.events"));
+        assertEquals(3.0, meterRegistry.get("event.bus.outbox.backlog").tag("exchange", "subscription.events")
+                .gauge().value());
+        assertEquals(0.0, meterRegistry.get("event.bus.outbox.backlog").tag("exchange", "billing.events")
+                .gauge().value());
+    }
+
+    private void confirmAll() {
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static OutboxEvent pending(Long id, String payload, int attempts) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setMessageId("msg-" + id);
+        event.setExchange("subscription.events");
+        event.setRoutingKey("subscription.renewed");
+        event.setEventType("SubscriptionRenewedEvent");
+        event.setPayload(payload.getBytes(StandardCharsets.UTF_8));
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAttempts(attempts);
+        event.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        return event;
+    }
+}
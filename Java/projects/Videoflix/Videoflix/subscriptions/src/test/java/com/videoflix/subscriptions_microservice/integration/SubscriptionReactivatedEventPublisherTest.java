@@ -1,10 +1,10 @@
 package com.videoflix.subscriptions_microservice.integration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 import com.videoflix.subscriptions_microservice.entities.User;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel.Level;
+import com.videoflix.subscriptions_microservice.integration.SubscriptionReactivatedEventPublisher.SubscriptionReactivatedPayload;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,250 +12,88 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SubscriptionReactivatedEventPublisherTest {
 
         @Mock
-        private RabbitTemplate rabbitTemplate;
-
-        @Mock
-        private ObjectMapper objectMapper;
+        private SubscriptionEventBus eventBus;
 
         @InjectMocks
         private SubscriptionReactivatedEventPublisher subscriptionReactivatedEventPublisher;
 
         @Captor
-        private ArgumentCaptor<String> messageCaptor;
+        private ArgumentCaptor<SubscriptionReactivatedPayload> payloadCaptor;
 
         // Test pour vérifier la publication correcte d'un événement de réactivation
         // d'abonnement avec toutes les informations
         @Test
-        void publishSubscriptionReactivatedEvent_shouldPublishCorrectlyWithAllInfo() throws Exception {
-                // GIVEN : Un abonnement avec un utilisateur et un niveau d'abonnement, et une
-                // date de prochaine facturation
+        void publishSubscriptionReactivatedEvent_shouldPublishCorrectlyWithAllInfo() {
+                // GIVEN : Un abonnement réactivé complet
                 User user = new User();
-                user.setId(123L);
+                user.setId(1L);
                 SubscriptionLevel subscriptionLevel = new SubscriptionLevel();
-                subscriptionLevel.setId(456L);
-                subscriptionLevel.setLevel(Level.PREMIUM);
+                subscriptionLevel.setId(2L);
+                subscriptionLevel.setLevel(Level.BASIC);
+                LocalDateTime nextBillingDate = LocalDateTime.now().plusMonths(1);
                 Subscription subscription = new Subscription();
-                subscription.setId(789L);
+                subscription.setId(3L);
                 subscription.setUser(user);
                 subscription.setSubscriptionLevel(subscriptionLevel);
-                subscription.setNextBillingDate(LocalDateTime.now().plusMonths(1));
-
-                // AND : Configuration de l'ObjectMapper pour retourner une chaîne JSON lors de
-                // la sérialisation du payload
-                Map<String, Object> expectedPayload = Map.of(
-                                "subscriptionId", 789L,
-                                "userId", 123L,
-                                "reactivationDate", LocalDateTime.now().toString(),
-                                "nextBillingDate", LocalDate.now().plusMonths(1).toString(),
-                                "subscriptionLevelId", 456L,
-                                "subscriptionLevelName", "PREMIUM");
-                String expectedMessage = new ObjectMapper().writeValueAsString(expectedPayload);
-
-                when(objectMapper.writeValueAsString(org.mockito.ArgumentMatchers.anyMap()))
-                                .thenReturn(expectedMessage);
+                subscription.setNextBillingDate(nextBillingDate);
 
                 // WHEN : Publication de l'événement
                 subscriptionReactivatedEventPublisher.publishSubscriptionReactivatedEvent(subscription);
 
-                // THEN : Vérification que la méthode convertAndSend du RabbitTemplate a été
-                // appelée une fois
-                verify(rabbitTemplate, times(1)).convertAndSend(
-                                "subscription.events",
-                                "subscription.reactivated",
-                                messageCaptor.capture());
-
-                // Vérification que l'ObjectMapper a été utilisé pour sérialiser le payload
-                verify(objectMapper, times(1)).writeValueAsString(org.mockito.ArgumentMatchers.anyMap());
-
-                // Vérification que le message publié est celui attendu
-                assertEquals(expectedMessage, messageCaptor.getValue(),
-                                "Le message publié sur RabbitMQ doit correspondre au payload sérialisé.");
+                // THEN : L'évènement est confié au bus avec la route de la réactivation
+                verify(eventBus).publish(eq(SubscriptionReactivatedEventPublisher.ROUTE), payloadCaptor.capture());
+                SubscriptionReactivatedPayload payload = payloadCaptor.getValue();
+                assertEquals(3L, payload.subscriptionId());
+                assertEquals(1L, payload.userId());
+                assertEquals(nextBillingDate.toString(), payload.nextBillingDate());
+                assertEquals(2L, payload.subscriptionLevelId());
+                assertEquals("BASIC", payload.subscriptionLevelName());
+                assertNotNull(payload.reactivationDate());
+                assertEquals("subscription.events", SubscriptionReactivatedEventPublisher.ROUTE.exchange());
+                assertEquals("subscription.reactivated", SubscriptionReactivatedEventPublisher.ROUTE.routingKey());
         }
 
-        // Test pour vérifier la publication correcte d'un événement de réactivation
-        // d'abonnement sans utilisateur
+        // Test pour vérifier la publication sans utilisateur ni niveau
         @Test
-        void publishSubscriptionReactivatedEvent_shouldPublishCorrectlyWithoutUser() throws Exception {
-                // GIVEN : Un abonnement sans utilisateur, mais avec un niveau et une date de
-                // prochaine facturation
-                SubscriptionLevel subscriptionLevel = new SubscriptionLevel();
-                subscriptionLevel.setId(101L);
-                subscriptionLevel.setLevel(Level.BASIC);
+        void publishSubscriptionReactivatedEvent_shouldPublishCorrectlyWithoutUserAndLevel() {
+                // GIVEN : Un abonnement sans utilisateur ni niveau
                 Subscription subscription = new Subscription();
-                subscription.setId(202L);
-                subscription.setUser(null);
-                subscription.setSubscriptionLevel(subscriptionLevel);
-                subscription.setNextBillingDate(LocalDateTime.now().plusWeeks(2));
-
-                // AND : Configuration de l'ObjectMapper pour retourner une chaîne JSON
-                Map<String, Object> expectedPayload = Map.of(
-                                "subscriptionId", 202L,
-                                "userId", null,
-                                "reactivationDate", LocalDateTime.now().toString(),
-                                "nextBillingDate", LocalDate.now().plusWeeks(2).toString(),
-                                "subscriptionLevelId", 101L,
-                                "subscriptionLevelName", "BASIC");
-                String expectedMessage = new ObjectMapper().writeValueAsString(expectedPayload);
-
-                when(objectMapper.writeValueAsString(org.mockito.ArgumentMatchers.anyMap()))
-                                .thenReturn(expectedMessage);
+                subscription.setId(4L);
 
                 // WHEN : Publication de l'événement
                 subscriptionReactivatedEventPublisher.publishSubscriptionReactivatedEvent(subscription);
 
-                // THEN : Vérification de l'appel à RabbitTemplate
-                verify(rabbitTemplate, times(1)).convertAndSend(
-                                "subscription.events",
-                                "subscription.reactivated",
-                                messageCaptor.capture());
-                verify(objectMapper, times(1)).writeValueAsString(org.mockito.ArgumentMatchers.anyMap());
-                assertEquals(expectedMessage, messageCaptor.getValue());
+                // THEN : Les informations absentes sont publiées à null
+                verify(eventBus).publish(eq(SubscriptionReactivatedEventPublisher.ROUTE), payloadCaptor.capture());
+                assertEquals(4L, payloadCaptor.getValue().subscriptionId());
+                assertNull(payloadCaptor.getValue().userId());
+                assertNull(payloadCaptor.getValue().subscriptionLevelName());
         }
 
-        // Test pour vérifier la publication correcte avec une date de prochaine
-        // facturation nulle
+        // Test pour vérifier qu'une erreur d'enregistrement est propagée à l'appelant
         @Test
-        void publishSubscriptionReactivatedEvent_shouldPublishCorrectlyWithNullNextBillingDate() throws Exception {
-                // GIVEN : Un abonnement avec un utilisateur, un niveau, mais sans date de
-                // prochaine facturation
-                User user = new User();
-                user.setId(303L);
-                SubscriptionLevel subscriptionLevel = new SubscriptionLevel();
-                subscriptionLevel.setId(505L);
-                subscriptionLevel.setLevel(Level.BASIC);
+        void publishSubscriptionReactivatedEvent_shouldPropagateBusFailure() {
+                // GIVEN : Le bus ne peut pas enregistrer l'évènement
                 Subscription subscription = new Subscription();
-                subscription.setId(404L);
-                subscription.setUser(user);
-                subscription.setSubscriptionLevel(subscriptionLevel);
-                subscription.setNextBillingDate(null);
-
-                // AND : Configuration de l'ObjectMapper
-                Map<String, Object> expectedPayload = Map.of(
-                                "subscriptionId", 404L,
-                                "userId", 303L,
-                                "reactivationDate", LocalDateTime.now().toString(),
-                                "nextBillingDate", null,
-                                "subscriptionLevelId", 505L,
-                                "subscriptionLevelName", "BASIC");
-                String expectedMessage = new ObjectMapper().writeValueAsString(expectedPayload);
-
-                when(objectMapper.writeValueAsString(org.mockito.ArgumentMatchers.anyMap()))
-                                .thenReturn(expectedMessage);
-
-                // WHEN : Publication de l'événement
-                subscriptionReactivatedEventPublisher.publishSubscriptionReactivatedEvent(subscription);
-
-                // THEN : Vérification de l'appel à RabbitTemplate
-                verify(rabbitTemplate, times(1)).convertAndSend(
-                                "subscription.events",
-                                "subscription.reactivated",
-                                messageCaptor.capture());
-                verify(objectMapper, times(1)).writeValueAsString(org.mockito.ArgumentMatchers.anyMap());
-                assertEquals(expectedMessage, messageCaptor.getValue());
-        }
-
-        // Test pour vérifier la gestion d'une exception lors de la sérialisation et log
-        // de l'erreur
-        @Test
-        void publishSubscriptionReactivatedEvent_shouldHandleSerializationException_andLogError() throws Exception {
-                // GIVEN : Un abonnement
-                Subscription subscription = new Subscription();
-                subscription.setId(505L);
-
-                // AND : Configuration de l'ObjectMapper pour lancer une exception
-                String errorMessage = "Erreur de sérialisation JSON";
-                when(objectMapper.writeValueAsString(org.mockito.ArgumentMatchers.anyMap()))
-                                .thenThrow(new Exception(errorMessage));
-
-                // AND : Mock du Logger
-                Logger mockLogger = mock(Logger.class);
-                try (MockedStatic<LoggerFactory> factory = mockStatic(LoggerFactory.class)) {
-                        factory.when(() -> LoggerFactory.getLogger(SubscriptionReactivatedEventPublisher.class))
-                                        .thenReturn(mockLogger);
-
-                        // WHEN : Publication de l'événement
-                        subscriptionReactivatedEventPublisher.publishSubscriptionReactivatedEvent(subscription);
-
-                        // THEN : Vérification de l'appel à RabbitTemplate (le message pourrait être
-                        // null)
-                        verify(rabbitTemplate, times(1)).convertAndSend(
-                                        "subscription.events",
-                                        "subscription.reactivated",
-                                        (String) null);
-                        verify(objectMapper, times(1)).writeValueAsString(org.mockito.ArgumentMatchers.anyMap());
-
-                        // THEN : Vérification que le Logger a enregistré une erreur
-                        verify(mockLogger, times(1)).error(
-                                        eq("Erreur lors de la publication de l'Évènement SubscriptionReactivatedEvent : {}"),
-                                        eq(errorMessage),
-                                        any(Exception.class));
-                }
-        }
-
-        // Test pour vérifier la gestion d'une exception lors de l'envoi via
-        // RabbitTemplate et log de l'erreur
-        @Test
-        void publishSubscriptionReactivatedEvent_shouldHandleRabbitTemplateException_andLogError() throws Exception {
-                // GIVEN : Un abonnement
-                Subscription subscription = new Subscription();
-                subscription.setId(606L);
-                Map<String, Object> payload = Map.of(
-                                "subscriptionId", 606L,
-                                "userId", null,
-                                "reactivationDate", LocalDateTime.now().toString(),
-                                "nextBillingDate", null,
-                                "subscriptionLevelId", null,
-                                "subscriptionLevelName", null);
-                String expectedMessage = new ObjectMapper().writeValueAsString(payload);
-                when(objectMapper.writeValueAsString(org.mockito.ArgumentMatchers.anyMap()))
-                                .thenReturn(expectedMessage);
-
-                // AND : Mock du RabbitTemplate pour lancer une exception
-                String errorMessage = "Erreur lors de l'envoi à RabbitMQ";
-                doThrow(new RuntimeException(errorMessage))
-                                .when(rabbitTemplate).convertAndSend(
-                                                "subscription.events",
-                                                "subscription.reactivated",
-                                                expectedMessage);
-
-                // AND : Mock du Logger
-                Logger mockLogger = mock(Logger.class);
-                try (MockedStatic<LoggerFactory> factory = mockStatic(LoggerFactory.class)) {
-                        factory.when(() -> LoggerFactory.getLogger(SubscriptionReactivatedEventPublisher.class))
-                                        .thenReturn(mockLogger);
-
-                        // WHEN : Publication de l'événement
-                        subscriptionReactivatedEventPublisher.publishSubscriptionReactivatedEvent(subscription);
-
-                        // THEN : Vérification de l'appel à RabbitTemplate
-                        verify(rabbitTemplate, times(1)).convertAndSend(
-                                        "subscription.events",
-                                        "subscription.reactivated",
-                                        expectedMessage);
-                        verify(objectMapper, times(1)).writeValueAsString(org.mockito.ArgumentMatchers.anyMap());
+                subscription.setId(5L);
+                doThrow(new IllegalStateException("Outbox indisponible")).when(eventBus).publish(any(), any());
 
-                        // THEN : Vérification que le Logger a enregistré une erreur
-                        verify(mockLogger, times(1)).error(
-                                        eq("Erreur lors de la publication de l'Évènement SubscriptionReactivatedEvent : {}"),
-                                        eq(errorMessage),
-                                        any(RuntimeException.class));
-                }
+                // WHEN / THEN : L'erreur remonte
+                assertThrows(IllegalStateException.class,
+                                () -> subscriptionReactivatedEventPublisher
+                                                .publishSubscriptionReactivatedEvent(subscription));
         }
-}
\ No newline at end of file
+}
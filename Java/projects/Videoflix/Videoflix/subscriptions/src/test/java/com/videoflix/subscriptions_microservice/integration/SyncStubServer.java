@@ -0,0 +1,83 @@
+package com.videoflix.subscriptions_microservice.integration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bouchon HTTP local des systèmes externes (CRM, analytics) pour les tests de
+ * synchronisation. Accepte les {@code POST} sur {@code /crm} et
+ * {@code /analytics}, décompresse les corps gzip et peut refuser les premières
+ * requêtes avec un statut donné.
+ */
+public class SyncStubServer implements AutoCloseable {
+
+    /** Requête reçue : chemin, en-têtes utiles et corps décompressé. */
+    public record ReceivedRequest(String path, String contentType, String contentEncoding, String body) {
+    }
+
+    private final HttpServer server;
+    private final List<ReceivedRequest> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus = 503;
+
+    public SyncStubServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/crm", this::handle);
+        this.server.createContext("/analytics", this::handle);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.start();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /** Les {@code count} prochaines requêtes recevront le statut donné. */
+    public void failNext(int count, int status) {
+        this.failureStatus = status;
+        this.failuresLeft.set(count);
+    }
+
+    public List<ReceivedRequest> getRequests() {
+        return requests;
+    }
+
+    public List<ReceivedRequest> getRequests(String path) {
+        return requests.stream().filter(request -> request.path().equals(path)).toList();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        byte[] raw = exchange.getRequestBody().readAllBytes();
+        String body;
+        if ("gzip".equals(contentEncoding)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(raw))) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } else {
+            body = new String(raw, StandardCharsets.UTF_8);
+        }
+        requests.add(new ReceivedRequest(exchange.getRequestURI().getPath(),
+                exchange.getRequestHeaders().getFirst("Content-Type"), contentEncoding, body));
+
+        int status = failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0 ? failureStatus : 204;
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -470,39 +470,46 @@ class SubscriptionRepositoryTest {
                                                 && sub.getPaymentDate().isBefore(localDate.plusDays(1))));
         }
 
-        // Test pour vérifier la méthode findSubscriptionsUpdatedSince.
+        // Test pour vérifier la méthode findSubscriptionsUpdatedSince : parcours keyset
+        // par (date de modification, ID), repris depuis le dernier curseur.
         @Test
-        void findSubscriptionsUpdatedSince_shouldReturnSubscriptionsUpdatedAfterGivenTimestampWithPagination() {
-                // GIVEN : Création d'abonnements avec différentes dates de dernière activité.
+        void findSubscriptionsUpdatedSince_shouldPageByUpdatedAtAndIdFromWatermark() {
+                // GIVEN : Trois abonnements modifiés (date renseignée à l'enregistrement).
                 User user1 = createAndPersistUser(1L);
-                LocalDateTime lastSyncTimestamp = LocalDateTime.now().minusDays(2);
-                createAndPersistSubscription(user1, SubscriptionStatus.ACTIVE, LocalDateTime.now().minusDays(5),
-                                LocalDateTime.now(), null, null, LocalDateTime.now(), null,
-                                LocalDateTime.now().minusDays(1));
-                Subscription subscription2 = createAndPersistSubscription(user1, SubscriptionStatus.PENDING,
-                                LocalDateTime.now().minusDays(3), LocalDateTime.now(), null, null, LocalDateTime.now(),
-                                null, LocalDateTime.now().minusDays(3));
-                entityManager.persist(subscription2);
-                Subscription subscription3 = createAndPersistSubscription(user1, SubscriptionStatus.CANCELLED,
-                                LocalDateTime.now().minusDays(7), LocalDateTime.now(), null, null, LocalDateTime.now(),
-                                null, LocalDateTime.now());
-                entityManager.persist(subscription3);
-
-                // WHEN : Recherche des abonnements mis à jour après le timestamp donné avec
-                // pagination.
-                List<Subscription> updatedSubscriptions = subscriptionRepository
-                                .findSubscriptionsUpdatedSince(lastSyncTimestamp, 0, 10);
-
-                // THEN : Vérification que la liste contient les abonnements mis à jour après le
-                // timestamp.
-                assertEquals(2, updatedSubscriptions.size());
-                assertTrue(updatedSubscriptions.stream()
-                                .anyMatch(sub -> sub.getLastActivity().isAfter(lastSyncTimestamp)));
-                assertTrue(updatedSubscriptions.stream().anyMatch(sub -> sub.getStatus() == SubscriptionStatus.ACTIVE));
-                assertTrue(updatedSubscriptions.stream()
-                                .anyMatch(sub -> sub.getStatus() == SubscriptionStatus.CANCELLED));
-                assertFalse(updatedSubscriptions.stream()
-                                .anyMatch(sub -> sub.getStatus() == SubscriptionStatus.PENDING));
+                for (SubscriptionStatus status : List.of(SubscriptionStatus.ACTIVE, SubscriptionStatus.PENDING,
+                                SubscriptionStatus.CANCELLED)) {
+                        createAndPersistSubscription(user1, status, LocalDateTime.now().minusDays(5),
+                                        LocalDateTime.now(), null, null, LocalDateTime.now(), null,
+                                        LocalDateTime.now().minusDays(1));
+                }
+                LocalDateTime until = LocalDateTime.now().plusMinutes(1);
+
+                // WHEN : Lecture d'une première page de deux depuis le curseur initial.
+                List<Subscription> firstPage = subscriptionRepository.findSubscriptionsUpdatedSince(
+                                LocalDateTime.of(1970, 1, 1, 0, 0), 0L, until, PageRequest.of(0, 2));
+
+                // THEN : Les deux premiers abonnements, dans l'ordre du curseur.
+                assertEquals(2, firstPage.size());
+                Subscription first = firstPage.get(0);
+                Subscription second = firstPage.get(1);
+                assertTrue(first.getUpdatedAt().isBefore(second.getUpdatedAt())
+                                || first.getUpdatedAt().isEqual(second.getUpdatedAt())
+                                                && first.getId() < second.getId());
+
+                // WHEN : Reprise depuis le dernier abonnement de la première page.
+                Subscription last = firstPage.get(1);
+                List<Subscription> nextPage = subscriptionRepository.findSubscriptionsUpdatedSince(
+                                last.getUpdatedAt(), last.getId(), until, PageRequest.of(0, 2));
+
+                // THEN : Seul l'abonnement restant est renvoyé.
+                assertEquals(1, nextPage.size());
+                assertFalse(firstPage.stream().anyMatch(sub -> sub.getId().equals(nextPage.get(0).getId())));
+
+                // Les modifications postérieures à la borne haute sont laissées au passage
+                // suivant.
+                assertTrue(subscriptionRepository.findSubscriptionsUpdatedSince(
+                                LocalDateTime.of(1970, 1, 1, 0, 0), 0L, LocalDateTime.of(1971, 1, 1, 0, 0),
+                                PageRequest.of(0, 2)).isEmpty());
         }
 
         // Test pour vérifier la méthode findByStatusAndLastActivityBefore avec
@@ -3,13 +3,13 @@ package com.videoflix.subscriptions_microservice.services;
 import com.videoflix.subscriptions_microservice.entities.Permission;
 import com.videoflix.subscriptions_microservice.entities.Role;
 import com.videoflix.subscriptions_microservice.entities.User;
-import com.videoflix.subscriptions_microservice.entities.UserRole;
 import com.videoflix.subscriptions_microservice.repositories.RoleRepository;
 import com.videoflix.subscriptions_microservice.repositories.UserRepository;
 import com.videoflix.subscriptions_microservice.repositories.UserRoleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.GrantedAuthority;
@@ -38,11 +38,16 @@ class CustomUserDetailsServiceTest {
     @Mock
     private UserRoleRepository userRoleRepository;
 
-    // @InjectMocks crée une instance de CustomUserDetailsService et injecte les
-    // mocks annotés avec @Mock.
-    @InjectMocks
+    // Service testé, avec un cache d'autorités réel branché sur les mocks.
     private CustomUserDetailsService userDetailsService;
 
+    @BeforeEach
+    void setUp() {
+        RoleAuthorityCache roleAuthorityCache = new RoleAuthorityCache(roleRepository, userRoleRepository,
+                new SimpleMeterRegistry(), 1_000, 600_000);
+        userDetailsService = new CustomUserDetailsService(userRepository, roleAuthorityCache);
+    }
+
     // Test pour vérifier que loadUserByUsername charge correctement l'utilisateur,
     // ses rôles et ses permissions.
     @Test
@@ -52,11 +57,13 @@ class CustomUserDetailsServiceTest {
 
         // Création d'un utilisateur mocké.
         User user = new User();
+        user.setId(1L);
         user.setUsername(username);
         user.setPassword("password");
 
         // Création d'un rôle mocké.
         Role role = new Role();
+        role.setId(10L);
         role.setName("ADMIN");
 
         // Création d'une permission mockée associée au rôle.
@@ -66,14 +73,10 @@ class CustomUserDetailsServiceTest {
         permission2.setName("EDIT_USERS");
         role.setPermissions(List.of(permission1, permission2));
 
-        // Création d'un UserRole mocké liant l'utilisateur au rôle.
-        UserRole userRole = new UserRole();
-        userRole.setUser(user);
-        userRole.setRole(role);
-
-        // Configuration des mocks pour retourner les données simulées.
+        // Configuration des mocks : graphe des rôles et rôle de l'utilisateur.
         when(userRepository.findByUsername(username)).thenReturn(user);
-        when(userRoleRepository.findByUser(user)).thenReturn(List.of(userRole));
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(role));
+        when(userRoleRepository.findRoleIdsByUserId(1L)).thenReturn(List.of(10L));
 
         // WHEN : Appel de la méthode loadUserByUsername.
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -115,6 +118,7 @@ class CustomUserDetailsServiceTest {
         // GIVEN : Un utilisateur existant mais sans rôles associés.
         String username = "userwithoutroles";
         User user = new User();
+        user.setId(1L);
         user.setUsername(username);
         user.setPassword("password");
 
@@ -122,7 +126,7 @@ class CustomUserDetailsServiceTest {
         when(userRepository.findByUsername(username)).thenReturn(user);
         // Configuration du mock userRoleRepository pour retourner une liste vide (aucun
         // rôle).
-        when(userRoleRepository.findByUser(user)).thenReturn(Collections.emptyList());
+        when(userRoleRepository.findRoleIdsByUserId(1L)).thenReturn(Collections.emptyList());
 
         // WHEN : Appel de la méthode loadUserByUsername.
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -141,20 +145,19 @@ class CustomUserDetailsServiceTest {
         // GIVEN : Un utilisateur avec un rôle mais ce rôle n'a aucune permission.
         String username = "userwithnorolepermissions";
         User user = new User();
+        user.setId(1L);
         user.setUsername(username);
         user.setPassword("password");
 
         Role role = new Role();
+        role.setId(20L);
         role.setName("VIEWER");
         role.setPermissions(Collections.emptyList()); // Le rôle n'a pas de permissions.
 
-        UserRole userRole = new UserRole();
-        userRole.setUser(user);
-        userRole.setRole(role);
-
         // Configuration des mocks.
         when(userRepository.findByUsername(username)).thenReturn(user);
-        when(userRoleRepository.findByUser(user)).thenReturn(List.of(userRole));
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(role));
+        when(userRoleRepository.findRoleIdsByUserId(1L)).thenReturn(List.of(20L));
 
         // WHEN : Appel de loadUserByUsername.
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -1,29 +1,42 @@
 package com.videoflix.subscriptions_microservice.services;
 
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SyncWatermark;
+import com.videoflix.subscriptions_microservice.integration.SyncStubServer;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
+import com.videoflix.subscriptions_microservice.repositories.SyncWatermarkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 // @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
 @ExtendWith(MockitoExtension.class)
 class DataSynchronizationServiceTest {
 
+    private static final int MAX_ATTEMPTS = 3;
+    private static final LocalDateTime CHANGED_AT = LocalDateTime.of(2025, 5, 20, 10, 30);
+    private static final long OVERLAP_SECONDS = 60;
+
     // @Mock crée un mock de l'interface RestTemplate.
     @Mock
     private RestTemplate restTemplate;
@@ -32,211 +45,226 @@ class DataSynchronizationServiceTest {
     @Mock
     private Logger logger;
 
+    // @Mock crée un mock du repository des abonnements.
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    // @Mock crée un mock du repository des curseurs de synchronisation.
+    @Mock
+    private SyncWatermarkRepository watermarkRepository;
+
+    // Registre de métriques réel pour vérifier la jauge de retard.
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Registre propre aux services branchés sur le bouchon HTTP.
+    private final SimpleMeterRegistry syncMeters = new SimpleMeterRegistry();
+
     // @InjectMocks crée une instance de DataSynchronizationService et injecte les
     // mocks annotés avec @Mock.
     @InjectMocks
     private DataSynchronizationService dataSynchronizationService;
 
-    // @Captor pour capturer la liste des abonnements envoyée au CRM.
+    // @Captor pour capturer les curseurs enregistrés.
     @Captor
-    private ArgumentCaptor<List<Subscription>> crmSubscriptionsCaptor;
-
-    // @Captor pour capturer la liste des abonnements envoyée au système
-    // d'analytics.
-    @Captor
-    private ArgumentCaptor<List<Subscription>> analyticsSubscriptionsCaptor;
+    private ArgumentCaptor<SyncWatermark> watermarkCaptor;
 
     // @Captor pour capturer le payload envoyé à l'analytics lors de l'annulation
     // Stripe.
     @Captor
     private ArgumentCaptor<Map<String, Object>> analyticsCancellationPayloadCaptor;
 
-    // Test pour vérifier que synchronizeSubscriptions envoie correctement les
-    // abonnements au CRM si l'URL est configurée.
+    // Test pour vérifier que les abonnements modifiés sont envoyés en NDJSON
+    // compressé aux deux systèmes et que chaque curseur avance.
     @Test
-    void synchronizeSubscriptions_shouldSendSubscriptionsToCrmIfUrlConfigured() {
-        // GIVEN : Une liste d'abonnements et une URL CRM configurée.
-        List<Subscription> subscriptions = Arrays.asList(new Subscription(), new Subscription());
-        String crmSyncUrl = "http://crm.example.com/sync";
-        ReflectionTestUtils.setField(dataSynchronizationService, "crmSyncUrl", crmSyncUrl);
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-
-        // WHEN : Appel de la méthode synchronizeSubscriptions.
-        dataSynchronizationService.synchronizeSubscriptions(subscriptions);
-
-        // THEN : Vérification que postForObject sur restTemplate a été appelé avec
-        // l'URL CRM et la liste d'abonnements.
-        verify(restTemplate, times(1)).postForObject(eq(crmSyncUrl), crmSubscriptionsCaptor.capture(), eq(Void.class));
-        assertEquals(subscriptions, crmSubscriptionsCaptor.getValue());
-        // Vérification que le logger info a été appelé pour confirmer la
-        // synchronisation avec le CRM.
-        verify(logger, times(1)).info("{} abonnements synchronisés avec succès avec le CRM à : {}",
-                subscriptions.size(), crmSyncUrl);
-        // Vérification que le logger warn pour l'URL analytics a également été appelé
-        // (si non configurée).
-        verify(logger, atLeastOnce()).warn("L'URL de synchronisation du système d'analytics n'est pas configurée.");
+    void synchronizeSubscriptions_shouldSendChangedSubscriptionsAsGzipNdjsonToBothTargets() throws Exception {
+        try (SyncStubServer stub = new SyncStubServer()) {
+            // GIVEN : Deux abonnements modifiés et les deux URLs configurées.
+            List<Subscription> changed = List.of(subscription(1L, CHANGED_AT), subscription(2L, CHANGED_AT));
+            when(subscriptionRepository.findSubscriptionsUpdatedSince(any(), eq(0L), any(), any()))
+                    .thenReturn(changed);
+            DataSynchronizationService service = stubbedService(stub);
+
+            // WHEN : Appel de la méthode synchronizeSubscriptions.
+            Map<String, Integer> synced = service.synchronizeSubscriptions();
+
+            // THEN : Un lot par système, une ligne NDJSON par abonnement.
+            assertEquals(Map.of("crm", 2, "analytics", 2), synced);
+            for (String path : List.of("/crm", "/analytics")) {
+                List<SyncStubServer.ReceivedRequest> received = stub.getRequests(path);
+                assertEquals(1, received.size());
+                assertEquals("gzip", received.get(0).contentEncoding());
+                assertEquals("application/x-ndjson", received.get(0).contentType());
+                String[] lines = received.get(0).body().split("\n");
+                assertEquals(2, lines.length);
+                assertTrue(lines[0].contains("\"id\":1"));
+                assertTrue(lines[1].contains("\"id\":2"));
+            }
+            // Le curseur de chaque système est enregistré sur le dernier abonnement.
+            verify(watermarkRepository, times(2)).save(watermarkCaptor.capture());
+            for (SyncWatermark watermark : watermarkCaptor.getAllValues()) {
+                assertEquals(CHANGED_AT, watermark.getLastUpdatedAt());
+                assertEquals(2L, watermark.getLastId());
+            }
+            assertEquals(Duration.ZERO, service.getSyncLag("crm"));
+        }
     }
 
-    // Test pour vérifier que synchronizeSubscriptions n'appelle pas le CRM si l'URL
-    // n'est pas configurée.
+    // Test pour vérifier que la synchronisation reprend depuis le curseur
+    // persistant après un redémarrage, fenêtre de recouvrement comprise.
     @Test
-    void synchronizeSubscriptions_shouldNotCallCrmIfUrlNotConfigured() {
-        // GIVEN : Une liste d'abonnements et une URL CRM non configurée (null ou vide).
-        List<Subscription> subscriptions = Arrays.asList(new Subscription());
-        ReflectionTestUtils.setField(dataSynchronizationService, "crmSyncUrl", null);
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-
-        // WHEN : Appel de la méthode synchronizeSubscriptions.
-        dataSynchronizationService.synchronizeSubscriptions(subscriptions);
-
-        // THEN : Vérification que postForObject sur restTemplate n'a pas été appelé
-        // avec l'URL CRM.
-        verify(restTemplate, never()).postForObject(anyString(), anyList(), eq(Void.class));
-        // Vérification que le logger warn a été appelé pour indiquer que l'URL CRM
-        // n'est pas configurée.
-        verify(logger, times(1)).warn("L'URL de synchronisation CRM n'est pas configurée.");
-        // Vérification que le logger warn pour l'URL analytics a également été appelé
-        // (si non configurée).
-        verify(logger, atLeastOnce()).warn("L'URL de synchronisation du système d'analytics n'est pas configurée.");
+    void synchronizeSubscriptions_shouldResumeFromPersistedWatermark() throws Exception {
+        try (SyncStubServer stub = new SyncStubServer()) {
+            // GIVEN : Un curseur CRM déjà enregistré.
+            SyncWatermark watermark = new SyncWatermark();
+            watermark.setTarget("crm");
+            watermark.setLastUpdatedAt(CHANGED_AT);
+            watermark.setLastId(41L);
+            when(watermarkRepository.findById("crm")).thenReturn(Optional.of(watermark));
+            when(subscriptionRepository.findSubscriptionsUpdatedSince(eq(CHANGED_AT.minusSeconds(OVERLAP_SECONDS)),
+                    eq(0L), any(), any())).thenReturn(Collections.emptyList());
+            DataSynchronizationService service = stubbedService(stub);
+            ReflectionTestUtils.setField(service, "analyticsSyncUrl", null);
+
+            // WHEN : Appel de la méthode synchronizeSubscriptions.
+            Map<String, Integer> synced = service.synchronizeSubscriptions();
+
+            // THEN : Rien n'est renvoyé, le curseur reste inchangé.
+            assertEquals(Map.of("crm", 0), synced);
+            assertTrue(stub.getRequests().isEmpty());
+            verify(watermarkRepository, never()).save(any());
+        }
     }
 
-    // Test pour vérifier la gestion des erreurs lors de la synchronisation avec le
-    // CRM.
+    // Test pour vérifier qu'une modification validée après le passage précédent,
+    // mais datée d'avant son curseur, est envoyée sans faire reculer le curseur.
     @Test
-    void synchronizeSubscriptions_shouldLogErrorIfCrmSyncFails() {
-        // GIVEN : Une liste d'abonnements, une URL CRM configurée et une exception
-        // lancée par restTemplate.
-        List<Subscription> subscriptions = Arrays.asList(new Subscription());
-        String crmSyncUrl = "http://crm.example.com/sync";
-        String errorMessage = "Connection refused";
-        RuntimeException exception = new RuntimeException(errorMessage);
-        ReflectionTestUtils.setField(dataSynchronizationService, "crmSyncUrl", crmSyncUrl);
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-        when(restTemplate.postForObject(eq(crmSyncUrl), anyList(), eq(Void.class))).thenThrow(exception);
-
-        // WHEN : Appel de la méthode synchronizeSubscriptions.
-        dataSynchronizationService.synchronizeSubscriptions(subscriptions);
-
-        // THEN : Vérification que le logger error a été appelé avec le message d'erreur
-        // correct.
-        verify(logger, times(1)).error("Erreur lors de la synchronisation avec le CRM à {} : {}", crmSyncUrl,
-                errorMessage, exception);
-        // Vérification que la tentative d'envoi au CRM a eu lieu.
-        verify(restTemplate, times(1)).postForObject(eq(crmSyncUrl), anyList(), eq(Void.class));
-        // Vérification que le logger warn pour l'URL analytics a également été appelé
-        // (si non configurée).
-        verify(logger, atLeastOnce()).warn("L'URL de synchronisation du système d'analytics n'est pas configurée.");
+    void synchronizeSubscriptions_shouldSendLateCommitsWithinOverlapWithoutMovingWatermarkBack() throws Exception {
+        try (SyncStubServer stub = new SyncStubServer()) {
+            // GIVEN : Un curseur CRM et un abonnement modifié 30 s avant lui.
+            SyncWatermark watermark = new SyncWatermark();
+            watermark.setTarget("crm");
+            watermark.setLastUpdatedAt(CHANGED_AT);
+            watermark.setLastId(41L);
+            when(watermarkRepository.findById("crm")).thenReturn(Optional.of(watermark));
+            when(subscriptionRepository.findSubscriptionsUpdatedSince(eq(CHANGED_AT.minusSeconds(OVERLAP_SECONDS)),
+                    eq(0L), any(), any())).thenReturn(List.of(subscription(7L, CHANGED_AT.minusSeconds(30))));
+            DataSynchronizationService service = stubbedService(stub);
+            ReflectionTestUtils.setField(service, "analyticsSyncUrl", null);
+
+            // WHEN : Appel de la méthode synchronizeSubscriptions.
+            Map<String, Integer> synced = service.synchronizeSubscriptions();
+
+            // THEN : L'abonnement est envoyé, le curseur reste sur sa position.
+            assertEquals(Map.of("crm", 1), synced);
+            assertTrue(stub.getRequests("/crm").get(0).body().contains("\"id\":7"));
+            verify(watermarkRepository).save(watermarkCaptor.capture());
+            assertEquals(CHANGED_AT, watermarkCaptor.getValue().getLastUpdatedAt());
+            assertEquals(41L, watermarkCaptor.getValue().getLastId());
+        }
     }
 
-    // Test pour vérifier que synchronizeSubscriptions envoie correctement les
-    // abonnements au système d'analytics si l'URL est configurée.
+    // Test pour vérifier qu'un échec temporaire est réessayé avec délai.
     @Test
-    void synchronizeSubscriptions_shouldSendSubscriptionsToAnalyticsIfUrlConfigured() {
-        // GIVEN : Une liste d'abonnements et une URL analytics configurée.
-        List<Subscription> subscriptions = Arrays.asList(new Subscription(), new Subscription());
-        String analyticsSyncUrl = "http://analytics.example.com/sync";
-        ReflectionTestUtils.setField(dataSynchronizationService, "analyticsSyncUrl", analyticsSyncUrl);
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-
-        // WHEN : Appel de la méthode synchronizeSubscriptions.
-        dataSynchronizationService.synchronizeSubscriptions(subscriptions);
-
-        // THEN : Vérification que postForObject sur restTemplate a été appelé avec
-        // l'URL analytics et la liste d'abonnements.
-        verify(restTemplate, times(1)).postForObject(eq(analyticsSyncUrl), analyticsSubscriptionsCaptor.capture(),
-                eq(Void.class));
-        assertEquals(subscriptions, analyticsSubscriptionsCaptor.getValue());
-        // Vérification que le logger info a été appelé pour confirmer la
-        // synchronisation avec l'analytics.
-        verify(logger, times(1)).info("{} abonnements synchronisés avec succès avec le système d'analytics à : {}",
-                subscriptions.size(), analyticsSyncUrl);
-        // Vérification que le logger warn pour l'URL CRM a également été appelé (si non
-        // configurée).
-        verify(logger, atLeastOnce()).warn("L'URL de synchronisation CRM n'est pas configurée.");
+    void synchronizeSubscriptions_shouldRetryTransientFailures() throws Exception {
+        try (SyncStubServer stub = new SyncStubServer()) {
+            // GIVEN : Le système refuse les deux premières requêtes (503).
+            when(subscriptionRepository.findSubscriptionsUpdatedSince(any(), eq(0L), any(), any()))
+                    .thenReturn(List.of(subscription(1L, CHANGED_AT)));
+            DataSynchronizationService service = stubbedService(stub);
+            ReflectionTestUtils.setField(service, "analyticsSyncUrl", null);
+            stub.failNext(2, 503);
+
+            // WHEN : Appel de la méthode synchronizeSubscriptions.
+            Map<String, Integer> synced = service.synchronizeSubscriptions();
+
+            // THEN : Le lot est accepté à la troisième tentative.
+            assertEquals(Map.of("crm", 1), synced);
+            assertEquals(3, stub.getRequests("/crm").size());
+            verify(watermarkRepository, times(1)).save(any(SyncWatermark.class));
+        }
     }
 
-    // Test pour vérifier que synchronizeSubscriptions n'appelle pas le système
-    // d'analytics si l'URL n'est pas configurée.
+    // Test pour vérifier que le curseur n'avance pas après épuisement des
+    // tentatives, et que le retard est exposé.
     @Test
-    void synchronizeSubscriptions_shouldNotCallAnalyticsIfUrlNotConfigured() {
-        // GIVEN : Une liste d'abonnements et une URL analytics non configurée.
-        List<Subscription> subscriptions = Arrays.asList(new Subscription());
-        ReflectionTestUtils.setField(dataSynchronizationService, "analyticsSyncUrl", null);
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-
-        // WHEN : Appel de la méthode synchronizeSubscriptions.
-        dataSynchronizationService.synchronizeSubscriptions(subscriptions);
-
-        // THEN : Vérification que postForObject sur restTemplate n'a pas été appelé
-        // avec l'URL analytics.
-        verify(restTemplate, never()).postForObject(eq(null), anyList(), eq(Void.class));
-        // Vérification que le logger warn a été appelé pour indiquer que l'URL
-        // analytics n'est pas configurée.
-        verify(logger, times(1)).warn("L'URL de synchronisation du système d'analytics n'est pas configurée.");
-        // Vérification que le logger warn pour l'URL CRM a également été appelé (si non
-        // configurée).
-        verify(logger, atLeastOnce()).warn("L'URL de synchronisation CRM n'est pas configurée.");
+    void synchronizeSubscriptions_shouldKeepWatermarkWhenRetriesAreExhausted() throws Exception {
+        try (SyncStubServer stub = new SyncStubServer()) {
+            // GIVEN : Le système est indisponible pour toutes les tentatives.
+            LocalDateTime changedAt = LocalDateTime.now().minusHours(1);
+            when(subscriptionRepository.findSubscriptionsUpdatedSince(any(), eq(0L), any(), any()))
+                    .thenReturn(List.of(subscription(1L, changedAt)));
+            DataSynchronizationService service = stubbedService(stub);
+            ReflectionTestUtils.setField(service, "analyticsSyncUrl", null);
+            stub.failNext(MAX_ATTEMPTS, 503);
+
+            // WHEN : Appel de la méthode synchronizeSubscriptions.
+            Map<String, Integer> synced = service.synchronizeSubscriptions();
+
+            // THEN : Rien n'est compté comme synchronisé et le curseur est conservé.
+            assertEquals(Map.of("crm", 0), synced);
+            assertEquals(MAX_ATTEMPTS, stub.getRequests("/crm").size());
+            verify(watermarkRepository, never()).save(any());
+            assertTrue(service.getSyncLag("crm").toMinutes() >= 59);
+            assertEquals(service.getSyncLag("crm").toSeconds(),
+                    syncMeters.get("subscription.sync.lag").tag("target", "crm").gauge().value());
+        }
     }
 
-    // Test pour vérifier la gestion des erreurs lors de la synchronisation avec le
-    // système d'analytics.
+    // Test pour vérifier qu'une erreur client (4xx) n'est pas réessayée.
     @Test
-    void synchronizeSubscriptions_shouldLogErrorIfAnalyticsSyncFails() {
-        // GIVEN : Une liste d'abonnements, une URL analytics configurée et une
-        // exception lancée par restTemplate.
-        List<Subscription> subscriptions = Arrays.asList(new Subscription());
-        String analyticsSyncUrl = "http://analytics.example.com/sync";
-        String errorMessage = "Timeout";
-        RuntimeException exception = new RuntimeException(errorMessage);
-        ReflectionTestUtils.setField(dataSynchronizationService, "analyticsSyncUrl", analyticsSyncUrl);
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-        when(restTemplate.postForObject(eq(analyticsSyncUrl), anyList(), eq(Void.class))).thenThrow(exception);
-
-        // WHEN : Appel de la méthode synchronizeSubscriptions.
-        dataSynchronizationService.synchronizeSubscriptions(subscriptions);
-
-        // THEN : Vérification que le logger error a été appelé avec le message d'erreur
-        // correct.
-        verify(logger, times(1)).error("Erreur lors de la synchronisation avec le système d'analytics à {} : {}",
-                analyticsSyncUrl, errorMessage, exception);
-        // Vérification que la tentative d'envoi à l'analytics a eu lieu.
-        verify(restTemplate, times(1)).postForObject(eq(analyticsSyncUrl), anyList(), eq(Void.class));
-        // Vérification que le logger warn pour l'URL CRM a également été appelé (si non
-        // configurée).
-        verify(logger, atLeastOnce()).warn("L'URL de synchronisation CRM n'est pas configurée.");
+    void synchronizeSubscriptions_shouldNotRetryClientErrors() throws Exception {
+        try (SyncStubServer stub = new SyncStubServer()) {
+            // GIVEN : Le système rejette le lot (400).
+            when(subscriptionRepository.findSubscriptionsUpdatedSince(any(), eq(0L), any(), any()))
+                    .thenReturn(List.of(subscription(1L, CHANGED_AT)));
+            DataSynchronizationService service = stubbedService(stub);
+            ReflectionTestUtils.setField(service, "analyticsSyncUrl", null);
+            stub.failNext(1, 400);
+
+            // WHEN : Appel de la méthode synchronizeSubscriptions.
+            service.synchronizeSubscriptions();
+
+            // THEN : Une seule tentative.
+            assertEquals(1, stub.getRequests("/crm").size());
+            verify(watermarkRepository, never()).save(any());
+        }
     }
 
-    // Test pour vérifier que getLastSuccessfulSyncTimestamp retourne la valeur
-    // stockée.
+    // Test pour vérifier que synchronizeSubscriptions n'appelle aucun système si
+    // les URLs ne sont pas configurées.
     @Test
-    void getLastSuccessfulSyncTimestamp_shouldReturnStoredTimestamp() {
-        // GIVEN : Un horodatage de dernière synchronisation stocké.
-        LocalDateTime timestamp = LocalDateTime.now().minusHours(1);
-        ReflectionTestUtils.setField(dataSynchronizationService, "lastSuccessfulSyncTimestamp", timestamp);
+    void synchronizeSubscriptions_shouldNotCallTargetsIfUrlsNotConfigured() {
+        // GIVEN : Aucune URL configurée.
+        ReflectionTestUtils.setField(dataSynchronizationService, "crmSyncUrl", null);
+        ReflectionTestUtils.setField(dataSynchronizationService, "analyticsSyncUrl", "");
 
-        // WHEN : Appel de getLastSuccessfulSyncTimestamp.
-        LocalDateTime returnedTimestamp = dataSynchronizationService.getLastSuccessfulSyncTimestamp();
+        // WHEN : Appel de la méthode synchronizeSubscriptions.
+        Map<String, Integer> synced = dataSynchronizationService.synchronizeSubscriptions();
 
-        // THEN : Vérification que l'horodatage retourné est le même que celui stocké.
-        assertEquals(timestamp, returnedTimestamp);
+        // THEN : Aucune lecture ni aucun envoi.
+        assertTrue(synced.isEmpty());
+        verifyNoInteractions(restTemplate, subscriptionRepository, watermarkRepository);
     }
 
-    // Test pour vérifier que updateLastSuccessfulSyncTimestamp met à jour la valeur
-    // stockée et enregistre un log.
-    @Test
-    void updateLastSuccessfulSyncTimestamp_shouldUpdateTimestampAndLog() {
-        // GIVEN : Un nouvel horodatage.
-        LocalDateTime newTimestamp = LocalDateTime.now();
-        ReflectionTestUtils.setField(dataSynchronizationService, "logger", logger);
-
-        // WHEN : Appel de updateLastSuccessfulSyncTimestamp.
-        dataSynchronizationService.updateLastSuccessfulSyncTimestamp(newTimestamp);
+    private DataSynchronizationService stubbedService(SyncStubServer stub) {
+        DataSynchronizationService service = new DataSynchronizationService(new RestTemplate(),
+                subscriptionRepository, watermarkRepository, syncMeters);
+        ReflectionTestUtils.setField(service, "crmSyncUrl", stub.url("/crm"));
+        ReflectionTestUtils.setField(service, "analyticsSyncUrl", stub.url("/analytics"));
+        ReflectionTestUtils.setField(service, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(service, "backoffMillis", 1L);
+        ReflectionTestUtils.setField(service, "overlapSeconds", OVERLAP_SECONDS);
+        return service;
+    }
 
-        // THEN : Vérification que l'horodatage stocké a été mis à jour.
-        assertEquals(newTimestamp,
-                ReflectionTestUtils.getField(dataSynchronizationService, "lastSuccessfulSyncTimestamp"));
-        // Vérification que le logger info a été appelé avec le nouvel horodatage.
-        verify(logger, times(1)).info("Horodatage de la dernière synchronisation mis à jour à : {}", newTimestamp);
+    private Subscription subscription(Long id, LocalDateTime updatedAt) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
+        subscription.setPrice(9.99);
+        subscription.setUpdatedAt(updatedAt);
+        return subscription;
     }
 
     // Test pour vérifier que notifyAnalyticsSubscriptionCancelledOnStripe envoie
@@ -1,6 +1,8 @@
 package com.videoflix.subscriptions_microservice.services;
 
+import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.entities.User;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -12,8 +14,11 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -172,4 +177,44 @@ class EmailServiceTest {
         assertEquals(expectedSubject, sentMessage.getSubject());
         assertEquals(expectedBody, sentMessage.getText());
     }
-}
\ No newline at end of file
+
+    // Test pour vérifier que la version par lot envoie tous les e-mails en un seul
+    // appel au mailSender.
+    @Test
+    void sendSubscriptionExpirationImminentNotifications_shouldSendAllEmailsInOneCall() {
+        // GIVEN : Deux abonnements arrivant à expiration.
+        Subscription first = subscriptionFor("first@example.com", LocalDateTime.of(2025, 5, 10, 10, 0));
+        Subscription second = subscriptionFor("second@example.com", LocalDateTime.of(2025, 5, 11, 10, 0));
+
+        // WHEN : Appel de la méthode par lot.
+        emailService.sendSubscriptionExpirationImminentNotifications(List.of(first, second));
+
+        // THEN : Un seul appel à send avec les deux messages.
+        ArgumentCaptor<SimpleMailMessage[]> batchCaptor = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender, times(1)).send(batchCaptor.capture());
+        SimpleMailMessage[] sentMessages = batchCaptor.getValue();
+        assertEquals(2, sentMessages.length);
+        assertEquals("first@example.com", sentMessages[0].getTo()[0]);
+        assertEquals("second@example.com", sentMessages[1].getTo()[0]);
+    }
+
+    // Test pour vérifier qu'aucun envoi n'est fait pour un lot vide.
+    @Test
+    void sendSubscriptionNotifications_withEmptyBatch_shouldNotCallMailSender() {
+        emailService.sendSubscriptionNotifications(List.of());
+
+        verify(mailSender, never()).send(any(SimpleMailMessage[].class));
+    }
+
+    private Subscription subscriptionFor(String email, LocalDateTime endDate) {
+        User user = new User();
+        user.setEmail(email);
+        SubscriptionLevel level = new SubscriptionLevel();
+        level.setLevel(SubscriptionLevel.Level.PREMIUM);
+        Subscription subscription = new Subscription();
+        subscription.setUser(user);
+        subscription.setSubscriptionLevel(level);
+        subscription.setEndDate(endDate);
+        return subscription;
+    }
+}
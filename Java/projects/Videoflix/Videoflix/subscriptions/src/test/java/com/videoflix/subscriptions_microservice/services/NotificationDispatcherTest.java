@@ -0,0 +1,196 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.FailedEmail;
+import com.videoflix.subscriptions_microservice.integration.SmtpStubServer;
+import com.videoflix.subscriptions_microservice.repositories.FailedEmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    private FailedEmailRepository failedEmailRepository;
+
+    private SmtpStubServer smtp;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new SmtpStubServer();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    // Test pour vérifier que les e-mails en file sont tous envoyés, par lots
+    // partageant une connexion SMTP.
+    @Test
+    void enqueue_shouldSendAllEmailsInBatchesOverFewConnections() {
+        // GIVEN : Un moteur d'envoi branché sur le serveur SMTP local
+        NotificationDispatcher dispatcher = dispatcher(smtpSender(), 100, 2, 10, 3, 1000);
+
+        // WHEN : 40 e-mails sont mis en file puis les workers terminent
+        for (int i = 0; i < 40; i++) {
+            dispatcher.enqueue(message("user" + i + "@example.com"), (long) i, "de test");
+        }
+        dispatcher.shutdown();
+
+        // THEN : Tous les e-mails sont reçus, sur moins de connexions que d'e-mails
+        assertEquals(40, smtp.getMessages().size());
+        assertTrue(smtp.getConnectionCount() < 40, "connexions : " + smtp.getConnectionCount());
+        assertTrue(smtp.getMessages().get(0).data().contains("Subject: Sujet de test"));
+        assertEquals(40.0, meterRegistry.get("notification.email.sent").counter().count());
+        assertEquals(40, meterRegistry.get("notification.email.latency").timer().count());
+        assertEquals(smtp.getConnectionCount(),
+                meterRegistry.get("notification.email.batch.duration").timer().count());
+        verifyNoInteractions(failedEmailRepository);
+    }
+
+    // Test pour vérifier qu'un destinataire refusé est enregistré pour un réessai
+    // sans bloquer le reste du lot.
+    @Test
+    void enqueue_shouldRecordRejectedEmailForRetry() {
+        // GIVEN : Le serveur refuse un destinataire
+        smtp.rejectRecipient("refuse@example.com");
+        NotificationDispatcher dispatcher = dispatcher(smtpSender(), 100, 1, 10, 3, 60_000);
+
+        // WHEN : Deux e-mails sont mis en file
+        dispatcher.enqueue(message("refuse@example.com"), 1L, "de test");
+        dispatcher.enqueue(message("ok@example.com"), 2L, "de test");
+        dispatcher.shutdown();
+
+        // THEN : L'e-mail accepté est envoyé, l'autre enregistré avec un délai
+        assertEquals(1, smtp.getMessages().size());
+        assertEquals(List.of("ok@example.com"), smtp.getMessages().get(0).recipients());
+        ArgumentCaptor<FailedEmail> saved = ArgumentCaptor.forClass(FailedEmail.class);
+        verify(failedEmailRepository).save(saved.capture());
+        assertEquals("refuse@example.com", saved.getValue().getRecipientEmail());
+        assertEquals(1, saved.getValue().getAttemptCount());
+        assertTrue(saved.getValue().getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(30)));
+        assertEquals(1.0, meterRegistry.get("notification.email.failed").counter().count());
+    }
+
+    // Test pour vérifier qu'un e-mail en échec échu est renvoyé puis supprimé.
+    @Test
+    void retryFailedEmails_shouldResendDueEmailsAndDeleteThemOnSuccess() {
+        // GIVEN : Un e-mail en échec dont le réessai est échu
+        FailedEmail failedEmail = failedEmail(7L, 1);
+        when(failedEmailRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), any()))
+                .thenReturn(List.of(failedEmail));
+        NotificationDispatcher dispatcher = dispatcher(smtpSender(), 100, 1, 10, 3, 1000);
+
+        // WHEN : Reprise des e-mails en échec
+        int retried = dispatcher.retryFailedEmails();
+        dispatcher.shutdown();
+
+        // THEN : L'e-mail est envoyé et retiré de la table des échecs
+        assertEquals(1, retried);
+        assertEquals(1, smtp.getMessages().size());
+        verify(failedEmailRepository).deleteById(7L);
+    }
+
+    // Test pour vérifier qu'un e-mail est abandonné après le nombre maximal de
+    // tentatives.
+    @Test
+    void retryFailedEmails_shouldGiveUpAfterMaxAttempts() {
+        // GIVEN : Un serveur SMTP indisponible et un e-mail à sa dernière tentative
+        JavaMailSender unavailable = mock(JavaMailSender.class);
+        doThrow(new MailSendException("SMTP indisponible")).when(unavailable).send(any(SimpleMailMessage[].class));
+        FailedEmail failedEmail = failedEmail(8L, 2);
+        when(failedEmailRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), any()))
+                .thenReturn(List.of(failedEmail));
+        when(failedEmailRepository.findById(8L)).thenReturn(java.util.Optional.of(failedEmail));
+        NotificationDispatcher dispatcher = dispatcher(unavailable, 100, 1, 10, 3, 1000);
+
+        // WHEN : Reprise des e-mails en échec
+        dispatcher.retryFailedEmails();
+        dispatcher.shutdown();
+
+        // THEN : L'e-mail n'est plus réessayé
+        assertEquals(3, failedEmail.getAttemptCount());
+        assertNull(failedEmail.getNextAttemptAt());
+        assertEquals("SMTP indisponible", failedEmail.getFailureReason());
+        verify(failedEmailRepository, never()).deleteById(any());
+    }
+
+    // Test pour vérifier qu'une file saturée diffère l'e-mail au lieu de bloquer
+    // l'appelant.
+    @Test
+    void enqueue_shouldDeferEmailWhenQueueIsFull() throws Exception {
+        // GIVEN : Un seul worker bloqué sur un envoi et une file d'une place
+        CountDownLatch release = new CountDownLatch(1);
+        JavaMailSender slow = mock(JavaMailSender.class);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(slow).send(any(SimpleMailMessage[].class));
+        NotificationDispatcher dispatcher = dispatcher(slow, 1, 1, 10, 3, 1000);
+
+        // WHEN : Trois e-mails sont mis en file
+        dispatcher.enqueue(message("a@example.com"), 1L, "de test");
+        Thread.sleep(100); // Le worker prend le premier e-mail
+        dispatcher.enqueue(message("b@example.com"), 2L, "de test");
+        dispatcher.enqueue(message("c@example.com"), 3L, "de test");
+        release.countDown();
+        dispatcher.shutdown();
+
+        // THEN : Le troisième est différé sans compter de tentative
+        ArgumentCaptor<FailedEmail> saved = ArgumentCaptor.forClass(FailedEmail.class);
+        verify(failedEmailRepository).save(saved.capture());
+        assertEquals("c@example.com", saved.getValue().getRecipientEmail());
+        assertEquals(0, saved.getValue().getAttemptCount());
+        assertEquals("File d'envoi saturée", saved.getValue().getFailureReason());
+    }
+
+    private NotificationDispatcher dispatcher(JavaMailSender mailSender, int capacity, int workers, int batchSize,
+            int maxAttempts, long backoffMillis) {
+        return new NotificationDispatcher(mailSender, failedEmailRepository, meterRegistry, capacity, workers,
+                batchSize, maxAttempts, backoffMillis, 200);
+    }
+
+    private JavaMailSenderImpl smtpSender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(smtp.getPort());
+        return sender;
+    }
+
+    private static SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@videoflix.com");
+        message.setTo(to);
+        message.setSubject("Sujet de test");
+        message.setText("Corps de test");
+        return message;
+    }
+
+    private static FailedEmail failedEmail(Long id, int attempts) {
+        FailedEmail failedEmail = new FailedEmail("retry@example.com", "Sujet de test", "Corps de test", attempts,
+                "Erreur précédente", LocalDateTime.now().minusHours(1));
+        failedEmail.setId(id);
+        failedEmail.setNextAttemptAt(LocalDateTime.now().minusMinutes(1));
+        return failedEmail;
+    }
+}
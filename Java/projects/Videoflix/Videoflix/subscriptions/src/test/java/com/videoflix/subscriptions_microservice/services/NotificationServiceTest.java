@@ -13,7 +13,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
@@ -25,9 +24,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
 
-    // @Mock crée un mock de l'interface JavaMailSender.
+    // @Mock crée un mock du moteur d'envoi des e-mails.
     @Mock
-    private JavaMailSender mailSender;
+    private NotificationDispatcher notificationDispatcher;
 
     // @Mock crée un mock de l'interface Logger.
     @Mock
@@ -37,7 +36,7 @@ class NotificationServiceTest {
     @InjectMocks
     private NotificationService notificationService;
 
-    // @Captor pour capturer l'objet SimpleMailMessage envoyé par mailSender.
+    // @Captor pour capturer l'objet SimpleMailMessage mis en file d'envoi.
     @Captor
     private ArgumentCaptor<SimpleMailMessage> messageCaptor;
 
@@ -88,7 +87,8 @@ class NotificationServiceTest {
         notificationService.sendSubscriptionExpiringNotification(user, subscription);
 
         // THEN : Vérification du message envoyé
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        verify(notificationDispatcher, times(1)).enqueue(messageCaptor.capture(), eq(user.getId()),
+                eq("expiration imminente"));
         SimpleMailMessage sentMessage = messageCaptor.getValue();
 
         // Vérification du destinataire
@@ -107,9 +107,6 @@ class NotificationServiceTest {
 
         // Vérification de l'expéditeur
         assertEquals(notificationSender, sentMessage.getFrom());
-
-        // Vérification du logging
-        verify(logger, times(1)).info("E-mail {} envoyé à l'utilisateur {}", "expiration imminente", user.getId());
     }
 
     // Test pour vérifier que la notification d'expiration n'est pas envoyée si
@@ -127,7 +124,7 @@ class NotificationServiceTest {
 
         // THEN : Vérification que l'e-mail n'a pas été envoyé et qu'une erreur a été
         // loguée.
-        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
         verify(logger, times(1)).error(NotificationService.NULL_PARAMS_ERROR);
 
         // GIVEN : Un utilisateur valide et un abonnement null.
@@ -139,7 +136,7 @@ class NotificationServiceTest {
 
         // THEN : Vérification que l'e-mail n'a pas été envoyé et qu'une erreur a été
         // loguée.
-        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
         verify(logger, times(2)).error(NotificationService.NULL_PARAMS_ERROR);
     }
 
@@ -158,7 +155,7 @@ class NotificationServiceTest {
 
         // THEN : Vérification que l'e-mail n'a pas été envoyé et qu'un avertissement a
         // été logué.
-        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
         verify(logger, times(1)).warn(
                 "Impossible d'envoyer l'e-mail à l'utilisateur {} car l'adresse e-mail est manquante.",
                 userWithoutEmail.getId());
@@ -187,14 +184,14 @@ class NotificationServiceTest {
 
         notificationService.sendSubscriptionExpiredNotification(user, subscription);
 
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        verify(notificationDispatcher, times(1)).enqueue(messageCaptor.capture(), eq(user.getId()),
+                eq("expiration"));
         SimpleMailMessage sentMessage = messageCaptor.getValue();
         assertEquals(user.getEmail(), sentMessage.getTo()[0]);
         assertEquals(EmailTemplates.SUBJECT_SUBSCRIPTION_EXPIRED, sentMessage.getSubject());
         assertEquals(String.format(EmailTemplates.SUBJECT_SUBSCRIPTION_EXPIRED, user.getFirstname(), level, endDate),
                 sentMessage.getText());
         assertEquals(notificationSender, sentMessage.getFrom());
-        verify(logger, times(1)).info("E-mail {} envoyé à l'utilisateur {}", "expiration", user.getId());
     }
 
     @Test
@@ -209,15 +206,14 @@ class NotificationServiceTest {
 
         notificationService.sendTrialPeriodEndingNotification(user, subscription);
 
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        verify(notificationDispatcher, times(1)).enqueue(messageCaptor.capture(), eq(user.getId()),
+                eq("fin de période d’essai imminente"));
         SimpleMailMessage sentMessage = messageCaptor.getValue();
         assertEquals(user.getEmail(), sentMessage.getTo()[0]);
         assertEquals(EmailTemplates.SUBJECT_TRIAL_ENDING, sentMessage.getSubject());
         assertEquals(String.format(EmailTemplates.TRIAL_PERIOD_ENDING_NOTIFICATION, user.getFirstname(), level,
                 trialEndDate), sentMessage.getText());
         assertEquals(notificationSender, sentMessage.getFrom());
-        verify(logger, times(1)).info("E-mail {} envoyé à l'utilisateur {}", "fin de période d’essai imminente",
-                user.getId());
     }
 
     @Test
@@ -232,14 +228,14 @@ class NotificationServiceTest {
 
         notificationService.sendTrialPeriodEndedNotification(user, subscription);
 
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        verify(notificationDispatcher, times(1)).enqueue(messageCaptor.capture(), eq(user.getId()),
+                eq("fin de période d’essai"));
         SimpleMailMessage sentMessage = messageCaptor.getValue();
         assertEquals(user.getEmail(), sentMessage.getTo()[0]);
         assertEquals(EmailTemplates.SUBJECT_TRIAL_ENDED, sentMessage.getSubject());
         assertEquals(String.format(EmailTemplates.SUBJECT_TRIAL_ENDED, user.getFirstname(), level, trialEndDate),
                 sentMessage.getText());
         assertEquals(notificationSender, sentMessage.getFrom());
-        verify(logger, times(1)).info("E-mail {} envoyé à l'utilisateur {}", "fin de période d’essai", user.getId());
     }
 
     @Test
@@ -253,13 +249,13 @@ class NotificationServiceTest {
 
         notificationService.sendWelcomeEmail(user, subscription);
 
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        verify(notificationDispatcher, times(1)).enqueue(messageCaptor.capture(), eq(user.getId()),
+                eq("de bienvenue"));
         SimpleMailMessage sentMessage = messageCaptor.getValue();
         assertEquals(user.getEmail(), sentMessage.getTo()[0]);
         assertEquals(EmailTemplates.SUBJECT_WELCOME, sentMessage.getSubject());
         assertEquals(String.format(EmailTemplates.WELCOME_EMAIL, user.getFirstname(), level), sentMessage.getText());
         assertEquals(notificationSender, sentMessage.getFrom());
-        verify(logger, times(1)).info("E-mail {} envoyé à l'utilisateur {}", "de bienvenue", user.getId());
     }
 
     @Test
@@ -277,12 +273,12 @@ class NotificationServiceTest {
 
         notificationService.sendPaymentReminderNotification(user, subscription, daysBefore);
 
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        verify(notificationDispatcher, times(1)).enqueue(messageCaptor.capture(), eq(user.getId()),
+                eq("de rappel de paiement"));
         SimpleMailMessage sentMessage = messageCaptor.getValue();
         assertEquals(user.getEmail(), sentMessage.getTo()[0]);
         assertEquals(EmailTemplates.SUBJECT_PAYMENT_REMINDER, sentMessage.getSubject());
         assertEquals(expectedBody, sentMessage.getText());
         assertEquals(notificationSender, sentMessage.getFrom());
-        verify(logger, times(1)).info("E-mail {} envoyé à l'utilisateur {}", "de rappel de paiement", user.getId());
     }
 }
\ No newline at end of file
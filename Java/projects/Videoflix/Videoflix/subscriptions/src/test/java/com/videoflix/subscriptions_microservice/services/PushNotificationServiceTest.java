@@ -1,9 +1,12 @@
 package com.videoflix.subscriptions_microservice.services;
 
+import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
+import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.entities.User;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -15,7 +18,10 @@ import org.slf4j.Logger;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 /**
@@ -156,6 +162,44 @@ class PushNotificationServiceTest {
         assertNotification(messageCaptor.getValue(), expectedTitle, expectedBody, token);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendSubscriptionExpirationPushNotifications_shouldBatchOnlySubscriptionsWithToken()
+            throws FirebaseMessagingException {
+        SubscriptionLevel level = new SubscriptionLevel();
+        level.setLevel(SubscriptionLevel.Level.BASIC);
+        Subscription withToken = subscriptionWithToken("batchToken", level);
+        Subscription withoutToken = subscriptionWithToken(null, level);
+
+        when(firebaseMessaging.sendEach(anyList())).thenReturn(mock(BatchResponse.class));
+
+        pushNotificationService.sendSubscriptionExpirationPushNotifications(List.of(withToken, withoutToken));
+
+        ArgumentCaptor<List<Message>> batchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(firebaseMessaging).sendEach(batchCaptor.capture());
+        verify(firebaseMessaging, never()).send(any(Message.class));
+        assertEquals(1, batchCaptor.getValue().size());
+        assertNotification(batchCaptor.getValue().get(0), "Abonnement expire bientôt",
+                TEST_SUBSCRIPTION_PREFIX + level + " expire bientôt. Renouvelez-le !", "batchToken");
+    }
+
+    @Test
+    void sendPushNotifications_withEmptyBatch_shouldNotCallFirebase() throws FirebaseMessagingException {
+        pushNotificationService.sendPushNotifications(List.of());
+
+        verify(firebaseMessaging, never()).sendEach(anyList());
+    }
+
+    private Subscription subscriptionWithToken(String pushToken, SubscriptionLevel level) {
+        User user = new User();
+        user.setPushToken(pushToken);
+        Subscription subscription = new Subscription();
+        subscription.setUser(user);
+        subscription.setSubscriptionLevel(level);
+        subscription.setEndDate(LocalDateTime.of(2025, 5, 12, 10, 0));
+        return subscription;
+    }
+
     /**
      * Vérifie que la notification contient les bons champs.
      */
@@ -0,0 +1,195 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.Permission;
+import com.videoflix.subscriptions_microservice.entities.Role;
+import com.videoflix.subscriptions_microservice.events.RolePermissionsChangedEvent;
+import com.videoflix.subscriptions_microservice.events.UserRolesChangedEvent;
+import com.videoflix.subscriptions_microservice.repositories.RoleRepository;
+import com.videoflix.subscriptions_microservice.repositories.UserRoleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
+@ExtendWith(MockitoExtension.class)
+class RoleAuthorityCacheTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private UserRoleRepository userRoleRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private RoleAuthorityCache cache;
+    private Role editor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        cache = new RoleAuthorityCache(roleRepository, userRoleRepository, meterRegistry, 1_000,
+                Duration.ofMinutes(10).toMillis(), clock);
+
+        Role viewer = role(1L, "VIEWER", "READ_MOVIES");
+        editor = role(2L, "EDITOR", "READ_MOVIES", "EDIT_MOVIES");
+        lenient().when(roleRepository.findAllWithPermissions()).thenReturn(List.of(viewer, editor));
+    }
+
+    // Les autorités d'un utilisateur sont l'union de celles de ses rôles.
+    @Test
+    void getAuthorities_shouldMergeAuthoritiesOfAllRoles() {
+        when(userRoleRepository.findRoleIdsByUserId(7L)).thenReturn(List.of(1L, 2L));
+
+        assertEquals(Set.of("READ_MOVIES", "EDIT_MOVIES", "ROLE_VIEWER", "ROLE_EDITOR"),
+                names(cache.getAuthorities(7L)));
+    }
+
+    // Les résolutions suivantes ne font plus aucune requête.
+    @Test
+    void getAuthorities_shouldServeRepeatedLookupsFromCache() {
+        when(userRoleRepository.findRoleIdsByUserId(7L)).thenReturn(List.of(1L));
+
+        for (int i = 0; i < 10; i++) {
+            cache.getAuthorities(7L);
+        }
+
+        verify(roleRepository, times(1)).findAllWithPermissions();
+        verify(userRoleRepository, times(1)).findRoleIdsByUserId(7L);
+        assertEquals(0.9, cache.getHitRatio(), 1e-9);
+        assertEquals(0.9, meterRegistry.get("security.authority.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(9, meterRegistry.get("security.authority.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    // Un changement de rôles de l'utilisateur invalide uniquement son entrée.
+    @Test
+    void onUserRolesChanged_shouldReloadRolesOfThatUser() {
+        when(userRoleRepository.findRoleIdsByUserId(7L)).thenReturn(List.of(1L), List.of(1L, 2L));
+        when(userRoleRepository.findRoleIdsByUserId(8L)).thenReturn(List.of(1L));
+        cache.getAuthorities(7L);
+        cache.getAuthorities(8L);
+
+        cache.onUserRolesChanged(new UserRolesChangedEvent(this, 7L));
+
+        assertTrue(names(cache.getAuthorities(7L)).contains("ROLE_EDITOR"));
+        cache.getAuthorities(8L);
+        verify(userRoleRepository, times(2)).findRoleIdsByUserId(7L);
+        verify(userRoleRepository, times(1)).findRoleIdsByUserId(8L);
+        verify(roleRepository, times(1)).findAllWithPermissions();
+    }
+
+    // Un changement de permissions recharge le graphe une fois, sans relire les
+    // rôles des utilisateurs.
+    @Test
+    void onRolePermissionsChanged_shouldReloadGraphButKeepUserRoles() {
+        when(userRoleRepository.findRoleIdsByUserId(7L)).thenReturn(List.of(2L));
+        cache.getAuthorities(7L);
+
+        List<Permission> permissions = new ArrayList<>(editor.getPermissions());
+        permissions.add(permission("PUBLISH_MOVIES"));
+        editor.setPermissions(permissions);
+        cache.onRolePermissionsChanged(new RolePermissionsChangedEvent(this, "EDITOR"));
+
+        assertTrue(names(cache.getAuthorities(7L)).contains("PUBLISH_MOVIES"));
+        verify(roleRepository, times(2)).findAllWithPermissions();
+        verify(userRoleRepository, times(1)).findRoleIdsByUserId(7L);
+    }
+
+    // Les entrées expirent pour couvrir les modifications faites hors du service.
+    @Test
+    void getAuthorities_shouldExpireEntriesAfterTtl() {
+        when(userRoleRepository.findRoleIdsByUserId(7L)).thenReturn(List.of(1L));
+        cache.getAuthorities(7L);
+
+        clock.advance(Duration.ofMinutes(11));
+        cache.getAuthorities(7L);
+
+        verify(userRoleRepository, times(2)).findRoleIdsByUserId(7L);
+        verify(roleRepository, times(2)).findAllWithPermissions();
+    }
+
+    // La mémoire reste bornée face à de très nombreux utilisateurs.
+    @Test
+    void getAuthorities_shouldNotCacheBeyondMaxUsers() {
+        cache = new RoleAuthorityCache(roleRepository, userRoleRepository, new SimpleMeterRegistry(), 2,
+                Duration.ofMinutes(10).toMillis(), clock);
+        when(userRoleRepository.findRoleIdsByUserId(anyLong())).thenReturn(List.of(1L));
+
+        for (long userId = 1; userId <= 5; userId++) {
+            assertEquals(Set.of("READ_MOVIES", "ROLE_VIEWER"), names(cache.getAuthorities(userId)));
+        }
+        cache.getAuthorities(5L);
+
+        verify(userRoleRepository, times(2)).findRoleIdsByUserId(5L);
+    }
+
+    private static Role role(Long id, String name, String... permissionNames) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        List<Permission> permissions = new ArrayList<>();
+        for (String permissionName : permissionNames) {
+            permissions.add(permission(permissionName));
+        }
+        role.setPermissions(permissions);
+        return role;
+    }
+
+    private static Permission permission(String name) {
+        Permission permission = new Permission();
+        permission.setName(name);
+        return permission;
+    }
+
+    private static Set<String> names(Set<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+
+    /**
+     * Horloge dont l'instant est avancé manuellement.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
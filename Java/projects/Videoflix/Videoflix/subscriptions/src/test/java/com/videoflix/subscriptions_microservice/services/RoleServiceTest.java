@@ -2,16 +2,23 @@ package com.videoflix.subscriptions_microservice.services;
 
 import com.videoflix.subscriptions_microservice.entities.Permission;
 import com.videoflix.subscriptions_microservice.entities.Role;
+import com.videoflix.subscriptions_microservice.entities.User;
 import com.videoflix.subscriptions_microservice.entities.UserRole;
+import com.videoflix.subscriptions_microservice.events.RolePermissionsChangedEvent;
+import com.videoflix.subscriptions_microservice.events.UserRolesChangedEvent;
 import com.videoflix.subscriptions_microservice.repositories.PermissionRepository;
 import com.videoflix.subscriptions_microservice.repositories.RoleRepository;
+import com.videoflix.subscriptions_microservice.repositories.UserRepository;
 import com.videoflix.subscriptions_microservice.repositories.UserRoleRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,6 +45,14 @@ class RoleServiceTest {
     @Mock
     private UserRoleRepository userRoleRepository;
 
+    // @Mock crée un mock du UserRepository.
+    @Mock
+    private UserRepository userRepository;
+
+    // @Mock crée un mock de l'ApplicationEventPublisher.
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     // @Mock crée un mock du Logger.
     @Mock
     private Logger logger;
@@ -60,16 +75,15 @@ class RoleServiceTest {
         // Configuration du mock roleRepository pour retourner le rôle lors de la
         // recherche par nom.
         when(roleRepository.findByName(roleName)).thenReturn(editorRole);
+        when(userRepository.getReferenceById(userId)).thenReturn(user(userId));
 
         // WHEN : Appel de la méthode assignRoleToUser.
         roleService.assignRoleToUser(userId, roleName);
 
         // THEN : Vérification que userRoleRepository.save a été appelé avec un UserRole
-        // correct.
-        UserRole expectedUserRole = new UserRole();
-        expectedUserRole.setId(userId);
-        expectedUserRole.setRoleId(editorRole.getId());
-        verify(userRoleRepository, times(1)).save(expectedUserRole);
+        // liant l'utilisateur au rôle, et que le changement de rôles est signalé.
+        assertSavedUserRole(userId, editorRole);
+        assertUserRolesChangedEventPublished(userId);
         // Vérification qu'aucun avertissement n'a été logué.
         verify(logger, never()).warn(anyString());
     }
@@ -90,6 +104,7 @@ class RoleServiceTest {
 
         // THEN : Vérification que userRoleRepository.save n'a pas été appelé.
         verify(userRoleRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
         // Vérification qu'un avertissement a été logué concernant le rôle non trouvé.
         verify(logger, times(1)).warn("Role with name '{}' not found.", nonExistentRoleName);
     }
@@ -107,16 +122,15 @@ class RoleServiceTest {
 
         // Configuration du mock roleRepository pour retourner le rôle "Abonné Premium".
         when(roleRepository.findByName("Abonné Premium")).thenReturn(premiumRole);
+        when(userRepository.getReferenceById(userId)).thenReturn(user(userId));
 
         // WHEN : Appel de la méthode assignRoleBySubscriptionLevel.
         roleService.assignRoleBySubscriptionLevel(userId, subscriptionLevel);
 
         // THEN : Vérification que userRoleRepository.save a été appelé avec le UserRole
-        // correct.
-        UserRole expectedUserRole = new UserRole();
-        expectedUserRole.setId(userId);
-        expectedUserRole.setRoleId(premiumRole.getId());
-        verify(userRoleRepository, times(1)).save(expectedUserRole);
+        // correct, et que le changement de rôles est signalé.
+        assertSavedUserRole(userId, premiumRole);
+        assertUserRolesChangedEventPublished(userId);
         verify(logger, never()).warn(anyString());
     }
 
@@ -289,6 +303,8 @@ class RoleServiceTest {
 
         // THEN : Vérification que roleRepository.delete a été appelé.
         verify(roleRepository, times(1)).delete(existingRole);
+        // Vérification que le cache des autorités est invalidé.
+        verify(eventPublisher).publishEvent(any(RolePermissionsChangedEvent.class));
     }
 
     // Test pour ne pas supprimer un rôle inexistant.
@@ -305,6 +321,7 @@ class RoleServiceTest {
 
         // THEN : Vérification que roleRepository.delete n'a pas été appelé.
         verify(roleRepository, never()).delete(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     // Test pour ajouter des permissions à un rôle existant.
@@ -335,6 +352,9 @@ class RoleServiceTest {
         assertEquals(1, editorRole.getPermissions().size());
         assertTrue(editorRole.getPermissions().contains(permissionToAdd));
         verify(roleRepository, times(1)).save(editorRole);
+        // Vérification que le cache des autorités est invalidé pour ce rôle.
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof RolePermissionsChangedEvent changed
+                && roleToUpdate.equals(changed.getRoleName())));
     }
 
     // Test pour supprimer des permissions d'un rôle existant.
@@ -440,4 +460,24 @@ class RoleServiceTest {
         // valeur nulle (le rôle non trouvé est ignoré).
         assertEquals(0, roles.size());
     }
-}
\ No newline at end of file
+
+    private static User user(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+
+    private void assertSavedUserRole(Long userId, Role role) {
+        ArgumentCaptor<UserRole> userRole = ArgumentCaptor.forClass(UserRole.class);
+        verify(userRoleRepository, times(1)).save(userRole.capture());
+        assertNull(userRole.getValue().getId());
+        assertEquals(userId, userRole.getValue().getUser().getId());
+        assertSame(role, userRole.getValue().getRole());
+    }
+
+    private void assertUserRolesChangedEventPublished(Long userId) {
+        ArgumentCaptor<UserRolesChangedEvent> event = ArgumentCaptor.forClass(UserRolesChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(userId, event.getValue().getUserId());
+    }
+}
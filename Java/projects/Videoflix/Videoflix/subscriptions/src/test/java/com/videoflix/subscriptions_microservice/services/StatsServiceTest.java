@@ -1,7 +1,9 @@
 package com.videoflix.subscriptions_microservice.services;
 
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionDailyStats;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionDailyStatsRepository;
 import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +19,9 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 // @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
@@ -27,8 +32,12 @@ class StatsServiceTest {
     @Mock
     private SubscriptionRepository subscriptionRepository;
 
-    // @InjectMocks crée une instance de StatsService et injecte le mock de
-    // subscriptionRepository.
+    // @Mock crée un mock de l'agrégat journalier des abonnements.
+    @Mock
+    private SubscriptionDailyStatsRepository dailyStatsRepository;
+
+    // @InjectMocks crée une instance de StatsService et injecte les mocks des
+    // repositories.
     @InjectMocks
     private StatsService statsService;
 
@@ -47,74 +56,50 @@ class StatsServiceTest {
     }
 
     // Test pour vérifier le calcul du nombre de nouveaux abonnements sur une
-    // période donnée.
+    // période donnée, lu dans l'agrégat journalier.
     @Test
     void getNewSubscriptionsCount_shouldReturnCorrectCountForGivenPeriod() {
-        // GIVEN : Une période de dates et un nombre de nouveaux abonnements simulé.
+        // GIVEN : Une période de dates et un cumul de créations simulé.
         LocalDate startDate = LocalDate.of(2025, 5, 1);
         LocalDate endDate = LocalDate.of(2025, 5, 10);
         long expectedCount = 50;
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
-        when(subscriptionRepository.countByStartDateBetween(startDateTime, endDateTime)).thenReturn(expectedCount);
+        when(dailyStatsRepository.sumNewCount(startDate, endDate)).thenReturn(expectedCount);
 
         // WHEN : Appel de la méthode getNewSubscriptionsCount.
         long actualCount = statsService.getNewSubscriptionsCount(startDate, endDate);
 
-        // THEN : Vérification que le nombre retourné correspond à la valeur simulée.
+        // THEN : Le cumul est retourné sans parcourir les abonnements.
         assertEquals(expectedCount, actualCount);
+        verifyNoInteractions(subscriptionRepository);
     }
 
     // Test pour vérifier la répartition des abonnés par type d'abonnement.
     @Test
     void getSubscribersByType_shouldReturnCorrectDistribution() {
-        // GIVEN : Une liste d'abonnements simulée avec différents niveaux.
-        SubscriptionLevel basicLevel = new SubscriptionLevel();
-        basicLevel.setId(1L);
-        SubscriptionLevel premiumLevel = new SubscriptionLevel();
-        premiumLevel.setId(2L);
-        Subscription sub1 = new Subscription();
-        sub1.setSubscriptionLevel(basicLevel);
-        Subscription sub2 = new Subscription();
-        sub2.setSubscriptionLevel(premiumLevel);
-        Subscription sub3 = new Subscription();
-        sub3.setSubscriptionLevel(basicLevel);
-        List<Subscription> allSubscriptions = Arrays.asList(sub1, sub2, sub3);
-        when(subscriptionRepository.findAll()).thenReturn(allSubscriptions);
+        // GIVEN : Les cumuls par niveau retournés par l'agrégat.
+        List<Object[]> rows = Arrays.asList(
+                new Object[] { SubscriptionLevel.Level.BASIC, 2L },
+                new Object[] { SubscriptionLevel.Level.PREMIUM, 1L });
+        when(dailyStatsRepository.sumSubscriptionsByLevel()).thenReturn(rows);
 
         // WHEN : Appel de la méthode getSubscribersByType.
         Map<Object, Long> actualDistribution = statsService.getSubscribersByType();
 
         // THEN : Vérification que la répartition retournée est correcte.
         Map<Object, Long> expectedDistribution = new HashMap<>();
-        expectedDistribution.put(1L, 2L); // 2 abonnés de niveau basic (ID 1)
-        expectedDistribution.put(2L, 1L); // 1 abonné de niveau premium (ID 2)
+        expectedDistribution.put("BASIC", 2L); // 2 abonnés de niveau basic
+        expectedDistribution.put("PREMIUM", 1L); // 1 abonné de niveau premium
         assertEquals(expectedDistribution, actualDistribution);
+        verify(subscriptionRepository, never()).findAll();
     }
 
-    // Test pour vérifier le calcul du revenu total estimé sur une période donnée.
+    // Test pour vérifier le calcul du revenu total sur une période donnée.
     @Test
     void getTotalRevenue_shouldReturnCorrectRevenueForGivenPeriod() {
-        // GIVEN : Une période de dates et une liste d'abonnements actifs simulée avec
-        // leurs niveaux et prix.
+        // GIVEN : Une période de dates et un revenu cumulé simulé.
         LocalDate startDate = LocalDate.of(2025, 5, 1);
         LocalDate endDate = LocalDate.of(2025, 5, 10);
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
-
-        SubscriptionLevel basicLevel = new SubscriptionLevel();
-        basicLevel.setPrice(4.99);
-        SubscriptionLevel premiumLevel = new SubscriptionLevel();
-        premiumLevel.setPrice(9.99);
-
-        Subscription sub1 = new Subscription();
-        sub1.setSubscriptionLevel(basicLevel);
-        Subscription sub2 = new Subscription();
-        sub2.setSubscriptionLevel(premiumLevel);
-
-        List<Subscription> activeSubscriptions = Arrays.asList(sub1, sub2);
-        when(subscriptionRepository.findByStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                Subscription.SubscriptionStatus.ACTIVE, endDateTime, startDateTime)).thenReturn(activeSubscriptions);
+        when(dailyStatsRepository.sumRevenue(startDate, endDate)).thenReturn(4.99 + 9.99);
 
         // WHEN : Appel de la méthode getTotalRevenue.
         double actualRevenue = statsService.getTotalRevenue(startDate, endDate);
@@ -122,6 +107,27 @@ class StatsServiceTest {
         // THEN : Vérification que le revenu total calculé est correct.
         double expectedRevenue = 4.99 + 9.99;
         assertEquals(expectedRevenue, actualRevenue, 0.001); // Utilisation d'une marge d'erreur pour les doubles
+        verifyNoInteractions(subscriptionRepository);
+    }
+
+    // Test pour vérifier le détail journalier sur une période donnée.
+    @Test
+    void getDailyStats_shouldReturnRowsForGivenPeriod() {
+        // GIVEN : Une ligne d'agrégat pour la période.
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate endDate = LocalDate.of(2025, 5, 10);
+        SubscriptionDailyStats row = new SubscriptionDailyStats();
+        row.setStatDate(startDate);
+        row.setLevel(SubscriptionLevel.Level.BASIC);
+        row.setNewCount(3);
+        when(dailyStatsRepository.findByStatDateBetweenOrderByStatDateAscLevelAsc(startDate, endDate))
+                .thenReturn(List.of(row));
+
+        // WHEN : Appel de la méthode getDailyStats.
+        List<SubscriptionDailyStats> actualRows = statsService.getDailyStats(startDate, endDate);
+
+        // THEN : Les lignes de l'agrégat sont retournées telles quelles.
+        assertEquals(List.of(row), actualRows);
     }
 
     // Test pour vérifier le calcul du taux de rétention.
@@ -183,4 +189,29 @@ class StatsServiceTest {
         // THEN : Vérification que le nombre retourné correspond à la valeur simulée.
         assertEquals(expectedCount, actualCount);
     }
-}
\ No newline at end of file
+
+    // Test pour vérifier le repli du prix encaissé sur le prix du niveau, puis sur
+    // le tarif par défaut du niveau.
+    @Test
+    void getPricePaid_shouldFallBackToLevelPriceThenDefault() {
+        SubscriptionLevel pricedLevel = new SubscriptionLevel();
+        pricedLevel.setLevel(SubscriptionLevel.Level.PREMIUM);
+        pricedLevel.setPrice(12.5);
+        Subscription withLevelPrice = new Subscription();
+        withLevelPrice.setSubscriptionLevel(pricedLevel);
+
+        SubscriptionLevel ultra = new SubscriptionLevel();
+        ultra.setLevel(SubscriptionLevel.Level.ULTRA);
+        Subscription withoutPrices = new Subscription();
+        withoutPrices.setSubscriptionLevel(ultra);
+
+        Subscription withOwnPrice = new Subscription();
+        withOwnPrice.setSubscriptionLevel(ultra);
+        withOwnPrice.setPrice(7.0);
+
+        assertEquals(7.0, StatsService.getPricePaid(withOwnPrice), 0.001);
+        assertEquals(12.5, StatsService.getPricePaid(withLevelPrice), 0.001);
+        assertEquals(19.99, StatsService.getPricePaid(withoutPrices), 0.001);
+        assertEquals(4.99, StatsService.getPricePaid(new Subscription()), 0.001);
+    }
+}
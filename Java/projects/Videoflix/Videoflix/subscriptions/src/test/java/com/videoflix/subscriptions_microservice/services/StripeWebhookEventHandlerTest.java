@@ -0,0 +1,45 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.stripe.model.Invoice;
+import com.stripe.model.StripeObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+class StripeWebhookEventHandlerTest {
+
+    private final StripeWebhookEventHandler handler = new StripeWebhookEventHandler();
+
+    @Test
+    void handleEvent_shouldHandleInvoiceEvents() {
+        // GIVEN : Une facture Stripe mockée
+        Invoice mockInvoice = mock(Invoice.class);
+        when(mockInvoice.getId()).thenReturn("in_test");
+
+        // WHEN / THEN : Les paiements réussis et échoués sont traités
+        assertDoesNotThrow(() -> handler.handleEvent("invoice.payment_succeeded", mockInvoice));
+        assertDoesNotThrow(() -> handler.handleEvent("invoice.payment_failed", mockInvoice));
+        verify(mockInvoice, times(2)).getId();
+    }
+
+    @Test
+    void handleEvent_shouldIgnoreUnhandledEventType() {
+        // GIVEN : Un type d'évènement non géré
+        StripeObject mockStripeObject = mock(StripeObject.class);
+
+        // WHEN / THEN : Aucune erreur, l'objet n'est pas utilisé
+        assertDoesNotThrow(() -> handler.handleEvent("unknown.event", mockStripeObject));
+        verifyNoInteractions(mockStripeObject);
+    }
+
+    @Test
+    void handle_shouldNotFailWhenEventObjectCannotBeDeserialized() {
+        // GIVEN : Un évènement sans version d'API, dont l'objet n'est pas désérialisable
+        String payload = "{\"id\": \"evt_test\", \"object\": \"event\", \"type\": \"invoice.payment_succeeded\", "
+                + "\"data\": {\"object\": {\"id\": \"in_test\", \"object\": \"invoice\"}}}";
+
+        // WHEN / THEN : L'évènement est ignoré avec un avertissement
+        assertDoesNotThrow(() -> handler.handle(payload));
+    }
+}
@@ -0,0 +1,244 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.StripeWebhookEvent;
+import com.videoflix.subscriptions_microservice.entities.StripeWebhookEvent.InboxStatus;
+import com.videoflix.subscriptions_microservice.repositories.StripeWebhookEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookInboxServiceTest {
+
+    @Mock
+    private StripeWebhookEventRepository repository;
+
+    @Mock
+    private StripeWebhookEventHandler handler;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StripeWebhookInboxService inboxService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 4 workers, 3 tentatives, délai de 1 ms entre tentatives.
+        inboxService = new StripeWebhookInboxService(repository, handler, meterRegistry, 4, 3, 1, 300);
+    }
+
+    @Test
+    void accept_shouldStoreNewEventAndProcessItAsynchronously() {
+        // GIVEN : Un évènement jamais reçu
+        String payload = payload("cus_1");
+        StripeWebhookEvent stored = stored(1L, "evt_1", "cus_1", payload);
+        when(repository.insertIfAbsent(eq("evt_1"), eq("invoice.paid"), eq("cus_1"), eq(payload), any()))
+                .thenReturn(1);
+        when(repository.findByEventId("evt_1")).thenReturn(stored);
+        when(repository.claim(eq(1L), any(), eq(InboxStatus.PENDING), eq(InboxStatus.PROCESSING))).thenReturn(1);
+        when(repository.complete(eq(1L), eq(InboxStatus.PROCESSING), any(), anyInt(), any(), any())).thenReturn(1);
+
+        // WHEN : L'évènement est accepté puis les workers terminent
+        boolean accepted = inboxService.accept("evt_1", "invoice.paid", payload);
+        inboxService.shutdown();
+
+        // THEN : L'évènement est traité et marqué comme tel, sans réécrire toute l'entité
+        assertTrue(accepted);
+        verify(handler).handle(payload);
+        verify(repository).complete(eq(1L), eq(InboxStatus.PROCESSING), eq(InboxStatus.PROCESSED), eq(1),
+                notNull(), isNull());
+        verify(repository, never()).save(any());
+        assertEquals(0, inboxService.getQueueDepth());
+        assertEquals(1, meterRegistry.get("stripe.webhook.processing.latency").tag("outcome", "processed")
+                .timer().count());
+    }
+
+    @Test
+    void accept_shouldIgnoreDuplicateDelivery() {
+        // GIVEN : L'évènement est déjà dans la boîte de réception
+        when(repository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(0);
+
+        // WHEN : Nouvelle livraison du même évènement
+        boolean accepted = inboxService.accept("evt_1", "invoice.paid", payload("cus_1"));
+        inboxService.shutdown();
+
+        // THEN : Rien n'est traité une seconde fois
+        assertFalse(accepted);
+        verifyNoInteractions(handler);
+        verify(repository, never()).claim(any(), any(), any(), any());
+        assertEquals(1.0, meterRegistry.get("stripe.webhook.duplicates").counter().count());
+    }
+
+    @Test
+    void accept_shouldRetryThenMarkEventFailed() {
+        // GIVEN : Le traitement échoue systématiquement
+        String payload = payload("cus_1");
+        when(repository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(repository.findByEventId("evt_1")).thenReturn(stored(1L, "evt_1", "cus_1", payload));
+        when(repository.claim(eq(1L), any(), any(), any())).thenReturn(1);
+        when(repository.complete(eq(1L), eq(InboxStatus.PROCESSING), any(), anyInt(), any(), any())).thenReturn(1);
+        doThrow(new IllegalStateException("Erreur simulée")).when(handler).handle(payload);
+
+        // WHEN : L'évènement est accepté puis les workers terminent
+        inboxService.accept("evt_1", "invoice.paid", payload);
+        inboxService.shutdown();
+
+        // THEN : 3 tentatives, puis l'évènement est marqué en échec
+        verify(handler, times(3)).handle(payload);
+        verify(repository).complete(eq(1L), eq(InboxStatus.PROCESSING), eq(InboxStatus.FAILED), eq(3), notNull(),
+                eq("Erreur simulée"));
+    }
+
+    @Test
+    void accept_shouldNotRecordOutcomeOfEventReleasedDuringProcessing() {
+        // GIVEN : L'évènement a été remis en attente pendant son traitement
+        String payload = payload("cus_1");
+        when(repository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(repository.findByEventId("evt_1")).thenReturn(stored(1L, "evt_1", "cus_1", payload));
+        when(repository.claim(eq(1L), any(), any(), any())).thenReturn(1);
+        when(repository.complete(eq(1L), eq(InboxStatus.PROCESSING), any(), anyInt(), any(), any())).thenReturn(0);
+
+        // WHEN : L'évènement est accepté puis les workers terminent
+        inboxService.accept("evt_1", "invoice.paid", payload);
+        inboxService.shutdown();
+
+        // THEN : Aucune latence n'est enregistrée pour ce traitement
+        verify(handler).handle(payload);
+        assertEquals(0, meterRegistry.get("stripe.webhook.processing.latency").tag("outcome", "processed")
+                .timer().count());
+    }
+
+    @Test
+    void accept_shouldProcessEventsOfSameCustomerInOrder() {
+        // GIVEN : Deux évènements du même client, le premier étant lent à traiter
+        String first = payload("cus_1").replace("in_1", "in_first");
+        String second = payload("cus_1").replace("in_1", "in_second");
+        when(repository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(repository.findByEventId("evt_1")).thenReturn(stored(1L, "evt_1", "cus_1", first));
+        when(repository.findByEventId("evt_2")).thenReturn(stored(2L, "evt_2", "cus_1", second));
+        when(repository.claim(any(), any(), any(), any())).thenReturn(1);
+        when(repository.complete(any(), any(), any(), anyInt(), any(), any())).thenReturn(1);
+        List<String> handled = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            String payload = invocation.getArgument(0);
+            if (payload.equals(first)) {
+                Thread.sleep(50);
+            }
+            handled.add(payload);
+            return null;
+        }).when(handler).handle(anyString());
+
+        // WHEN : Les deux évènements sont acceptés coup sur coup
+        inboxService.accept("evt_1", "invoice.paid", first);
+        inboxService.accept("evt_2", "invoice.paid", second);
+        inboxService.shutdown();
+
+        // THEN : L'ordre de réception est conservé
+        assertEquals(List.of(first, second), handled);
+    }
+
+    @Test
+    void recoverPending_shouldReleaseStaleEventsAndDispatchWaitingOnes() {
+        // GIVEN : Un évènement resté en attente
+        String payload = payload("cus_2");
+        when(repository.releaseStale(any(), eq(InboxStatus.PENDING), eq(InboxStatus.PROCESSING))).thenReturn(1);
+        when(repository.findByStatusOrderByIdAsc(eq(InboxStatus.PENDING), any()))
+                .thenReturn(List.of(stored(5L, "evt_5", "cus_2", payload)));
+        when(repository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(repository.complete(eq(5L), any(), any(), anyInt(), any(), any())).thenReturn(1);
+        when(repository.countByStatus(InboxStatus.PENDING)).thenReturn(0L);
+
+        // WHEN : Reprise des évènements en attente
+        inboxService.recoverPending();
+        inboxService.shutdown();
+
+        // THEN : L'évènement est traité
+        verify(handler).handle(payload);
+        assertEquals(0.0, meterRegistry.get("stripe.webhook.inbox.pending").gauge().value());
+    }
+
+    @Test
+    void recoverPending_shouldRenewClaimsOfQueuedEventsAndNotDispatchThemTwice() throws InterruptedException {
+        // GIVEN : Un évènement bloqué chez le worker du client, un second en file derrière lui
+        String first = payload("cus_1").replace("in_1", "in_first");
+        String second = payload("cus_1").replace("in_1", "in_second");
+        StripeWebhookEvent queued = stored(2L, "evt_2", "cus_1", second);
+        when(repository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(repository.findByEventId("evt_1")).thenReturn(stored(1L, "evt_1", "cus_1", first));
+        when(repository.findByEventId("evt_2")).thenReturn(queued);
+        when(repository.claim(any(), any(), any(), any())).thenReturn(1);
+        when(repository.complete(any(), any(), any(), anyInt(), any(), any())).thenReturn(1);
+        // Vu d'une reprise, l'évènement en file apparaît encore en attente
+        when(repository.findByStatusOrderByIdAsc(eq(InboxStatus.PENDING), any())).thenReturn(List.of(queued));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0).equals(first)) {
+                started.countDown();
+                release.await();
+            }
+            return null;
+        }).when(handler).handle(anyString());
+
+        inboxService.accept("evt_1", "invoice.paid", first);
+        inboxService.accept("evt_2", "invoice.paid", second);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // WHEN : La reprise périodique passe pendant que la file est bloquée
+        inboxService.recoverPending();
+        release.countDown();
+        inboxService.shutdown();
+
+        // THEN : La prise en charge des deux évènements est renouvelée avant de chercher les abandonnés,
+        // et l'évènement en file n'est ni repris ni traité une seconde fois
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).renewClaims(argThat(ids -> ids.containsAll(List.of(1L, 2L))), notNull(),
+                eq(InboxStatus.PROCESSING));
+        inOrder.verify(repository).releaseStale(any(), eq(InboxStatus.PENDING), eq(InboxStatus.PROCESSING));
+        verify(repository, times(1)).claim(eq(2L), any(), any(), any());
+        verify(handler, times(1)).handle(second);
+        assertEquals(0, inboxService.getQueueDepth());
+    }
+
+    @Test
+    void partitionKey_shouldUseCustomerThenSubscriptionThenEventId() {
+        assertEquals("cus_1", inboxService.partitionKey("evt_1", payload("cus_1")));
+        assertEquals("cus_3", inboxService.partitionKey("evt_1",
+                "{\"data\": {\"object\": {\"object\": \"customer\", \"id\": \"cus_3\"}}}"));
+        assertEquals("cus_4", inboxService.partitionKey("evt_1",
+                "{\"data\": {\"object\": {\"id\": \"in_1\", \"customer\": {\"id\": \"cus_4\"}}}}"));
+        assertEquals("sub_1", inboxService.partitionKey("evt_1",
+                "{\"data\": {\"object\": {\"id\": \"si_1\", \"subscription\": \"sub_1\"}}}"));
+        assertEquals("evt_1", inboxService.partitionKey("evt_1", "pas du JSON"));
+    }
+
+    private static String payload(String customer) {
+        return "{\"type\": \"invoice.paid\", \"data\": {\"object\": {\"id\": \"in_1\", \"customer\": \"" + customer
+                + "\"}}}";
+    }
+
+    private static StripeWebhookEvent stored(Long id, String eventId, String partitionKey, String payload) {
+        StripeWebhookEvent event = new StripeWebhookEvent();
+        event.setId(id);
+        event.setEventId(eventId);
+        event.setEventType("invoice.paid");
+        event.setPartitionKey(partitionKey);
+        event.setPayload(payload);
+        event.setStatus(InboxStatus.PENDING);
+        event.setReceivedAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,132 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionHistoryPage;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionRevision;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+// @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
+@ExtendWith(MockitoExtension.class)
+class SubscriptionHistoryServiceTest {
+
+    private static final int STATUS = index("status");
+    private static final int AUTO_RENEW = index("auto_renew");
+
+    // @Mock crée un mock du JdbcTemplate.
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    // @Mock crée un mock de la source de données.
+    @Mock
+    private DataSource dataSource;
+
+    // Test : une création renvoie tous les champs renseignés de l'abonnement.
+    @Test
+    void toRevision_shouldReturnFilledFieldsForCreation() {
+        SubscriptionHistoryService.AuditRow created = row(1L, 10L, 0, "ACTIVE", true);
+
+        SubscriptionRevision revision = SubscriptionHistoryService.toRevision(created, null);
+
+        assertEquals("ADD", revision.type());
+        assertEquals(new SubscriptionRevision.FieldChange(null, "ACTIVE"), revision.changes().get("status"));
+        assertEquals(new SubscriptionRevision.FieldChange(null, true), revision.changes().get("autoRenew"));
+        assertEquals(2, revision.changes().size());
+    }
+
+    // Test : une modification ne renvoie que les champs modifiés.
+    @Test
+    void toRevision_shouldReturnOnlyChangedFields() {
+        SubscriptionHistoryService.AuditRow before = row(1L, 10L, 0, "ACTIVE", true);
+        SubscriptionHistoryService.AuditRow after = row(1L, 12L, 1, "CANCELLED", true);
+
+        SubscriptionRevision revision = SubscriptionHistoryService.toRevision(after, before);
+
+        assertEquals("MOD", revision.type());
+        assertEquals(12L, revision.revision());
+        assertEquals(1, revision.changes().size());
+        assertEquals(new SubscriptionRevision.FieldChange("ACTIVE", "CANCELLED"), revision.changes().get("status"));
+    }
+
+    // Test : une suppression n'a pas de valeurs et ne renvoie aucun champ.
+    @Test
+    void toRevision_shouldReturnNoFieldsForDeletion() {
+        SubscriptionHistoryService.AuditRow before = row(1L, 10L, 0, "ACTIVE", true);
+        SubscriptionHistoryService.AuditRow deleted = new SubscriptionHistoryService.AuditRow(1L, 14L,
+                Instant.ofEpochMilli(14L), 2, null);
+
+        SubscriptionRevision revision = SubscriptionHistoryService.toRevision(deleted, before);
+
+        assertEquals("DEL", revision.type());
+        assertTrue(revision.changes().isEmpty());
+    }
+
+    // Test : la ligne supplémentaire sert au calcul des différences et au curseur, sans être renvoyée.
+    @Test
+    void toPage_shouldUseExtraRowForDiffAndCursor() {
+        List<SubscriptionHistoryService.AuditRow> rows = List.of(
+                row(1L, 14L, 1, "CANCELLED", false),
+                row(1L, 12L, 1, "ACTIVE", false),
+                row(1L, 10L, 0, "ACTIVE", true));
+
+        SubscriptionHistoryPage page = SubscriptionHistoryService.toPage(rows, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(12L, page.nextCursor());
+        assertEquals(new SubscriptionRevision.FieldChange(true, false),
+                page.items().get(1).changes().get("autoRenew"));
+        assertEquals(1, page.items().get(1).changes().size());
+    }
+
+    // Test : la dernière page n'a pas de curseur et sa plus ancienne révision est complète.
+    @Test
+    void toPage_shouldReturnNoCursorOnLastPage() {
+        List<SubscriptionHistoryService.AuditRow> rows = List.of(
+                row(1L, 12L, 1, "ACTIVE", false),
+                row(1L, 10L, 0, "ACTIVE", true));
+
+        SubscriptionHistoryPage page = SubscriptionHistoryService.toPage(rows, 2);
+
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        assertEquals(2, page.items().get(1).changes().size());
+    }
+
+    // Test : une taille de page hors limites est refusée sans interroger la base.
+    @Test
+    void getHistory_shouldRejectPageSizeOutOfRange() {
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        SubscriptionHistoryService service = new SubscriptionHistoryService(jdbcTemplate, new ObjectMapper(),
+                100, 500);
+
+        assertThrows(IllegalArgumentException.class, () -> service.getHistory(1L, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getHistory(1L, null, 101));
+        verifyNoMoreInteractions(dataSource);
+    }
+
+    private static SubscriptionHistoryService.AuditRow row(long id, long revision, int type, String status,
+            boolean autoRenew) {
+        Object[] values = new Object[SubscriptionHistoryService.TRACKED_COLUMNS.size()];
+        values[STATUS] = status;
+        values[AUTO_RENEW] = autoRenew;
+        return new SubscriptionHistoryService.AuditRow(id, revision, Instant.ofEpochMilli(revision), type, values);
+    }
+
+    private static int index(String column) {
+        return List.copyOf(SubscriptionHistoryService.TRACKED_COLUMNS.keySet()).indexOf(column);
+    }
+}
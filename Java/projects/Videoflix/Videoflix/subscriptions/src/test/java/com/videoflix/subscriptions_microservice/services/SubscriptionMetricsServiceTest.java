@@ -1,80 +1,98 @@
 package com.videoflix.subscriptions_microservice.services;
 
+import com.videoflix.subscriptions_microservice.entities.SubscriptionMetric;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionMetric.Granularity;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionMetricRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SubscriptionMetricsServiceTest {
     private static final String NEW_SUBSCRIPTIONS = "new_subscriptions";
+    private static final int DAILY_RETENTION_DAYS = 400;
+    private static final int MONTHLY_RETENTION_MONTHS = 60;
+
+    @Mock
+    private SubscriptionMetricRepository metricRepository;
 
     private SubscriptionMetricsService metricsService;
 
     @BeforeEach
     void setUp() {
-        metricsService = new SubscriptionMetricsService();
+        metricsService = new SubscriptionMetricsService(metricRepository, DAILY_RETENTION_DAYS,
+                MONTHLY_RETENTION_MONTHS);
     }
 
     @Test
     void testRecordDailyMetric() {
         // Given
-        String metricName = NEW_SUBSCRIPTIONS;
         LocalDateTime now = LocalDateTime.now();
-        Integer value = 10;
 
         // When
-        metricsService.recordDailyMetric(metricName, now, value);
+        metricsService.recordDailyMetric(NEW_SUBSCRIPTIONS, now, 10);
 
         // Then
-        Number retrievedValue = metricsService.getDailyMetric(metricName, now.toLocalDate());
-        assertEquals(value, retrievedValue);
+        verify(metricRepository).upsert(NEW_SUBSCRIPTIONS, "DAILY", now.toLocalDate(), 10.0);
     }
 
     @Test
-    void testRecordMultipleMetricsForSameDay() {
+    void testDifferentMetricTypes() {
         // Given
         LocalDateTime now = LocalDateTime.now();
-        LocalDate today = now.toLocalDate();
 
         // When
-        metricsService.recordDailyMetric(NEW_SUBSCRIPTIONS, now, 10);
-        metricsService.recordDailyMetric("daily_revenue", now, 1500.50);
-        metricsService.recordDailyMetric("cancelled_subscriptions", now, 2);
+        metricsService.recordDailyMetric("integer_metric", now, 10);
+        metricsService.recordDailyMetric("double_metric", now, 10.5);
+        metricsService.recordDailyMetric("long_metric", now, 1000000000L);
 
-        // Then
-        Map<String, Number> todayMetrics = metricsService.getDailyMetrics(today);
-        assertEquals(3, todayMetrics.size());
-        assertEquals(10, todayMetrics.get(NEW_SUBSCRIPTIONS));
-        assertEquals(1500.50, todayMetrics.get("daily_revenue"));
-        assertEquals(2, todayMetrics.get("cancelled_subscriptions"));
+        // Then : Toutes les valeurs sont stockées en colonne primitive.
+        verify(metricRepository).upsert("integer_metric", "DAILY", now.toLocalDate(), 10.0);
+        verify(metricRepository).upsert("double_metric", "DAILY", now.toLocalDate(), 10.5);
+        verify(metricRepository).upsert("long_metric", "DAILY", now.toLocalDate(), 1.0e9);
     }
 
     @Test
-    void testUpdateExistingMetric() {
+    void testGetDailyMetrics() {
         // Given
-        String metricName = NEW_SUBSCRIPTIONS;
-        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = LocalDate.now();
+        when(metricRepository.findByGranularityAndPeriodStart(Granularity.DAILY, today)).thenReturn(List.of(
+                point(NEW_SUBSCRIPTIONS, Granularity.DAILY, today, 10),
+                point("daily_revenue", Granularity.DAILY, today, 1500.50),
+                point("cancelled_subscriptions", Granularity.DAILY, today, 2)));
 
         // When
-        metricsService.recordDailyMetric(metricName, now, 10);
-        metricsService.recordDailyMetric(metricName, now, 15); // Update with new value
+        Map<String, Number> todayMetrics = metricsService.getDailyMetrics(today);
 
         // Then
-        Number updatedValue = metricsService.getDailyMetric(metricName, now.toLocalDate());
-        assertEquals(15, updatedValue);
+        assertEquals(3, todayMetrics.size());
+        assertEquals(10, todayMetrics.get(NEW_SUBSCRIPTIONS).intValue());
+        assertEquals(1500.50, todayMetrics.get("daily_revenue").doubleValue());
+        assertEquals(2, todayMetrics.get("cancelled_subscriptions").intValue());
     }
 
     @Test
     void testGetDailyMetricsForNonExistentDate() {
         // Given
         LocalDate futureDate = LocalDate.now().plusMonths(1);
+        when(metricRepository.findByGranularityAndPeriodStart(Granularity.DAILY, futureDate))
+                .thenReturn(Collections.emptyList());
 
         // When
         Map<String, Number> metrics = metricsService.getDailyMetrics(futureDate);
@@ -85,98 +103,117 @@ class SubscriptionMetricsServiceTest {
     }
 
     @Test
-    void testGetDailyMetricForNonExistentMetric() {
+    void testGetDailyMetric() {
         // Given
         LocalDate today = LocalDate.now();
-        String nonExistentMetric = "non_existent_metric";
+        when(metricRepository.findByMetricNameAndGranularityAndPeriodStart(NEW_SUBSCRIPTIONS, Granularity.DAILY,
+                today)).thenReturn(Optional.of(point(NEW_SUBSCRIPTIONS, Granularity.DAILY, today, 15)));
 
         // When
-        Number metricValue = metricsService.getDailyMetric(nonExistentMetric, today);
+        Number metricValue = metricsService.getDailyMetric(NEW_SUBSCRIPTIONS, today);
 
         // Then
-        assertNull(metricValue);
+        assertEquals(15, metricValue.intValue());
     }
 
     @Test
-    void testRecordMetricsForDifferentDates() {
+    void testGetDailyMetricForNonExistentMetric() {
         // Given
-        LocalDateTime today = LocalDateTime.now();
-        LocalDateTime yesterday = today.minusDays(1);
-        LocalDateTime tomorrow = today.plusDays(1);
+        LocalDate today = LocalDate.now();
+        String nonExistentMetric = "non_existent_metric";
+        when(metricRepository.findByMetricNameAndGranularityAndPeriodStart(nonExistentMetric, Granularity.DAILY,
+                today)).thenReturn(Optional.empty());
 
         // When
-        metricsService.recordDailyMetric(NEW_SUBSCRIPTIONS, today, 10);
-        metricsService.recordDailyMetric(NEW_SUBSCRIPTIONS, yesterday, 5);
-        metricsService.recordDailyMetric(NEW_SUBSCRIPTIONS, tomorrow, 15);
+        Number metricValue = metricsService.getDailyMetric(nonExistentMetric, today);
 
         // Then
-        assertEquals(10, metricsService.getDailyMetric(NEW_SUBSCRIPTIONS, today.toLocalDate()));
-        assertEquals(5, metricsService.getDailyMetric(NEW_SUBSCRIPTIONS, yesterday.toLocalDate()));
-        assertEquals(15, metricsService.getDailyMetric(NEW_SUBSCRIPTIONS, tomorrow.toLocalDate()));
+        assertNull(metricValue);
     }
 
     @Test
-    void testDifferentMetricTypes() {
+    void testGetMetricSeries() {
         // Given
-        LocalDateTime now = LocalDateTime.now();
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 3, 1);
+        when(metricRepository.findByMetricNameAndGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(
+                NEW_SUBSCRIPTIONS, Granularity.MONTHLY, start, end)).thenReturn(List.of(
+                        point(NEW_SUBSCRIPTIONS, Granularity.MONTHLY, start, 120),
+                        point(NEW_SUBSCRIPTIONS, Granularity.MONTHLY, start.plusMonths(1), 95)));
 
         // When
-        metricsService.recordDailyMetric("integer_metric", now, 10);
-        metricsService.recordDailyMetric("double_metric", now, 10.5);
-        metricsService.recordDailyMetric("long_metric", now, 1000000000L);
+        Map<LocalDate, Double> series = metricsService.getMetricSeries(NEW_SUBSCRIPTIONS, Granularity.MONTHLY,
+                start, end);
 
-        // Then
-        assertEquals(10, metricsService.getDailyMetric("integer_metric", now.toLocalDate()));
-        assertEquals(10.5, metricsService.getDailyMetric("double_metric", now.toLocalDate()));
-        assertEquals(1000000000L, metricsService.getDailyMetric("long_metric", now.toLocalDate()));
+        // Then : Les points sont restitués dans l'ordre chronologique.
+        assertEquals(List.of(start, start.plusMonths(1)), List.copyOf(series.keySet()));
+        assertEquals(120.0, series.get(start));
+        assertEquals(95.0, series.get(start.plusMonths(1)));
     }
 
     @Test
     void testAggregateMonthlyMetrics() {
-        // Cette méthode n'a pas encore d'implémentation concrète selon le code source
-        // On teste simplement qu'elle ne génère pas d'exception
-        assertDoesNotThrow(() -> metricsService.aggregateMonthlyMetrics());
+        // Given : Deux jours de mai 2025 et le point mensuel d'avril déjà réduit.
+        YearMonth may = YearMonth.of(2025, 5);
+        LocalDate mayStart = may.atDay(1);
+        LocalDate yearStart = LocalDate.of(2025, 1, 1);
+        when(metricRepository.findByGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(Granularity.DAILY,
+                mayStart, may.atEndOfMonth())).thenReturn(List.of(
+                        point(NEW_SUBSCRIPTIONS, Granularity.DAILY, mayStart, 10),
+                        point("active_subscriptions_end", Granularity.DAILY, mayStart, 100),
+                        point(NEW_SUBSCRIPTIONS, Granularity.DAILY, mayStart.plusDays(1), 5),
+                        point("active_subscriptions_end", Granularity.DAILY, mayStart.plusDays(1), 104)));
+        when(metricRepository.findByGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(Granularity.MONTHLY,
+                yearStart, LocalDate.of(2025, 12, 31))).thenReturn(List.of(
+                        point(NEW_SUBSCRIPTIONS, Granularity.MONTHLY, LocalDate.of(2025, 4, 1), 30),
+                        point(NEW_SUBSCRIPTIONS, Granularity.MONTHLY, mayStart, 15)));
+
+        // When
+        metricsService.aggregateMonthlyMetrics(may);
+
+        // Then : Les compteurs sont sommés, les jauges gardent la dernière valeur.
+        verify(metricRepository).upsert(NEW_SUBSCRIPTIONS, "MONTHLY", mayStart, 15.0);
+        verify(metricRepository).upsert("active_subscriptions_end", "MONTHLY", mayStart, 104.0);
+        verify(metricRepository).upsert(NEW_SUBSCRIPTIONS, "YEARLY", yearStart, 45.0);
     }
 
     @Test
-    void testPersistMetrics() {
-        // Cette méthode n'a pas encore d'implémentation concrète selon le code source
-        // On teste simplement qu'elle ne génère pas d'exception
-        assertDoesNotThrow(() -> metricsService.persistMetrics());
+    void testAggregateMonthlyMetricsWithoutPoints() {
+        // Given
+        when(metricRepository.findByGranularityAndPeriodStartBetweenOrderByPeriodStartAsc(any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        metricsService.aggregateMonthlyMetrics(YearMonth.of(2025, 5));
+
+        // Then
+        verify(metricRepository, never()).upsert(anyString(), anyString(), any(), anyDouble());
     }
 
     @Test
-    void testConcurrentAccess() throws InterruptedException {
-        // Simuler un accès concurrent de plusieurs threads
-        int threadCount = 10;
-        Thread[] threads = new Thread[threadCount];
+    void testApplyRetention() {
+        // Given
         LocalDate today = LocalDate.now();
+        when(metricRepository.deleteByGranularityAndPeriodStartBefore(Granularity.DAILY,
+                today.minusDays(DAILY_RETENTION_DAYS))).thenReturn(31);
+        when(metricRepository.deleteByGranularityAndPeriodStartBefore(Granularity.MONTHLY,
+                today.withDayOfMonth(1).minusMonths(MONTHLY_RETENTION_MONTHS))).thenReturn(1);
+
+        // When
+        int deleted = metricsService.applyRetention();
+
+        // Then : Les points annuels ne sont jamais purgés.
+        assertEquals(32, deleted);
+        verify(metricRepository, never()).deleteByGranularityAndPeriodStartBefore(eq(Granularity.YEARLY), any());
+    }
 
-        for (int i = 0; i < threadCount; i++) {
-            final int threadId = i;
-            threads[i] = new Thread(() -> {
-                LocalDateTime dateTime = LocalDateTime.now();
-                String metricName = "concurrent_metric_" + threadId;
-                metricsService.recordDailyMetric(metricName, dateTime, threadId);
-            });
-            threads[i].start();
-        }
-
-        // Attendre que tous les threads terminent
-        for (Thread thread : threads) {
-            thread.join();
-        }
-
-        // Vérifier que toutes les métriques ont été enregistrées
-        Map<String, Number> metrics = metricsService.getDailyMetrics(today);
-        assertEquals(threadCount, metrics.size());
-
-        // Vérifier chaque métrique individuelle
-        for (int i = 0; i < threadCount; i++) {
-            String metricName = "concurrent_metric_" + i;
-            Number value = metricsService.getDailyMetric(metricName, today);
-            assertNotNull(value);
-            assertEquals(i, value.intValue());
-        }
+    private SubscriptionMetric point(String metricName, Granularity granularity, LocalDate periodStart,
+            double value) {
+        SubscriptionMetric metric = new SubscriptionMetric();
+        metric.setMetricName(metricName);
+        metric.setGranularity(granularity);
+        metric.setPeriodStart(periodStart);
+        metric.setValue(value);
+        return metric;
     }
-}
\ No newline at end of file
+}
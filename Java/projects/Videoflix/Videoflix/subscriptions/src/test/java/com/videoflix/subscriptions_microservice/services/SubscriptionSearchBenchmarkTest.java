@@ -0,0 +1,159 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.Benchmarks;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchCriteria;
+import com.videoflix.subscriptions_microservice.entities.Subscription.SubscriptionStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compare la recherche d'abonnements par curseur à la pagination par offset
+ * sur 5 millions d'abonnements synthétiques, et l'estimation du total au
+ * comptage exact. Nécessite une base PostgreSQL ; les tables sont créées dans
+ * un schéma dédié, supprimé à la fin.
+ * Connexion : {@code -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/videoflix
+ * -Dbenchmark.jdbc-user=... -Dbenchmark.jdbc-password=...}.
+ */
+@Benchmarks.OptIn
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Benchmark de la recherche d'abonnements")
+class SubscriptionSearchBenchmarkTest {
+
+    private static final int SUBSCRIPTIONS = 5_000_000;
+    private static final int USERS = 1_000_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_OFFSET = 3_000_000;
+    private static final int RUNS = 20;
+    private static final String SCHEMA = "subscription_search_benchmark";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SubscriptionSearchService searchService;
+
+    @BeforeAll
+    void createDataset() {
+        dataSource = new SingleConnectionDataSource(
+                System.getProperty("benchmark.jdbc-url", "jdbc:postgresql://localhost:5432/videoflix"),
+                System.getProperty("benchmark.jdbc-user", "postgres"),
+                System.getProperty("benchmark.jdbc-password", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        searchService = new SubscriptionSearchService(jdbcTemplate, new ObjectMapper(), 100);
+
+        long start = System.nanoTime();
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(255) NOT NULL, "
+                + "email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE subscription_levels (id BIGINT PRIMARY KEY, level VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE subscriptions (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                + "level_id BIGINT NOT NULL, status VARCHAR(255) NOT NULL, start_date TIMESTAMP NOT NULL, "
+                + "end_date TIMESTAMP, next_billing_date TIMESTAMP, auto_renew BOOLEAN NOT NULL, "
+                + "price DOUBLE PRECISION, currency VARCHAR(255))");
+        jdbcTemplate.execute("INSERT INTO users SELECT i, 'user' || i, 'user' || i || '@videoflix.com' "
+                + "FROM generate_series(1, " + USERS + ") i");
+        jdbcTemplate.execute("INSERT INTO subscription_levels VALUES (1, 'BASIC'), (2, 'PREMIUM'), (3, 'ULTRA')");
+        // Statuts déséquilibrés : les trois quarts des abonnements sont actifs.
+        jdbcTemplate.execute("INSERT INTO subscriptions SELECT i, (i % " + USERS + ") + 1, (i % 3) + 1, "
+                + "CASE WHEN i % 4 <> 0 THEN 'ACTIVE' "
+                + "ELSE (ARRAY['CANCELLED', 'EXPIRED', 'TRIAL'])[(i / 4) % 3 + 1] END, "
+                + "TIMESTAMP '2020-01-01' + (i % 1826) * INTERVAL '1 day', "
+                + "TIMESTAMP '2020-01-31' + (i % 1826) * INTERVAL '1 day', "
+                + "TIMESTAMP '2020-01-31' + (i % 1826) * INTERVAL '1 day', "
+                + "i % 2 = 0, 9.99, 'EUR' FROM generate_series(1, " + SUBSCRIPTIONS + ") i");
+        // Mêmes index que l'entité Subscription.
+        jdbcTemplate.execute("CREATE INDEX ON subscriptions (status)");
+        jdbcTemplate.execute("CREATE INDEX ON subscriptions (status, end_date, id)");
+        jdbcTemplate.execute("CREATE INDEX ON subscriptions (user_id, id)");
+        jdbcTemplate.execute("CREATE INDEX ON subscriptions (start_date, id)");
+        jdbcTemplate.execute("CREATE INDEX ON subscriptions (next_billing_date, id)");
+        jdbcTemplate.execute("ANALYZE");
+        Benchmarks.report(getClass(), "Jeu de %d abonnements créé en %d s", SUBSCRIPTIONS,
+                (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    @AfterAll
+    void dropDataset() {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        }
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void benchmark_deepKeysetPageShouldNotDegradeLikeOffset() throws Exception {
+        SubscriptionSearchCriteria active = new SubscriptionSearchCriteria(null, SubscriptionStatus.ACTIVE, null,
+                null, null, null, null, null, null);
+        // Curseur placé à la même profondeur que l'offset : ID décroissant, 3 actifs sur 4.
+        long deepCursor = SUBSCRIPTIONS - DEEP_OFFSET * 4L / 3;
+
+        String offsetPage = "SELECT s.id, u.email, l.level FROM subscriptions s "
+                + "JOIN users u ON u.id = s.user_id JOIN subscription_levels l ON l.id = s.level_id "
+                + "WHERE s.status = 'ACTIVE' ORDER BY s.id DESC OFFSET " + DEEP_OFFSET + " LIMIT " + PAGE_SIZE;
+
+        long offsetMicros = median(() -> jdbcTemplate.queryForList(offsetPage).size());
+        long firstPageMicros = median(() -> searchService.search(active, null, PAGE_SIZE,
+                SubscriptionSearchService.CountMode.NONE).items().size());
+        long keysetMicros = median(() -> searchService.search(active, deepCursor, PAGE_SIZE,
+                SubscriptionSearchService.CountMode.NONE).items().size());
+
+        Benchmarks.report(getClass(), "Page profonde : offset %d µs, curseur %d µs (première page %d µs)",
+                offsetMicros, keysetMicros, firstPageMicros);
+        assertTrue(keysetMicros * 10 < offsetMicros, "Le curseur doit être bien plus rapide que l'offset");
+        assertTrue(keysetMicros < 50_000, "Page profonde trop lente : " + keysetMicros + " µs");
+    }
+
+    @Test
+    void benchmark_estimatedCountShouldBeCheaperThanExactCount() throws Exception {
+        SubscriptionSearchCriteria range = new SubscriptionSearchCriteria(null, SubscriptionStatus.ACTIVE, null,
+                LocalDateTime.of(2021, 1, 1, 0, 0), LocalDateTime.of(2023, 1, 1, 0, 0), null, null, null, null);
+        long[] exact = new long[1];
+        long[] estimate = new long[1];
+
+        long exactMicros = median(() -> exact[0] = searchService.search(range, null, PAGE_SIZE,
+                SubscriptionSearchService.CountMode.EXACT).total());
+        long estimateMicros = median(() -> estimate[0] = searchService.search(range, null, PAGE_SIZE,
+                SubscriptionSearchService.CountMode.ESTIMATE).total());
+
+        Benchmarks.report(getClass(), "Total : exact %d en %d µs, estimé %d en %d µs", exact[0], exactMicros,
+                estimate[0], estimateMicros);
+        assertTrue(estimateMicros * 5 < exactMicros, "L'estimation doit être bien plus rapide que le comptage");
+        assertEquals(exact[0], estimate[0], exact[0] / 5.0, "L'estimation doit rester du bon ordre de grandeur");
+    }
+
+    @Test
+    void benchmark_typedFiltersShouldUseIndexes() throws Exception {
+        SubscriptionSearchCriteria user = new SubscriptionSearchCriteria(4_242L, null, null, null, null, null,
+                null, null, null);
+        SubscriptionSearchCriteria billing = new SubscriptionSearchCriteria(null, null, null, null, null, null,
+                null, LocalDateTime.of(2022, 3, 1, 0, 0), LocalDateTime.of(2022, 3, 2, 0, 0));
+
+        long userMicros = median(() -> searchService.search(user, null, PAGE_SIZE,
+                SubscriptionSearchService.CountMode.NONE).items().size());
+        long billingMicros = median(() -> searchService.search(billing, null, PAGE_SIZE,
+                SubscriptionSearchService.CountMode.NONE).items().size());
+
+        Benchmarks.report(getClass(), "Filtre utilisateur %d µs, filtre prochaine facturation %d µs", userMicros,
+                billingMicros);
+        assertTrue(userMicros < 50_000 && billingMicros < 50_000, "Recherche filtrée trop lente");
+    }
+
+    private static long median(Supplier<?> query) throws Exception {
+        query.get(); // Échauffement du cache de la base et du JIT.
+        return Benchmarks.percentile(Benchmarks.sampleMicros(RUNS, query::get), 50);
+    }
+}
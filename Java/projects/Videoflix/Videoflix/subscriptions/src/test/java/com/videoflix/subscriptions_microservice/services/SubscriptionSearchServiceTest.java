@@ -0,0 +1,156 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchCriteria;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSearchPage;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionSummary;
+import com.videoflix.subscriptions_microservice.entities.Subscription.SubscriptionStatus;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel.Level;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
+@ExtendWith(MockitoExtension.class)
+class SubscriptionSearchServiceTest {
+
+    private static final SubscriptionSearchCriteria NO_FILTER = new SubscriptionSearchCriteria(null, null, null,
+            null, null, null, null, null, null);
+
+    // @Mock crée un mock du JdbcTemplate.
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SubscriptionSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new SubscriptionSearchService(jdbcTemplate, new ObjectMapper(), 100);
+    }
+
+    // Test : les filtres typés et le curseur sont traduits en paramètres, dans l'ordre de la requête.
+    @Test
+    void pageQuery_shouldBindTypedFiltersAndCursor() {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 2, 1, 0, 0);
+        SubscriptionSearchCriteria criteria = new SubscriptionSearchCriteria(7L, SubscriptionStatus.ACTIVE,
+                Level.PREMIUM, null, null, null, null, from, to);
+
+        SubscriptionSearchService.SqlQuery query = SubscriptionSearchService.pageQuery(criteria, 500L, 21);
+
+        assertTrue(query.sql().contains("s.next_billing_date >= ? AND s.next_billing_date < ?"));
+        assertTrue(query.sql().endsWith("AND s.id < ? ORDER BY s.id DESC LIMIT ?"));
+        assertEquals(List.of(7L, "ACTIVE", "PREMIUM", from, to, 500L, 21), query.args());
+    }
+
+    // Test : la requête de comptage ne joint ni les utilisateurs ni les niveaux.
+    @Test
+    void matchQuery_shouldNotJoinUsersOrLevels() {
+        SubscriptionSearchService.SqlQuery query = SubscriptionSearchService.matchQuery(
+                new SubscriptionSearchCriteria(null, null, Level.BASIC, null, null, null, null, null, null));
+
+        assertFalse(query.sql().contains("JOIN"));
+        assertFalse(query.sql().contains("ORDER BY"));
+        assertEquals(List.of("BASIC"), query.args());
+    }
+
+    // Test : une ligne de plus que la taille de page donne le curseur de la page suivante.
+    @Test
+    void search_shouldReturnNextCursorWhenMoreRowsExist() {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<SubscriptionSummary>>any(),
+                any(Object[].class))).thenReturn(summaries(30, 27));
+
+        SubscriptionSearchPage page = searchService.search(NO_FILTER, null, 3,
+                SubscriptionSearchService.CountMode.NONE);
+
+        assertEquals(3, page.items().size());
+        assertEquals(28L, page.nextCursor());
+        assertNull(page.total());
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+    }
+
+    // Test : la dernière page n'a pas de curseur et le total exact est compté.
+    @Test
+    void search_shouldCountExactlyOnDemand() {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<SubscriptionSummary>>any(),
+                any(Object[].class))).thenReturn(summaries(2, 1));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class), any(Object[].class)))
+                .thenReturn(2L);
+
+        SubscriptionSearchPage page = searchService.search(NO_FILTER, null, 3,
+                SubscriptionSearchService.CountMode.EXACT);
+
+        assertNull(page.nextCursor());
+        assertEquals(2L, page.total());
+        assertFalse(page.totalEstimated());
+    }
+
+    // Test : l'estimation est lue dans le plan du planificateur, sans comptage.
+    @Test
+    void search_shouldEstimateCountFromPlan() {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<SubscriptionSummary>>any(),
+                any(Object[].class))).thenReturn(summaries(1, 1));
+        when(jdbcTemplate.queryForObject(startsWith("EXPLAIN (FORMAT JSON)"), eq(String.class),
+                any(Object[].class)))
+                .thenReturn("[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Plan Rows\": 4987213}}]");
+
+        SubscriptionSearchPage page = searchService.search(NO_FILTER, null, 20,
+                SubscriptionSearchService.CountMode.ESTIMATE);
+
+        assertEquals(4_987_213L, page.total());
+        assertTrue(page.totalEstimated());
+        verify(jdbcTemplate, never()).queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class),
+                any(Object[].class));
+    }
+
+    // Test : une taille de page hors limites est refusée sans interroger la base.
+    @Test
+    void search_shouldRejectPageSizeOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.search(NO_FILTER, null, 101, SubscriptionSearchService.CountMode.NONE));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // Test : un statut inconnu ou une plage de dates inversée sont refusés.
+    @Test
+    void criteria_shouldRejectUnknownStatusAndInvertedRange() {
+        LocalDateTime now = LocalDateTime.of(2025, 5, 1, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> SubscriptionSearchCriteria.of(null, "SUSPENDU", null,
+                null, null, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> SubscriptionSearchCriteria.of(null, null, null,
+                now, now.minusDays(1), null, null, null, null));
+        assertEquals(SubscriptionStatus.PAYMENT_FAILED, SubscriptionSearchCriteria.of(null, "payment_failed",
+                null, null, null, null, null, null, null).status());
+    }
+
+    private static List<SubscriptionSummary> summaries(long fromId, long toId) {
+        return LongStream.iterate(fromId, id -> id >= toId, id -> id - 1)
+                .mapToObj(id -> new SubscriptionSummary(id, 1L, "user", "user@videoflix.com", "BASIC", "ACTIVE",
+                        null, null, null, true, 9.99, "EUR"))
+                .toList();
+    }
+}
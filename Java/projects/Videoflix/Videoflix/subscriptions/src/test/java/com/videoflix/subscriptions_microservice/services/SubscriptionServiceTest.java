@@ -4,10 +4,12 @@ import com.stripe.exception.ApiException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Refund;
 import com.videoflix.subscriptions_microservice.dtos.AdminUpdateSubscriptionRequest;
+import com.videoflix.subscriptions_microservice.dtos.SubscriptionExpirationReport;
 import com.videoflix.subscriptions_microservice.entities.Promotion;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
 import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 import com.videoflix.subscriptions_microservice.entities.User;
+import com.videoflix.subscriptions_microservice.events.SubscriptionLevelChangedEvent;
 import com.videoflix.subscriptions_microservice.exceptions.StripeIntegrationException;
 import com.videoflix.subscriptions_microservice.integration.*;
 import com.videoflix.subscriptions_microservice.repositories.PromotionRepository;
@@ -20,14 +22,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -82,6 +86,18 @@ class SubscriptionServiceTest {
     @Mock
     private StripeBillingService stripeBillingService;
 
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PushNotificationService pushNotificationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     // Service à tester avec injection des mocks
     @InjectMocks
     private SubscriptionService subscriptionService;
@@ -309,6 +325,98 @@ class SubscriptionServiceTest {
                 "BASIC");
     }
 
+    @Test
+    @DisplayName("Changement de niveau par ID - Évènement publié et niveau initial conservé")
+    void testChangeSubscriptionLevelById_PublishesLevelChangedEvent() {
+        // Given
+        SubscriptionLevel newLevel = new SubscriptionLevel();
+        newLevel.setId(2L);
+        newLevel.setLevel(SubscriptionLevel.Level.PREMIUM);
+
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(testSubscription));
+        when(subscriptionLevelRepository.findById(2L)).thenReturn(Optional.of(newLevel));
+        when(subscriptionRepository.save(any(Subscription.class))).thenReturn(testSubscription);
+
+        // When
+        subscriptionService.changeSubscriptionLevel(1L, 2L);
+
+        // Then
+        assertEquals(SubscriptionLevel.Level.BASIC, testSubscription.getInitialLevel(),
+                "Le niveau initial doit rester BASIC");
+        verify(levelChangedEventPublisher).publishSubscriptionLevelChangedEvent(testSubscription, "BASIC");
+        assertLevelChangedEvent("BASIC", "PREMIUM");
+    }
+
+    @Test
+    @DisplayName("Changement de niveau par ID - Même niveau, aucun évènement")
+    void testChangeSubscriptionLevelById_SameLevel_NoEvent() {
+        // Given
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(testSubscription));
+        when(subscriptionLevelRepository.findById(1L)).thenReturn(Optional.of(testSubscriptionLevel));
+        when(subscriptionRepository.save(any(Subscription.class))).thenReturn(testSubscription);
+
+        // When
+        subscriptionService.changeSubscriptionLevel(1L, 1L);
+
+        // Then
+        verifyNoInteractions(levelChangedEventPublisher, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Mise à jour complète avec un autre niveau - Évènement publié")
+    void testUpdateSubscription_LevelChanged_PublishesLevelChangedEvent() {
+        // Given
+        SubscriptionLevel ultra = new SubscriptionLevel();
+        ultra.setId(3L);
+        ultra.setLevel(SubscriptionLevel.Level.ULTRA);
+        Subscription update = new Subscription();
+        update.setUser(testUser);
+        update.setSubscriptionLevel(ultra);
+
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(testSubscription));
+        when(subscriptionRepository.save(update)).thenReturn(update);
+
+        // When
+        subscriptionService.updateSubscription(1L, update);
+
+        // Then : le niveau initial de l'abonnement existant est conservé
+        assertEquals(SubscriptionLevel.Level.BASIC, update.getInitialLevel(),
+                "Le niveau initial ne doit pas être écrasé par la mise à jour");
+        verify(levelChangedEventPublisher).publishSubscriptionLevelChangedEvent(update, "BASIC");
+        assertLevelChangedEvent("BASIC", "ULTRA");
+    }
+
+    @Test
+    @DisplayName("Mise à jour administrative du niveau - Évènement publié")
+    void testUpdateSubscriptionByAdmin_LevelChanged_PublishesLevelChangedEvent() {
+        // Given
+        AdminUpdateSubscriptionRequest updateRequest = new AdminUpdateSubscriptionRequest();
+        updateRequest.setSubscriptionLevelId(2L);
+        SubscriptionLevel newLevel = new SubscriptionLevel();
+        newLevel.setId(2L);
+        newLevel.setLevel(SubscriptionLevel.Level.PREMIUM);
+
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(testSubscription));
+        when(subscriptionLevelRepository.findById(2L)).thenReturn(Optional.of(newLevel));
+        when(subscriptionRepository.save(any(Subscription.class))).thenReturn(testSubscription);
+
+        // When
+        subscriptionService.updateSubscriptionByAdmin(1L, updateRequest);
+
+        // Then
+        assertEquals(SubscriptionLevel.Level.BASIC, testSubscription.getInitialLevel());
+        verify(levelChangedEventPublisher).publishSubscriptionLevelChangedEvent(testSubscription, "BASIC");
+        assertLevelChangedEvent("BASIC", "PREMIUM");
+    }
+
+    private void assertLevelChangedEvent(String oldLevel, String newLevel) {
+        ArgumentCaptor<SubscriptionLevelChangedEvent> captor = ArgumentCaptor
+                .forClass(SubscriptionLevelChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(oldLevel, captor.getValue().getOldLevel(), "Ancien niveau de l'évènement");
+        assertEquals(newLevel, captor.getValue().getNewLevel(), "Nouveau niveau de l'évènement");
+    }
+
     // ========== TESTS DE SUPPRESSION D'ABONNEMENT ==========
 
     @Test
@@ -625,25 +733,73 @@ class SubscriptionServiceTest {
         verify(subscriptionRepository).save(testSubscription);
     }
 
-    // ========== TESTS DE RECHERCHE D'ABONNEMENTS ==========
+    // ========== TESTS DE VÉRIFICATION DES EXPIRATIONS ==========
+
+    @Test
+    @DisplayName("Vérification des expirations - Pages keyset et envois par lot")
+    void testCheckSubscriptionExpirations_ProcessesKeysetChunks() {
+        // Given - Une page pleine d'abonnements expirés suivie d'une page partielle
+        List<Subscription> firstChunk = new java.util.ArrayList<>();
+        for (long id = 1; id <= SubscriptionService.EXPIRATION_CHUNK_SIZE; id++) {
+            firstChunk.add(activeSubscription(id));
+        }
+        List<Subscription> secondChunk = List.of(activeSubscription(SubscriptionService.EXPIRATION_CHUNK_SIZE + 1L));
+
+        when(subscriptionRepository.findKeysetByStatusAndEndDateRange(eq(Subscription.SubscriptionStatus.ACTIVE),
+                any(), any(), eq(0L), any(Pageable.class))).thenReturn(List.of(testSubscription));
+        when(subscriptionRepository.findKeysetByStatusAndEndDateBefore(eq(Subscription.SubscriptionStatus.ACTIVE),
+                any(), eq(0L), any(Pageable.class))).thenReturn(firstChunk);
+        when(subscriptionRepository.findKeysetByStatusAndEndDateBefore(eq(Subscription.SubscriptionStatus.ACTIVE),
+                any(), eq((long) SubscriptionService.EXPIRATION_CHUNK_SIZE), any(Pageable.class)))
+                .thenReturn(secondChunk);
+
+        // When
+        SubscriptionExpirationReport report = subscriptionService.checkSubscriptionExpirations();
+
+        // Then
+        assertEquals(SubscriptionService.EXPIRATION_CHUNK_SIZE + 2L, report.scanned(),
+                "Toutes les lignes lues doivent être comptées");
+        assertEquals(1, report.notified(), "Un abonnement doit être notifié d'une expiration imminente");
+        assertEquals(SubscriptionService.EXPIRATION_CHUNK_SIZE + 1L, report.expired(),
+                "Tous les abonnements échus doivent être expirés");
+        assertEquals(Subscription.SubscriptionStatus.EXPIRED, secondChunk.get(0).getStatus());
+        verify(subscriptionRepository, never()).findAll();
+        verify(subscriptionRepository).saveAll(firstChunk);
+        verify(subscriptionRepository).saveAll(secondChunk);
+        verify(emailService).sendSubscriptionExpirationImminentNotifications(List.of(testSubscription));
+        verify(pushNotificationService).sendSubscriptionExpirationPushNotifications(firstChunk);
+        verify(pushNotificationService).sendSubscriptionExpirationPushNotifications(secondChunk);
+        // Une transaction validée par page expirée
+        verify(transactionManager, times(2)).commit(any());
+    }
 
-    @SuppressWarnings("unchecked")
     @Test
-    @DisplayName("Recherche d'abonnements avec filtres")
-    void testSearchSubscriptions_WithFilters() {
+    @DisplayName("Vérification des expirations - Aucun abonnement concerné")
+    void testCheckSubscriptionExpirations_NothingToProcess() {
         // Given
-        List<Subscription> subscriptions = Arrays.asList(testSubscription);
-        Page<Subscription> subscriptionPage = new PageImpl<>(subscriptions);
-        when(subscriptionRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(subscriptionPage);
+        when(subscriptionRepository.findKeysetByStatusAndEndDateRange(any(), any(), any(), anyLong(),
+                any(Pageable.class))).thenReturn(List.of());
+        when(subscriptionRepository.findKeysetByStatusAndEndDateBefore(any(), any(), anyLong(),
+                any(Pageable.class))).thenReturn(List.of());
 
         // When
-        List<Subscription> result = subscriptionService.searchSubscriptions(1L, "ACTIVE", "BASIC", 0, 10);
+        SubscriptionExpirationReport report = subscriptionService.checkSubscriptionExpirations();
 
         // Then
-        assertNotNull(result, "Le résultat ne doit pas être null");
-        assertEquals(1, result.size(), "Un abonnement doit être trouvé");
-        verify(subscriptionRepository).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(0, report.scanned());
+        assertEquals(0, report.touched());
+        verify(subscriptionRepository, never()).saveAll(any());
+        verifyNoInteractions(emailService, pushNotificationService);
+    }
+
+    private Subscription activeSubscription(long id) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        subscription.setUser(testUser);
+        subscription.setSubscriptionLevel(testSubscriptionLevel);
+        subscription.setEndDate(LocalDateTime.now().minusDays(1));
+        subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
+        return subscription;
     }
 
     // ========== TESTS DE MISE À JOUR ADMINISTRATIVE ==========
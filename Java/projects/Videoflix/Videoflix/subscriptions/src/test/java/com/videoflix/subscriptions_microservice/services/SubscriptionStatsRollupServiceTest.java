@@ -0,0 +1,125 @@
+package com.videoflix.subscriptions_microservice.services;
+
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
+import com.videoflix.subscriptions_microservice.entities.User;
+import com.videoflix.subscriptions_microservice.events.NewSubscriptionCreatedEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionCancelledEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionLevelChangedEvent;
+import com.videoflix.subscriptions_microservice.events.SubscriptionRenewedEvent;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionDailyStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// @ExtendWith(MockitoExtension.class) permet d'utiliser les fonctionnalités de Mockito dans ce test.
+@ExtendWith(MockitoExtension.class)
+class SubscriptionStatsRollupServiceTest {
+
+    // @Mock crée un mock de l'agrégat journalier des abonnements.
+    @Mock
+    private SubscriptionDailyStatsRepository dailyStatsRepository;
+
+    // @InjectMocks crée une instance du service et injecte le mock du repository.
+    @InjectMocks
+    private SubscriptionStatsRollupService rollupService;
+
+    // Test pour vérifier qu'une création incrémente le compteur et le revenu du
+    // jour.
+    @Test
+    void onSubscriptionCreated_shouldIncrementNewCountAndRevenue() {
+        // GIVEN : Un abonnement PREMIUM à 9.99.
+        Subscription subscription = subscription(SubscriptionLevel.Level.PREMIUM, 9.99);
+
+        // WHEN : L'évènement de création est reçu.
+        rollupService.onSubscriptionCreated(new NewSubscriptionCreatedEvent(this, subscription.getUser(),
+                subscription));
+
+        // THEN : La ligne (aujourd'hui, PREMIUM) est incrémentée.
+        verify(dailyStatsRepository).increment(LocalDate.now(), "PREMIUM", 1, 0, 0, 0, 0, 9.99, 0);
+    }
+
+    // Test pour vérifier qu'une annulation n'ajoute aucun revenu.
+    @Test
+    void onSubscriptionCancelled_shouldIncrementCancelledCount() {
+        Subscription subscription = subscription(SubscriptionLevel.Level.BASIC, 4.99);
+
+        rollupService.onSubscriptionCancelled(new SubscriptionCancelledEvent(this, subscription, "Trop cher"));
+
+        verify(dailyStatsRepository).increment(LocalDate.now(), "BASIC", 0, 1, 0, 0, 0, 0, 0);
+    }
+
+    // Test pour vérifier qu'un renouvellement ajoute le prix encaissé.
+    @Test
+    void onSubscriptionRenewed_shouldIncrementRenewedCountAndRevenue() {
+        Subscription subscription = subscription(SubscriptionLevel.Level.ULTRA, 19.99);
+
+        rollupService.onSubscriptionRenewed(new SubscriptionRenewedEvent(this, subscription));
+
+        verify(dailyStatsRepository).increment(LocalDate.now(), "ULTRA", 0, 0, 1, 0, 0, 0, 19.99);
+    }
+
+    // Test pour vérifier qu'un changement de niveau déplace l'abonnement d'un
+    // niveau à l'autre.
+    @Test
+    void onSubscriptionLevelChanged_shouldMoveSubscriptionBetweenLevels() {
+        Subscription subscription = subscription(SubscriptionLevel.Level.PREMIUM, 9.99);
+
+        rollupService.onSubscriptionLevelChanged(new SubscriptionLevelChangedEvent(this, subscription.getUser(),
+                subscription, "basic", "PREMIUM"));
+
+        verify(dailyStatsRepository).increment(LocalDate.now(), "BASIC", 0, 0, 0, 0, 1, 0, 0);
+        verify(dailyStatsRepository).increment(LocalDate.now(), "PREMIUM", 0, 0, 0, 1, 0, 0, 0);
+    }
+
+    // Test pour vérifier qu'un abonnement sans niveau est ignoré.
+    @Test
+    void onSubscriptionCreated_withoutLevel_shouldBeIgnored() {
+        Subscription subscription = new Subscription();
+
+        rollupService.onSubscriptionCreated(new NewSubscriptionCreatedEvent(this, null, subscription));
+
+        verify(dailyStatsRepository, never()).increment(any(), anyString(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyDouble(), anyDouble());
+    }
+
+    // Test pour vérifier que la reconstruction remet à zéro les seuls compteurs
+    // recalculables avant de les remplir, sans vider l'agrégat.
+    @Test
+    void rebuild_shouldResetRecomputableCountersThenRebuildFromSubscriptions() {
+        when(dailyStatsRepository.rebuildFromSubscriptions()).thenReturn(12);
+
+        int rows = rollupService.rebuild();
+
+        assertEquals(12, rows);
+        var order = inOrder(dailyStatsRepository);
+        order.verify(dailyStatsRepository).resetRecomputableCounters();
+        order.verify(dailyStatsRepository).rebuildFromSubscriptions();
+    }
+
+    private Subscription subscription(SubscriptionLevel.Level levelName, double price) {
+        SubscriptionLevel level = new SubscriptionLevel();
+        level.setLevel(levelName);
+        User user = new User();
+        user.setId(1L);
+        Subscription subscription = new Subscription();
+        subscription.setUser(user);
+        subscription.setSubscriptionLevel(level);
+        subscription.setPrice(price);
+        return subscription;
+    }
+}
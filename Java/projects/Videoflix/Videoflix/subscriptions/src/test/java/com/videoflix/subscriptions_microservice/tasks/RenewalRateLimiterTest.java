@@ -0,0 +1,43 @@
+package com.videoflix.subscriptions_microservice.tasks;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tests pour RenewalRateLimiter")
+class RenewalRateLimiterTest {
+
+    @Test
+    @DisplayName("Devrait espacer les appels selon le débit configuré")
+    void acquire_shouldSpaceCallsAtConfiguredRate() {
+        // GIVEN: 50 appels par seconde, soit un créneau toutes les 20 ms.
+        RenewalRateLimiter rateLimiter = new RenewalRateLimiter(50);
+
+        // WHEN: 6 acquisitions consécutives (la première est immédiate).
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.acquire();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // THEN: Au moins 5 intervalles de 20 ms se sont écoulés.
+        assertTrue(elapsedMillis >= 100, "Les appels doivent être espacés, durée : " + elapsedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas attendre si la limitation est désactivée")
+    void acquire_withZeroRate_shouldNotWait() {
+        RenewalRateLimiter rateLimiter = new RenewalRateLimiter(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.acquire();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 100, "Aucune attente attendue, durée : " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,103 @@
+package com.videoflix.subscriptions_microservice.tasks;
+
+import com.stripe.Stripe;
+import com.videoflix.subscriptions_microservice.Benchmarks;
+import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.integration.StripeStubServer;
+import com.videoflix.subscriptions_microservice.repositories.PaymentRepository;
+import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
+import com.videoflix.subscriptions_microservice.services.StripePaymentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mesure le débit de RenewalTask contre le bouchon Stripe local.
+ */
+@Benchmarks.OptIn
+@DisplayName("Benchmark du débit de RenewalTask")
+class RenewalTaskBenchmarkTest {
+
+    private static final int DUE_SUBSCRIPTIONS = 1_000;
+    private static final int PAGE_SIZE = 200;
+    private static final long STRIPE_LATENCY_MS = 20;
+
+    private StripeStubServer stripeStub;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stripeStub = new StripeStubServer(STRIPE_LATENCY_MS);
+        Stripe.overrideApiBase(stripeStub.baseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        stripeStub.close();
+    }
+
+    @Test
+    void benchmark_concurrentWorkersShouldOutperformSequentialRenewal() throws Exception {
+        double sequential = runAndMeasure(1);
+        double concurrent = runAndMeasure(64);
+
+        Benchmarks.report(getClass(),
+                "RenewalTask : séquentiel %.0f renouvellements/s, concurrent %.0f renouvellements/s",
+                sequential, concurrent);
+        assertTrue(concurrent > sequential * 5, "Le traitement concurrent doit être nettement plus rapide");
+    }
+
+    private double runAndMeasure(int maxConcurrency) throws Exception {
+        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+        PaymentRepository paymentRepository = mock(PaymentRepository.class);
+        StripePaymentService stripePaymentService = new StripePaymentService("sk_test_stub", subscriptionRepository,
+                paymentRepository);
+        List<Subscription> catalog = dueSubscriptions();
+        when(subscriptionRepository.findKeysetDueForRenewal(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    long lastId = invocation.getArgument(1);
+                    int from = (int) lastId;
+                    return catalog.subList(Math.min(from, catalog.size()),
+                            Math.min(from + PAGE_SIZE, catalog.size()));
+                });
+
+        RenewalTask renewalTask = new RenewalTask(subscriptionRepository, paymentRepository, stripePaymentService,
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class),
+                PAGE_SIZE, maxConcurrency, 5_000, 0);
+        int requestsBefore = stripeStub.getRequestCount();
+        long elapsedNanos = Benchmarks.time(renewalTask::checkAndRenewSubscriptions);
+
+        assertEquals(DUE_SUBSCRIPTIONS, stripeStub.getRequestCount() - requestsBefore);
+        return Benchmarks.perSecond(DUE_SUBSCRIPTIONS, elapsedNanos);
+    }
+
+    private List<Subscription> dueSubscriptions() {
+        List<Subscription> subscriptions = new ArrayList<>(DUE_SUBSCRIPTIONS);
+        for (long id = 1; id <= DUE_SUBSCRIPTIONS; id++) {
+            Subscription subscription = new Subscription();
+            subscription.setId(id);
+            subscription.setAutoRenew(true);
+            subscription.setCustomerId("cus_" + id);
+            subscription.setPriceId("price_basic");
+            subscription.setPrice(9.99);
+            subscription.setNextRenewalDate(LocalDateTime.now().minusDays(1));
+            subscriptions.add(subscription);
+        }
+        return subscriptions;
+    }
+}
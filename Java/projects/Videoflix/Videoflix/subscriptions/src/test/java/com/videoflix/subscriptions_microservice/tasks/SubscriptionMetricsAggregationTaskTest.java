@@ -1,21 +1,19 @@
 package com.videoflix.subscriptions_microservice.tasks;
 
-import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.dtos.DailySubscriptionMetrics;
 import com.videoflix.subscriptions_microservice.repositories.SubscriptionRepository;
 import com.videoflix.subscriptions_microservice.services.SubscriptionMetricsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -26,7 +24,7 @@ import static org.mockito.Mockito.*;
 class SubscriptionMetricsAggregationTaskTest {
 
     // @Mock crée une instance mockée de SubscriptionRepository.
-    // Nous allons simuler les comportements de comptage et de recherche d'abonnements.
+    // Nous allons simuler la requête d'agrégation journalière.
     @Mock
     private SubscriptionRepository subscriptionRepository;
 
@@ -35,194 +33,127 @@ class SubscriptionMetricsAggregationTaskTest {
     @Mock
     private SubscriptionMetricsService metricsService;
 
-    // @InjectMocks crée une instance de SubscriptionMetricsAggregationTask et y injecte les mocks.
-    @InjectMocks
     private SubscriptionMetricsAggregationTask aggregationTask;
 
-    // Horodatage fixe pour simuler 'LocalDateTime.now()' afin de rendre les tests déterministes.
-    // La tâche est planifiée à 3h00 du matin.
-    private LocalDateTime fixedNow;
-    private LocalDateTime yesterday;
+    // Bornes de la journée d'hier, agrégée par l'exécution planifiée.
     private LocalDateTime startOfYesterday;
-    private LocalDateTime endOfYesterday;
+    private LocalDateTime startOfToday;
 
     /**
      * Méthode exécutée avant chaque test.
-     * Initialise `fixedNow` et les bornes de temps pour les requêtes du repository.
+     * Crée la tâche sans rattrapage (une seule journée) et calcule les bornes
+     * de la journée d'hier.
      */
     @BeforeEach
     void setUp() {
-        // Définit une date et heure fixe pour "aujourd'hui" (le 24 mai 2025 à 3h00 du matin)
-        // cela correspond à l'heure d'exécution planifiée de la tâche.
-        fixedNow = LocalDateTime.of(2025, 5, 24, 3, 0, 0);
-        yesterday = fixedNow.minusDays(1);
-        startOfYesterday = yesterday.toLocalDate().atStartOfDay(); // 23 mai 2025 00:00:00
-        endOfYesterday = fixedNow.toLocalDate().atStartOfDay().minusSeconds(1); // 23 mai 2025 23:59:59
-
-        // Réinitialise les mocks pour garantir l'indépendance des tests.
-        reset(subscriptionRepository, metricsService);
+        aggregationTask = new SubscriptionMetricsAggregationTask(subscriptionRepository, metricsService, 1, 4);
+        startOfToday = LocalDate.now().atStartOfDay();
+        startOfYesterday = startOfToday.minusDays(1);
     }
 
     @Test
-    @DisplayName("Devrait agréger et enregistrer toutes les métriques journalières avec succès")
+    @DisplayName("Devrait agréger et enregistrer toutes les métriques journalières en une requête")
     void aggregateDailySubscriptionMetrics_shouldAggregateAllMetricsSuccessfully() {
-        // GIVEN: Des données simulées pour les abonnements.
-        long newSubscriptionsCount = 5L;
-        long cancellationsCount = 2L;
-        
-        // Simule des abonnements actifs pour le calcul des revenus
-        Subscription activeSub1 = new Subscription();
-        activeSub1.setId(1L);
-        activeSub1.setPriceId("10.0"); // Prix de l'abonnement
-        activeSub1.setStatus(Subscription.SubscriptionStatus.ACTIVE);
-        activeSub1.setPaymentDate(startOfYesterday.plusHours(1)); // Payé hier
-
-        Subscription activeSub2 = new Subscription();
-        activeSub2.setId(2L);
-        activeSub2.setPriceId("15.50");
-        activeSub2.setStatus(Subscription.SubscriptionStatus.ACTIVE);
-        activeSub2.setPaymentDate(startOfYesterday.plusHours(12)); // Payé hier
-
-        List<Subscription> activeSubscriptions = Arrays.asList(activeSub1, activeSub2);
-        double expectedDailyRevenue = 10.0 + 15.50; // Somme des prix des abonnements
-
-        long activeSubscriptionsEndYesterdayCount = 100L;
-
-        // Configure le comportement des mocks:
-        // Pour les nouveaux abonnements
-        when(subscriptionRepository.countByCreationTimestampBetween(startOfYesterday, endOfYesterday))
-                .thenReturn(newSubscriptionsCount);
-        // Pour les annulations
-        when(subscriptionRepository.countByStatusAndCancellationDateBetween(
-                Subscription.SubscriptionStatus.CANCELLED, startOfYesterday, endOfYesterday))
-                .thenReturn(cancellationsCount);
-        // Pour les revenus (abonnements actifs payés hier)
-        when(subscriptionRepository.findByStatusAndLastPaymentDateBetween(
-                Subscription.SubscriptionStatus.ACTIVE, any(LocalDateTime.class), endOfYesterday)) // La date de début est fixedNow.minusDays(31), on utilise any() pour la flexibilité
-                .thenReturn(activeSubscriptions);
-        // Pour le nombre d'abonnements actifs en fin de journée
-        when(subscriptionRepository.countByStatus(Subscription.SubscriptionStatus.ACTIVE))
-                .thenReturn(activeSubscriptionsEndYesterdayCount);
+        // GIVEN: Le résultat de la requête d'agrégation pour hier.
+        when(subscriptionRepository.aggregateDailyMetrics(startOfYesterday, startOfToday))
+                .thenReturn(new DailySubscriptionMetrics(5L, 2L, 100L, 25.50));
 
         // WHEN: La tâche d'agrégation est exécutée.
         aggregationTask.aggregateDailySubscriptionMetrics();
 
         // THEN:
-        // Vérifie les appels aux méthodes du SubscriptionRepository avec les bons paramètres.
-        verify(subscriptionRepository, times(1)).countByCreationTimestampBetween(startOfYesterday, endOfYesterday);
-        verify(subscriptionRepository, times(1)).countByStatusAndCancellationDateBetween(
-                Subscription.SubscriptionStatus.CANCELLED, startOfYesterday, endOfYesterday);
-        verify(subscriptionRepository, times(1)).findByStatusAndLastPaymentDateBetween(
-                Subscription.SubscriptionStatus.ACTIVE, any(LocalDateTime.class), endOfYesterday);
-        verify(subscriptionRepository, times(1)).countByStatus(Subscription.SubscriptionStatus.ACTIVE);
+        // Une seule requête pour la journée, sans chargement d'abonnements.
+        verify(subscriptionRepository, times(1)).aggregateDailyMetrics(startOfYesterday, startOfToday);
+        verifyNoMoreInteractions(subscriptionRepository);
 
         // Vérifie que les métriques ont été enregistrées dans le SubscriptionMetricsService.
-        verify(metricsService, times(1)).recordDailyMetric("new_subscriptions", yesterday, newSubscriptionsCount);
-        verify(metricsService, times(1)).recordDailyMetric("cancelled_subscriptions", yesterday, cancellationsCount);
-        verify(metricsService, times(1)).recordDailyMetric("daily_revenue", yesterday, expectedDailyRevenue);
-        verify(metricsService, times(1)).recordDailyMetric("active_subscriptions_end", yesterday, activeSubscriptionsEndYesterdayCount);
+        verify(metricsService, times(1)).recordDailyMetric("new_subscriptions", startOfYesterday, 5L);
+        verify(metricsService, times(1)).recordDailyMetric("cancelled_subscriptions", startOfYesterday, 2L);
+        verify(metricsService, times(1)).recordDailyMetric("daily_revenue", startOfYesterday, 25.50);
+        verify(metricsService, times(1)).recordDailyMetric("active_subscriptions_end", startOfYesterday, 100L);
     }
 
     @Test
     @DisplayName("Devrait gérer le cas où il n'y a pas de nouveaux abonnements ou annulations")
     void aggregateDailySubscriptionMetrics_shouldHandleZeroCounts() {
-        // GIVEN: Zéro nouveaux abonnements et zéro annulations.
-        long newSubscriptionsCount = 0L;
-        long cancellationsCount = 0L;
-        
-        // Simule qu'aucun abonnement actif n'a payé hier
-        List<Subscription> noActiveSubscriptions = Collections.emptyList();
-        double expectedDailyRevenue = 0.0;
-
-        long activeSubscriptionsEndYesterdayCount = 80L; // Exemple de nombre d'actifs
-
-        // Configure le comportement des mocks pour retourner zéro ou des listes vides.
-        when(subscriptionRepository.countByCreationTimestampBetween(any(), any())).thenReturn(newSubscriptionsCount);
-        when(subscriptionRepository.countByStatusAndCancellationDateBetween(any(), any(), any())).thenReturn(cancellationsCount);
-        when(subscriptionRepository.findByStatusAndLastPaymentDateBetween(any(), any(), any())).thenReturn(noActiveSubscriptions);
-        when(subscriptionRepository.countByStatus(any())).thenReturn(activeSubscriptionsEndYesterdayCount);
+        // GIVEN: Zéro nouveaux abonnements, zéro annulations et aucun paiement.
+        when(subscriptionRepository.aggregateDailyMetrics(any(), any()))
+                .thenReturn(new DailySubscriptionMetrics(0L, 0L, 80L, 0.0));
 
         // WHEN: La tâche est exécutée.
         aggregationTask.aggregateDailySubscriptionMetrics();
 
-        // THEN:
-        // Vérifie que toutes les méthodes du repository ont été appelées.
-        verify(subscriptionRepository, times(1)).countByCreationTimestampBetween(startOfYesterday, endOfYesterday);
-        verify(subscriptionRepository, times(1)).countByStatusAndCancellationDateBetween(
-                Subscription.SubscriptionStatus.CANCELLED, startOfYesterday, endOfYesterday);
-        verify(subscriptionRepository, times(1)).findByStatusAndLastPaymentDateBetween(
-                Subscription.SubscriptionStatus.ACTIVE, any(LocalDateTime.class), endOfYesterday);
-        verify(subscriptionRepository, times(1)).countByStatus(Subscription.SubscriptionStatus.ACTIVE);
-
-        // Vérifie que les métriques ont été enregistrées, y compris avec des valeurs de zéro.
-        verify(metricsService, times(1)).recordDailyMetric("new_subscriptions", yesterday, newSubscriptionsCount);
-        verify(metricsService, times(1)).recordDailyMetric("cancelled_subscriptions", yesterday, cancellationsCount);
-        verify(metricsService, times(1)).recordDailyMetric("daily_revenue", yesterday, expectedDailyRevenue);
-        verify(metricsService, times(1)).recordDailyMetric("active_subscriptions_end", yesterday, activeSubscriptionsEndYesterdayCount);
+        // THEN: Les métriques sont enregistrées, y compris avec des valeurs de zéro.
+        verify(metricsService, times(1)).recordDailyMetric("new_subscriptions", startOfYesterday, 0L);
+        verify(metricsService, times(1)).recordDailyMetric("cancelled_subscriptions", startOfYesterday, 0L);
+        verify(metricsService, times(1)).recordDailyMetric("daily_revenue", startOfYesterday, 0.0);
+        verify(metricsService, times(1)).recordDailyMetric("active_subscriptions_end", startOfYesterday, 80L);
     }
 
     @Test
-    @DisplayName("Devrait gérer les prix invalides pour le calcul des revenus et les ignorer")
-    void aggregateDailySubscriptionMetrics_shouldHandleInvalidPricesForRevenue() {
-        // GIVEN: Un abonnement avec un `priceId` invalide (non-numérique).
-        long newSubscriptionsCount = 1L;
-        long cancellationsCount = 0L;
-
-        Subscription activeSubValidPrice = new Subscription();
-        activeSubValidPrice.setId(1L);
-        activeSubValidPrice.setPriceId("20.0");
-        activeSubValidPrice.setStatus(Subscription.SubscriptionStatus.ACTIVE);
-        activeSubValidPrice.setPaymentDate(startOfYesterday.plusHours(1));
-
-        Subscription activeSubInvalidPrice = new Subscription();
-        activeSubInvalidPrice.setId(2L);
-        activeSubInvalidPrice.setPriceId("INVALID_PRICE"); // Prix invalide
-        activeSubInvalidPrice.setStatus(Subscription.SubscriptionStatus.ACTIVE);
-        activeSubInvalidPrice.setPaymentDate(startOfYesterday.plusHours(2));
-
-        List<Subscription> activeSubscriptions = Arrays.asList(activeSubValidPrice, activeSubInvalidPrice);
-        double expectedDailyRevenue = 20.0; // Seul le prix valide est compté
-
-        long activeSubscriptionsEndYesterdayCount = 90L;
-
-        // Configure le comportement des mocks.
-        when(subscriptionRepository.countByCreationTimestampBetween(any(), any())).thenReturn(newSubscriptionsCount);
-        when(subscriptionRepository.countByStatusAndCancellationDateBetween(any(), any(), any())).thenReturn(cancellationsCount);
-        when(subscriptionRepository.findByStatusAndLastPaymentDateBetween(any(), any(), any())).thenReturn(activeSubscriptions);
-        when(subscriptionRepository.countByStatus(any())).thenReturn(activeSubscriptionsEndYesterdayCount);
-
-        // WHEN: La tâche est exécutée.
-        aggregationTask.aggregateDailySubscriptionMetrics();
+    @DisplayName("Devrait agréger chaque journée d'une plage de rattrapage")
+    void backfillDailySubscriptionMetrics_shouldAggregateEveryDayOfRange() {
+        // GIVEN: Une plage de 10 journées.
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate endDate = LocalDate.of(2025, 5, 10);
+        when(subscriptionRepository.aggregateDailyMetrics(any(), any()))
+                .thenReturn(new DailySubscriptionMetrics(1L, 0L, 10L, 9.99));
+
+        // WHEN: Le rattrapage est exécuté.
+        int aggregated = aggregationTask.backfillDailySubscriptionMetrics(startDate, endDate);
+
+        // THEN: Une requête et quatre métriques par journée.
+        assertEquals(10, aggregated);
+        verify(subscriptionRepository, times(10)).aggregateDailyMetrics(any(), any());
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            verify(subscriptionRepository).aggregateDailyMetrics(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            verify(metricsService).recordDailyMetric("new_subscriptions", day.atStartOfDay(), 1L);
+        }
+    }
 
-        // THEN:
-        // Vérifie que les appels aux méthodes du repository sont corrects.
-        verify(subscriptionRepository, times(1)).findByStatusAndLastPaymentDateBetween(
-                eq(Subscription.SubscriptionStatus.ACTIVE), any(LocalDateTime.class), eq(endOfYesterday));
+    @Test
+    @DisplayName("Devrait poursuivre le rattrapage malgré l'échec d'une journée")
+    void backfillDailySubscriptionMetrics_shouldContinueWhenOneDayFails() {
+        // GIVEN: La deuxième journée échoue.
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate failingDay = startDate.plusDays(1);
+        when(subscriptionRepository.aggregateDailyMetrics(any(), any()))
+                .thenReturn(new DailySubscriptionMetrics(1L, 0L, 10L, 9.99));
+        when(subscriptionRepository.aggregateDailyMetrics(eq(failingDay.atStartOfDay()), any()))
+                .thenThrow(new RuntimeException("Erreur simulée lors de l'agrégation"));
+
+        // WHEN: Le rattrapage de trois journées est exécuté.
+        int aggregated = aggregationTask.backfillDailySubscriptionMetrics(startDate, startDate.plusDays(2));
+
+        // THEN: Les deux autres journées sont enregistrées, pas la journée en échec.
+        assertEquals(2, aggregated);
+        verify(metricsService, never()).recordDailyMetric(anyString(), eq(failingDay.atStartOfDay()), any());
+        verify(metricsService).recordDailyMetric("new_subscriptions", startDate.atStartOfDay(), 1L);
+        verify(metricsService).recordDailyMetric("new_subscriptions", startDate.plusDays(2).atStartOfDay(), 1L);
+    }
 
-        // Vérifie que le revenu enregistré est correct, ignorant le prix invalide.
-        verify(metricsService, times(1)).recordDailyMetric("daily_revenue", yesterday, expectedDailyRevenue);
-        // (Il serait également possible de vérifier les logs ici pour confirmer l'avertissement de prix invalide.)
+    @Test
+    @DisplayName("Devrait réduire les métriques du mois écoulé puis appliquer la rétention")
+    void rollUpSubscriptionMetrics_shouldAggregateThenApplyRetention() {
+        // WHEN: La tâche mensuelle est exécutée.
+        aggregationTask.rollUpSubscriptionMetrics();
+
+        // THEN: La réduction précède la purge.
+        var order = inOrder(metricsService);
+        order.verify(metricsService).aggregateMonthlyMetrics();
+        order.verify(metricsService).applyRetention();
     }
 
     @Test
-    @DisplayName("Devrait gérer une exception lors de l'agrégation et loguer l'erreur")
-    void aggregateDailySubscriptionMetrics_shouldHandleExceptionAndLogError() {
-        // GIVEN: Une exception se produit lors de l'appel au repository pour les nouveaux abonnements.
-        String errorMessage = "Erreur simulée lors du comptage des nouveaux abonnements";
-        doThrow(new RuntimeException(errorMessage))
-                .when(subscriptionRepository).countByCreationTimestampBetween(any(), any());
+    @DisplayName("Ne devrait pas purger si la réduction échoue")
+    void rollUpSubscriptionMetrics_shouldNotApplyRetentionWhenAggregationFails() {
+        // GIVEN: La réduction échoue.
+        doThrow(new RuntimeException("Base indisponible")).when(metricsService).aggregateMonthlyMetrics();
 
-        // WHEN: La tâche est exécutée.
-        aggregationTask.aggregateDailySubscriptionMetrics();
+        // WHEN: La tâche mensuelle est exécutée.
+        aggregationTask.rollUpSubscriptionMetrics();
 
-        // THEN:
-        // Vérifie que la méthode qui a causé l'erreur a été appelée.
-        verify(subscriptionRepository, times(1)).countByCreationTimestampBetween(startOfYesterday, endOfYesterday);
-        
-        // Vérifie qu'aucune autre méthode du repository ou du service de métriques n'a été appelée après l'erreur.
-        verify(subscriptionRepository, never()).countByStatusAndCancellationDateBetween(any(), any(), any());
-        verify(metricsService, never()).recordDailyMetric(anyString(), any(LocalDateTime.class), anyDouble());
-        verify(metricsService, never()).recordDailyMetric(anyString(), any(LocalDateTime.class), anyLong());
-        // (Vérifier les logs serait également pertinent ici pour confirmer l'enregistrement de l'erreur.)
+        // THEN: Les points journaliers ne sont pas purgés.
+        verify(metricsService, never()).applyRetention();
     }
-}
\ No newline at end of file
+}
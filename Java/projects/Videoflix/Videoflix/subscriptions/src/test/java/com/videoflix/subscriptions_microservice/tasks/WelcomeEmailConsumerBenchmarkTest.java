@@ -0,0 +1,105 @@
+package com.videoflix.subscriptions_microservice.tasks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import com.videoflix.subscriptions_microservice.Benchmarks;
+import com.videoflix.subscriptions_microservice.integration.NewSubscriptionEventPublisher.WelcomeEmailPayload;
+import com.videoflix.subscriptions_microservice.repositories.ProcessedMessageRepository;
+import com.videoflix.subscriptions_microservice.services.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mesure le débit de WelcomeEmailConsumer contre un broker de substitution :
+ * une file en mémoire vidée par lots par N consommateurs, avec une latence
+ * simulée pour la clé d'idempotence (base de données) et pour chaque
+ * acquittement (broker).
+ */
+@Benchmarks.OptIn
+@DisplayName("Benchmark du débit de WelcomeEmailConsumer")
+class WelcomeEmailConsumerBenchmarkTest {
+
+    private static final int MESSAGES = 2_000;
+    private static final long DATABASE_LATENCY_MS = 2;
+    private static final long ACK_LATENCY_MS = 1;
+
+    @Test
+    void benchmark_concurrentBatchConsumersShouldOutperformSingleConsumer() throws Exception {
+        double single = runAndMeasure(1, 1);
+        double tuned = runAndMeasure(8, 50);
+
+        Benchmarks.report(getClass(),
+                "WelcomeEmailConsumer : 1 consommateur %.0f messages/s, 8 consommateurs par lots de 50 %.0f messages/s",
+                single, tuned);
+        assertTrue(tuned > single * 5, "Les consommateurs concurrents par lots doivent être nettement plus rapides");
+    }
+
+    private double runAndMeasure(int consumers, int batchSize) throws Exception {
+        NotificationService notificationService = mock(NotificationService.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+        ProcessedMessageRepository processedMessageRepository = mock(ProcessedMessageRepository.class);
+        byte[] body = objectMapper.writeValueAsBytes(
+                new WelcomeEmailPayload(1L, 1L, "bench@example.com", "Bench", "BASIC"));
+        when(processedMessageRepository.insertIfAbsent(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            Thread.sleep(DATABASE_LATENCY_MS);
+            return 1;
+        });
+        WelcomeEmailConsumer consumer = new WelcomeEmailConsumer(notificationService, objectMapper,
+                processedMessageRepository, mock(RabbitTemplate.class), new SimpleMeterRegistry(), 7);
+
+        BlockingQueue<Message> queue = new LinkedBlockingQueue<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            queue.add(MessageBuilder.withBody(body).setMessageId("msg-" + i).build());
+        }
+        AtomicInteger acknowledged = new AtomicInteger();
+
+        long elapsedNanos = Benchmarks.timeConcurrently(consumers, thread -> {
+            Channel channel = ackingChannel(acknowledged);
+            List<Message> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                for (int tag = 0; tag < batch.size(); tag++) {
+                    batch.get(tag).getMessageProperties().setDeliveryTag(tag + 1);
+                }
+                consumer.handleNewSubscriptionCreatedEvents(batch, channel);
+                batch.clear();
+            }
+        });
+
+        assertEquals(MESSAGES, acknowledged.get());
+        return Benchmarks.perSecond(MESSAGES, elapsedNanos);
+    }
+
+    // Canal de substitution : chaque acquittement coûte un aller-retour au broker ;
+    // un acquittement multiple couvre tous les tags jusqu'au sien.
+    private static Channel ackingChannel(AtomicInteger acknowledged) throws Exception {
+        Channel channel = mock(Channel.class);
+        doAnswer(invocation -> {
+            Thread.sleep(ACK_LATENCY_MS);
+            long tag = invocation.getArgument(0);
+            boolean multiple = invocation.getArgument(1);
+            acknowledged.addAndGet(multiple ? (int) tag : 1);
+            return null;
+        }).when(channel).basicAck(anyLong(), anyBoolean());
+        return channel;
+    }
+}
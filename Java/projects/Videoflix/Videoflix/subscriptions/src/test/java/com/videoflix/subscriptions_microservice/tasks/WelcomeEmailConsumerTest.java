@@ -1,21 +1,36 @@
 package com.videoflix.subscriptions_microservice.tasks;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
 import com.videoflix.subscriptions_microservice.entities.Subscription;
+import com.videoflix.subscriptions_microservice.entities.SubscriptionLevel;
 import com.videoflix.subscriptions_microservice.entities.User;
-import com.videoflix.subscriptions_microservice.events.NewSubscriptionCreatedEvent;
+import com.videoflix.subscriptions_microservice.integration.NewSubscriptionEventPublisher.WelcomeEmailPayload;
+import com.videoflix.subscriptions_microservice.repositories.ProcessedMessageRepository;
 import com.videoflix.subscriptions_microservice.services.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
 
+import static com.videoflix.subscriptions_microservice.config.RabbitMQConfig.WELCOME_EMAIL_DLQ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 // @ExtendWith(MockitoExtension.class) permet l'initialisation des mocks par Mockito.
@@ -27,146 +42,180 @@ class WelcomeEmailConsumerTest {
     @Mock
     private NotificationService notificationService;
 
-    // @Mock pour ObjectMapper, qui est utilisé pour désérialiser le message.
+    // ObjectMapper réel : le corps des messages est du JSON produit comme par le bus.
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Mock
-    private ObjectMapper objectMapper;
+    private ProcessedMessageRepository processedMessageRepository;
 
-    // @InjectMocks crée une instance de WelcomeEmailConsumer et y injecte les
-    // mocks.
-    @InjectMocks
-    private WelcomeEmailConsumer welcomeEmailConsumer;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
 
-    // Déclaration des objets User et Subscription pour les tests.
-    private User testUser;
-    private Subscription testSubscription;
+    @Mock
+    private Channel channel;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WelcomeEmailConsumer welcomeEmailConsumer;
 
     /**
      * Méthode exécutée avant chaque test.
-     * Initialise les objets de test et réinitialise les mocks.
+     * Initialise le consommateur.
      */
     @BeforeEach
     void setUp() {
-        // Crée un utilisateur de test.
-        testUser = new User();
-        testUser.setId(1L);
-        testUser.setEmail("test@example.com");
-        testUser.setFirstname("John");
-
-        // Crée un abonnement de test.
-        testSubscription = new Subscription();
-        testSubscription.setId(101L);
-        // Assurez-vous que l'abonnement a un utilisateur associé si nécessaire.
-        testSubscription.setUser(testUser);
-
-        // Réinitialise les mocks pour garantir l'indépendance des tests.
-        reset(notificationService, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        welcomeEmailConsumer = new WelcomeEmailConsumer(notificationService, objectMapper,
+                processedMessageRepository, rabbitTemplate, meterRegistry, 7);
     }
 
     @Test
-    @DisplayName("Devrait traiter un message valide et envoyer un e-mail de bienvenue")
-    void handleNewSubscriptionCreatedEvent_shouldProcessValidMessageAndSendWelcomeEmail() throws IOException {
-        // GIVEN: Un message JSON valide simulant un NewSubscriptionCreatedEvent.
-        String validMessage = "{\"user\":{\"id\":1,\"email\":\"test@example.com\",\"firstname\":\"John\"},\"subscription\":{\"id\":101}}";
-
-        // Crée l'événement que `objectMapper.readValue` est censé retourner.
-        NewSubscriptionCreatedEvent event = new NewSubscriptionCreatedEvent(validMessage, testUser, testSubscription);
-
-        // Configure le comportement des mocks:
-        // 1. Lorsque `objectMapper.readValue` est appelé avec le message et le type
-        // d'événement,
-        // il doit retourner notre événement de test.
-        when(objectMapper.readValue(validMessage, NewSubscriptionCreatedEvent.class))
-                .thenReturn(event);
-        // 2. Lorsque `notificationService.sendWelcomeEmail` est appelé, il ne fait rien
-        // (méthode void).
-        doNothing().when(notificationService).sendWelcomeEmail(testUser, testSubscription);
+    @DisplayName("Devrait traiter un lot valide et l'acquitter en une fois")
+    void handleNewSubscriptionCreatedEvents_shouldProcessBatchAndAckOnce() throws IOException {
+        // GIVEN: Deux messages valides, jamais traités.
+        Message first = message("msg-1", 1);
+        Message second = message("msg-2", 2);
+        when(processedMessageRepository.insertIfAbsent(eq(WelcomeEmailConsumer.CONSUMER_NAME), anyString(), any()))
+                .thenReturn(1);
+
+        // WHEN: Le consommateur reçoit le lot.
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(first, second), channel);
+
+        // THEN: Deux e-mails sont envoyés et le lot est acquitté jusqu'au dernier
+        // message.
+        verify(notificationService, times(2)).sendWelcomeEmail(any(User.class), any(Subscription.class));
+        verify(channel).basicAck(2, true);
+        verifyNoMoreInteractions(channel);
+        assertEquals(2, meterRegistry.get("welcome.email.consumer.lag").timer().count());
+        assertEquals(2.0, meterRegistry.get("welcome.email.consumer.messages").tag("outcome", "processed")
+                .counter().count());
+    }
 
-        // WHEN: Le consommateur reçoit le message.
-        welcomeEmailConsumer.handleNewSubscriptionCreatedEvent(validMessage);
-
-        // THEN:
-        // 1. Vérifie que `objectMapper.readValue` a été appelé une fois avec les bons
-        // arguments.
-        verify(objectMapper, times(1)).readValue(validMessage, NewSubscriptionCreatedEvent.class);
-        // 2. Vérifie que `notificationService.sendWelcomeEmail` a été appelé une fois
-        // avec le bon utilisateur et abonnement.
-        verify(notificationService, times(1)).sendWelcomeEmail(testUser, testSubscription);
-        // 3. Vérifie qu'aucune autre interaction n'a eu lieu avec les mocks (par
-        // exemple, des gestions d'erreur).
-        verifyNoMoreInteractions(notificationService); // Ne vérifie pas objectMapper car il est utilisé avant
+    @Test
+    @DisplayName("Devrait ignorer un message déjà traité")
+    void handleNewSubscriptionCreatedEvents_shouldSkipDuplicateDelivery() throws IOException {
+        // GIVEN: La clé d'idempotence du message existe déjà.
+        when(processedMessageRepository.insertIfAbsent(eq(WelcomeEmailConsumer.CONSUMER_NAME), eq("msg-1"), any()))
+                .thenReturn(0);
+
+        // WHEN: Le message est livré une seconde fois.
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(message("msg-1", 7)), channel);
+
+        // THEN: Aucun e-mail n'est renvoyé, le message est acquitté.
+        verifyNoInteractions(notificationService);
+        verify(channel).basicAck(7, true);
+        assertEquals(1.0, meterRegistry.get("welcome.email.consumer.messages").tag("outcome", "duplicate")
+                .counter().count());
     }
 
     @Test
-    @DisplayName("Devrait gérer une IOException lors de la désérialisation du message")
-    void handleNewSubscriptionCreatedEvent_shouldHandleIOExceptionOnDeserialization() throws IOException {
-        // GIVEN: Un message JSON invalide qui causera une IOException.
-        String invalidMessage = "{invalid json";
+    @DisplayName("Devrait déposer dans la DLQ, sans nouvel essai, un e-mail impossible à préparer")
+    void handleNewSubscriptionCreatedEvents_shouldDeadLetterWhenEmailCannotBePrepared() throws IOException {
+        // GIVEN: La préparation du premier e-mail échoue (les échecs d'envoi, eux,
+        // sont réessayés par le moteur d'envoi et n'arrivent pas jusqu'ici).
+        Message first = message("msg-1", 1);
+        when(processedMessageRepository.insertIfAbsent(eq(WelcomeEmailConsumer.CONSUMER_NAME), anyString(), any()))
+                .thenReturn(1);
+        doThrow(new IllegalStateException("Modèle invalide")).doNothing()
+                .when(notificationService).sendWelcomeEmail(any(User.class), any(Subscription.class));
+
+        // WHEN: Le consommateur reçoit le lot.
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(first, message("msg-2", 2)), channel);
+
+        // THEN: Le message est déposé dans la DLQ, sa clé est libérée, et le lot
+        // entier est acquitté sans rejet.
+        verify(rabbitTemplate).send("", WELCOME_EMAIL_DLQ, first);
+        verify(processedMessageRepository).release(WelcomeEmailConsumer.CONSUMER_NAME, "msg-1");
+        verify(channel).basicAck(2, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        assertEquals(1.0, meterRegistry.get("welcome.email.consumer.messages").tag("outcome", "processed")
+                .counter().count());
+    }
 
-        // Configure le comportement du mock `objectMapper` pour lancer une
-        // `IOException`.
-        when(objectMapper.readValue(invalidMessage, NewSubscriptionCreatedEvent.class))
-                .thenThrow(new IOException("Erreur de format JSON simulée"));
+    @Test
+    @DisplayName("Devrait déposer directement dans la DLQ un message illisible")
+    void handleNewSubscriptionCreatedEvents_shouldDeadLetterUnreadableMessage() throws IOException {
+        // GIVEN: Un corps qui n'est pas du JSON valide.
+        Message message = message("{not json".getBytes(StandardCharsets.UTF_8), "msg-1", 4);
 
         // WHEN: Le consommateur reçoit le message invalide.
-        welcomeEmailConsumer.handleNewSubscriptionCreatedEvent(invalidMessage);
-
-        // THEN:
-        // 1. Vérifie que `objectMapper.readValue` a été appelé.
-        verify(objectMapper, times(1)).readValue(invalidMessage, NewSubscriptionCreatedEvent.class);
-        // 2. Vérifie que `notificationService.sendWelcomeEmail` n'a JAMAIS été appelé
-        // (car la désérialisation a échoué).
-        verify(notificationService, never()).sendWelcomeEmail(testUser, testSubscription);
-        // (On pourrait aussi vérifier les logs ici pour confirmer l'enregistrement de
-        // l'erreur de désérialisation.)
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(message), channel);
+
+        // THEN: Aucun e-mail, pas de nouvel essai : le message va dans la DLQ.
+        verify(notificationService, never()).sendWelcomeEmail(any(User.class), any(Subscription.class));
+        verifyNoInteractions(processedMessageRepository);
+        verify(rabbitTemplate).send("", WELCOME_EMAIL_DLQ, message);
+        verify(channel).basicAck(4, true);
     }
 
     @Test
-    @DisplayName("Devrait gérer une exception lors de l'envoi de l'e-mail de bienvenue")
-    void handleNewSubscriptionCreatedEvent_shouldHandleExceptionOnSendingEmail() throws IOException {
-        // GIVEN: Un message JSON valide, mais `notificationService.sendWelcomeEmail`
-        // lève une exception.
-        String validMessage = "{\"user\":{\"id\":1,\"email\":\"test@example.com\",\"firstname\":\"John\"},\"subscription\":{\"id\":101}}";
-        NewSubscriptionCreatedEvent event = new NewSubscriptionCreatedEvent(validMessage, testUser, testSubscription);
-
-        // Configure `objectMapper` pour désérialiser avec succès.
-        when(objectMapper.readValue(validMessage, NewSubscriptionCreatedEvent.class))
-                .thenReturn(event);
-        // Configure `notificationService.sendWelcomeEmail` pour lancer une
-        // `RuntimeException`.
-        doThrow(new RuntimeException("Erreur d'envoi d'e-mail simulée"))
-                .when(notificationService).sendWelcomeEmail(testUser, testSubscription);
+    @DisplayName("Devrait relire le payload publié et envoyer l'e-mail au bon destinataire")
+    void handleNewSubscriptionCreatedEvents_shouldRoundTripPublishedPayload() throws IOException {
+        // GIVEN: Le payload tel que sérialisé par le bus d'évènements.
+        when(processedMessageRepository.insertIfAbsent(eq(WelcomeEmailConsumer.CONSUMER_NAME), eq("msg-1"), any()))
+                .thenReturn(1);
 
         // WHEN: Le consommateur reçoit le message.
-        welcomeEmailConsumer.handleNewSubscriptionCreatedEvent(validMessage);
-
-        // THEN:
-        // 1. Vérifie que `objectMapper.readValue` a été appelé.
-        verify(objectMapper, times(1)).readValue(validMessage, NewSubscriptionCreatedEvent.class);
-        // 2. Vérifie que `notificationService.sendWelcomeEmail` a été appelé (et a
-        // échoué comme simulé).
-        verify(notificationService, times(1)).sendWelcomeEmail(testUser, testSubscription);
-        // (On pourrait aussi vérifier les logs ici pour confirmer l'enregistrement de
-        // l'erreur d'envoi d'e-mail.)
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(message("msg-1", 1)), channel);
+
+        // THEN: L'utilisateur et l'abonnement sont reconstruits à partir du payload.
+        ArgumentCaptor<User> user = ArgumentCaptor.forClass(User.class);
+        ArgumentCaptor<Subscription> subscription = ArgumentCaptor.forClass(Subscription.class);
+        verify(notificationService).sendWelcomeEmail(user.capture(), subscription.capture());
+        assertEquals(1L, user.getValue().getId());
+        assertEquals("test@example.com", user.getValue().getEmail());
+        assertEquals("John", user.getValue().getFirstname());
+        assertEquals(101L, subscription.getValue().getId());
+        assertEquals(SubscriptionLevel.Level.PREMIUM, subscription.getValue().getSubscriptionLevel().getLevel());
+        verify(channel).basicAck(1, true);
     }
 
     @Test
-    @DisplayName("Devrait gérer un message vide")
-    void handleNewSubscriptionCreatedEvent_shouldHandleEmptyMessage() throws IOException {
-        // GIVEN: Un message vide.
-        String emptyMessage = "";
-
-        // Configure `objectMapper` pour lancer une `IOException` car un message vide
-        // n'est pas un JSON valide.
-        when(objectMapper.readValue(emptyMessage, NewSubscriptionCreatedEvent.class))
-                .thenThrow(new IOException("Unexpected end-of-input: expected JSON value"));
-
-        // WHEN: Le consommateur reçoit le message vide.
-        welcomeEmailConsumer.handleNewSubscriptionCreatedEvent(emptyMessage);
-
-        // THEN:
-        // 1. Vérifie que `objectMapper.readValue` a été appelé.
-        verify(objectMapper, times(1)).readValue(emptyMessage, NewSubscriptionCreatedEvent.class);
-        // 2. Vérifie que `notificationService.sendWelcomeEmail` n'a PAS été appelé.
-        verify(notificationService, never()).sendWelcomeEmail(any(User.class), any(Subscription.class));
+    @DisplayName("Devrait accepter un payload sans niveau d'abonnement")
+    void handleNewSubscriptionCreatedEvents_shouldAcceptPayloadWithoutLevel() throws IOException {
+        // GIVEN: Un payload dont le niveau est absent.
+        byte[] body = objectMapper.writeValueAsBytes(
+                new WelcomeEmailPayload(101L, 1L, "test@example.com", "John", null));
+        when(processedMessageRepository.insertIfAbsent(eq(WelcomeEmailConsumer.CONSUMER_NAME), eq("msg-1"), any()))
+                .thenReturn(1);
+
+        // WHEN: Le consommateur reçoit le message.
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(message(body, "msg-1", 1)), channel);
+
+        // THEN: L'e-mail part sans niveau.
+        ArgumentCaptor<Subscription> subscription = ArgumentCaptor.forClass(Subscription.class);
+        verify(notificationService).sendWelcomeEmail(any(User.class), subscription.capture());
+        assertNull(subscription.getValue().getSubscriptionLevel());
+    }
+
+    @Test
+    @DisplayName("Devrait déposer directement dans la DLQ un payload au niveau inconnu")
+    void handleNewSubscriptionCreatedEvents_shouldDeadLetterUnknownLevel() throws IOException {
+        // GIVEN: Un payload lisible mais dont le niveau n'existe pas.
+        byte[] body = objectMapper.writeValueAsBytes(
+                new WelcomeEmailPayload(101L, 1L, "test@example.com", "John", "PLATINUM"));
+        Message message = message(body, "msg-1", 5);
+
+        // WHEN: Le consommateur reçoit le message.
+        welcomeEmailConsumer.handleNewSubscriptionCreatedEvents(List.of(message), channel);
+
+        // THEN: Pas de nouvel essai : le message va dans la DLQ.
+        verifyNoInteractions(notificationService, processedMessageRepository);
+        verify(rabbitTemplate).send("", WELCOME_EMAIL_DLQ, message);
+        verify(channel).basicAck(5, true);
+    }
+
+    private Message message(String messageId, long deliveryTag) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(
+                new WelcomeEmailPayload(101L, 1L, "test@example.com", "John", "PREMIUM"));
+        return message(body, messageId, deliveryTag);
+    }
+
+    private static Message message(byte[] body, String messageId, long deliveryTag) {
+        Message message = MessageBuilder.withBody(body)
+                .setMessageId(messageId)
+                .setTimestamp(new Date(System.currentTimeMillis() - 1_000))
+                .build();
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.videoflix.subscriptions_microservice.templates;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour les modèles d'e-mails précompilés.
+ */
+@DisplayName("Tests des modèles d'e-mails précompilés")
+class EmailTemplateTest {
+
+    private static final LocalDateTime TEST_DATE = LocalDateTime.of(2025, 5, 10, 12, 0);
+
+    /**
+     * Le rendu doit être identique à String.format pour les modèles existants.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { EmailTemplates.SUBSCRIPTION_EXPIRING_EMAIL, EmailTemplates.SUBSCRIPTION_EXPIRED_EMAIL,
+            EmailTemplates.TRIAL_PERIOD_ENDING_NOTIFICATION, EmailTemplates.TRIAL_ENDED_EMAIL })
+    @DisplayName("Rendu identique à String.format")
+    void render_shouldMatchStringFormat(String pattern) {
+        EmailTemplate template = EmailTemplate.compile(pattern);
+
+        assertEquals(3, template.getArity());
+        assertEquals(String.format(pattern, "John", "Premium", TEST_DATE),
+                template.render("John", "Premium", TEST_DATE));
+    }
+
+    @Test
+    @DisplayName("Rendu du rappel de paiement avec un nombre de jours")
+    void render_shouldFormatIntegerPlaceholder() {
+        EmailTemplate template = EmailTemplate.compile(EmailTemplates.SUBSCRIPTION_NOTIFICATION);
+
+        assertEquals(String.format(EmailTemplates.SUBSCRIPTION_NOTIFICATION, "John", null, TEST_DATE, 3),
+                template.render("John", null, TEST_DATE, 3));
+    }
+
+    @Test
+    @DisplayName("Gestion de %% et des valeurs excédentaires")
+    void render_shouldHandleEscapesAndIgnoreExtraValues() {
+        assertEquals("100% pour John", EmailTemplate.compile("100%% pour %s").render("John", "ignoré"));
+        assertEquals(EmailTemplates.SUBJECT_WELCOME,
+                EmailTemplate.compile(EmailTemplates.SUBJECT_WELCOME).render("John"));
+    }
+
+    @Test
+    @DisplayName("Erreur si une valeur manque ou si l'emplacement n'est pas supporté")
+    void compileAndRender_shouldRejectInvalidUsage() {
+        EmailTemplate template = EmailTemplate.compile("Cher %s, votre abonnement %s");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render("John"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("Montant : %.2f"));
+    }
+}
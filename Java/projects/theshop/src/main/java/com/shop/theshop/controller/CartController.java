@@ -1,11 +1,16 @@
 package com.shop.theshop.controller;
 
+import com.shop.theshop.dto.CartContent;
 import com.shop.theshop.entities.Cart;
+import com.shop.theshop.paging.Listings;
 import com.shop.theshop.services.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/carts")
@@ -19,8 +24,15 @@ public class CartController {
     }
 
     @GetMapping
-    public List<Cart> getAllCarts() {
-        return cartService.getAllCarts();
+    public ResponseEntity<MappingJacksonValue> getCarts(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(cartService.getCartPage(after, size), fields);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCarts(@RequestParam(required = false) Set<String> fields) {
+        return Listings.export("carts.ndjson", out -> cartService.exportCarts(out, fields));
     }
 
     @GetMapping("/{id}")
@@ -42,4 +54,31 @@ public class CartController {
     public void deleteCart(@PathVariable Long id) {
         cartService.deleteCart(id);
     }
+
+    @GetMapping("/users/{userId}")
+    public CartContent getUserCart(@PathVariable Long userId) {
+        return cartService.getUserCart(userId);
+    }
+
+    @PostMapping("/users/{userId}/items")
+    public CartContent addItem(@PathVariable Long userId, @RequestParam Long productId,
+            @RequestParam(defaultValue = "1") int quantity) {
+        return cartService.addItem(userId, productId, quantity);
+    }
+
+    @PutMapping("/users/{userId}/items/{productId}")
+    public CartContent updateItemQuantity(@PathVariable Long userId, @PathVariable Long productId,
+            @RequestParam int quantity) {
+        return cartService.updateItemQuantity(userId, productId, quantity);
+    }
+
+    @DeleteMapping("/users/{userId}/items/{productId}")
+    public CartContent removeItem(@PathVariable Long userId, @PathVariable Long productId) {
+        return cartService.removeItem(userId, productId);
+    }
+
+    @DeleteMapping("/users/{userId}")
+    public CartContent clearUserCart(@PathVariable Long userId) {
+        return cartService.clearUserCart(userId);
+    }
 }
@@ -0,0 +1,46 @@
+package com.shop.theshop.controller;
+
+import com.shop.theshop.entities.Inventory;
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.services.InventoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/inventory")
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+
+    @Autowired
+    public InventoryController(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @GetMapping("/{productId}")
+    public Inventory getInventory(@PathVariable Long productId) {
+        return inventoryService.getInventory(productId);
+    }
+
+    @PutMapping("/{productId}")
+    public Inventory setStock(@PathVariable Long productId, @RequestParam int onHand) {
+        return inventoryService.setStock(productId, onHand);
+    }
+
+    @PostMapping("/reservations")
+    public StockReservation reserve(@RequestParam Long productId, @RequestParam int quantity) {
+        return inventoryService.reserve(productId, quantity);
+    }
+
+    @PostMapping("/reservations/{id}/commit")
+    public StockReservation commit(@PathVariable Long id, @RequestParam(required = false) Long orderId) {
+        return inventoryService.commit(id, orderId);
+    }
+
+    @PostMapping("/reservations/{id}/release")
+    public ResponseEntity<Void> release(@PathVariable Long id) {
+        inventoryService.release(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,26 +1,42 @@
 package com.shop.theshop.controller;
 
+import com.shop.theshop.dto.LatencyStats;
+import com.shop.theshop.dto.PlaceOrderRequest;
 import com.shop.theshop.entities.Order;
+import com.shop.theshop.paging.Listings;
+import com.shop.theshop.services.OrderPlacementService;
 import com.shop.theshop.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderPlacementService orderPlacementService;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderPlacementService orderPlacementService) {
         this.orderService = orderService;
+        this.orderPlacementService = orderPlacementService;
     }
 
     @GetMapping
-    public List<Order> getAllOrders() {
-        return orderService.getAllOrders();
+    public ResponseEntity<MappingJacksonValue> getOrders(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(orderService.getOrderPage(after, size), fields);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) Set<String> fields) {
+        return Listings.export("orders.ndjson", out -> orderService.exportOrders(out, fields));
     }
 
     @GetMapping("/{id}")
@@ -29,8 +45,14 @@ public class OrderController {
     }
 
     @PostMapping
-    public Order createOrder(@RequestBody Order order) {
-        return orderService.createOrder(order);
+    public Order placeOrder(@RequestBody PlaceOrderRequest request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return orderPlacementService.placeOrder(request, idempotencyKey);
+    }
+
+    @GetMapping("/placement-latency")
+    public LatencyStats getPlacementLatency() {
+        return orderPlacementService.getPlacementLatency();
     }
 
     @PutMapping("/{id}")
@@ -1,11 +1,16 @@
 package com.shop.theshop.controller;
 
+import com.shop.theshop.dto.CatalogStats;
 import com.shop.theshop.entities.Product;
+import com.shop.theshop.paging.Listings;
 import com.shop.theshop.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/products")
@@ -19,8 +24,37 @@ public class ProductController {
     }
 
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<MappingJacksonValue> getProducts(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(productService.getProductPage(after, size), fields);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) Set<String> fields) {
+        return Listings.export("products.ndjson", out -> productService.exportProducts(out, fields));
+    }
+
+    @GetMapping("/catalog")
+    public ResponseEntity<MappingJacksonValue> browseCatalog(@RequestParam(defaultValue = "price") String sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(productService.browseProducts(null, sort, after, size), fields);
+    }
+
+    @GetMapping("/categories/{categoryId}")
+    public ResponseEntity<MappingJacksonValue> browseCategory(@PathVariable Long categoryId,
+            @RequestParam(defaultValue = "price") String sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(productService.browseProducts(categoryId, sort, after, size), fields);
+    }
+
+    @GetMapping("/catalog/stats")
+    public CatalogStats getCatalogStats() {
+        return productService.getCatalogStats();
     }
 
     @GetMapping("/{id}")
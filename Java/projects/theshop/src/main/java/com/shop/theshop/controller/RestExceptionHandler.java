@@ -0,0 +1,33 @@
+package com.shop.theshop.controller;
+
+import com.shop.theshop.services.IdempotencyKeyReuseException;
+import com.shop.theshop.services.InsufficientStockException;
+import com.shop.theshop.services.ReservationStateException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    // Paramètres invalides (taille de page hors limites, etc.) : 400 au lieu de 500
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    // Stock épuisé, réservation expirée ou déjà traitée, écriture concurrente : 409
+    @ExceptionHandler({InsufficientStockException.class, ReservationStateException.class,
+            OptimisticLockingFailureException.class})
+    public ResponseEntity<String> handleConflict(RuntimeException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    // Clé d'idempotence réutilisée avec une commande différente : 422
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReuse(IdempotencyKeyReuseException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+}
@@ -1,11 +1,15 @@
 package com.shop.theshop.controller;
 
 import com.shop.theshop.entities.Review;
+import com.shop.theshop.paging.Listings;
 import com.shop.theshop.services.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/reviews")
@@ -19,8 +23,15 @@ public class ReviewController {
     }
 
     @GetMapping
-    public List<Review> getAllReviews() {
-        return reviewService.getAllReviews();
+    public ResponseEntity<MappingJacksonValue> getReviews(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(reviewService.getReviewPage(after, size), fields);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReviews(@RequestParam(required = false) Set<String> fields) {
+        return Listings.export("reviews.ndjson", out -> reviewService.exportReviews(out, fields));
     }
 
     @GetMapping("/{id}")
@@ -1,13 +1,16 @@
 package com.shop.theshop.controller;
 
 import com.shop.theshop.entities.Shipping;
+import com.shop.theshop.paging.Listings;
 import com.shop.theshop.services.ShippingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/shipping")
@@ -21,9 +24,15 @@ public class ShippingController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Shipping>> getAllShipping() {
-        List<Shipping> shippingList = shippingService.getAllShipping();
-        return new ResponseEntity<>(shippingList, HttpStatus.OK);
+    public ResponseEntity<MappingJacksonValue> getShipping(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(shippingService.getShippingPage(after, size), fields);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportShipping(@RequestParam(required = false) Set<String> fields) {
+        return Listings.export("shipping.ndjson", out -> shippingService.exportShipping(out, fields));
     }
 
     @GetMapping("/{id}")
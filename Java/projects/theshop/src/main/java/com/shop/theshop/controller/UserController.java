@@ -1,11 +1,15 @@
 package com.shop.theshop.controller;
 
 import com.shop.theshop.entities.User;
+import com.shop.theshop.paging.Listings;
 import com.shop.theshop.services.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Set;
 
 @Controller
 public class UserController {
@@ -17,8 +21,15 @@ public class UserController {
     }
 
     @GetMapping("/users")
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<MappingJacksonValue> getUsers(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> fields) {
+        return Listings.page(userService.getUserPage(after, size), fields);
+    }
+
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) Set<String> fields) {
+        return Listings.export("users.ndjson", out -> userService.exportUsers(out, fields));
     }
 
     @GetMapping("/users/{id}")
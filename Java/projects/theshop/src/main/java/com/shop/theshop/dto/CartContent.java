@@ -0,0 +1,10 @@
+package com.shop.theshop.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Panier en cours d'un utilisateur, tel que servi depuis le cache.
+ */
+public record CartContent(Long userId, List<CartLineItem> items, BigDecimal totalAmount) {
+}
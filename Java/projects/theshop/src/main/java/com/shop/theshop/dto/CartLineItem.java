@@ -0,0 +1,6 @@
+package com.shop.theshop.dto;
+
+import java.math.BigDecimal;
+
+public record CartLineItem(Long productId, int quantity, BigDecimal unitPrice, BigDecimal lineTotal) {
+}
@@ -0,0 +1,13 @@
+package com.shop.theshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.shop.theshop.paging.FieldSelection;
+
+import java.math.BigDecimal;
+
+/**
+ * Panier tel qu'affiché dans les listes.
+ */
+@JsonFilter(FieldSelection.FILTER)
+public record CartSummary(Long id, Long userId, BigDecimal totalAmount) {
+}
@@ -0,0 +1,9 @@
+package com.shop.theshop.dto;
+
+/**
+ * État du cache du catalogue. {@code complete} est faux quand le catalogue dépasse la taille du
+ * cache : les vues sont alors lues en base.
+ */
+public record CatalogStats(int products, int categories, boolean complete, long hits, long misses,
+        double hitRatio) {
+}
@@ -0,0 +1,7 @@
+package com.shop.theshop.dto;
+
+/**
+ * Percentiles calculés sur les dernières mesures conservées.
+ */
+public record LatencyStats(long count, double p50Millis, double p99Millis, double maxMillis) {
+}
@@ -0,0 +1,14 @@
+package com.shop.theshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.shop.theshop.entities.OrderStatus;
+import com.shop.theshop.paging.FieldSelection;
+
+import java.math.BigDecimal;
+
+/**
+ * Commande telle qu'affichée dans les listes, sans ses lignes ni son client.
+ */
+@JsonFilter(FieldSelection.FILTER)
+public record OrderSummary(Long id, Long userId, OrderStatus status, BigDecimal totalAmount) {
+}
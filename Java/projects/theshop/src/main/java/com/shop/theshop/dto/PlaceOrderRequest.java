@@ -0,0 +1,13 @@
+package com.shop.theshop.dto;
+
+import java.util.List;
+
+/**
+ * Commande telle que soumise par le client : seuls les produits et quantités sont pris en compte,
+ * les prix et le total sont calculés côté serveur.
+ */
+public record PlaceOrderRequest(Long userId, List<Item> items) {
+
+    public record Item(Long productId, Integer quantity) {
+    }
+}
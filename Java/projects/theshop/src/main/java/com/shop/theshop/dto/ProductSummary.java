@@ -0,0 +1,11 @@
+package com.shop.theshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.shop.theshop.paging.FieldSelection;
+
+/**
+ * Produit tel qu'affiché dans les listes, avec sa catégorie.
+ */
+@JsonFilter(FieldSelection.FILTER)
+public record ProductSummary(Long id, String name, String description, Double price, Long categoryId, String categoryName) {
+}
@@ -0,0 +1,11 @@
+package com.shop.theshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.shop.theshop.paging.FieldSelection;
+
+/**
+ * Avis tel qu'affiché dans les listes : le produit et l'auteur sont réduits à leur ID.
+ */
+@JsonFilter(FieldSelection.FILTER)
+public record ReviewSummary(Long id, Long productId, Long userId, int rating, String comment) {
+}
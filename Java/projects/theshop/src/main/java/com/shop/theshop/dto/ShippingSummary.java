@@ -0,0 +1,11 @@
+package com.shop.theshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.shop.theshop.paging.FieldSelection;
+
+/**
+ * Expédition telle qu'affichée dans les listes.
+ */
+@JsonFilter(FieldSelection.FILTER)
+public record ShippingSummary(Long id, Long orderId, String trackingNumber, String shippingStatus) {
+}
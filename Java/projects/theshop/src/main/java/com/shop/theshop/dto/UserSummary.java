@@ -0,0 +1,11 @@
+package com.shop.theshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.shop.theshop.paging.FieldSelection;
+
+/**
+ * Utilisateur tel qu'affiché dans les listes, sans son mot de passe.
+ */
+@JsonFilter(FieldSelection.FILTER)
+public record UserSummary(Long id, String email, String username, String name, String firstname) {
+}
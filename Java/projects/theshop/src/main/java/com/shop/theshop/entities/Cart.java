@@ -2,6 +2,9 @@ package com.shop.theshop.entities;
 
 import jakarta.persistence.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Entity
 @Table(name = "carts")
 public class Cart {
@@ -16,6 +19,9 @@ public class Cart {
 
     private TotalPrice totalPrice;
 
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<CartItem> items = new ArrayList<>();
+
     public Cart() {
     }
 
@@ -47,4 +53,12 @@ public class Cart {
     public void setTotalPrice(TotalPrice totalPrice) {
         this.totalPrice = totalPrice;
     }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+    }
 }
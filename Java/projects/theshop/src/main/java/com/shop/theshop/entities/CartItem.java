@@ -0,0 +1,60 @@
+package com.shop.theshop.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+/**
+ * Ligne de panier. Le prix unitaire est figé à l'ajout, en centimes pour que les totaux
+ * s'additionnent sans erreur d'arrondi.
+ */
+@Entity
+@Table(name = "cart_items")
+public class CartItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cart_id", nullable = false)
+    private Cart cart;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(nullable = false)
+    private int quantity;
+    @Column(name = "unit_price_cents", nullable = false)
+    private long unitPriceCents;
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    public Cart getCart() {
+        return cart;
+    }
+    public Long getProductId() {
+        return productId;
+    }
+    public int getQuantity() {
+        return quantity;
+    }
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    // Setters
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public void setCart(Cart cart) {
+        this.cart = cart;
+    }
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+    public void setUnitPriceCents(long unitPriceCents) {
+        this.unitPriceCents = unitPriceCents;
+    }
+}
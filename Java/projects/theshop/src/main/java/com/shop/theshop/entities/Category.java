@@ -22,7 +22,7 @@ public class Category {
     public void setId(Long id) {
         this.id = id;
     }
-    public void setName(String id) {
+    public void setName(String name) {
         this.name = name;
     }
 }
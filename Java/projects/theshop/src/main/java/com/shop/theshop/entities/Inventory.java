@@ -0,0 +1,61 @@
+package com.shop.theshop.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Stock d'un produit. {@code onHand} est le stock physique, {@code reserved} la part bloquée par des
+ * réservations de checkout non encore confirmées ; le disponible est {@code onHand - reserved}.
+ */
+@Entity
+@Table(name = "inventories")
+public class Inventory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "product_id", nullable = false, unique = true)
+    private Long productId;
+    @Column(nullable = false)
+    private int onHand;
+    @Column(nullable = false)
+    private int reserved;
+    @Version
+    private Long version;
+
+    public int getAvailable() {
+        return onHand - reserved;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    public Long getProductId() {
+        return productId;
+    }
+    public int getOnHand() {
+        return onHand;
+    }
+    public int getReserved() {
+        return reserved;
+    }
+    public Long getVersion() {
+        return version;
+    }
+
+    // Setters
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    public void setOnHand(int onHand) {
+        this.onHand = onHand;
+    }
+    public void setReserved(int reserved) {
+        this.reserved = reserved;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -1,21 +1,26 @@
 package com.shop.theshop.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Une clé d'idempotence n'est unique que pour un même utilisateur
+@Table(name = "orders", uniqueConstraints = @UniqueConstraint(name = "uk_orders_user_idempotency_key",
+        columnNames = {"user_id", "idempotency_key"}))
 public class Order {
+    // Séquence plutôt qu'IDENTITY : l'ID est connu avant l'INSERT, ce qui permet les inserts JDBC par lots
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
-    @OneToMany(mappedBy = "order")
+    @OneToMany(mappedBy = "order", cascade = CascadeType.PERSIST)
     private List<OrderItem> orderItems;
 
     @Enumerated(EnumType.STRING)
@@ -24,6 +29,16 @@ public class Order {
     @Column(name = "total_amount")
     private BigDecimal totalAmount;
 
+    // Clé fournie par le client pour qu'une double soumission ne crée pas deux commandes
+    @JsonIgnore
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    // Empreinte des lignes soumises : une clé réutilisée pour une autre commande est refusée
+    @JsonIgnore
+    @Column(name = "request_fingerprint", length = 64)
+    private String requestFingerprint;
+
     // Getters et Setters
 
     public BigDecimal getTotalAmount() {
@@ -62,6 +77,22 @@ public class Order {
         return status;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
+
     public void setStatus(OrderStatus status) {
         this.status = status;
     }
@@ -1,13 +1,19 @@
 package com.shop.theshop.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "order_items")
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
     @ManyToOne
     @JoinColumn(name = "product_id")
     private Product product;
@@ -18,6 +24,9 @@ public class OrderItem {
     public Long getId() {
         return id;
     }
+    public Order getOrder() {
+        return order;
+    }
     public Product getProduct() {
         return product;
     }
@@ -32,6 +41,9 @@ public class OrderItem {
     public void setId(Long id) {
         this.id = id;
     }
+    public void setOrder(Order order) {
+        this.order = order;
+    }
     public void setProduct(Product product) {
         this.product = product;
     }
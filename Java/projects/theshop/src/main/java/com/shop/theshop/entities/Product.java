@@ -18,7 +18,10 @@ public class Product {
     public Product(/*String newProduct, String description, double v*/) {
     }
 
-    public Product(String testProduct, String description, double v) {
+    public Product(String name, String description, double price) {
+        this.name = name;
+        this.description = description;
+        this.price = price;
     }
 
     // Getters
@@ -34,6 +37,9 @@ public class Product {
     public Double getPrice() {
         return price;
     }
+    public Category getCategory() {
+        return category;
+    }
     @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
@@ -51,4 +57,7 @@ public class Product {
     public void setPrice(Double price) {
         this.price = price;
     }
+    public void setCategory(Category category) {
+        this.category = category;
+    }
 }
@@ -0,0 +1,8 @@
+package com.shop.theshop.entities;
+
+public enum ReservationStatus {
+    PENDING,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,74 @@
+package com.shop.theshop.entities;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        // Balayage des réservations expirées
+        @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at")
+})
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(nullable = false)
+    private int quantity;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+    @Column(name = "order_id")
+    private Long orderId;
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    public Long getProductId() {
+        return productId;
+    }
+    public int getQuantity() {
+        return quantity;
+    }
+    public ReservationStatus getStatus() {
+        return status;
+    }
+    public Long getOrderId() {
+        return orderId;
+    }
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    // Setters
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,12 @@
+package com.shop.theshop.paging;
+
+import java.util.List;
+
+/**
+ * Une page d'une liste triée par ID croissant.
+ *
+ * @param nextCursor L'ID à passer dans {@code after} pour obtenir la page
+ *                   suivante, ou null sur la dernière page.
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+}
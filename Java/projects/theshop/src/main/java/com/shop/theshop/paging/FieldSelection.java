@@ -0,0 +1,27 @@
+package com.shop.theshop.paging;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Set;
+
+/**
+ * Sélection des champs renvoyés par les listes ({@code ?fields=id,name}).
+ * Les projections portent {@code @JsonFilter(FieldSelection.FILTER)} ; sans
+ * sélection, tous leurs champs sont écrits.
+ */
+public final class FieldSelection {
+
+    public static final String FILTER = "fields";
+
+    private FieldSelection() {
+    }
+
+    public static FilterProvider of(Set<String> fields) {
+        SimpleBeanPropertyFilter filter = fields == null || fields.isEmpty()
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+        return new SimpleFilterProvider().addFilter(FILTER, filter);
+    }
+}
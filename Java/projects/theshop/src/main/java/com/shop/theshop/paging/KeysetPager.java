@@ -0,0 +1,81 @@
+package com.shop.theshop.paging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Pagination par clé (ID) et export en flux des listes.
+ * <p>
+ * Une page lit {@code size + 1} lignes à partir du curseur, quelle que soit
+ * sa profondeur ; la ligne en plus indique s'il reste une page suivante.
+ * L'export enchaîne les pages et écrit chaque ligne en NDJSON dès qu'elle est
+ * lue : la mémoire utilisée ne dépend que de la taille d'un lot.
+ */
+@Component
+public class KeysetPager {
+
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+    private final int exportBatchSize;
+
+    public KeysetPager(ObjectMapper objectMapper,
+                       @Value("${listing.max-page-size:100}") int maxPageSize,
+                       @Value("${listing.export-batch-size:500}") int exportBatchSize) {
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+        this.exportBatchSize = exportBatchSize;
+    }
+
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     * @throws IllegalArgumentException si la taille est hors limites.
+     */
+    public <T> CursorPage<T> page(Long after, int size, KeysetQuery<T> query, ToLongFunction<T> id) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + maxPageSize);
+        }
+        List<T> rows = query.fetch(after != null ? after : 0L, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(items), id.applyAsLong(items.get(size - 1)));
+    }
+
+    /**
+     * Écrit toutes les lignes en NDJSON, une par ligne, par lots lus à la suite.
+     *
+     * @return Le nombre de lignes écrites.
+     */
+    public <T> long export(OutputStream out, Set<String> fields, KeysetQuery<T> query, ToLongFunction<T> id)
+            throws IOException {
+        ObjectWriter writer = objectMapper.writer(FieldSelection.of(fields));
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        long written = 0;
+        long after = 0L;
+        List<T> batch;
+        do {
+            batch = query.fetch(after, PageRequest.of(0, exportBatchSize));
+            for (T row : batch) {
+                buffered.write(writer.writeValueAsBytes(row));
+                buffered.write('\n');
+            }
+            written += batch.size();
+            if (!batch.isEmpty()) {
+                after = id.applyAsLong(batch.get(batch.size() - 1));
+            }
+            buffered.flush();
+        } while (batch.size() == exportBatchSize);
+        return written;
+    }
+}
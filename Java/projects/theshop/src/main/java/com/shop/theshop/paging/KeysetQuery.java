@@ -0,0 +1,15 @@
+package com.shop.theshop.paging;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Requête d'un repository renvoyant les lignes d'ID strictement supérieur à
+ * {@code after}, triées par ID croissant, limitées par {@code pageable}.
+ */
+@FunctionalInterface
+public interface KeysetQuery<T> {
+
+    List<T> fetch(long after, Pageable pageable);
+}
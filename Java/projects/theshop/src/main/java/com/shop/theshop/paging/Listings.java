@@ -0,0 +1,45 @@
+package com.shop.theshop.paging;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Set;
+
+/**
+ * Réponses HTTP des listes : le corps reste un tableau JSON, le curseur de la
+ * page suivante est dans l'en-tête {@code X-Next-Cursor} et dans un lien
+ * {@code rel="next"}.
+ */
+public final class Listings {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private Listings() {
+    }
+
+    public static <T> ResponseEntity<MappingJacksonValue> page(CursorPage<T> page, Set<String> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(page.items());
+        body.setFilters(FieldSelection.of(fields));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString())
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(body);
+    }
+
+    public static ResponseEntity<StreamingResponseBody> export(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -1,9 +1,24 @@
 package com.shop.theshop.repositories;
 
+import com.shop.theshop.dto.CartSummary;
 import com.shop.theshop.entities.Cart;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    Optional<Cart> findFirstByUserIdOrderByIdDesc(Long userId);
+
+    /**
+     * Page (keyset) de la liste : lignes d'ID supérieur à {@code after}, triées par ID.
+     */
+    @Query("SELECT new com.shop.theshop.dto.CartSummary(c.id, u.id, c.totalPrice.amount) "
+            + "FROM Cart c LEFT JOIN c.user u WHERE c.id > :after ORDER BY c.id")
+    List<CartSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
@@ -0,0 +1,43 @@
+package com.shop.theshop.repositories;
+
+import com.shop.theshop.entities.Inventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Les mouvements de stock passent par des UPDATE conditionnels : la condition du WHERE est vérifiée
+ * par la base sous le verrou de la ligne, ce qui interdit la survente sans SELECT ... FOR UPDATE.
+ * Chaque mouvement incrémente la version, pour que les écritures JPA concurrentes (réassort) échouent
+ * en verrouillage optimiste au lieu d'écraser le stock.
+ */
+public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+    Optional<Inventory> findByProductId(Long productId);
+
+    @Query("SELECT i.onHand - i.reserved FROM Inventory i WHERE i.productId = :productId")
+    Optional<Integer> findAvailableByProductId(@Param("productId") Long productId);
+
+    /**
+     * @return 1 si la quantité a été réservée, 0 si le disponible est insuffisant (ou produit sans stock).
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reserved = i.reserved + :quantity, i.version = i.version + 1 "
+            + "WHERE i.productId = :productId AND i.onHand - i.reserved >= :quantity")
+    int reserve(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Sortie de stock d'une réservation confirmée : le disponible ne change pas.
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.onHand = i.onHand - :quantity, i.reserved = i.reserved - :quantity, "
+            + "i.version = i.version + 1 WHERE i.productId = :productId AND i.reserved >= :quantity")
+    int commit(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reserved = i.reserved - :quantity, i.version = i.version + 1 "
+            + "WHERE i.productId = :productId AND i.reserved >= :quantity")
+    int release(@Param("productId") Long productId, @Param("quantity") int quantity);
+}
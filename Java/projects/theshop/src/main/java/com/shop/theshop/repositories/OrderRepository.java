@@ -1,11 +1,25 @@
 package com.shop.theshop.repositories;
 
+import com.shop.theshop.dto.OrderSummary;
 import com.shop.theshop.entities.Order;
 import com.shop.theshop.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findById(User user1);
+
+    Optional<Order> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Page (keyset) de la liste : lignes d'ID supérieur à {@code after}, triées par ID.
+     */
+    @Query("SELECT new com.shop.theshop.dto.OrderSummary(o.id, u.id, o.status, o.totalAmount) "
+            + "FROM Order o LEFT JOIN o.user u WHERE o.id > :after ORDER BY o.id")
+    List<OrderSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
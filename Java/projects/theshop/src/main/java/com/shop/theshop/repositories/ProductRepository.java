@@ -1,9 +1,37 @@
 package com.shop.theshop.repositories;
 
+import com.shop.theshop.dto.ProductSummary;
 import com.shop.theshop.entities.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ProductRepository extends JpaRepository <Product, Long> {
+    /**
+     * Page (keyset) de la liste : lignes d'ID supérieur à {@code after}, triées par ID.
+     */
+    @Query("SELECT new com.shop.theshop.dto.ProductSummary(p.id, p.name, p.description, p.price, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.category c WHERE p.id > :after ORDER BY p.id")
+    List<ProductSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT new com.shop.theshop.dto.ProductSummary(p.id, p.name, p.description, p.price, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.category c WHERE p.id = :id")
+    Optional<ProductSummary> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Vues du catalogue lues en base quand il dépasse la taille du cache ; le tri vient du {@link Pageable}.
+     */
+    @Query("SELECT new com.shop.theshop.dto.ProductSummary(p.id, p.name, p.description, p.price, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.category c")
+    List<ProductSummary> findSummaries(Pageable pageable);
+
+    @Query("SELECT new com.shop.theshop.dto.ProductSummary(p.id, p.name, p.description, p.price, c.id, c.name) "
+            + "FROM Product p JOIN p.category c WHERE c.id = :categoryId")
+    List<ProductSummary> findSummariesByCategory(@Param("categoryId") Long categoryId, Pageable pageable);
 }
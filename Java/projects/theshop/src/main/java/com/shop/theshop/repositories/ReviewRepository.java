@@ -1,8 +1,12 @@
 package com.shop.theshop.repositories;
 
+import com.shop.theshop.dto.ReviewSummary;
 import com.shop.theshop.entities.Product;
 import com.shop.theshop.entities.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +15,10 @@ import java.util.List;
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByProduct(Product product);
 
+    /**
+     * Page (keyset) de la liste : lignes d'ID supérieur à {@code after}, triées par ID.
+     */
+    @Query("SELECT new com.shop.theshop.dto.ReviewSummary(r.id, p.id, u.id, r.rating, r.comment) "
+            + "FROM Review r JOIN r.product p JOIN r.user u WHERE r.id > :after ORDER BY r.id")
+    List<ReviewSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
@@ -1,10 +1,21 @@
 package com.shop.theshop.repositories;
 
+import com.shop.theshop.dto.ShippingSummary;
 import com.shop.theshop.entities.Shipping;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ShippingRepository extends JpaRepository<Shipping, Long> {
+    /**
+     * Page (keyset) de la liste : lignes d'ID supérieur à {@code after}, triées par ID.
+     */
+    @Query("SELECT new com.shop.theshop.dto.ShippingSummary(s.id, o.id, s.trackingNumber, s.shippingStatus) "
+            + "FROM Shipping s LEFT JOIN s.order o WHERE s.id > :after ORDER BY s.id")
+    List<ShippingSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
-
@@ -0,0 +1,36 @@
+package com.shop.theshop.repositories;
+
+import com.shop.theshop.entities.ReservationStatus;
+import com.shop.theshop.entities.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Les transitions ne partent que de PENDING et sont conditionnelles : une réservation ne peut être
+ * confirmée ou libérée qu'une seule fois, même si le checkout et le balayage d'expiration se croisent.
+ * Le contexte de persistance est vidé après chaque transition pour qu'une entité chargée avant ne
+ * soit pas réécrite au flush.
+ */
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Query("SELECT r FROM StockReservation r WHERE r.status = com.shop.theshop.entities.ReservationStatus.PENDING "
+            + "AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = com.shop.theshop.entities.ReservationStatus.COMMITTED, "
+            + "r.orderId = :orderId WHERE r.id = :id "
+            + "AND r.status = com.shop.theshop.entities.ReservationStatus.PENDING AND r.expiresAt > :now")
+    int markCommitted(@Param("id") Long id, @Param("orderId") Long orderId, @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :status WHERE r.id = :id "
+            + "AND r.status = com.shop.theshop.entities.ReservationStatus.PENDING")
+    int markReleased(@Param("id") Long id, @Param("status") ReservationStatus status);
+}
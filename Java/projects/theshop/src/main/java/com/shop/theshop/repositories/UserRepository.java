@@ -1,10 +1,14 @@
 package com.shop.theshop.repositories;
 
+import com.shop.theshop.dto.UserSummary;
 import com.shop.theshop.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -14,4 +18,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     public User findByEmailQuery(String email);
 
     Optional<User> findByUsername(String username);
+
+    /**
+     * Page (keyset) de la liste : lignes d'ID supérieur à {@code after}, triées par ID.
+     */
+    @Query("SELECT new com.shop.theshop.dto.UserSummary(u.id, u.email, u.username, u.name, u.firstname) "
+            + "FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<UserSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
@@ -0,0 +1,128 @@
+package com.shop.theshop.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Paniers en cours par utilisateur, tenus en mémoire : les mutations ne touchent pas la base.
+ * Un passage périodique écrit les paniers modifiés depuis le précédent, une écriture par panier quel
+ * que soit le nombre de mutations (write-behind), puis évince ceux inactifs depuis le TTL. Un panier
+ * dont l'écriture échoue à {@code cart.write-behind.max-attempts} passages consécutifs est abandonné.
+ * Suppose qu'un utilisateur reste sur la même instance (affinité de session).
+ */
+@Component
+public class CartCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartCache.class);
+
+    private final ConcurrentHashMap<Long, CartSession> sessions = new ConcurrentHashMap<>();
+    private final CartStore cartStore;
+    private final long ttlMillis;
+    private final int maxWriteAttempts;
+
+    @Autowired
+    public CartCache(CartStore cartStore, @Value("${cart.cache.ttl-seconds:1800}") long ttlSeconds,
+            @Value("${cart.write-behind.max-attempts:5}") int maxWriteAttempts) {
+        this.cartStore = cartStore;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxWriteAttempts = maxWriteAttempts;
+    }
+
+    <T> T apply(Long userId, Function<CartSession, T> action) {
+        while (true) {
+            CartSession session = sessions.computeIfAbsent(userId, cartStore::load);
+            synchronized (session) {
+                // Une session évincée entre la lecture et le verrou est rechargée
+                if (!session.isEvicted()) {
+                    session.touch();
+                    return action.apply(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Oublie le panier supprimé en base, pour que l'écriture différée ne le recrée pas.
+     */
+    public void discardCart(Long cartId) {
+        for (CartSession session : sessions.values()) {
+            synchronized (session) {
+                if (cartId.equals(session.getCartId())) {
+                    drop(session);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        long idleLimit = System.currentTimeMillis() - ttlMillis;
+        for (CartSession session : sessions.values()) {
+            CartSnapshot snapshot;
+            synchronized (session) {
+                // Un panier supprimé entre-temps (discardCart) n'est pas réécrit
+                snapshot = session.isDirty() && !session.isEvicted() ? session.snapshot() : null;
+            }
+            if (snapshot != null) {
+                write(session, snapshot);
+            }
+            synchronized (session) {
+                if (!session.isDirty() && session.isIdleSince(idleLimit)) {
+                    drop(session);
+                }
+            }
+        }
+    }
+
+    // Écrit les paniers en attente avant l'arrêt
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(CartSession session, CartSnapshot snapshot) {
+        Long cartId;
+        try {
+            cartId = cartStore.save(snapshot);
+        } catch (RuntimeException e) {
+            synchronized (session) {
+                if (session.isEvicted()) {
+                    return; // Panier supprimé pendant l'écriture
+                }
+                int attempts = session.writeFailed();
+                if (attempts < maxWriteAttempts) {
+                    // Le panier reste à écrire : nouvelle tentative au prochain passage
+                    logger.warn("Écriture du panier de l'utilisateur {} impossible (tentative {}/{})",
+                            snapshot.userId(), attempts, maxWriteAttempts, e);
+                } else {
+                    logger.error("Panier de l'utilisateur {} abandonné après {} écritures échouées "
+                            + "({} lignes perdues)", snapshot.userId(), attempts, snapshot.lines().size(), e);
+                    drop(session);
+                }
+            }
+            return;
+        }
+        synchronized (session) {
+            if (cartId == null) {
+                // Panier supprimé en base depuis la copie : la session ne doit pas le recréer
+                drop(session);
+            } else {
+                session.flushed(snapshot.version(), cartId);
+            }
+        }
+    }
+
+    // Appelé sous le moniteur de la session
+    private void drop(CartSession session) {
+        session.evict();
+        sessions.remove(session.getUserId(), session);
+    }
+}
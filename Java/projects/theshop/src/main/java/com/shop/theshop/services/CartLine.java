@@ -0,0 +1,12 @@
+package com.shop.theshop.services;
+
+record CartLine(Long productId, int quantity, long unitPriceCents) {
+
+    long totalCents() {
+        return Math.multiplyExact(unitPriceCents, (long) quantity);
+    }
+
+    CartLine withQuantity(int quantity) {
+        return new CartLine(productId, quantity, unitPriceCents);
+    }
+}
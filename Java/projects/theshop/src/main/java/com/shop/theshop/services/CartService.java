@@ -1,25 +1,49 @@
 package com.shop.theshop.services;
 
+import com.shop.theshop.dto.CartContent;
+import com.shop.theshop.dto.CartLineItem;
+import com.shop.theshop.dto.CartSummary;
 import com.shop.theshop.entities.Cart;
+import com.shop.theshop.entities.Product;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.CartRepository;
+import com.shop.theshop.repositories.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CartService {
 
     private final CartRepository cartRepository;
+    private final KeysetPager keysetPager;
+    private final CartCache cartCache;
+    private final ProductRepository productRepository;
 
     @Autowired
-    public CartService(CartRepository cartRepository) {
+    public CartService(CartRepository cartRepository, KeysetPager keysetPager, CartCache cartCache,
+            ProductRepository productRepository) {
         this.cartRepository = cartRepository;
+        this.keysetPager = keysetPager;
+        this.cartCache = cartCache;
+        this.productRepository = productRepository;
     }
 
-    public List<Cart> getAllCarts() {
-        return cartRepository.findAll();
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     */
+    public CursorPage<CartSummary> getCartPage(Long after, int size) {
+        return keysetPager.page(after, size, cartRepository::findSummariesAfter, CartSummary::id);
+    }
+
+    public void exportCarts(OutputStream out, Set<String> fields) throws IOException {
+        keysetPager.export(out, fields, cartRepository::findSummariesAfter, CartSummary::id);
     }
 
     public Cart getCartById(Long id) {
@@ -43,6 +67,61 @@ public class CartService {
     }
 
     public void deleteCart(Long id) {
+        cartCache.discardCart(id);
         cartRepository.deleteById(id);
     }
+
+    public CartContent getUserCart(Long userId) {
+        return cartCache.apply(userId, CartService::toContent);
+    }
+
+    public CartContent addItem(Long userId, Long productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("La quantité doit être positive");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Produit introuvable : " + productId));
+        if (product.getPrice() == null) {
+            throw new IllegalArgumentException("Le produit " + productId + " n'a pas de prix");
+        }
+        long unitPriceCents = Money.toCents(product.getPrice());
+        return cartCache.apply(userId, session -> {
+            session.add(productId, quantity, unitPriceCents);
+            return toContent(session);
+        });
+    }
+
+    /**
+     * Une quantité nulle retire le produit du panier.
+     */
+    public CartContent updateItemQuantity(Long userId, Long productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La quantité ne peut pas être négative");
+        }
+        return cartCache.apply(userId, session -> {
+            if (!session.setQuantity(productId, quantity)) {
+                throw new IllegalArgumentException("Produit absent du panier : " + productId);
+            }
+            return toContent(session);
+        });
+    }
+
+    public CartContent removeItem(Long userId, Long productId) {
+        return updateItemQuantity(userId, productId, 0);
+    }
+
+    public CartContent clearUserCart(Long userId) {
+        return cartCache.apply(userId, session -> {
+            session.clear();
+            return toContent(session);
+        });
+    }
+
+    private static CartContent toContent(CartSession session) {
+        List<CartLineItem> items = session.getLines().stream()
+                .map(line -> new CartLineItem(line.productId(), line.quantity(),
+                        Money.fromCents(line.unitPriceCents()), Money.fromCents(line.totalCents())))
+                .toList();
+        return new CartContent(session.getUserId(), items, Money.fromCents(session.getTotalCents()));
+    }
 }
@@ -0,0 +1,132 @@
+package com.shop.theshop.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Panier d'un utilisateur tenu en mémoire. Le total est mis à jour à chaque mutation au lieu d'être
+ * recalculé ; {@code version} compte les mutations, {@code flushedVersion} la dernière écrite en base.
+ * Les méthodes sont appelées sous le moniteur de la session.
+ */
+final class CartSession {
+
+    private final Long userId;
+    private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+    private Long cartId;
+    private long totalCents;
+    private long version;
+    private long flushedVersion;
+    private long lastAccessMillis;
+    private int failedWrites;
+    private boolean evicted;
+
+    CartSession(Long userId, Long cartId, List<CartLine> lines) {
+        this.userId = userId;
+        this.cartId = cartId;
+        for (CartLine line : lines) {
+            this.lines.put(line.productId(), line);
+            totalCents += line.totalCents();
+        }
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Un produit déjà présent garde le prix unitaire de son premier ajout.
+     */
+    void add(Long productId, int quantity, long unitPriceCents) {
+        CartLine current = lines.get(productId);
+        replace(productId, current, current == null
+                ? new CartLine(productId, quantity, unitPriceCents)
+                : current.withQuantity(Math.addExact(current.quantity(), quantity)));
+    }
+
+    /**
+     * @return false si le produit n'est pas dans le panier.
+     */
+    boolean setQuantity(Long productId, int quantity) {
+        CartLine current = lines.get(productId);
+        if (current == null) {
+            return false;
+        }
+        if (quantity != current.quantity()) {
+            replace(productId, current, quantity == 0 ? null : current.withQuantity(quantity));
+        }
+        return true;
+    }
+
+    void clear() {
+        if (!lines.isEmpty()) {
+            lines.clear();
+            totalCents = 0;
+            version++;
+        }
+    }
+
+    private void replace(Long productId, CartLine current, CartLine updated) {
+        if (current != null) {
+            totalCents -= current.totalCents();
+        }
+        if (updated == null) {
+            lines.remove(productId);
+        } else {
+            lines.put(productId, updated);
+            totalCents = Math.addExact(totalCents, updated.totalCents());
+        }
+        version++;
+    }
+
+    CartSnapshot snapshot() {
+        return new CartSnapshot(cartId, userId, new ArrayList<>(lines.values()), totalCents, version);
+    }
+
+    void flushed(long flushedVersion, Long cartId) {
+        this.flushedVersion = Math.max(this.flushedVersion, flushedVersion);
+        this.cartId = cartId;
+        this.failedWrites = 0;
+    }
+
+    /**
+     * @return Le nombre d'écritures échouées depuis la dernière réussie, celle-ci comprise.
+     */
+    int writeFailed() {
+        return ++failedWrites;
+    }
+
+    boolean isDirty() {
+        return version != flushedVersion;
+    }
+
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    boolean isIdleSince(long millis) {
+        return lastAccessMillis < millis;
+    }
+
+    void evict() {
+        evicted = true;
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    Long getCartId() {
+        return cartId;
+    }
+
+    List<CartLine> getLines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    long getTotalCents() {
+        return totalCents;
+    }
+}
@@ -0,0 +1,9 @@
+package com.shop.theshop.services;
+
+import java.util.List;
+
+/**
+ * État d'un panier à une version donnée, copié sous le verrou de la session pour être écrit en base.
+ */
+record CartSnapshot(Long cartId, Long userId, List<CartLine> lines, long totalCents, long version) {
+}
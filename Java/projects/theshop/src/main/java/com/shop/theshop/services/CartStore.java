@@ -0,0 +1,87 @@
+package com.shop.theshop.services;
+
+import com.shop.theshop.entities.Cart;
+import com.shop.theshop.entities.CartItem;
+import com.shop.theshop.entities.TotalPrice;
+import com.shop.theshop.repositories.CartRepository;
+import com.shop.theshop.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Lecture et écriture des paniers en base pour {@link CartCache}.
+ */
+@Component
+public class CartStore {
+
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CartStore(CartRepository cartRepository, UserRepository userRepository) {
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Un utilisateur inconnu est refusé ici : sa session ne pourrait jamais être écrite en base.
+     */
+    @Transactional(readOnly = true)
+    CartSession load(Long userId) {
+        return cartRepository.findFirstByUserIdOrderByIdDesc(userId)
+                .map(cart -> new CartSession(userId, cart.getId(), cart.getItems().stream()
+                        .map(item -> new CartLine(item.getProductId(), item.getQuantity(), item.getUnitPriceCents()))
+                        .toList()))
+                .orElseGet(() -> {
+                    if (userId == null || !userRepository.existsById(userId)) {
+                        throw new IllegalArgumentException("Utilisateur introuvable : " + userId);
+                    }
+                    return new CartSession(userId, null, List.of());
+                });
+    }
+
+    /**
+     * Met à jour les lignes en place : seules les lignes modifiées, ajoutées ou retirées sont écrites.
+     *
+     * @return L'ID du panier, créé à la première écriture, ou null si le panier a été supprimé depuis
+     *         la copie : il n'est pas recréé.
+     */
+    @Transactional
+    Long save(CartSnapshot snapshot) {
+        Cart cart;
+        if (snapshot.cartId() == null) {
+            cart = new Cart(userRepository.getReferenceById(snapshot.userId()), null);
+        } else {
+            cart = cartRepository.findById(snapshot.cartId()).orElse(null);
+            if (cart == null) {
+                return null;
+            }
+        }
+        Set<Long> productIds = snapshot.lines().stream().map(CartLine::productId).collect(Collectors.toSet());
+        cart.getItems().removeIf(item -> !productIds.contains(item.getProductId()));
+        Map<Long, CartItem> items = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            items.put(item.getProductId(), item);
+        }
+        for (CartLine line : snapshot.lines()) {
+            CartItem item = items.get(line.productId());
+            if (item == null) {
+                item = new CartItem();
+                item.setCart(cart);
+                item.setProductId(line.productId());
+                cart.getItems().add(item);
+            }
+            item.setQuantity(line.quantity());
+            item.setUnitPriceCents(line.unitPriceCents());
+        }
+        cart.setTotalPrice(new TotalPrice(Money.fromCents(snapshot.totalCents())));
+        return cartRepository.save(cart).getId();
+    }
+}
@@ -0,0 +1,16 @@
+package com.shop.theshop.services;
+
+// Clé d'idempotence déjà utilisée par cet utilisateur pour une commande différente
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super("La clé d'idempotence " + idempotencyKey + " a déjà été utilisée pour une autre commande");
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
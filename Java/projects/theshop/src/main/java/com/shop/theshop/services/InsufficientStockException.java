@@ -0,0 +1,15 @@
+package com.shop.theshop.services;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+
+    public InsufficientStockException(Long productId, int quantity) {
+        super("Stock insuffisant pour le produit " + productId + " (quantité demandée : " + quantity + ")");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
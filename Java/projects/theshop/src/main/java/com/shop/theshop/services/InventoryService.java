@@ -0,0 +1,179 @@
+package com.shop.theshop.services;
+
+import com.shop.theshop.entities.Inventory;
+import com.shop.theshop.entities.ReservationStatus;
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.repositories.InventoryRepository;
+import com.shop.theshop.repositories.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Réservation de stock au checkout : reserve bloque la quantité pour une durée limitée, commit la
+ * sort du stock une fois la commande enregistrée, release (ou l'expiration) la rend disponible.
+ */
+@Service
+public class InventoryService {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockReservationRepository reservationRepository;
+    private final StockCounters stockCounters;
+    private final Duration reservationTtl;
+
+    @Autowired
+    public InventoryService(InventoryRepository inventoryRepository,
+            StockReservationRepository reservationRepository,
+            StockCounters stockCounters,
+            @Value("${inventory.reservation.ttl-seconds:900}") long reservationTtlSeconds) {
+        this.inventoryRepository = inventoryRepository;
+        this.reservationRepository = reservationRepository;
+        this.stockCounters = stockCounters;
+        this.reservationTtl = Duration.ofSeconds(reservationTtlSeconds);
+    }
+
+    public Inventory getInventory(Long productId) {
+        return inventoryRepository.findByProductId(productId).orElse(null);
+    }
+
+    /**
+     * Fixe le stock physique. L'écriture est versionnée : si une réservation a modifié la ligne entre
+     * la lecture et l'écriture, le réassort échoue en verrouillage optimiste plutôt que d'écraser le stock.
+     */
+    @Transactional
+    public Inventory setStock(Long productId, int onHand) {
+        if (onHand < 0) {
+            throw new IllegalArgumentException("Le stock ne peut pas être négatif");
+        }
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseGet(() -> {
+            Inventory created = new Inventory();
+            created.setProductId(productId);
+            return created;
+        });
+        if (onHand < inventory.getReserved()) {
+            throw new IllegalArgumentException("Le stock ne peut pas être inférieur à la quantité réservée ("
+                    + inventory.getReserved() + ")");
+        }
+        inventory.setOnHand(onHand);
+        Inventory saved = inventoryRepository.save(inventory);
+        afterCommit(() -> stockCounters.evict(productId));
+        return saved;
+    }
+
+    @Transactional
+    public StockReservation reserve(Long productId, int quantity) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Le produit à réserver est obligatoire");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("La quantité réservée doit être positive");
+        }
+        // SKU épuisé : refus sans aller en base
+        if (!stockCounters.tryAcquire(productId, quantity, () -> loadAvailable(productId))) {
+            throw new InsufficientStockException(productId, quantity);
+        }
+        evictOnRollback(productId);
+        try {
+            if (inventoryRepository.reserve(productId, quantity) == 0) {
+                throw new InsufficientStockException(productId, quantity);
+            }
+            Instant now = Instant.now();
+            StockReservation reservation = new StockReservation();
+            reservation.setProductId(productId);
+            reservation.setQuantity(quantity);
+            reservation.setStatus(ReservationStatus.PENDING);
+            reservation.setCreatedAt(now);
+            reservation.setExpiresAt(now.plus(reservationTtl));
+            return reservationRepository.save(reservation);
+        } catch (RuntimeException e) {
+            // Compteur en avance sur la base (autre instance, réassort...) : rechargé au prochain accès
+            stockCounters.evict(productId);
+            throw e;
+        }
+    }
+
+    @Transactional
+    public StockReservation commit(Long reservationId, Long orderId) {
+        StockReservation reservation = findReservation(reservationId);
+        if (reservationRepository.markCommitted(reservationId, orderId, Instant.now()) == 0) {
+            throw new ReservationStateException(reservationId);
+        }
+        if (inventoryRepository.commit(reservation.getProductId(), reservation.getQuantity()) == 0) {
+            throw new IllegalStateException(
+                    "Stock réservé incohérent pour le produit " + reservation.getProductId());
+        }
+        reservation.setStatus(ReservationStatus.COMMITTED);
+        reservation.setOrderId(orderId);
+        return reservation;
+    }
+
+    /**
+     * @return false si la réservation était déjà confirmée, libérée ou expirée.
+     */
+    @Transactional
+    public boolean release(Long reservationId) {
+        return release(findReservation(reservationId), ReservationStatus.RELEASED);
+    }
+
+    @Transactional
+    public boolean expire(StockReservation reservation) {
+        return release(reservation, ReservationStatus.EXPIRED);
+    }
+
+    private boolean release(StockReservation reservation, ReservationStatus status) {
+        if (reservationRepository.markReleased(reservation.getId(), status) == 0) {
+            return false;
+        }
+        Long productId = reservation.getProductId();
+        int quantity = reservation.getQuantity();
+        if (inventoryRepository.release(productId, quantity) == 0) {
+            throw new IllegalStateException("Stock réservé incohérent pour le produit " + productId);
+        }
+        reservation.setStatus(status);
+        afterCommit(() -> stockCounters.release(productId, quantity));
+        return true;
+    }
+
+    private StockReservation findReservation(Long reservationId) {
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new IllegalArgumentException("Réservation introuvable : " + reservationId));
+    }
+
+    // Un produit sans ligne de stock n'est pas vendable
+    private int loadAvailable(Long productId) {
+        return Math.max(0, inventoryRepository.findAvailableByProductId(productId).orElse(0));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Couvre aussi les échecs au commit de la transaction, après le retour de reserve
+    private void evictOnRollback(Long productId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        stockCounters.evict(productId);
+                    }
+                }
+            });
+        }
+    }
+}
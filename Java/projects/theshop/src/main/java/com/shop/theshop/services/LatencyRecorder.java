@@ -0,0 +1,54 @@
+package com.shop.theshop.services;
+
+import com.shop.theshop.dto.LatencyStats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fenêtre glissante des dernières durées mesurées. L'enregistrement est sans verrou ; le tri n'a lieu
+ * qu'à la lecture des percentiles.
+ */
+public class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+
+    public LatencyRecorder(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("La fenêtre de mesure doit contenir au moins une valeur");
+        }
+        this.samples = new AtomicLongArray(window);
+    }
+
+    public void record(long nanos) {
+        long index = recorded.getAndIncrement();
+        samples.set((int) (index % samples.length()), nanos);
+    }
+
+    public LatencyStats stats() {
+        long count = recorded.get();
+        int size = (int) Math.min(count, samples.length());
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return new LatencyStats(count, millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(size == 0 ? 0 : sorted[size - 1]));
+    }
+
+    // Rang le plus proche
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.shop.theshop.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions entre montants et centimes : les totaux de panier sont calculés sur des {@code long}.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    public static long toCents(Double amount) {
+        return toCents(BigDecimal.valueOf(amount));
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,197 @@
+package com.shop.theshop.services;
+
+import com.shop.theshop.dto.LatencyStats;
+import com.shop.theshop.dto.PlaceOrderRequest;
+import com.shop.theshop.entities.Order;
+import com.shop.theshop.entities.OrderItem;
+import com.shop.theshop.entities.OrderStatus;
+import com.shop.theshop.entities.Product;
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.repositories.OrderRepository;
+import com.shop.theshop.repositories.ProductRepository;
+import com.shop.theshop.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Passage de commande : la commande et ses lignes sont construites à partir des prix produits, le
+ * stock est réservé, puis la commande, toutes ses lignes (inserts par lots) et la confirmation des
+ * réservations sont écrites dans une seule transaction.
+ */
+@Service
+public class OrderPlacementService {
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final LatencyRecorder latencyRecorder;
+
+    @Autowired
+    public OrderPlacementService(OrderRepository orderRepository,
+            ProductRepository productRepository,
+            UserRepository userRepository,
+            InventoryService inventoryService,
+            PlatformTransactionManager transactionManager,
+            @Value("${order.placement.latency-window:10000}") int latencyWindow) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.latencyRecorder = new LatencyRecorder(latencyWindow);
+    }
+
+    /**
+     * @param idempotencyKey Clé de la soumission, ou null. Portée par utilisateur : une clé déjà
+     *                       utilisée pour la même commande renvoie la commande existante sans rien
+     *                       écrire, pour une commande différente elle est refusée.
+     */
+    public Order placeOrder(PlaceOrderRequest request, String idempotencyKey) {
+        long start = System.nanoTime();
+        try {
+            return place(request, idempotencyKey);
+        } finally {
+            latencyRecorder.record(System.nanoTime() - start);
+        }
+    }
+
+    public LatencyStats getPlacementLatency() {
+        return latencyRecorder.stats();
+    }
+
+    private Order place(PlaceOrderRequest request, String idempotencyKey) {
+        Map<Long, Integer> quantities = quantities(request);
+        Long userId = request.userId();
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("Utilisateur introuvable : " + userId);
+        }
+        String fingerprint = idempotencyKey != null ? fingerprint(quantities) : null;
+        if (idempotencyKey != null) {
+            Optional<Order> existing = orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (existing.isPresent()) {
+                return replay(existing.get(), idempotencyKey, fingerprint);
+            }
+        }
+        Order order = buildOrder(userId, quantities, idempotencyKey, fingerprint);
+        List<StockReservation> reservations = new ArrayList<>();
+        try {
+            for (OrderItem item : order.getOrderItems()) {
+                reservations.add(inventoryService.reserve(item.getProduct().getId(), item.getQuantity()));
+            }
+            return transactionTemplate.execute(status -> {
+                Order saved = orderRepository.save(order);
+                for (StockReservation reservation : reservations) {
+                    inventoryService.commit(reservation.getId(), saved.getId());
+                }
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            release(reservations, e);
+            // Double soumission concurrente : la première commande écrite gagne sur la contrainte d'unicité
+            if (e instanceof DataIntegrityViolationException && idempotencyKey != null) {
+                Optional<Order> winner = orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+                if (winner.isPresent()) {
+                    return replay(winner.get(), idempotencyKey, fingerprint);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static Order replay(Order existing, String idempotencyKey, String fingerprint) {
+        if (!fingerprint.equals(existing.getRequestFingerprint())) {
+            throw new IdempotencyKeyReuseException(idempotencyKey);
+        }
+        return existing;
+    }
+
+    // Lignes d'un même produit fusionnées ; ordre des IDs pour des réservations dans un ordre stable
+    private static Map<Long, Integer> quantities(PlaceOrderRequest request) {
+        if (request == null || request.userId() == null) {
+            throw new IllegalArgumentException("L'utilisateur de la commande est obligatoire");
+        }
+        if (request.items() == null || request.items().isEmpty()) {
+            throw new IllegalArgumentException("La commande doit contenir au moins une ligne");
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (PlaceOrderRequest.Item item : request.items()) {
+            if (item.productId() == null || item.quantity() == null || item.quantity() < 1) {
+                throw new IllegalArgumentException("Chaque ligne doit avoir un produit et une quantité positive");
+            }
+            quantities.merge(item.productId(), item.quantity(), Math::addExact);
+        }
+        return quantities;
+    }
+
+    // SHA-256 des lignes fusionnées et triées : deux soumissions équivalentes ont la même empreinte
+    private static String fingerprint(Map<Long, Integer> quantities) {
+        String lines = quantities.entrySet().stream()
+                .map(line -> line.getKey() + "x" + line.getValue())
+                .collect(Collectors.joining(","));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(lines.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private Order buildOrder(Long userId, Map<Long, Integer> quantities, String idempotencyKey,
+            String fingerprint) {
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Order order = new Order();
+        order.setUser(userRepository.getReferenceById(userId));
+        order.setStatus(OrderStatus.PENDING);
+        order.setIdempotencyKey(idempotencyKey);
+        order.setRequestFingerprint(fingerprint);
+        List<OrderItem> items = new ArrayList<>(quantities.size());
+        long totalCents = 0;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null || product.getPrice() == null) {
+                throw new IllegalArgumentException("Produit introuvable ou sans prix : " + line.getKey());
+            }
+            long unitPriceCents = Money.toCents(product.getPrice());
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(line.getValue());
+            item.setPrice(product.getPrice());
+            items.add(item);
+            totalCents = Math.addExact(totalCents, Math.multiplyExact(unitPriceCents, (long) line.getValue()));
+        }
+        order.setOrderItems(items);
+        order.setTotalAmount(Money.fromCents(totalCents));
+        return order;
+    }
+
+    private void release(List<StockReservation> reservations, RuntimeException cause) {
+        for (StockReservation reservation : reservations) {
+            try {
+                inventoryService.release(reservation.getId());
+            } catch (RuntimeException releaseError) {
+                cause.addSuppressed(releaseError);
+            }
+        }
+    }
+}
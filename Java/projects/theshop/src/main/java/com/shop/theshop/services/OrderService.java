@@ -1,25 +1,39 @@
 package com.shop.theshop.services;
 
+import com.shop.theshop.dto.OrderSummary;
 import com.shop.theshop.entities.Order;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository) {
+    public OrderService(OrderRepository orderRepository, KeysetPager keysetPager) {
         this.orderRepository = orderRepository;
+        this.keysetPager = keysetPager;
     }
 
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     */
+    public CursorPage<OrderSummary> getOrderPage(Long after, int size) {
+        return keysetPager.page(after, size, orderRepository::findSummariesAfter, OrderSummary::id);
+    }
+
+    public void exportOrders(OutputStream out, Set<String> fields) throws IOException {
+        keysetPager.export(out, fields, orderRepository::findSummariesAfter, OrderSummary::id);
     }
 
     public Order getOrderById(Long id) {
@@ -27,10 +41,6 @@ public class OrderService {
         return optionalOrder.orElse(null);
     }
 
-    public Order createOrder(Order order) {
-        return orderRepository.save(order);
-    }
-
     public Order updateOrder(Long id, Order updatedOrder) {
         Optional<Order> optionalOrder = orderRepository.findById(id);
         if (optionalOrder.isPresent()) {
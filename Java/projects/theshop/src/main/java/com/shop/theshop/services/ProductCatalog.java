@@ -0,0 +1,197 @@
+package com.shop.theshop.services;
+
+import com.shop.theshop.dto.CatalogStats;
+import com.shop.theshop.dto.ProductSummary;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.OffsetPageable;
+import com.shop.theshop.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalogue produits en mémoire : index par ID, index catégorie → produits et vues triées par prix
+ * précalculées. Les lectures se font sans verrou sur un instantané immuable ; chaque écriture
+ * produit un nouvel instantané. Le cache est limité à {@code catalog.cache.max-products} produits :
+ * au-delà, les vues sont lues en base et seules les lectures par ID profitent du cache.
+ */
+@Component
+public class ProductCatalog {
+
+    private static final Comparator<ProductSummary> BY_PRICE = Comparator
+            .comparing(ProductSummary::price, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ProductSummary::id);
+
+    private final ProductRepository productRepository;
+    private final int maxProducts;
+    private final int maxPageSize;
+    private final int warmBatchSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // Incomplet tant qu'il n'a pas été chargé : tout est alors lu en base
+    private volatile Snapshot snapshot = Snapshot.of(List.of(), false);
+
+    @Autowired
+    public ProductCatalog(ProductRepository productRepository,
+            @Value("${catalog.cache.max-products:50000}") int maxProducts,
+            @Value("${listing.max-page-size:100}") int maxPageSize,
+            @Value("${catalog.cache.warm-batch-size:1000}") int warmBatchSize) {
+        this.productRepository = productRepository;
+        this.maxProducts = maxProducts;
+        this.maxPageSize = maxPageSize;
+        this.warmBatchSize = warmBatchSize;
+    }
+
+    /**
+     * Recharge tout le catalogue ; le rechargement périodique rattrape les écritures faites par
+     * d'autres instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalog.cache.refresh-interval-ms:300000}",
+            fixedDelayString = "${catalog.cache.refresh-interval-ms:300000}")
+    public synchronized void refresh() {
+        List<ProductSummary> products = new ArrayList<>();
+        long after = 0;
+        boolean complete = true;
+        while (true) {
+            List<ProductSummary> batch = productRepository.findSummariesAfter(after, PageRequest.of(0, warmBatchSize));
+            if (products.size() + batch.size() > maxProducts) {
+                products.addAll(batch.subList(0, maxProducts - products.size()));
+                complete = false;
+                break;
+            }
+            products.addAll(batch);
+            if (batch.size() < warmBatchSize) {
+                break;
+            }
+            after = batch.get(batch.size() - 1).id();
+        }
+        snapshot = Snapshot.of(products, complete);
+    }
+
+    public synchronized void put(ProductSummary product) {
+        Snapshot current = snapshot;
+        Map<Long, ProductSummary> products = new HashMap<>(current.byId());
+        if (!products.containsKey(product.id()) && products.size() >= maxProducts) {
+            if (current.complete()) {
+                snapshot = Snapshot.of(products.values(), false);
+            }
+            return;
+        }
+        products.put(product.id(), product);
+        snapshot = Snapshot.of(products.values(), current.complete());
+    }
+
+    public synchronized void evict(Long id) {
+        Snapshot current = snapshot;
+        if (current.byId().containsKey(id)) {
+            Map<Long, ProductSummary> products = new HashMap<>(current.byId());
+            products.remove(id);
+            snapshot = Snapshot.of(products.values(), current.complete());
+        }
+    }
+
+    public Optional<ProductSummary> find(Long id) {
+        Snapshot current = snapshot;
+        ProductSummary product = current.byId().get(id);
+        if (product != null) {
+            hits.incrementAndGet();
+            return Optional.of(product);
+        }
+        misses.incrementAndGet();
+        Optional<ProductSummary> loaded = productRepository.findSummaryById(id);
+        // Produit créé par une autre instance depuis le dernier chargement
+        if (current.complete()) {
+            loaded.ifPresent(this::put);
+        }
+        return loaded;
+    }
+
+    /**
+     * Produits triés par prix, tout le catalogue ou une catégorie. Le curseur est la position dans la vue.
+     *
+     * @param categoryId La catégorie, ou null pour tout le catalogue.
+     */
+    public CursorPage<ProductSummary> browse(Long categoryId, boolean descending, Long after, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + maxPageSize);
+        }
+        long offset = after != null ? after : 0L;
+        if (offset < 0) {
+            throw new IllegalArgumentException("Le curseur ne peut pas être négatif");
+        }
+        Snapshot current = snapshot;
+        if (!current.complete()) {
+            misses.incrementAndGet();
+            return browseDatabase(categoryId, descending, offset, size);
+        }
+        hits.incrementAndGet();
+        List<ProductSummary> view = categoryId == null
+                ? current.byPrice()
+                : current.byCategory().getOrDefault(categoryId, List.of());
+        int from = (int) Math.min(offset, view.size());
+        int to = Math.min(from + size, view.size());
+        List<ProductSummary> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(view.get(descending ? view.size() - 1 - i : i));
+        }
+        return new CursorPage<>(items, to < view.size() ? (long) to : null);
+    }
+
+    public CatalogStats getStats() {
+        Snapshot current = snapshot;
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new CatalogStats(current.byId().size(), current.byCategory().size(), current.complete(),
+                hitCount, missCount, total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    private CursorPage<ProductSummary> browseDatabase(Long categoryId, boolean descending, long offset, int size) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, "price").and(Sort.by(direction, "id"));
+        OffsetPageable pageable = new OffsetPageable(offset, size + 1, sort);
+        List<ProductSummary> rows = categoryId == null
+                ? productRepository.findSummaries(pageable)
+                : productRepository.findSummariesByCategory(categoryId, pageable);
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        return new CursorPage<>(List.copyOf(rows.subList(0, size)), offset + size);
+    }
+
+    private record Snapshot(Map<Long, ProductSummary> byId, List<ProductSummary> byPrice,
+            Map<Long, List<ProductSummary>> byCategory, boolean complete) {
+
+        static Snapshot of(Collection<ProductSummary> products, boolean complete) {
+            Map<Long, ProductSummary> byId = new HashMap<>(products.size() * 2);
+            Map<Long, List<ProductSummary>> byCategory = new HashMap<>();
+            List<ProductSummary> byPrice = new ArrayList<>(products);
+            byPrice.sort(BY_PRICE);
+            for (ProductSummary product : byPrice) {
+                byId.put(product.id(), product);
+                if (product.categoryId() != null) {
+                    byCategory.computeIfAbsent(product.categoryId(), id -> new ArrayList<>()).add(product);
+                }
+            }
+            byCategory.replaceAll((id, list) -> Collections.unmodifiableList(list));
+            return new Snapshot(Collections.unmodifiableMap(byId), Collections.unmodifiableList(byPrice),
+                    Collections.unmodifiableMap(byCategory), complete);
+        }
+    }
+}
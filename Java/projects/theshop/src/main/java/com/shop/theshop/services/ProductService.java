@@ -1,34 +1,77 @@
 package com.shop.theshop.services;
 
+import com.shop.theshop.dto.CatalogStats;
+import com.shop.theshop.dto.ProductSummary;
+import com.shop.theshop.entities.Category;
 import com.shop.theshop.entities.Product;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final KeysetPager keysetPager;
+    private final ProductCatalog productCatalog;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, KeysetPager keysetPager,
+            ProductCatalog productCatalog) {
         this.productRepository = productRepository;
+        this.keysetPager = keysetPager;
+        this.productCatalog = productCatalog;
     }
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     */
+    public CursorPage<ProductSummary> getProductPage(Long after, int size) {
+        return keysetPager.page(after, size, productRepository::findSummariesAfter, ProductSummary::id);
     }
 
+    public void exportProducts(OutputStream out, Set<String> fields) throws IOException {
+        keysetPager.export(out, fields, productRepository::findSummariesAfter, ProductSummary::id);
+    }
+
+    /**
+     * Servi depuis le catalogue en mémoire ; le produit renvoyé est une copie détachée.
+     */
     public Product getProductById(Long id) {
-        Optional<Product> optionalProduct = productRepository.findById(id);
-        return optionalProduct.orElse(null);
+        return productCatalog.find(id).map(ProductService::toProduct).orElse(null);
+    }
+
+    /**
+     * @param sort {@code price} (croissant, par défaut) ou {@code -price} (décroissant).
+     * @param categoryId La catégorie, ou null pour tout le catalogue.
+     */
+    public CursorPage<ProductSummary> browseProducts(Long categoryId, String sort, Long after, int size) {
+        boolean descending;
+        if (sort == null || sort.equals("price")) {
+            descending = false;
+        } else if (sort.equals("-price")) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("Tri inconnu : " + sort + " (price ou -price)");
+        }
+        return productCatalog.browse(categoryId, descending, after, size);
+    }
+
+    public CatalogStats getCatalogStats() {
+        return productCatalog.getStats();
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        refreshCatalog(saved.getId());
+        return saved;
     }
 
     public Product updateProduct(Long id, Product updatedProduct) {
@@ -36,8 +79,11 @@ public class ProductService {
         if (optionalProduct.isPresent()) {
             Product existingProduct = optionalProduct.get();
             existingProduct.setName(updatedProduct.getName());
+            existingProduct.setDescription(updatedProduct.getDescription());
             existingProduct.setPrice(updatedProduct.getPrice());
-            return productRepository.save(existingProduct);
+            Product saved = productRepository.save(existingProduct);
+            refreshCatalog(id);
+            return saved;
         } else {
             return null;
         }
@@ -45,5 +91,26 @@ public class ProductService {
 
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        productCatalog.evict(id);
+    }
+
+    // Relit le produit tel qu'écrit (nom de catégorie compris) plutôt que de se fier à la requête
+    private void refreshCatalog(Long id) {
+        productRepository.findSummaryById(id).ifPresentOrElse(productCatalog::put, () -> productCatalog.evict(id));
+    }
+
+    private static Product toProduct(ProductSummary summary) {
+        Product product = new Product();
+        product.setId(summary.id());
+        product.setName(summary.name());
+        product.setDescription(summary.description());
+        product.setPrice(summary.price());
+        if (summary.categoryId() != null) {
+            Category category = new Category();
+            category.setId(summary.categoryId());
+            category.setName(summary.categoryName());
+            product.setCategory(category);
+        }
+        return product;
     }
 }
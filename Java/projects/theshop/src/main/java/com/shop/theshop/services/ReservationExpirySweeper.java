@@ -0,0 +1,54 @@
+package com.shop.theshop.services;
+
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.repositories.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Rend au stock les réservations de checkouts abandonnés, une transaction par réservation.
+ */
+@Component
+public class ReservationExpirySweeper {
+
+    private final StockReservationRepository reservationRepository;
+    private final InventoryService inventoryService;
+    private final StockCounters stockCounters;
+    private final int batchSize;
+
+    @Autowired
+    public ReservationExpirySweeper(StockReservationRepository reservationRepository,
+            InventoryService inventoryService,
+            StockCounters stockCounters,
+            @Value("${inventory.reservation.sweep-batch-size:500}") int batchSize) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryService = inventoryService;
+        this.stockCounters = stockCounters;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:30000}")
+    public void sweep() {
+        List<StockReservation> expired;
+        int released;
+        do {
+            expired = reservationRepository.findExpired(Instant.now(), PageRequest.of(0, batchSize));
+            released = 0;
+            for (StockReservation reservation : expired) {
+                try {
+                    inventoryService.expire(reservation);
+                    released++;
+                } catch (RuntimeException e) {
+                    // Laissée en attente : retentée au prochain passage sans bloquer les autres
+                }
+            }
+        } while (expired.size() == batchSize && released > 0);
+        stockCounters.clear();
+    }
+}
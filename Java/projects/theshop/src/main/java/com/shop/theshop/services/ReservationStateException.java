@@ -0,0 +1,16 @@
+package com.shop.theshop.services;
+
+// Réservation qui n'est plus en attente : déjà confirmée, libérée ou expirée
+public class ReservationStateException extends RuntimeException {
+
+    private final Long reservationId;
+
+    public ReservationStateException(Long reservationId) {
+        super("La réservation " + reservationId + " n'est plus en attente ou a expiré");
+        this.reservationId = reservationId;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+}
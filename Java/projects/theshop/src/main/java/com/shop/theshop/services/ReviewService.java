@@ -1,25 +1,39 @@
 package com.shop.theshop.services;
 
+import com.shop.theshop.dto.ReviewSummary;
 import com.shop.theshop.entities.Review;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ReviewService {
 
     private final ReviewRepository reviewRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public ReviewService(ReviewRepository reviewRepository) {
+    public ReviewService(ReviewRepository reviewRepository, KeysetPager keysetPager) {
         this.reviewRepository = reviewRepository;
+        this.keysetPager = keysetPager;
     }
 
-    public List<Review> getAllReviews() {
-        return reviewRepository.findAll();
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     */
+    public CursorPage<ReviewSummary> getReviewPage(Long after, int size) {
+        return keysetPager.page(after, size, reviewRepository::findSummariesAfter, ReviewSummary::id);
+    }
+
+    public void exportReviews(OutputStream out, Set<String> fields) throws IOException {
+        keysetPager.export(out, fields, reviewRepository::findSummariesAfter, ReviewSummary::id);
     }
 
     public Review getReviewById(Long id) {
@@ -1,25 +1,39 @@
 package com.shop.theshop.services;
 
+import com.shop.theshop.dto.ShippingSummary;
 import com.shop.theshop.entities.Shipping;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.ShippingRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ShippingService {
 
     private final ShippingRepository shippingRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public ShippingService(ShippingRepository shippingRepository) {
+    public ShippingService(ShippingRepository shippingRepository, KeysetPager keysetPager) {
         this.shippingRepository = shippingRepository;
+        this.keysetPager = keysetPager;
     }
 
-    public List<Shipping> getAllShipping() {
-        return shippingRepository.findAll();
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     */
+    public CursorPage<ShippingSummary> getShippingPage(Long after, int size) {
+        return keysetPager.page(after, size, shippingRepository::findSummariesAfter, ShippingSummary::id);
+    }
+
+    public void exportShipping(OutputStream out, Set<String> fields) throws IOException {
+        keysetPager.export(out, fields, shippingRepository::findSummariesAfter, ShippingSummary::id);
     }
 
     public Shipping getShippingById(Long id) {
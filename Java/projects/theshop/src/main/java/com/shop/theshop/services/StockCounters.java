@@ -0,0 +1,50 @@
+package com.shop.theshop.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Disponible par produit, en mémoire, décrémenté sans verrou (compare-and-set). Ces compteurs ne sont
+ * qu'un filtre d'admission : une fois un SKU épuisé, les checkouts suivants sont refusés sans toucher
+ * la base. La base reste la référence ; un compteur douteux est évincé et rechargé au prochain accès.
+ */
+@Component
+public class StockCounters {
+
+    private final ConcurrentHashMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    /**
+     * @param loader Lecture du disponible en base, appelée seulement si le compteur n'est pas chargé.
+     * @return false si le compteur ne couvre pas la quantité ; dans ce cas il n'est pas modifié.
+     */
+    public boolean tryAcquire(Long productId, int quantity, IntSupplier loader) {
+        AtomicInteger counter = available.computeIfAbsent(productId, id -> new AtomicInteger(loader.getAsInt()));
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    public void release(Long productId, int quantity) {
+        AtomicInteger counter = available.get(productId);
+        if (counter != null) {
+            counter.addAndGet(quantity);
+        }
+    }
+
+    public void evict(Long productId) {
+        available.remove(productId);
+    }
+
+    // Borne la dérive vis-à-vis des mouvements faits par les autres instances
+    public void clear() {
+        available.clear();
+    }
+}
@@ -1,25 +1,39 @@
 package com.shop.theshop.services;
 
+import com.shop.theshop.dto.UserSummary;
 import com.shop.theshop.entities.User;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, KeysetPager keysetPager) {
         this.userRepository = userRepository;
+        this.keysetPager = keysetPager;
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    /**
+     * @param after Le curseur de la page précédente, ou null pour la première page.
+     */
+    public CursorPage<UserSummary> getUserPage(Long after, int size) {
+        return keysetPager.page(after, size, userRepository::findSummariesAfter, UserSummary::id);
+    }
+
+    public void exportUsers(OutputStream out, Set<String> fields) throws IOException {
+        keysetPager.export(out, fields, userRepository::findSummariesAfter, UserSummary::id);
     }
 
     public User findById(Long userId) {
@@ -0,0 +1,199 @@
+package com.shop.theshop;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.theshop.dto.CartContent;
+import com.shop.theshop.entities.Cart;
+import com.shop.theshop.entities.Product;
+import com.shop.theshop.paging.KeysetPager;
+import com.shop.theshop.repositories.CartRepository;
+import com.shop.theshop.repositories.ProductRepository;
+import com.shop.theshop.repositories.UserRepository;
+import com.shop.theshop.services.CartCache;
+import com.shop.theshop.services.CartService;
+import com.shop.theshop.services.CartStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CartCacheTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Test
+    public void shouldComputeTotalInCents() {
+        CartService cartService = cartService(1800);
+        stubProduct(1L, 0.1);
+        stubProduct(2L, 19.99);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(7L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7L)).thenReturn(true);
+
+        cartService.addItem(7L, 1L, 3);
+        CartContent result = cartService.addItem(7L, 2L, 2);
+
+        assertThat(result.totalAmount()).isEqualByComparingTo(new BigDecimal("40.28"));
+        assertThat(result.items()).hasSize(2);
+        assertThat(cartService.removeItem(7L, 2L).totalAmount()).isEqualByComparingTo(new BigDecimal("0.30"));
+    }
+
+    @Test
+    public void shouldCoalesceMutationsIntoSingleWrite() {
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), 1800, 5);
+        CartService cartService = new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+        stubProduct(1L, 2.5);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(7L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+
+        cartService.addItem(7L, 1L, 1);
+        cartService.addItem(7L, 1L, 1);
+        cartService.updateItemQuantity(7L, 1L, 5);
+        cartCache.flush();
+        cartCache.flush();
+
+        ArgumentCaptor<Cart> saved = ArgumentCaptor.forClass(Cart.class);
+        verify(cartRepository, times(1)).save(saved.capture());
+        assertThat(saved.getValue().getItems()).singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(5));
+        assertThat(saved.getValue().getTotalPrice().getAmount()).isEqualByComparingTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    public void shouldRetryFailedWriteOnNextFlush() {
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), 1800, 5);
+        CartService cartService = new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+        stubProduct(1L, 2.5);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(7L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(cartRepository.save(any(Cart.class)))
+                .thenThrow(new IllegalStateException("base indisponible"))
+                .thenAnswer(invocation -> withId(invocation.getArgument(0)));
+
+        cartService.addItem(7L, 1L, 1);
+        cartCache.flush();
+        cartCache.flush();
+        cartCache.flush();
+
+        verify(cartRepository, times(2)).save(any(Cart.class));
+    }
+
+    @Test
+    public void shouldEvictIdleCartAfterWritingIt() {
+        // TTL négatif : tout panier est inactif au passage suivant
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), -1, 5);
+        CartService cartService = new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+        stubProduct(1L, 2.5);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(7L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+
+        cartService.addItem(7L, 1L, 1);
+        cartCache.flush();
+        cartService.getUserCart(7L);
+
+        verify(cartRepository, times(1)).save(any(Cart.class));
+        verify(cartRepository, times(2)).findFirstByUserIdOrderByIdDesc(7L);
+    }
+
+    @Test
+    public void shouldRejectUnknownUserBeforeCreatingSession() {
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), 1800, 5);
+        CartService cartService = new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+        stubProduct(1L, 2.5);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(8L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(8L)).thenReturn(false);
+
+        assertThatThrownBy(() -> cartService.addItem(8L, 1L, 1)).isInstanceOf(IllegalArgumentException.class);
+        cartCache.flush();
+
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
+    @Test
+    public void shouldDropCartAfterBoundedFailedWrites() {
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), 1800, 3);
+        CartService cartService = new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+        stubProduct(1L, 2.5);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(7L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(cartRepository.save(any(Cart.class))).thenThrow(new IllegalStateException("base indisponible"));
+
+        cartService.addItem(7L, 1L, 1);
+        for (int i = 0; i < 5; i++) {
+            cartCache.flush();
+        }
+
+        // Trois tentatives, puis la session est abandonnée et rechargée depuis la base au prochain accès
+        verify(cartRepository, times(3)).save(any(Cart.class));
+        assertThat(cartService.getUserCart(7L).items()).isEmpty();
+        verify(cartRepository, times(2)).findFirstByUserIdOrderByIdDesc(7L);
+    }
+
+    @Test
+    public void shouldNotRecreateCartDeletedDuringFlush() {
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), 1800, 5);
+        CartService cartService = new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+        stubProduct(1L, 2.5);
+        Cart existing = new Cart();
+        existing.setId(1L);
+        when(cartRepository.findFirstByUserIdOrderByIdDesc(7L)).thenReturn(Optional.of(existing));
+        // Le panier est supprimé entre la copie de la session et sa lecture par l'écriture différée
+        when(cartRepository.findById(1L)).thenAnswer(invocation -> {
+            cartService.deleteCart(1L);
+            return Optional.empty();
+        });
+
+        cartService.addItem(7L, 1L, 1);
+        cartCache.flush();
+        cartCache.flush();
+
+        verify(cartRepository, never()).save(any(Cart.class));
+        verify(cartRepository).deleteById(1L);
+        verify(cartRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void shouldRejectUnknownProduct() {
+        CartService cartService = cartService(1800);
+        when(productRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cartService.addItem(7L, 9L, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CartService cartService(long ttlSeconds) {
+        CartCache cartCache = new CartCache(new CartStore(cartRepository, userRepository), ttlSeconds, 5);
+        return new CartService(cartRepository, keysetPager(), cartCache, productRepository);
+    }
+
+    private void stubProduct(Long id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        when(productRepository.findById(id)).thenReturn(Optional.of(product));
+    }
+
+    private static KeysetPager keysetPager() {
+        return new KeysetPager(new ObjectMapper(), 100, 500);
+    }
+
+    private static Cart withId(Cart cart) {
+        cart.setId(1L);
+        return cart;
+    }
+}
@@ -2,13 +2,16 @@ package com.shop.theshop;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shop.theshop.controller.CartController;
+import com.shop.theshop.dto.CartSummary;
 import com.shop.theshop.entities.Cart;
 import com.shop.theshop.entities.TotalPrice;
+import com.shop.theshop.paging.CursorPage;
 import com.shop.theshop.services.CartService;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -21,6 +24,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CartController.class)
+@AutoConfigureMockMvc(addFilters = false) // Sécurité par défaut de Spring Boot : hors du périmètre du contrôleur
 public class CartControllerTest {
 
     @Autowired
@@ -29,20 +33,21 @@ public class CartControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @Mock
+    @MockBean
     private CartService cartService;
 
     @Test
-    public void shouldGetAllCarts() throws Exception {
-        Cart cart1 = new Cart();
-        Cart cart2 = new Cart();
-        List<Cart> cartList = Arrays.asList(cart1, cart2);
+    public void shouldGetCartPage() throws Exception {
+        CartSummary cart1 = new CartSummary(1L, 1L, new BigDecimal("10.00"));
+        CartSummary cart2 = new CartSummary(2L, 1L, new BigDecimal("20.00"));
+        List<CartSummary> cartList = Arrays.asList(cart1, cart2);
 
-        when(cartService.getAllCarts()).thenReturn(cartList);
+        when(cartService.getCartPage(null, 20)).thenReturn(new CursorPage<>(cartList, 2L));
 
         mockMvc.perform(get("/carts"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("X-Next-Cursor", "2"))
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
@@ -63,7 +68,9 @@ public class CartControllerTest {
     @Test
     public void shouldCreateCart() throws Exception {
         Cart cart = new Cart();
-        when(cartService.createCart(cart)).thenReturn(cart);
+        Cart savedCart = new Cart();
+        savedCart.setId(1L);
+        when(cartService.createCart(any(Cart.class))).thenReturn(savedCart);
 
         mockMvc.perform(post("/carts")
                         .contentType(MediaType.APPLICATION_JSON)
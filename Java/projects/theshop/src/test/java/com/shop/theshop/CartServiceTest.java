@@ -1,13 +1,22 @@
 package com.shop.theshop;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.theshop.dto.CartSummary;
 import com.shop.theshop.entities.Cart;
 import com.shop.theshop.entities.TotalPrice;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.CartRepository;
+import com.shop.theshop.repositories.ProductRepository;
+import com.shop.theshop.services.CartCache;
 import com.shop.theshop.services.CartService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -17,26 +26,36 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
-@SpringBootTest
+@ExtendWith(MockitoExtension.class)
 public class CartServiceTest {
 
-    @Autowired
-    private CartService cartService;
-
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private CartCache cartCache;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Spy
+    private KeysetPager keysetPager = new KeysetPager(new ObjectMapper(), 100, 500);
+
+    @InjectMocks
+    private CartService cartService;
+
     @Test
-    public void shouldGetAllCarts() {
-        Cart cart1 = new Cart();
-        Cart cart2 = new Cart();
-        List<Cart> cartList = Arrays.asList(cart1, cart2);
+    public void shouldGetCartPage() {
+        CartSummary cart1 = new CartSummary(1L, 1L, new BigDecimal("10.00"));
+        CartSummary cart2 = new CartSummary(2L, 1L, new BigDecimal("20.00"));
+        List<CartSummary> cartList = Arrays.asList(cart1, cart2);
 
-        when(cartRepository.findAll()).thenReturn(cartList);
+        when(cartRepository.findSummariesAfter(anyLong(), any(Pageable.class))).thenReturn(cartList);
 
-        List<Cart> result = cartService.getAllCarts();
+        CursorPage<CartSummary> result = cartService.getCartPage(null, 20);
 
-        assertThat(result).hasSize(2);
+        assertThat(result.items()).hasSize(2);
+        assertThat(result.nextCursor()).isNull();
     }
 
     @Test
@@ -0,0 +1,161 @@
+package com.shop.theshop;
+
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.repositories.InventoryRepository;
+import com.shop.theshop.repositories.StockReservationRepository;
+import com.shop.theshop.services.InsufficientStockException;
+import com.shop.theshop.services.InventoryService;
+import com.shop.theshop.services.StockCounters;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Vente flash : des milliers de checkouts concurrents sur un seul SKU. La ligne de stock est simulée
+ * par un UPDATE conditionnel sérialisé avec une latence d'aller-retour base ; on compare le filtre
+ * des compteurs en mémoire à un passage systématique par la base.
+ * <p>
+ * Désactivé par défaut : lancer avec {@code mvn test -Dbenchmark=true -Dtest=InventoryContentionBenchmarkTest}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class InventoryContentionBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryContentionBenchmarkTest.class);
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int STOCK = 1_000;
+    private static final int CHECKOUTS = 20_000;
+    private static final int THREADS = 200;
+    private static final long DB_ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @Test
+    public void hotSkuWithInMemoryCounters() throws Exception {
+        Result result = run(new StockCounters());
+
+        assertThat(result.sold).isEqualTo(STOCK);
+        // Seuls les checkouts admis par le compteur atteignent la ligne de stock
+        assertThat(result.databaseReserves).isEqualTo(STOCK);
+    }
+
+    @Test
+    public void hotSkuWithoutCounters() throws Exception {
+        Result result = run(new StockCounters() {
+            @Override
+            public boolean tryAcquire(Long productId, int quantity, IntSupplier loader) {
+                return true;
+            }
+        });
+
+        assertThat(result.sold).isEqualTo(STOCK);
+        assertThat(result.databaseReserves).isEqualTo(CHECKOUTS);
+    }
+
+    private Result run(StockCounters stockCounters) throws Exception {
+        StockRow row = new StockRow(STOCK);
+        InventoryRepository inventoryRepository = mock(InventoryRepository.class, withSettings().stubOnly());
+        when(inventoryRepository.findAvailableByProductId(anyLong()))
+                .thenAnswer(invocation -> Optional.of(row.available()));
+        when(inventoryRepository.reserve(anyLong(), anyInt()))
+                .thenAnswer(invocation -> row.reserve(invocation.getArgument(1)));
+        StockReservationRepository reservationRepository =
+                mock(StockReservationRepository.class, withSettings().stubOnly());
+        AtomicLong ids = new AtomicLong();
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> {
+            StockReservation reservation = invocation.getArgument(0);
+            reservation.setId(ids.incrementAndGet());
+            return reservation;
+        });
+        InventoryService inventoryService =
+                new InventoryService(inventoryRepository, reservationRepository, stockCounters, 900);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long elapsedNanos = timeConcurrently(() -> {
+            for (int i = 0; i < CHECKOUTS / THREADS; i++) {
+                try {
+                    inventoryService.reserve(PRODUCT_ID, 1);
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(row.available()).isZero();
+        assertThat(sold.get() + rejected.get()).isEqualTo(CHECKOUTS);
+        logger.info(String.format(Locale.ROOT, "%d checkouts, %d vendus, %d appels UPDATE, %d ms (%.0f checkouts/s)",
+                CHECKOUTS, sold.get(), row.reserves.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                CHECKOUTS * 1_000_000_000.0 / Math.max(1, elapsedNanos)));
+        return new Result(sold.get(), row.reserves.get());
+    }
+
+    // Durée d'exécution du checkout lancé simultanément sur THREADS threads, en nanosecondes
+    private static long timeConcurrently(Runnable checkout) throws Exception {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(checkout));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private record Result(int sold, int databaseReserves) {
+    }
+
+    // Ligne de stock : le verrou joue le rôle du verrou de ligne pris par l'UPDATE conditionnel
+    private static final class StockRow {
+        private final AtomicInteger reserves = new AtomicInteger();
+        private int onHand;
+        private int reserved;
+
+        private StockRow(int onHand) {
+            this.onHand = onHand;
+        }
+
+        private synchronized int available() {
+            return onHand - reserved;
+        }
+
+        private synchronized int reserve(int quantity) {
+            reserves.incrementAndGet();
+            LockSupport.parkNanos(DB_ROUND_TRIP_NANOS);
+            if (onHand - reserved < quantity) {
+                return 0;
+            }
+            reserved += quantity;
+            return 1;
+        }
+    }
+}
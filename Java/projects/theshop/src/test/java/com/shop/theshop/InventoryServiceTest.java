@@ -0,0 +1,163 @@
+package com.shop.theshop;
+
+import com.shop.theshop.entities.Inventory;
+import com.shop.theshop.entities.ReservationStatus;
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.repositories.InventoryRepository;
+import com.shop.theshop.repositories.StockReservationRepository;
+import com.shop.theshop.services.InsufficientStockException;
+import com.shop.theshop.services.InventoryService;
+import com.shop.theshop.services.ReservationStateException;
+import com.shop.theshop.services.StockCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+
+    private StockCounters stockCounters;
+
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    public void setUp() {
+        stockCounters = new StockCounters();
+        inventoryService = new InventoryService(inventoryRepository, reservationRepository, stockCounters, 900);
+    }
+
+    @Test
+    public void shouldReservePendingStockWithExpiry() {
+        when(inventoryRepository.findAvailableByProductId(1L)).thenReturn(Optional.of(5));
+        when(inventoryRepository.reserve(1L, 2)).thenReturn(1);
+        when(reservationRepository.save(any(StockReservation.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        StockReservation result = inventoryService.reserve(1L, 2);
+
+        assertThat(result.getStatus()).isEqualTo(ReservationStatus.PENDING);
+        assertThat(result.getQuantity()).isEqualTo(2);
+        assertThat(result.getExpiresAt()).isAfter(Instant.now().plusSeconds(800));
+    }
+
+    @Test
+    public void shouldRejectSoldOutProductWithoutHittingTheDatabaseTwice() {
+        when(inventoryRepository.findAvailableByProductId(1L)).thenReturn(Optional.of(1));
+        when(inventoryRepository.reserve(1L, 1)).thenReturn(1);
+        when(reservationRepository.save(any(StockReservation.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        inventoryService.reserve(1L, 1);
+
+        assertThatThrownBy(() -> inventoryService.reserve(1L, 1)).isInstanceOf(InsufficientStockException.class);
+        verify(inventoryRepository, times(1)).reserve(1L, 1);
+        verify(inventoryRepository, times(1)).findAvailableByProductId(1L);
+    }
+
+    @Test
+    public void shouldReloadCounterWhenDatabaseRejectsReservation() {
+        when(inventoryRepository.findAvailableByProductId(1L)).thenReturn(Optional.of(3), Optional.of(0));
+        when(inventoryRepository.reserve(1L, 1)).thenReturn(0);
+
+        assertThatThrownBy(() -> inventoryService.reserve(1L, 1)).isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> inventoryService.reserve(1L, 1)).isInstanceOf(InsufficientStockException.class);
+
+        verify(inventoryRepository, times(2)).findAvailableByProductId(1L);
+        verify(inventoryRepository, times(1)).reserve(1L, 1);
+    }
+
+    @Test
+    public void shouldRejectProductWithoutInventory() {
+        when(inventoryRepository.findAvailableByProductId(2L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> inventoryService.reserve(2L, 1)).isInstanceOf(InsufficientStockException.class);
+        verify(inventoryRepository, never()).reserve(anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldCommitPendingReservation() {
+        StockReservation reservation = reservation(10L, 1L, 2);
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.markCommitted(eq(10L), eq(99L), any(Instant.class))).thenReturn(1);
+        when(inventoryRepository.commit(1L, 2)).thenReturn(1);
+
+        StockReservation result = inventoryService.commit(10L, 99L);
+
+        assertThat(result.getStatus()).isEqualTo(ReservationStatus.COMMITTED);
+        assertThat(result.getOrderId()).isEqualTo(99L);
+    }
+
+    @Test
+    public void shouldNotCommitExpiredReservation() {
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation(10L, 1L, 2)));
+        when(reservationRepository.markCommitted(eq(10L), eq(99L), any(Instant.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> inventoryService.commit(10L, 99L)).isInstanceOf(ReservationStateException.class);
+        verify(inventoryRepository, never()).commit(anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldReturnReleasedQuantityToCounter() {
+        when(inventoryRepository.findAvailableByProductId(1L)).thenReturn(Optional.of(1));
+        when(inventoryRepository.reserve(1L, 1)).thenReturn(1);
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> {
+            StockReservation saved = invocation.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
+        StockReservation reservation = inventoryService.reserve(1L, 1);
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.markReleased(10L, ReservationStatus.RELEASED)).thenReturn(1);
+        when(inventoryRepository.release(1L, 1)).thenReturn(1);
+
+        assertThat(inventoryService.release(10L)).isTrue();
+        assertThat(inventoryService.reserve(1L, 1)).isNotNull();
+        verify(inventoryRepository, times(1)).findAvailableByProductId(1L);
+    }
+
+    @Test
+    public void shouldIgnoreAlreadyHandledReservationOnRelease() {
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation(10L, 1L, 2)));
+        when(reservationRepository.markReleased(10L, ReservationStatus.RELEASED)).thenReturn(0);
+
+        assertThat(inventoryService.release(10L)).isFalse();
+        verify(inventoryRepository, never()).release(anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldRefuseStockBelowReservedQuantity() {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setOnHand(10);
+        inventory.setReserved(4);
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+
+        assertThatThrownBy(() -> inventoryService.setStock(1L, 3)).isInstanceOf(IllegalArgumentException.class);
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+    }
+
+    private static StockReservation reservation(Long id, Long productId, int quantity) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(ReservationStatus.PENDING);
+        reservation.setExpiresAt(Instant.now().plusSeconds(60));
+        return reservation;
+    }
+}
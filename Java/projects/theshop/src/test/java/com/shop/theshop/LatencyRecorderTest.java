@@ -0,0 +1,44 @@
+package com.shop.theshop;
+
+import com.shop.theshop.dto.LatencyStats;
+import com.shop.theshop.services.LatencyRecorder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void shouldComputePercentilesOverWindow() {
+        LatencyRecorder recorder = new LatencyRecorder(100);
+        for (int i = 1; i <= 100; i++) {
+            recorder.record(i * 1_000_000L);
+        }
+
+        LatencyStats stats = recorder.stats();
+
+        assertThat(stats.count()).isEqualTo(100);
+        assertThat(stats.p50Millis()).isEqualTo(50.0);
+        assertThat(stats.p99Millis()).isEqualTo(99.0);
+        assertThat(stats.maxMillis()).isEqualTo(100.0);
+    }
+
+    @Test
+    public void shouldKeepOnlyLatestSamples() {
+        LatencyRecorder recorder = new LatencyRecorder(10);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(1_000_000_000L);
+        }
+        for (int i = 0; i < 10; i++) {
+            recorder.record(1_000_000L);
+        }
+
+        assertThat(recorder.stats().maxMillis()).isEqualTo(1.0);
+        assertThat(recorder.stats().count()).isEqualTo(20);
+    }
+
+    @Test
+    public void shouldReportZeroWithoutSamples() {
+        assertThat(new LatencyRecorder(10).stats().p99Millis()).isZero();
+    }
+}
@@ -2,16 +2,25 @@ package com.shop.theshop;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shop.theshop.controller.OrderController;
+import com.shop.theshop.dto.LatencyStats;
+import com.shop.theshop.dto.OrderSummary;
+import com.shop.theshop.dto.PlaceOrderRequest;
 import com.shop.theshop.entities.Order;
 import com.shop.theshop.entities.OrderStatus;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.services.IdempotencyKeyReuseException;
+import com.shop.theshop.services.InsufficientStockException;
+import com.shop.theshop.services.OrderPlacementService;
 import com.shop.theshop.services.OrderService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
@@ -19,8 +28,8 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
-@AutoConfigureMockMvc
+@WebMvcTest(OrderController.class)
+@AutoConfigureMockMvc(addFilters = false) // Sécurité par défaut de Spring Boot : hors du périmètre du contrôleur
 public class OrderControllerTest {
 
     @Autowired
@@ -32,20 +41,37 @@ public class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderPlacementService orderPlacementService;
+
     @Test
-    public void shouldGetAllOrders() throws Exception {
-        Order order1 = new Order();
-        Order order2 = new Order();
-        List<Order> orderList = Arrays.asList(order1, order2);
+    public void shouldGetOrderPage() throws Exception {
+        OrderSummary order1 = new OrderSummary(1L, 1L, OrderStatus.PENDING, new BigDecimal("10.00"));
+        OrderSummary order2 = new OrderSummary(2L, 1L, OrderStatus.SHIPPED, new BigDecimal("20.00"));
+        List<OrderSummary> orderList = Arrays.asList(order1, order2);
 
-        when(orderService.getAllOrders()).thenReturn(orderList);
+        when(orderService.getOrderPage(null, 20)).thenReturn(new CursorPage<>(orderList, null));
 
         mockMvc.perform(get("/orders"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    public void shouldGetOnlySelectedFields() throws Exception {
+        OrderSummary order = new OrderSummary(1L, 1L, OrderStatus.PENDING, new BigDecimal("10.00"));
+
+        when(orderService.getOrderPage(null, 20)).thenReturn(new CursorPage<>(List.of(order), null));
+
+        mockMvc.perform(get("/orders").param("fields", "id,status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].status").value("PENDING"))
+                .andExpect(jsonPath("$[0].totalAmount").doesNotExist());
+    }
+
     @Test
     public void shouldGetOrderById() throws Exception {
         Long orderId = 1L;
@@ -61,18 +87,77 @@ public class OrderControllerTest {
     }
 
     @Test
-    public void shouldCreateOrder() throws Exception {
+    public void shouldPlaceOrder() throws Exception {
+        PlaceOrderRequest request = new PlaceOrderRequest(1L, List.of(new PlaceOrderRequest.Item(5L, 2)));
         Order order = new Order();
-        order.setStatus(OrderStatus.PROCESSING);
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("19.98"));
 
-        when(orderService.createOrder(any(Order.class))).thenReturn(order);
+        when(orderPlacementService.placeOrder(request, "cle-1")).thenReturn(order);
 
         mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "cle-1")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(order)))
+                        .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.status").value("PROCESSING"));
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.totalAmount").value(19.98));
+
+        verify(orderPlacementService, times(1)).placeOrder(request, "cle-1");
+    }
+
+    @Test
+    public void shouldPlaceOrderWithoutIdempotencyKey() throws Exception {
+        PlaceOrderRequest request = new PlaceOrderRequest(1L, List.of(new PlaceOrderRequest.Item(5L, 1)));
+        Order order = new Order();
+        order.setStatus(OrderStatus.PENDING);
+
+        when(orderPlacementService.placeOrder(request, null)).thenReturn(order);
+
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    public void shouldRejectOrderWhenStockIsInsufficient() throws Exception {
+        PlaceOrderRequest request = new PlaceOrderRequest(1L, List.of(new PlaceOrderRequest.Item(5L, 50)));
+
+        when(orderPlacementService.placeOrder(request, "cle-2")).thenThrow(new InsufficientStockException(5L, 50));
+
+        mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "cle-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void shouldRejectReusedIdempotencyKey() throws Exception {
+        PlaceOrderRequest request = new PlaceOrderRequest(1L, List.of(new PlaceOrderRequest.Item(6L, 1)));
+
+        when(orderPlacementService.placeOrder(request, "cle-1")).thenThrow(new IdempotencyKeyReuseException("cle-1"));
+
+        mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "cle-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void shouldGetPlacementLatency() throws Exception {
+        when(orderPlacementService.getPlacementLatency()).thenReturn(new LatencyStats(10, 1.5, 8.0, 9.0));
+
+        mockMvc.perform(get("/orders/placement-latency"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.p50Millis").value(1.5))
+                .andExpect(jsonPath("$.p99Millis").value(8.0));
+
+        verify(orderPlacementService, times(1)).getPlacementLatency();
     }
 
     @Test
@@ -80,6 +165,7 @@ public class OrderControllerTest {
         Long orderId = 1L;
         Order existingOrder = new Order();
         existingOrder.setId(orderId);
+        existingOrder.setStatus(OrderStatus.COMPLETED);
 
         Order updatedOrder = new Order();
         updatedOrder.setStatus(OrderStatus.COMPLETED);
@@ -0,0 +1,202 @@
+package com.shop.theshop;
+
+import com.shop.theshop.dto.PlaceOrderRequest;
+import com.shop.theshop.entities.Order;
+import com.shop.theshop.entities.OrderItem;
+import com.shop.theshop.entities.OrderStatus;
+import com.shop.theshop.entities.Product;
+import com.shop.theshop.entities.StockReservation;
+import com.shop.theshop.repositories.OrderRepository;
+import com.shop.theshop.repositories.ProductRepository;
+import com.shop.theshop.repositories.UserRepository;
+import com.shop.theshop.services.IdempotencyKeyReuseException;
+import com.shop.theshop.services.InsufficientStockException;
+import com.shop.theshop.services.InventoryService;
+import com.shop.theshop.services.OrderPlacementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderPlacementServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderPlacementService orderPlacementService;
+
+    @BeforeEach
+    public void setUp() {
+        orderPlacementService = new OrderPlacementService(orderRepository, productRepository, userRepository,
+                inventoryService, transactionManager, 100);
+        lenient().when(userRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @Test
+    public void shouldBuildOrderFromProductPrices() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L, 0.1), product(2L, 19.99)));
+        when(inventoryService.reserve(anyLong(), anyInt())).thenReturn(reservation(10L));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+
+        Order result = orderPlacementService.placeOrder(request(item(1L, 2), item(2L, 1), item(1L, 1)), null);
+
+        assertThat(result.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(result.getTotalAmount()).isEqualByComparingTo(new BigDecimal("20.29"));
+        assertThat(result.getOrderItems()).hasSize(2).allSatisfy(item -> assertThat(item.getOrder()).isSameAs(result));
+        assertThat(result.getOrderItems()).extracting(OrderItem::getQuantity).containsExactly(3, 1);
+        verify(inventoryService).reserve(1L, 3);
+        verify(inventoryService).reserve(2L, 1);
+        verify(inventoryService, times(2)).commit(10L, 100L);
+    }
+
+    @Test
+    public void shouldReturnExistingOrderForKnownIdempotencyKey() {
+        Order existing = placeWithKey(request(item(1L, 1)), "cle-1");
+        when(orderRepository.findByUserIdAndIdempotencyKey(1L, "cle-1")).thenReturn(Optional.of(existing));
+
+        Order result = orderPlacementService.placeOrder(request(item(1L, 1)), "cle-1");
+
+        assertThat(result).isSameAs(existing);
+        verify(orderRepository, times(1)).save(any(Order.class));
+    }
+
+    @Test
+    public void shouldRejectKnownIdempotencyKeyForDifferentOrder() {
+        Order existing = placeWithKey(request(item(1L, 1)), "cle-1");
+        when(orderRepository.findByUserIdAndIdempotencyKey(1L, "cle-1")).thenReturn(Optional.of(existing));
+
+        assertThatThrownBy(() -> orderPlacementService.placeOrder(request(item(1L, 2)), "cle-1"))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        verify(inventoryService, times(1)).reserve(anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldScopeIdempotencyKeyToUser() {
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(orderRepository.findByUserIdAndIdempotencyKey(2L, "cle-1")).thenReturn(Optional.empty());
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L, 5.0)));
+        when(inventoryService.reserve(1L, 1)).thenReturn(reservation(10L));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+
+        Order result = orderPlacementService.placeOrder(new PlaceOrderRequest(2L, List.of(item(1L, 1))), "cle-1");
+
+        assertThat(result.getIdempotencyKey()).isEqualTo("cle-1");
+        verify(orderRepository, never()).findByUserIdAndIdempotencyKey(1L, "cle-1");
+    }
+
+    @Test
+    public void shouldReturnWinningOrderOnConcurrentDoubleSubmit() {
+        Order winner = placeWithKey(request(item(1L, 1)), "cle-1");
+        when(orderRepository.findByUserIdAndIdempotencyKey(1L, "cle-1"))
+                .thenReturn(Optional.empty(), Optional.of(winner));
+        doReturn(reservation(11L)).when(inventoryService).reserve(1L, 1);
+        doThrow(new DataIntegrityViolationException("idempotency_key")).when(orderRepository).save(any(Order.class));
+
+        Order result = orderPlacementService.placeOrder(request(item(1L, 1)), "cle-1");
+
+        assertThat(result).isSameAs(winner);
+        verify(inventoryService).release(11L);
+    }
+
+    @Test
+    public void shouldRejectUnknownUser() {
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        PlaceOrderRequest request = new PlaceOrderRequest(9L, List.of(item(1L, 1)));
+
+        assertThatThrownBy(() -> orderPlacementService.placeOrder(request, "cle-1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(orderRepository, productRepository, inventoryService);
+    }
+
+    @Test
+    public void shouldReleaseReservationsWhenStockIsMissing() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L, 5.0), product(2L, 5.0)));
+        when(inventoryService.reserve(1L, 1)).thenReturn(reservation(10L));
+        when(inventoryService.reserve(2L, 1)).thenThrow(new InsufficientStockException(2L, 1));
+
+        assertThatThrownBy(() -> orderPlacementService.placeOrder(request(item(1L, 1), item(2L, 1)), null))
+                .isInstanceOf(InsufficientStockException.class);
+        verify(inventoryService).release(10L);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    public void shouldRejectUnknownProduct() {
+        when(productRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThatThrownBy(() -> orderPlacementService.placeOrder(request(item(9L, 1)), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    public void shouldRecordPlacementLatency() {
+        when(productRepository.findAllById(any())).thenReturn(List.of());
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> orderPlacementService.placeOrder(request(item(9L, 1)), null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(orderPlacementService.getPlacementLatency().count()).isEqualTo(3);
+    }
+
+    // Première soumission avec la clé, pour une commande d'un produit 1 à 5,00
+    private Order placeWithKey(PlaceOrderRequest request, String idempotencyKey) {
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L, 5.0)));
+        when(inventoryService.reserve(1L, 1)).thenReturn(reservation(10L));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+        return orderPlacementService.placeOrder(request, idempotencyKey);
+    }
+
+    private static PlaceOrderRequest request(PlaceOrderRequest.Item... items) {
+        return new PlaceOrderRequest(1L, List.of(items));
+    }
+
+    private static PlaceOrderRequest.Item item(Long productId, int quantity) {
+        return new PlaceOrderRequest.Item(productId, quantity);
+    }
+
+    private static Product product(Long id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        return product;
+    }
+
+    private static StockReservation reservation(Long id) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        return reservation;
+    }
+
+    private static Order withId(Order order) {
+        order.setId(100L);
+        return order;
+    }
+}
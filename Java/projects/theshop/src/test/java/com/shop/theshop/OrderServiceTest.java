@@ -1,12 +1,20 @@
 package com.shop.theshop;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.theshop.dto.OrderSummary;
 import com.shop.theshop.entities.Order;
+import com.shop.theshop.entities.OrderStatus;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.OrderRepository;
 import com.shop.theshop.services.OrderService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.boot.test.context.SpringBootTest;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -16,27 +24,31 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
-@SpringBootTest
+@ExtendWith(MockitoExtension.class)
 public class OrderServiceTest {
 
     @Mock
     private OrderRepository orderRepository;
 
+    @Spy
+    private KeysetPager keysetPager = new KeysetPager(new ObjectMapper(), 100, 500);
+
     @InjectMocks
     private OrderService orderService;
 
     @Test
-    public void shouldGetAllOrders() {
-        Order order1 = new Order();
-        Order order2 = new Order();
-        List<Order> orderList = Arrays.asList(order1, order2);
+    public void shouldGetOrderPageWithNextCursor() {
+        OrderSummary order1 = new OrderSummary(1L, 1L, OrderStatus.PENDING, new BigDecimal("10.00"));
+        OrderSummary order2 = new OrderSummary(2L, 1L, OrderStatus.PENDING, new BigDecimal("20.00"));
+        OrderSummary order3 = new OrderSummary(3L, 2L, OrderStatus.PENDING, new BigDecimal("30.00"));
+        List<OrderSummary> orderList = Arrays.asList(order1, order2, order3);
 
-        when(orderRepository.findAll()).thenReturn(orderList);
+        when(orderRepository.findSummariesAfter(anyLong(), any(Pageable.class))).thenReturn(orderList);
 
-        List<Order> result = orderService.getAllOrders();
+        CursorPage<OrderSummary> result = orderService.getOrderPage(null, 2);
 
-        assertThat(result).hasSize(2);
-        assertThat(result).contains(order1, order2);
+        assertThat(result.items()).containsExactly(order1, order2);
+        assertThat(result.nextCursor()).isEqualTo(2L);
     }
 
     @Test
@@ -53,17 +65,6 @@ public class OrderServiceTest {
         assertThat(result.getId()).isEqualTo(orderId);
     }
 
-    @Test
-    public void shouldCreateOrder() {
-        Order order = new Order();
-
-        when(orderRepository.save(order)).thenReturn(order);
-
-        Order result = orderService.createOrder(order);
-
-        assertThat(result).isNotNull();
-    }
-
     @Test
     public void shouldUpdateOrder() {
         Long orderId = 1L;
@@ -80,7 +81,7 @@ public class OrderServiceTest {
 
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(orderId);
-        assertThat(result.getTotalAmount()).isEqualTo(100.00);
+        assertThat(result.getTotalAmount()).isEqualByComparingTo("100.00");
     }
 
     @Test
@@ -91,4 +92,4 @@ public class OrderServiceTest {
 
         verify(orderRepository, times(1)).deleteById(orderId);
     }
-}
\ No newline at end of file
+}
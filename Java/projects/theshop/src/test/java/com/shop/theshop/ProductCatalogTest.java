@@ -0,0 +1,113 @@
+package com.shop.theshop;
+
+import com.shop.theshop.dto.CatalogStats;
+import com.shop.theshop.dto.ProductSummary;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.repositories.ProductRepository;
+import com.shop.theshop.services.ProductCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final List<ProductSummary> products = List.of(
+            product(1L, 30.0, 1L),
+            product(2L, 10.0, 2L),
+            product(3L, 20.0, 1L),
+            product(4L, 5.0, 1L));
+
+    @Test
+    public void shouldServeCategoryPagesSortedByPriceWithoutDatabase() {
+        ProductCatalog catalog = warmedCatalog(100);
+
+        CursorPage<ProductSummary> first = catalog.browse(1L, false, null, 2);
+        CursorPage<ProductSummary> second = catalog.browse(1L, false, first.nextCursor(), 2);
+
+        assertThat(first.items()).extracting(ProductSummary::id).containsExactly(4L, 3L);
+        assertThat(second.items()).extracting(ProductSummary::id).containsExactly(1L);
+        assertThat(second.nextCursor()).isNull();
+        verify(productRepository, never()).findSummariesByCategory(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void shouldServeDescendingView() {
+        ProductCatalog catalog = warmedCatalog(100);
+
+        CursorPage<ProductSummary> page = catalog.browse(null, true, null, 3);
+
+        assertThat(page.items()).extracting(ProductSummary::id).containsExactly(1L, 3L, 2L);
+        assertThat(page.nextCursor()).isEqualTo(3L);
+    }
+
+    @Test
+    public void shouldApplyUpdatesAndDeletesToViews() {
+        ProductCatalog catalog = warmedCatalog(100);
+
+        catalog.put(product(1L, 1.0, 1L));
+        catalog.evict(4L);
+
+        assertThat(catalog.browse(1L, false, null, 10).items()).extracting(ProductSummary::id).containsExactly(1L, 3L);
+        assertThat(catalog.find(4L)).isEmpty();
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        ProductCatalog catalog = warmedCatalog(100);
+        when(productRepository.findSummaryById(9L)).thenReturn(Optional.empty());
+
+        catalog.find(1L);
+        catalog.find(2L);
+        catalog.find(3L);
+        catalog.find(9L);
+
+        CatalogStats stats = catalog.getStats();
+        assertThat(stats.hits()).isEqualTo(3);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.hitRatio()).isEqualTo(0.75);
+        assertThat(stats.categories()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFallBackToDatabaseWhenCatalogExceedsCache() {
+        ProductCatalog catalog = warmedCatalog(2);
+        when(productRepository.findSummariesByCategory(eq(1L), any(Pageable.class))).thenReturn(List.of());
+
+        catalog.browse(1L, false, null, 10);
+
+        assertThat(catalog.getStats().complete()).isFalse();
+        assertThat(catalog.getStats().products()).isEqualTo(2);
+        verify(productRepository).findSummariesByCategory(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    public void shouldRejectPageSizeAboveLimit() {
+        ProductCatalog catalog = warmedCatalog(100);
+
+        assertThatThrownBy(() -> catalog.browse(null, false, null, 101)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ProductCatalog warmedCatalog(int maxProducts) {
+        when(productRepository.findSummariesAfter(eq(0L), any(Pageable.class))).thenReturn(products);
+        ProductCatalog catalog = new ProductCatalog(productRepository, maxProducts, 100, 1000);
+        catalog.refresh();
+        return catalog;
+    }
+
+    private static ProductSummary product(Long id, double price, Long categoryId) {
+        return new ProductSummary(id, "Produit " + id, null, price, categoryId, "Catégorie " + categoryId);
+    }
+}
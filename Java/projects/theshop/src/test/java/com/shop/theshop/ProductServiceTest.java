@@ -1,33 +1,47 @@
 package com.shop.theshop;
 
+import com.shop.theshop.dto.ProductSummary;
 import com.shop.theshop.entities.Product;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.ProductRepository;
+import com.shop.theshop.services.ProductCatalog;
 import com.shop.theshop.services.ProductService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-@SpringBootTest
+@ExtendWith(MockitoExtension.class)
 public class ProductServiceTest {
 
-    @Autowired
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private KeysetPager keysetPager;
+
     private ProductService productService;
 
-    @MockBean
-    private ProductRepository productRepository;
+    @BeforeEach
+    public void setUp() {
+        // Catalogue non chargé : les lectures passent par le dépôt
+        productService = new ProductService(productRepository, keysetPager,
+                new ProductCatalog(productRepository, 100, 100, 1000));
+    }
 
     @Test
     public void shouldGetProductById() {
         // Given
         long productId = 1L;
-        Product mockProduct = new Product("Test Product", "Description", 29.99);
-        when(productRepository.findById(productId)).thenReturn(Optional.of(mockProduct));
+        ProductSummary mockProduct = new ProductSummary(productId, "Test Product", "Description", 29.99, 3L, "Livres");
+        when(productRepository.findSummaryById(productId)).thenReturn(Optional.of(mockProduct));
 
         // When
         Product retrievedProduct = productService.getProductById(productId);
@@ -37,6 +51,9 @@ public class ProductServiceTest {
         assertThat(retrievedProduct.getName()).isEqualTo("Test Product");
         assertThat(retrievedProduct.getDescription()).isEqualTo("Description");
         assertThat(retrievedProduct.getPrice()).isEqualTo(29.99);
+        assertThat(retrievedProduct.getCategory()).isNotNull();
+        assertThat(retrievedProduct.getCategory().getId()).isEqualTo(3L);
+        assertThat(retrievedProduct.getCategory().getName()).isEqualTo("Livres");
     }
 
     @Test
@@ -57,6 +74,7 @@ public class ProductServiceTest {
         long productId = 1L;
         Product existingProduct = new Product("Existing Product", "Description", 29.99);
         when(productRepository.findById(productId)).thenReturn(Optional.of(existingProduct));
+        when(productRepository.save(existingProduct)).thenReturn(existingProduct);
 
         Product updatedProduct = new Product("Updated Product", "Updated Description", 39.99);
 
@@ -71,10 +89,9 @@ public class ProductServiceTest {
     @Test
     public void shouldDeleteProduct() {
         long productId = 1L;
-        Product existingProduct = new Product("Existing Product", "Description", 29.99);
-        when(productRepository.findById(productId)).thenReturn(Optional.of(existingProduct));
 
         productService.deleteProduct(productId);
 
+        verify(productRepository).deleteById(productId);
     }
 }
\ No newline at end of file
@@ -1,12 +1,15 @@
 package com.shop.theshop;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.theshop.controller.ShippingController;
+import com.shop.theshop.dto.ShippingSummary;
 import com.shop.theshop.entities.Shipping;
+import com.shop.theshop.paging.CursorPage;
 import com.shop.theshop.services.ShippingService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,8 +20,8 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
-@AutoConfigureMockMvc
+@WebMvcTest(ShippingController.class)
+@AutoConfigureMockMvc(addFilters = false) // Sécurité par défaut de Spring Boot : hors du périmètre du contrôleur
 public class ShippingControllerTest {
 
     @Autowired
@@ -31,12 +34,12 @@ public class ShippingControllerTest {
     private ShippingService shippingService;
 
     @Test
-    public void shouldGetAllShipping() throws Exception {
-        Shipping shipping1 = new Shipping();
-        Shipping shipping2 = new Shipping();
-        List<Shipping> shippingList = Arrays.asList(shipping1, shipping2);
+    public void shouldGetShippingPage() throws Exception {
+        ShippingSummary shipping1 = new ShippingSummary(1L, 1L, "TRACK1", "SHIPPED");
+        ShippingSummary shipping2 = new ShippingSummary(2L, 2L, "TRACK2", "PENDING");
+        List<ShippingSummary> shippingList = Arrays.asList(shipping1, shipping2);
 
-        when(shippingService.getAllShipping()).thenReturn(shippingList);
+        when(shippingService.getShippingPage(null, 20)).thenReturn(new CursorPage<>(shippingList, null));
 
         mockMvc.perform(get("/shipping"))
                 .andExpect(status().isOk())
@@ -44,6 +47,15 @@ public class ShippingControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    public void shouldRejectPageSizeOutOfRange() throws Exception {
+        when(shippingService.getShippingPage(null, 1000))
+                .thenThrow(new IllegalArgumentException("La taille de page doit être comprise entre 1 et 100"));
+
+        mockMvc.perform(get("/shipping").param("size", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void shouldGetShippingById() throws Exception {
         Long shippingId = 1L;
@@ -79,6 +91,8 @@ public class ShippingControllerTest {
         Long shippingId = 1L;
         Shipping existingShipping = new Shipping();
         existingShipping.setId(shippingId);
+        existingShipping.setTrackingNumber("XYZ789");
+        existingShipping.setShippingStatus("In Transit");
 
         Shipping updatedShipping = new Shipping();
         updatedShipping.setTrackingNumber("XYZ789");
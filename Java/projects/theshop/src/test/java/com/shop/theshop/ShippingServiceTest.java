@@ -1,12 +1,19 @@
 package com.shop.theshop;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.theshop.dto.ShippingSummary;
 import com.shop.theshop.entities.Shipping;
+import com.shop.theshop.paging.CursorPage;
+import com.shop.theshop.paging.KeysetPager;
 import com.shop.theshop.repositories.ShippingRepository;
 import com.shop.theshop.services.ShippingService;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.util.Arrays;
 import java.util.List;
@@ -15,27 +22,32 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
-@SpringBootTest
+@ExtendWith(MockitoExtension.class)
 public class ShippingServiceTest {
 
-    @Autowired
-    private ShippingService shippingService;
-
-    @MockBean
+    @Mock
     private ShippingRepository shippingRepository;
 
+    @Spy
+    private KeysetPager keysetPager = new KeysetPager(new ObjectMapper(), 100, 500);
+
+    @InjectMocks
+    private ShippingService shippingService;
+
     @Test
-    public void shouldGetAllShipping() {
-        Shipping shipping1 = new Shipping();
-        Shipping shipping2 = new Shipping();
-        List<Shipping> shippingList = Arrays.asList(shipping1, shipping2);
+    public void shouldGetShippingPageAfterCursor() {
+        ShippingSummary shipping1 = new ShippingSummary(11L, 1L, "TRACK11", "SHIPPED");
+        ShippingSummary shipping2 = new ShippingSummary(12L, 2L, "TRACK12", "PENDING");
+        List<ShippingSummary> shippingList = Arrays.asList(shipping1, shipping2);
 
-        when(shippingRepository.findAll()).thenReturn(shippingList);
+        when(shippingRepository.findSummariesAfter(eq(10L), any(Pageable.class))).thenReturn(shippingList);
 
-        List<Shipping> result = shippingService.getAllShipping();
+        CursorPage<ShippingSummary> result = shippingService.getShippingPage(10L, 20);
 
-        assertThat(result).hasSize(2);
-        verify(shippingRepository, times(1)).findAll();
+        assertThat(result.items()).hasSize(2);
+        assertThat(result.nextCursor()).isNull();
+        verify(shippingRepository, times(1)).findSummariesAfter(eq(10L), any(Pageable.class));
+        verify(shippingRepository, never()).findAll();
     }
 
     @Test